@@ -0,0 +1,102 @@
+package com.example.product.client;
+
+import com.example.product.client.model.ProductSummary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Объединяет одиночные запросы продуктов по ID, пришедшие в течение короткого окна,
+ * в один пакетный запрос. Повторные запросы одного ID внутри окна получают общий результат.
+ */
+@Slf4j
+class BulkLookupCoalescer {
+
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Function<List<Long>, Map<Long, ProductSummary>> bulkLoader;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private final Object lock = new Object();
+    private Map<Long, CompletableFuture<Optional<ProductSummary>>> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    BulkLookupCoalescer(Duration window,
+                        int maxBatchSize,
+                        Function<List<Long>, Map<Long, ProductSummary>> bulkLoader,
+                        ScheduledExecutorService scheduler,
+                        Executor executor) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.bulkLoader = bulkLoader;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    CompletableFuture<Optional<ProductSummary>> get(Long id) {
+        CompletableFuture<Optional<ProductSummary>> future;
+        Map<Long, CompletableFuture<Optional<ProductSummary>>> fullBatch = null;
+
+        synchronized (lock) {
+            future = pending.get(id);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            pending.put(id, future);
+
+            if (pending.size() >= maxBatchSize) {
+                // Пакет заполнен - отправляем сразу, не дожидаясь окна
+                fullBatch = takePending();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                scheduler.schedule(this::flushScheduled, window.toNanos(), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        if (fullBatch != null) {
+            Map<Long, CompletableFuture<Optional<ProductSummary>>> batch = fullBatch;
+            executor.execute(() -> load(batch));
+        }
+        return future;
+    }
+
+    private void flushScheduled() {
+        Map<Long, CompletableFuture<Optional<ProductSummary>>> batch;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        executor.execute(() -> load(batch));
+    }
+
+    private Map<Long, CompletableFuture<Optional<ProductSummary>>> takePending() {
+        Map<Long, CompletableFuture<Optional<ProductSummary>>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    private void load(Map<Long, CompletableFuture<Optional<ProductSummary>>> batch) {
+        try {
+            Map<Long, ProductSummary> found = bulkLoader.apply(new ArrayList<>(batch.keySet()));
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(found.get(id))));
+            log.debug("Пакетный запрос продуктов: {} ID, найдено {}", batch.size(), found.size());
+        } catch (Exception e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+}
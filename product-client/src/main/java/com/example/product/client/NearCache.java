@@ -0,0 +1,74 @@
+package com.example.product.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+
+/**
+ * Локальный кэш ответов сервиса продуктов. Срок жизни каждой записи берется из
+ * Cache-Control: max-age ответа, без заголовка - значение по умолчанию.
+ */
+class NearCache {
+
+    private final Cache<String, Entry> entries;
+
+    NearCache(long maximumSize) {
+        this(maximumSize, Ticker.systemTicker());
+    }
+
+    NearCache(long maximumSize, Ticker ticker) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .ticker(ticker)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return entry.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttl().toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return entry != null ? (T) entry.value() : null;
+    }
+
+    void put(String key, Object value, Duration ttl) {
+        if (ttl.isZero() || ttl.isNegative()) {
+            entries.invalidate(key);
+            return;
+        }
+        entries.put(key, new Entry(value, ttl));
+    }
+
+    void invalidate(String key) {
+        entries.invalidate(key);
+    }
+
+    void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    double hitRate() {
+        return entries.stats().hitRate();
+    }
+
+    private record Entry(Object value, Duration ttl) {
+    }
+}
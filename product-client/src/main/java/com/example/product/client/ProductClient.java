@@ -0,0 +1,424 @@
+package com.example.product.client;
+
+import com.example.product.client.model.BrandSummary;
+import com.example.product.client.model.BulkLookupResult;
+import com.example.product.client.model.CategoryNode;
+import com.example.product.client.model.ProductDetails;
+import com.example.product.client.model.ProductSummary;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Типизированный клиент API продуктов, категорий и брендов.
+ * <ul>
+ *     <li>общий пул keep-alive соединений на весь клиент;</li>
+ *     <li>локальный кэш карточек, дерева категорий и брендов со сроком жизни из Cache-Control: max-age;</li>
+ *     <li>одиночные запросы {@link #getSummary(Long)} в пределах короткого окна объединяются
+ *     в один POST /api/products/bulk.</li>
+ * </ul>
+ * Экземпляр потокобезопасен и рассчитан на один на приложение; после использования - {@link #close()}.
+ */
+@Slf4j
+public class ProductClient implements AutoCloseable {
+
+    private static final String SMILE = "application/x-jackson-smile";
+    private static final String JSON = "application/json";
+    private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final Duration defaultTtl;
+    private final boolean preferSmile;
+    private final int maxBulkSize;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+    private final NearCache nearCache;
+    private final Map<Long, String> slugIndex = new ConcurrentHashMap<>();
+    private final BulkLookupCoalescer coalescer;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+
+    private ProductClient(Builder builder) {
+        this.baseUri = URI.create(builder.baseUrl.endsWith("/") ? builder.baseUrl : builder.baseUrl + "/");
+        this.requestTimeout = builder.requestTimeout;
+        this.defaultTtl = builder.defaultTtl;
+        this.preferSmile = builder.preferSmile;
+        this.maxBulkSize = builder.maxBulkSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "product-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-client-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(builder.connectTimeout)
+                // Внутри кластера - обычный HTTP: keep-alive без попыток апгрейда до h2c
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(executor)
+                .build();
+        this.jsonMapper = configure(new ObjectMapper());
+        this.smileMapper = configure(new SmileMapper());
+        this.nearCache = new NearCache(builder.nearCacheSize);
+        this.coalescer = new BulkLookupCoalescer(builder.batchWindow, maxBulkSize,
+                this::loadSummaries, scheduler, executor);
+    }
+
+    public static Builder builder(String baseUrl) {
+        return new Builder(baseUrl);
+    }
+
+    /**
+     * Карточка продукта по ID (из локального кэша, пока не истек max-age)
+     */
+    public Optional<ProductDetails> getProduct(Long id) {
+        Optional<ProductDetails> product = cachedGet("product:" + id, "api/products/" + id,
+                typeOf(ProductDetails.class));
+        product.ifPresent(details -> slugIndex.put(id, details.getSlug()));
+        return product;
+    }
+
+    /**
+     * Карточка продукта по slug
+     */
+    public Optional<ProductDetails> getProductBySlug(String slug) {
+        Optional<ProductDetails> product = cachedGet("product-slug:" + slug, "api/products/slug/" + encode(slug),
+                typeOf(ProductDetails.class));
+        product.ifPresent(details -> slugIndex.put(details.getId(), slug));
+        return product;
+    }
+
+    /**
+     * Краткие данные продукта по ID. Одновременные вызовы объединяются в пакетный запрос.
+     */
+    public Optional<ProductSummary> getSummary(Long id) {
+        return join(getSummaryAsync(id));
+    }
+
+    public CompletableFuture<Optional<ProductSummary>> getSummaryAsync(Long id) {
+        return coalescer.get(id);
+    }
+
+    /**
+     * Пакетный запрос по ID, slug и SKU одним вызовом; большие списки разбиваются на части.
+     * Продукт, найденный по нескольким ключам (в том числе в разных частях), возвращается один раз.
+     */
+    public BulkLookupResult getSummaries(Collection<Long> ids, Collection<String> slugs, Collection<String> skus) {
+        List<Long> idKeys = distinct(ids);
+        List<String> slugKeys = distinct(slugs);
+        List<String> skuKeys = distinct(skus);
+        int total = idKeys.size() + slugKeys.size() + skuKeys.size();
+        if (total <= maxBulkSize) {
+            return bulk(idKeys, slugKeys, skuKeys);
+        }
+
+        // Части заполняются ключами подряд, без разделения по типу - меньше запросов
+        Map<Long, ProductSummary> products = new LinkedHashMap<>();
+        BulkLookupResult result = BulkLookupResult.builder().build();
+        for (int from = 0; from < total; from += maxBulkSize) {
+            int to = Math.min(from + maxBulkSize, total);
+            BulkLookupResult part = bulk(slice(idKeys, from, to, 0),
+                    slice(slugKeys, from, to, idKeys.size()),
+                    slice(skuKeys, from, to, idKeys.size() + slugKeys.size()));
+            part.getProducts().forEach(summary -> products.putIfAbsent(summary.getId(), summary));
+            result.getMissingIds().addAll(part.getMissingIds());
+            result.getMissingSlugs().addAll(part.getMissingSlugs());
+            result.getMissingSkus().addAll(part.getMissingSkus());
+        }
+        result.getProducts().addAll(products.values());
+        return result;
+    }
+
+    public List<CategoryNode> getCategoryTree() {
+        return this.<List<CategoryNode>>cachedGet("categories:tree", "api/categories/public/tree",
+                        jsonMapper.getTypeFactory().constructType(new TypeReference<List<CategoryNode>>() { }))
+                .orElse(List.of());
+    }
+
+    public List<BrandSummary> getActiveBrands() {
+        return this.<List<BrandSummary>>cachedGet("brands:active", "api/products/public/brands",
+                        jsonMapper.getTypeFactory().constructType(new TypeReference<List<BrandSummary>>() { }))
+                .orElse(List.of());
+    }
+
+    /**
+     * Сбросить локальную копию продукта (например, по событию изменения из другого канала)
+     */
+    public void invalidateProduct(Long id) {
+        nearCache.invalidate("product:" + id);
+        // Та же карточка могла быть закэширована и по slug
+        String slug = slugIndex.remove(id);
+        if (slug != null) {
+            nearCache.invalidate("product-slug:" + slug);
+        }
+    }
+
+    public void invalidateAll() {
+        nearCache.invalidateAll();
+        slugIndex.clear();
+    }
+
+    public double nearCacheHitRate() {
+        return nearCache.hitRate();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private <T> Optional<T> cachedGet(String cacheKey, String path, JavaType type) {
+        T cached = nearCache.get(cacheKey);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        HttpRequest request = requestBuilder(path).GET().build();
+        HttpResponse<byte[]> response = send(request);
+
+        if (response.statusCode() == 404) {
+            nearCache.invalidate(cacheKey);
+            return Optional.empty();
+        }
+        T value = read(response, type);
+        nearCache.put(cacheKey, value, ttlOf(response));
+        return Optional.of(value);
+    }
+
+    private Map<Long, ProductSummary> loadSummaries(List<Long> ids) {
+        Map<Long, ProductSummary> found = new HashMap<>();
+        for (ProductSummary summary : bulk(ids, null, null).getProducts()) {
+            found.put(summary.getId(), summary);
+        }
+        return found;
+    }
+
+    private BulkLookupResult bulk(Collection<Long> ids, Collection<String> slugs, Collection<String> skus) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("ids", ids);
+        body.put("slugs", slugs);
+        body.put("skus", skus);
+
+        byte[] payload;
+        try {
+            payload = jsonMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new ProductClientException("Не удалось сериализовать пакетный запрос", e);
+        }
+
+        HttpRequest request = requestBuilder("api/products/bulk")
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                .build();
+        return read(send(request), typeOf(BulkLookupResult.class));
+    }
+
+    private HttpRequest.Builder requestBuilder(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(requestTimeout)
+                .header("Accept", preferSmile ? SMILE + ", " + JSON + ";q=0.9" : JSON);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) {
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new ProductClientException("Ошибка запроса " + request.method() + " " + request.uri(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProductClientException("Запрос прерван: " + request.uri(), e);
+        }
+
+        int status = response.statusCode();
+        if (status != 404 && (status < 200 || status >= 300)) {
+            throw new ProductClientException("Сервис продуктов вернул " + status + " для "
+                    + request.method() + " " + request.uri(), status);
+        }
+        return response;
+    }
+
+    private <T> T read(HttpResponse<byte[]> response, JavaType type) {
+        boolean smile = response.headers().firstValue("Content-Type")
+                .map(contentType -> contentType.startsWith(SMILE))
+                .orElse(false);
+        try {
+            return (smile ? smileMapper : jsonMapper).readValue(response.body(), type);
+        } catch (IOException e) {
+            throw new ProductClientException("Некорректный ответ " + response.uri(), e);
+        }
+    }
+
+    /**
+     * Срок жизни записи по Cache-Control: no-store/no-cache - не кэшировать, max-age - в секундах
+     */
+    private Duration ttlOf(HttpResponse<?> response) {
+        Optional<String> cacheControl = response.headers().firstValue("Cache-Control");
+        if (cacheControl.isEmpty()) {
+            return defaultTtl;
+        }
+        String value = cacheControl.get().toLowerCase();
+        if (value.contains("no-store") || value.contains("no-cache")) {
+            return Duration.ZERO;
+        }
+        Matcher matcher = MAX_AGE.matcher(value);
+        return matcher.find() ? Duration.ofSeconds(Long.parseLong(matcher.group(1))) : defaultTtl;
+    }
+
+    /**
+     * Ключи одного типа, попадающие в часть [from, to) общей последовательности
+     * (ID, затем slug, затем SKU); offset - позиция первого ключа этого типа
+     */
+    private static <T> List<T> slice(List<T> keys, int from, int to, int offset) {
+        int start = Math.max(from - offset, 0);
+        int end = Math.min(to - offset, keys.size());
+        return start < end ? keys.subList(start, end) : null;
+    }
+
+    private <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get(requestTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProductClientException("Запрос прерван", e);
+        } catch (ExecutionException | CompletionException e) {
+            if (e.getCause() instanceof ProductClientException clientException) {
+                throw clientException;
+            }
+            throw new ProductClientException("Ошибка пакетного запроса", e.getCause());
+        } catch (TimeoutException e) {
+            throw new ProductClientException("Превышено время ожидания пакетного запроса", e);
+        }
+    }
+
+    private JavaType typeOf(Class<?> type) {
+        return jsonMapper.getTypeFactory().constructType(type);
+    }
+
+    private static <T> List<T> distinct(Collection<T> values) {
+        if (values == null) {
+            return List.of();
+        }
+        List<T> keys = new ArrayList<>(new LinkedHashSet<>(values));
+        keys.remove(null);
+        return keys;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private static <M extends ObjectMapper> M configure(M mapper) {
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        return mapper;
+    }
+
+    public static class Builder {
+        private final String baseUrl;
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        private Duration requestTimeout = Duration.ofSeconds(5);
+        private Duration defaultTtl = Duration.ofSeconds(30);
+        private Duration batchWindow = Duration.ofMillis(2);
+        private int maxBulkSize = 500;
+        private long nearCacheSize = 10_000;
+        private boolean preferSmile = true;
+
+        private Builder(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public Builder connectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        public Builder requestTimeout(Duration requestTimeout) {
+            this.requestTimeout = requestTimeout;
+            return this;
+        }
+
+        /**
+         * Срок жизни записи локального кэша, если в ответе нет Cache-Control
+         */
+        public Builder defaultTtl(Duration defaultTtl) {
+            this.defaultTtl = defaultTtl;
+            return this;
+        }
+
+        /**
+         * Окно, в течение которого одиночные запросы собираются в пакет
+         */
+        public Builder batchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+            return this;
+        }
+
+        public Builder maxBulkSize(int maxBulkSize) {
+            this.maxBulkSize = maxBulkSize;
+            return this;
+        }
+
+        public Builder nearCacheSize(long nearCacheSize) {
+            this.nearCacheSize = nearCacheSize;
+            return this;
+        }
+
+        /**
+         * Запрашивать Smile вместо JSON (меньше объем и дешевле разбор)
+         */
+        public Builder preferSmile(boolean preferSmile) {
+            this.preferSmile = preferSmile;
+            return this;
+        }
+
+        public ProductClient build() {
+            return new ProductClient(this);
+        }
+    }
+}
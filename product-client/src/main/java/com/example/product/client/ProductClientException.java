@@ -0,0 +1,26 @@
+package com.example.product.client;
+
+/**
+ * Ошибка обращения к сервису продуктов (сеть, неожиданный статус, некорректный ответ)
+ */
+public class ProductClientException extends RuntimeException {
+
+    private final int status;
+
+    public ProductClientException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public ProductClientException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = -1;
+    }
+
+    /**
+     * HTTP-статус ответа или -1, если ответ не получен
+     */
+    public int getStatus() {
+        return status;
+    }
+}
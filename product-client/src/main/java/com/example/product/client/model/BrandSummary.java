@@ -0,0 +1,24 @@
+package com.example.product.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BrandSummary {
+    private Long id;
+    private String name;
+    private String slug;
+    private String bannerUrl;
+    private boolean active;
+    private boolean premium;
+    private String country;
+    private Integer productCount;
+    private Integer sortOrder;
+}
@@ -0,0 +1,29 @@
+package com.example.product.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ответ POST /api/products/bulk: найденные продукты в порядке запроса и ненайденные ключи
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkLookupResult {
+    @Builder.Default
+    private List<ProductSummary> products = new ArrayList<>();
+    @Builder.Default
+    private List<Long> missingIds = new ArrayList<>();
+    @Builder.Default
+    private List<String> missingSlugs = new ArrayList<>();
+    @Builder.Default
+    private List<String> missingSkus = new ArrayList<>();
+}
@@ -0,0 +1,25 @@
+package com.example.product.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Категория; в дереве категорий заполнены дочерние узлы
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CategoryNode {
+    private Long id;
+    private String name;
+    private String slug;
+    private Integer productCount;
+    private List<CategoryNode> children;
+}
@@ -0,0 +1,40 @@
+package com.example.product.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Карточка продукта из GET /api/products/{id}; поля, неизвестные клиенту, игнорируются
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductDetails {
+    private Long id;
+    private String name;
+    private String description;
+    private String sku;
+    private String slug;
+    private List<CategoryNode> categories;
+    private BrandSummary brand;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private Double weight;
+    private Double height;
+    private Double width;
+    private Double depth;
+    private String status;
+    private boolean featured;
+    private String mainImageUrl;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
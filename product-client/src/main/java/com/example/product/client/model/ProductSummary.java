@@ -0,0 +1,28 @@
+package com.example.product.client.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Компактное представление продукта из POST /api/products/bulk
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductSummary {
+    private Long id;
+    private String sku;
+    private String slug;
+    private String name;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private String status;
+    private String mainImageUrl;
+}
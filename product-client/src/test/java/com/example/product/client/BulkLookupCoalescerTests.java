@@ -0,0 +1,98 @@
+package com.example.product.client;
+
+import com.example.product.client.model.ProductSummary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Объединение одиночных запросов в пакет: окно, заполненный пакет, ошибка пакетного запроса
+ */
+class BulkLookupCoalescerTests {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<List<Long>> batches = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void lookupsWithinWindowShareOneBatch() throws Exception {
+        BulkLookupCoalescer coalescer = coalescer(Duration.ofMillis(50), 100, this::found);
+
+        CompletableFuture<Optional<ProductSummary>> first = coalescer.get(1L);
+        CompletableFuture<Optional<ProductSummary>> second = coalescer.get(2L);
+        CompletableFuture<Optional<ProductSummary>> repeated = coalescer.get(1L);
+
+        assertSame(first, repeated);
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertEquals(2L, second.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        assertEquals(List.of(List.of(1L, 2L)), batches);
+    }
+
+    @Test
+    void fullBatchIsSentWithoutWaitingForWindow() {
+        BulkLookupCoalescer coalescer = coalescer(Duration.ofHours(1), 2, this::found);
+
+        CompletableFuture<Optional<ProductSummary>> first = coalescer.get(1L);
+        CompletableFuture<Optional<ProductSummary>> second = coalescer.get(2L);
+
+        assertTrue(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(List.of(List.of(1L, 2L)), batches);
+    }
+
+    @Test
+    void missingProductIsEmpty() throws Exception {
+        BulkLookupCoalescer coalescer = coalescer(Duration.ofMillis(10), 100, ids -> Map.of());
+
+        assertEquals(Optional.empty(), coalescer.get(7L).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void batchFailureFailsEveryWaiter() {
+        ProductClientException failure = new ProductClientException("Сервис продуктов вернул 503", 503);
+        BulkLookupCoalescer coalescer = coalescer(Duration.ofHours(1), 2, ids -> {
+            throw failure;
+        });
+
+        CompletableFuture<Optional<ProductSummary>> first = coalescer.get(1L);
+        CompletableFuture<Optional<ProductSummary>> second = coalescer.get(2L);
+
+        assertSame(failure, assertThrows(ExecutionException.class, first::get).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, second::get).getCause());
+    }
+
+    private BulkLookupCoalescer coalescer(Duration window, int maxBatchSize,
+                                          Function<List<Long>, Map<Long, ProductSummary>> loader) {
+        return new BulkLookupCoalescer(window, maxBatchSize, ids -> {
+            batches.add(ids);
+            return loader.apply(ids);
+        }, scheduler, Runnable::run);
+    }
+
+    private Map<Long, ProductSummary> found(List<Long> ids) {
+        Map<Long, ProductSummary> found = new HashMap<>();
+        ids.forEach(id -> found.put(id, ProductSummary.builder().id(id).build()));
+        return found;
+    }
+}
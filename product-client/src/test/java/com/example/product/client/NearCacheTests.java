@@ -0,0 +1,57 @@
+package com.example.product.client;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Срок жизни записей локального кэша по max-age ответа
+ */
+class NearCacheTests {
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final NearCache cache = new NearCache(100, (Ticker) nanos::get);
+
+    @Test
+    void entryExpiresAfterItsOwnTtl() {
+        cache.put("short", "a", Duration.ofSeconds(5));
+        cache.put("long", "b", Duration.ofSeconds(60));
+
+        advance(Duration.ofSeconds(4));
+        assertEquals("a", cache.get("short"));
+
+        advance(Duration.ofSeconds(2));
+        assertNull(cache.get("short"));
+        assertEquals("b", cache.get("long"));
+    }
+
+    @Test
+    void readsDoNotExtendTtl() {
+        cache.put("key", "a", Duration.ofSeconds(5));
+
+        for (int i = 0; i < 5; i++) {
+            advance(Duration.ofSeconds(1));
+            cache.get("key");
+        }
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    void zeroTtlDropsPreviousEntry() {
+        cache.put("key", "a", Duration.ofSeconds(60));
+
+        cache.put("key", "b", Duration.ZERO);
+
+        assertNull(cache.get("key"));
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+}
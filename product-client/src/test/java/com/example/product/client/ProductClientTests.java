@@ -0,0 +1,171 @@
+package com.example.product.client;
+
+import com.example.product.client.model.BulkLookupResult;
+import com.example.product.client.model.ProductSummary;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Клиент против локального HTTP-сервера: кэширование по Cache-Control, передача ошибок,
+ * разбиение пакетного запроса
+ */
+class ProductClientTests {
+
+    private static final int MAX_BULK_SIZE = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger productRequests = new AtomicInteger();
+    private final List<Map<String, List<Object>>> bulkRequests = new ArrayList<>();
+    private volatile String cacheControl = "max-age=60";
+    private volatile int bulkStatus = 200;
+
+    private HttpServer server;
+    private ProductClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/products/1", exchange -> {
+            productRequests.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+            respond(exchange, 200, Map.of("id", 1, "slug", "p-1", "name", "Кроссовки"));
+        });
+        server.createContext("/api/products/2", exchange -> respond(exchange, 503, Map.of()));
+        server.createContext("/api/products/bulk", this::bulk);
+        server.start();
+
+        client = ProductClient.builder("http://127.0.0.1:" + server.getAddress().getPort())
+                .maxBulkSize(MAX_BULK_SIZE)
+                .batchWindow(Duration.ofMillis(5))
+                .preferSmile(false)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+    }
+
+    @Test
+    void cardIsServedFromNearCacheUntilMaxAge() {
+        assertEquals("Кроссовки", client.getProduct(1L).orElseThrow().getName());
+        assertEquals("Кроссовки", client.getProduct(1L).orElseThrow().getName());
+
+        assertEquals(1, productRequests.get());
+    }
+
+    @Test
+    void noStoreResponseIsNotCached() {
+        cacheControl = "no-store";
+
+        client.getProduct(1L);
+        client.getProduct(1L);
+
+        assertEquals(2, productRequests.get());
+    }
+
+    @Test
+    void invalidatedCardIsFetchedAgain() {
+        client.getProduct(1L);
+
+        client.invalidateProduct(1L);
+        client.getProduct(1L);
+
+        assertEquals(2, productRequests.get());
+    }
+
+    @Test
+    void errorStatusIsPropagated() {
+        ProductClientException error = assertThrows(ProductClientException.class, () -> client.getProduct(2L));
+
+        assertEquals(503, error.getStatus());
+    }
+
+    @Test
+    void batchErrorReachesSingleLookup() {
+        bulkStatus = 500;
+
+        ProductClientException error = assertThrows(ProductClientException.class, () -> client.getSummary(1L));
+
+        assertEquals(500, error.getStatus());
+    }
+
+    @Test
+    void productFoundByIdAndSlugInDifferentPartsIsReturnedOnce() {
+        BulkLookupResult result = client.getSummaries(List.of(1L, 2L, 1L), List.of("p-1", "p-3"), List.of());
+
+        assertEquals(List.of(1L, 2L, 3L), result.getProducts().stream().map(ProductSummary::getId).toList());
+        // Повторный ID не отправляется, части заполняются ключами разных типов
+        assertEquals(2, bulkRequests.size());
+        assertEquals(List.of(1, 2), bulkRequests.get(0).get("ids"));
+        assertEquals(List.of("p-1", "p-3"), bulkRequests.get(1).get("slugs"));
+    }
+
+    @Test
+    void partsMixKeyTypes() {
+        BulkLookupResult result = client.getSummaries(List.of(1L), List.of("p-2", "p-4"), List.of("missing"));
+
+        assertEquals(List.of(1L, 2L, 4L), result.getProducts().stream().map(ProductSummary::getId).toList());
+        assertEquals(List.of("missing"), result.getMissingSkus());
+        assertEquals(2, bulkRequests.size());
+        assertEquals(List.of("p-2"), bulkRequests.get(0).get("slugs"));
+    }
+
+    /**
+     * Как и сервис: продукт, найденный по нескольким ключам одного запроса, возвращается один раз
+     */
+    @SuppressWarnings("unchecked")
+    private void bulk(HttpExchange exchange) throws IOException {
+        Map<String, List<Object>> request = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+        synchronized (bulkRequests) {
+            bulkRequests.add(request);
+        }
+        if (bulkStatus != 200) {
+            respond(exchange, bulkStatus, Map.of());
+            return;
+        }
+
+        Map<Long, Map<String, Object>> products = new LinkedHashMap<>();
+        List<Object> missingSkus = new ArrayList<>();
+        for (Object id : keys(request, "ids")) {
+            long productId = ((Number) id).longValue();
+            products.putIfAbsent(productId, Map.of("id", productId, "slug", "p-" + productId));
+        }
+        for (Object slug : keys(request, "slugs")) {
+            long productId = Long.parseLong(((String) slug).substring(2));
+            products.putIfAbsent(productId, Map.of("id", productId, "slug", slug));
+        }
+        missingSkus.addAll(keys(request, "skus"));
+        respond(exchange, 200, Map.of("products", products.values(), "missingSkus", missingSkus));
+    }
+
+    private static List<Object> keys(Map<String, List<Object>> request, String name) {
+        List<Object> keys = request.get(name);
+        return keys != null ? keys : List.of();
+    }
+
+    private void respond(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, payload.length);
+        exchange.getResponseBody().write(payload);
+        exchange.close();
+    }
+}
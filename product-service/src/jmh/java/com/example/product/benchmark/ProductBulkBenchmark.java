@@ -0,0 +1,138 @@
+package com.example.product.benchmark;
+
+import com.example.product.dto.Product.ProductBulkRequest;
+import com.example.product.dto.Product.ProductBulkResponse;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.serviceImpl.ProductBulkServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пакетный поиск продуктов на размерах 1, 100 и 1000 идентификаторов (как теги метрики
+ * product.bulk.lookup): один запрос findProducts против поштучных запросов, которыми корзина
+ * и заказы собирали продукты раньше. Репозиторий отдает готовые строки из памяти, поэтому
+ * сравнивается только работа сервиса; число обращений к БД на операцию печатается при запуске.
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.include=ProductBulkBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProductBulkBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int size;
+
+    private ProductBulkServiceImpl service;
+    private ProductBulkRequest bulkRequest;
+    private List<ProductBulkRequest> singleRequests;
+    private int queries;
+
+    @Setup
+    public void setUp() {
+        Map<Long, Object[]> byId = new HashMap<>();
+        Map<String, Object[]> bySlug = new HashMap<>();
+        Map<String, Object[]> bySku = new HashMap<>();
+        for (long id = 1; id <= size; id++) {
+            Object[] row = {id, "SKU-" + id, "product-" + id, "Продукт " + id, BigDecimal.valueOf(100 + id),
+                    (int) (id % 50), id % 50 == 0 ? "OUT_OF_STOCK" : "ACTIVE", "/images/" + id + ".jpg"};
+            byId.put(id, row);
+            bySlug.put((String) row[2], row);
+            bySku.put((String) row[1], row);
+        }
+        service = new ProductBulkServiceImpl(repository(byId, bySlug, bySku), new SimpleMeterRegistry(), 5000);
+
+        // Треть по ID, треть по slug, треть по SKU, несколько идентификаторов не найдется
+        List<Long> ids = new ArrayList<>();
+        List<String> slugs = new ArrayList<>();
+        List<String> skus = new ArrayList<>();
+        singleRequests = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            long requested = id % 20 == 0 ? -id : id;
+            ProductBulkRequest single;
+            switch ((int) (id % 3)) {
+                case 0 -> {
+                    ids.add(requested);
+                    single = ProductBulkRequest.builder().ids(List.of(requested)).build();
+                }
+                case 1 -> {
+                    slugs.add("product-" + requested);
+                    single = ProductBulkRequest.builder().slugs(List.of("product-" + requested)).build();
+                }
+                default -> {
+                    skus.add("SKU-" + requested);
+                    single = ProductBulkRequest.builder().skus(List.of("SKU-" + requested)).build();
+                }
+            }
+            singleRequests.add(single);
+        }
+        bulkRequest = ProductBulkRequest.builder().ids(ids).slugs(slugs).skus(skus).build();
+
+        queries = 0;
+        service.findProducts(bulkRequest);
+        int bulkQueries = queries;
+        queries = 0;
+        singleRequests.forEach(service::findProducts);
+        System.out.printf("%nОбращений к БД: пакетный запрос %d, поштучно %d%n", bulkQueries, queries);
+    }
+
+    @Benchmark
+    public ProductBulkResponse bulk() {
+        return service.findProducts(bulkRequest);
+    }
+
+    @Benchmark
+    public void oneByOne(Blackhole blackhole) {
+        for (ProductBulkRequest request : singleRequests) {
+            blackhole.consume(service.findProducts(request));
+        }
+    }
+
+    /**
+     * Репозиторий только с выборками сводок; остальные методы бенчмарку не нужны
+     */
+    private ProductRepository repository(Map<Long, Object[]> byId, Map<String, Object[]> bySlug,
+                                         Map<String, Object[]> bySku) {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findSummariesByIds" -> rows(byId, args[0]);
+                    case "findSummariesBySlugs" -> rows(bySlug, args[0]);
+                    case "findSummariesBySkus" -> rows(bySku, args[0]);
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private List<Object[]> rows(Map<?, Object[]> table, Object keys) {
+        queries++;
+        List<Object[]> rows = new ArrayList<>();
+        for (Object key : (Collection<?>) keys) {
+            Object[] row = table.get(key);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
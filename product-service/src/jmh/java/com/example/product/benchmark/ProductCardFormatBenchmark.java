@@ -0,0 +1,155 @@
+package com.example.product.benchmark;
+
+import com.example.product.cache.ProductDetailCache;
+import com.example.product.config.BinaryFormats;
+import com.example.product.dto.BrandDto.BrandDTO;
+import com.example.product.dto.Category.CategoryListDto;
+import com.example.product.dto.Category.CategoryShortDto;
+import com.example.product.dto.Product.ProductDTO;
+import com.example.product.dto.ProductAttribute.ProductAttributeDTO;
+import com.example.product.dto.ProductImage.ProductImageDTO;
+import com.example.product.enums.ProductStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Бинарная карточка продукта: прежний путь (разбор JSON из кэша и кодирование на каждый запрос)
+ * против закэшированного представления. Размеры JSON/Smile/Protobuf печатаются при запуске.
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.include=ProductCardFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProductCardFormatBenchmark {
+
+    private static final long PRODUCT = 1L;
+
+    @Param({"application/x-jackson-smile", "application/x-protobuf"})
+    public String format;
+
+    private MediaType mediaType;
+    private ObjectMapper objectMapper;
+    private BinaryFormats binaryFormats;
+    private ProductDetailCache cache;
+    private Supplier<Optional<ProductDTO>> loader;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Как в автоконфигурации: новый построитель на каждый запрос, даты строками
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("jacksonObjectMapperBuilder", BeanDefinitionBuilder
+                .genericBeanDefinition(Jackson2ObjectMapperBuilder.class, ProductCardFormatBenchmark::mapperBuilder)
+                .setScope(BeanDefinition.SCOPE_PROTOTYPE)
+                .getBeanDefinition());
+        objectMapper = mapperBuilder().build();
+        binaryFormats = new BinaryFormats(beanFactory.getBeanProvider(Jackson2ObjectMapperBuilder.class));
+        mediaType = MediaType.valueOf(format);
+
+        ProductDTO product = product();
+        loader = () -> Optional.of(product);
+        cache = new ProductDetailCache(objectMapper, new SimpleMeterRegistry(), DataSize.ofMegabytes(16),
+                DataSize.ofMegabytes(16), Duration.ofHours(1), true, 1024, 1.0, 1);
+        json = cache.getById(PRODUCT, loader).orElseThrow();
+        byte[] encoded = cachedCard();
+
+        System.out.printf("%nJSON %d байт, %s %d байт%n", json.length, format, encoded.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cache.shutdown();
+    }
+
+    @Benchmark
+    public byte[] perRequest() throws IOException {
+        return binaryFormats.encode(objectMapper.readValue(json, ProductDTO.class), mediaType);
+    }
+
+    @Benchmark
+    public byte[] cachedCard() {
+        return cache.getEncodedById(PRODUCT, format, dto -> binaryFormats.encode(dto, mediaType), loader)
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public byte[] cachedJson() {
+        return cache.getById(PRODUCT, loader).orElseThrow();
+    }
+
+    private static Jackson2ObjectMapperBuilder mapperBuilder() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static ProductDTO product() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ProductImageDTO> images = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            images.add(ProductImageDTO.builder().id((long) i).productId(PRODUCT)
+                    .imageUrl("https://res.cloudinary.com/demo/image/upload/v1/products/runner-" + i + ".jpg")
+                    .imageId("products/runner-" + i).alt("Кроссовки Runner, вид " + i).sortOrder(i)
+                    .uploadedAt(now)
+                    .sizes(Map.of("thumbnail_webp", "https://res.cloudinary.com/demo/image/upload/w_150/runner-" + i + ".webp",
+                            "medium_webp", "https://res.cloudinary.com/demo/image/upload/w_600/runner-" + i + ".webp"))
+                    .build());
+        }
+        List<ProductAttributeDTO> attributes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            attributes.add(ProductAttributeDTO.builder().id((long) i).productId(PRODUCT)
+                    .color("color-" + i).size(String.valueOf(38 + i)).material("текстиль").build());
+        }
+        CategoryShortDto root = CategoryShortDto.builder().id(10L).name("Обувь").slug("obuv").build();
+        CategoryShortDto leaf = CategoryShortDto.builder().id(11L).name("Кроссовки").slug("krossovki").build();
+
+        return ProductDTO.builder()
+                .id(PRODUCT).name("Кроссовки Runner").sku("RUN-001").slug("krossovki-runner")
+                .description("Легкие беговые кроссовки с амортизирующей подошвой. ".repeat(12))
+                .categories(Set.of(CategoryListDto.builder().id(11L).name("Кроссовки").slug("krossovki")
+                        .productCount(420).directProductCount(420).active(true).build()))
+                .categoryPaths(List.of(List.of(root, leaf)))
+                .images(images).attributes(attributes)
+                .brand(BrandDTO.builder().id(5L).name("Runner").slug("runner").active(true).country("RU")
+                        .createdAt(now).updatedAt(now).build())
+                .price(new BigDecimal("7990.00")).stockQuantity(120).weight(0.8).height(12.0).width(30.0).depth(20.0)
+                .status(ProductStatus.ACTIVE).featured(true).createdAt(now).updatedAt(now)
+                .metaTitle("Кроссовки Runner").metaDescription("Беговые кроссовки Runner").metaKeywords("кроссовки,бег")
+                .mainImageUrl("https://res.cloudinary.com/demo/image/upload/v1/products/runner-0.jpg")
+                .viewCount(1500)
+                .build();
+    }
+}
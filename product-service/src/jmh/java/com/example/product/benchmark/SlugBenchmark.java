@@ -0,0 +1,102 @@
+package com.example.product.benchmark;
+
+import com.example.product.util.SlugUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Генерация slug-а: однопроходный SlugUtil против прежней реализации
+ * (таблица транслитерации на каждый вызов, три regex-прохода и NFD по всей строке).
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.include=SlugBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SlugBenchmark {
+
+    private final String[] names = {
+            "Смартфон Apple iPhone 15 Pro Max 256 ГБ Титановый",
+            "Кроссовки Nike Air Zoom Pegasus 40 мужские",
+            "Wireless Noise Cancelling Headphones WH-1000XM5",
+            "Кофемашина автоматическая De'Longhi Magnifica S ECAM 22.110.B",
+            "Café crème brûlée — набор для десерта",
+            "Ноутбук  ASUS   ZenBook 14 OLED (UX3402ZA)"
+    };
+
+    @Benchmark
+    public void current(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(SlugUtil.generateSlug(name));
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (String name : names) {
+            blackhole.consume(LegacySlug.generateSlug(name));
+        }
+    }
+
+    /**
+     * Реализация до однопроходной версии - точка отсчета
+     */
+    static final class LegacySlug {
+        private static final Pattern NONLATIN = Pattern.compile("[^\\w-]");
+        private static final Pattern WHITESPACE = Pattern.compile("[\\s]");
+        private static final Pattern MULTIPLE_DASHES = Pattern.compile("-+");
+
+        static String generateSlug(String input) {
+            if (input == null || input.trim().isEmpty()) {
+                return "category-" + UUID.randomUUID().toString().substring(0, 8);
+            }
+            String transliterated = transliterate(input);
+            String nowhitespace = WHITESPACE.matcher(transliterated).replaceAll("-");
+            String normalized = Normalizer.normalize(nowhitespace, Normalizer.Form.NFD);
+            String slug = NONLATIN.matcher(normalized).replaceAll("");
+            slug = MULTIPLE_DASHES.matcher(slug).replaceAll("-");
+            slug = slug.toLowerCase(Locale.ENGLISH).trim();
+            if (slug.isEmpty()) {
+                slug = "category-" + UUID.randomUUID().toString().substring(0, 8);
+            }
+            return slug.length() > 100 ? slug.substring(0, 100) : slug;
+        }
+
+        private static String transliterate(String input) {
+            String lower = "абвгдеёжзийклмнопрстуфхцчшщъыьэюя";
+            String[] latin = {"a", "b", "v", "g", "d", "e", "yo", "zh", "z", "i", "y", "k", "l", "m", "n", "o",
+                    "p", "r", "s", "t", "u", "f", "h", "ts", "ch", "sh", "sch", "", "y", "", "e", "yu", "ya"};
+            // Как и прежде, таблица строится заново на каждый вызов
+            Map<Character, String> charMap = new HashMap<>();
+            for (int i = 0; i < lower.length(); i++) {
+                charMap.put(lower.charAt(i), latin[i]);
+                String upper = latin[i].isEmpty() ? "" : Character.toUpperCase(latin[i].charAt(0)) + latin[i].substring(1);
+                charMap.put(Character.toUpperCase(lower.charAt(i)), upper);
+            }
+            StringBuilder sb = new StringBuilder(input.length());
+            for (char c : input.toCharArray()) {
+                String replacement = charMap.get(c);
+                sb.append(replacement != null ? replacement : String.valueOf(c));
+            }
+            return sb.toString();
+        }
+    }
+}
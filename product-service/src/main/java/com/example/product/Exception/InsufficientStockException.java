@@ -0,0 +1,21 @@
+package com.example.product.Exception;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Недостаточно остатка (или продукт недоступен для продажи) для резервирования
+ */
+public class InsufficientStockException extends IllegalStateException {
+
+    private final List<Long> productIds;
+
+    public InsufficientStockException(Collection<Long> productIds) {
+        super("Недостаточно товара на складе для продуктов: " + productIds);
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
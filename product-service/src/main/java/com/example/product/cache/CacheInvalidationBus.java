@@ -0,0 +1,359 @@
+package com.example.product.cache;
+
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.CacheInvalidationEvent.Scope;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductProjectedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Шина инвалидации локальных кэшей между экземплярами через PostgreSQL LISTEN/NOTIFY.
+ * NOTIFY выполняется в транзакции изменения: PostgreSQL доставляет уведомления только после
+ * коммита и отбрасывает их при откате. Каждый экземпляр слушает канал на отдельном
+ * соединении (не из пула) и публикует локально CacheInvalidationEvent; свои сообщения
+ * пропускаются - локальные кэши уже сброшены обычными слушателями событий.
+ * Пока соединение потеряно, сообщения не доставляются, поэтому после переподключения
+ * сбрасываются все кэши.
+ */
+@Component
+@Slf4j
+public class CacheInvalidationBus {
+
+    private static final String CHANNEL = "catalog_invalidation";
+    // Предел payload NOTIFY - 8000 байт, оставляем запас
+    private static final int MAX_PAYLOAD = 7000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final Duration pollTimeout;
+    private final Duration healthCheckInterval;
+    private final Duration reconnectDelay;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Counter sentCounter;
+    private final Counter receivedCounter;
+    private final Counter flushCounter;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread listenerThread;
+
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                ApplicationEventPublisher eventPublisher,
+                                DataSourceProperties dataSourceProperties,
+                                MeterRegistry meterRegistry,
+                                @Value("${catalog.invalidation.enabled:true}") boolean enabled,
+                                @Value("${catalog.invalidation.poll-timeout:500ms}") Duration pollTimeout,
+                                @Value("${catalog.invalidation.health-check-interval:10s}") Duration healthCheckInterval,
+                                @Value("${catalog.invalidation.reconnect-delay:2s}") Duration reconnectDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+        this.pollTimeout = pollTimeout;
+        this.healthCheckInterval = healthCheckInterval;
+        this.reconnectDelay = reconnectDelay;
+
+        this.sentCounter = Counter.builder("catalog.invalidation.sent")
+                .description("Отправленные уведомления об изменениях каталога")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("catalog.invalidation.received")
+                .description("Полученные от других экземпляров ключи инвалидации")
+                .register(meterRegistry);
+        this.flushCounter = Counter.builder("catalog.invalidation.full-flush")
+                .description("Полные сбросы кэшей после потери соединения с шиной")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        add("p:" + event.getProductId());
+    }
+
+    @EventListener
+    public void onBrandChanged(BrandChangedEvent event) {
+        add("b:" + event.getBrandId());
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        add("c:" + event.getCategoryId());
+    }
+
+    /**
+     * Проекция read-модели закоммичена вне транзакции изменения: другие экземпляры могли
+     * успеть собрать карточку из прежней строки, сбрасываем у них только карточки
+     */
+    @EventListener
+    public void onProductProjected(ProductProjectedEvent event) {
+        if (!enabled || event.getProductIds().isEmpty()) {
+            return;
+        }
+        List<String> keys = event.getProductIds().stream()
+                .map(id -> "d:" + id)
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> sendKeys(keys));
+    }
+
+    /**
+     * LISTEN выполняется до прогрева кэшей (CatalogPrewarmer, тоже ApplicationStartedEvent) и до
+     * сверки снимка каталога (ApplicationReadyEvent): изменения, закоммиченные во время заполнения
+     * кэшей, уже доставляются. Если подключиться сразу не удалось, первое подключение сбрасывает кэши.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        boolean listening = false;
+        try {
+            connect();
+            listening = true;
+        } catch (SQLException e) {
+            log.warn("Шина инвалидации не подключилась при старте: {}", e.getMessage());
+        }
+        boolean connectedAtStart = listening;
+        listenerThread = new Thread(() -> listen(connectedAtStart), "cache-invalidation-listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+        closeConnection();
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public boolean isConnected() {
+        return connection != null;
+    }
+
+    private void add(String key) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            transactionTemplate.executeWithoutResult(status -> sendKeys(List.of(key)));
+            return;
+        }
+
+        PendingKeys pending = null;
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingKeys candidate && candidate.owner == this) {
+                pending = candidate;
+                break;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingKeys(this);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.keys.add(key);
+    }
+
+    /**
+     * Отправить ключи в текущей транзакции, разбив на сообщения в пределах размера payload
+     */
+    private void sendKeys(Iterable<String> keys) {
+        StringBuilder payload = new StringBuilder(instanceId).append(';');
+        int prefixLength = payload.length();
+        for (String key : keys) {
+            if (payload.length() + key.length() + 1 > MAX_PAYLOAD) {
+                send(payload.toString());
+                payload.setLength(prefixLength);
+            }
+            if (payload.length() > prefixLength) {
+                payload.append(',');
+            }
+            payload.append(key);
+        }
+        if (payload.length() > prefixLength) {
+            send(payload.toString());
+        }
+    }
+
+    private void send(String payload) {
+        jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, payload);
+        sentCounter.increment();
+    }
+
+    private void listen(boolean connectedAtStart) {
+        boolean flushOnConnect = !connectedAtStart;
+        while (running) {
+            try {
+                if (connection == null) {
+                    connect();
+                    if (flushOnConnect) {
+                        // За время без соединения уведомления могли быть пропущены
+                        flushCounter.increment();
+                        log.warn("Соединение шины инвалидации восстановлено, локальные кэши сброшены");
+                        eventPublisher.publishEvent(CacheInvalidationEvent.all());
+                    }
+                }
+                flushOnConnect = true;
+                poll();
+            } catch (Exception e) {
+                if (running) {
+                    log.warn("Соединение шины инвалидации потеряно: {}", e.getMessage());
+                }
+            } finally {
+                closeConnection();
+            }
+
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelay.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void connect() throws SQLException {
+        Connection newConnection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        newConnection.setAutoCommit(true);
+        try (Statement statement = newConnection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+        connection = newConnection;
+        log.info("Шина инвалидации кэшей подключена (экземпляр {})", instanceId);
+    }
+
+    private void poll() throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        long lastCheck = System.nanoTime();
+
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    handle(notification.getParameter());
+                }
+            }
+
+            // Оборванное TCP-соединение getNotifications может не заметить - проверяем запросом
+            if (System.nanoTime() - lastCheck > healthCheckInterval.toNanos()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                lastCheck = System.nanoTime();
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        int separator = payload.indexOf(';');
+        if (separator < 0 || payload.substring(0, separator).equals(instanceId)) {
+            return;
+        }
+
+        for (String key : payload.substring(separator + 1).split(",")) {
+            CacheInvalidationEvent event = parse(key);
+            if (event == null) {
+                continue;
+            }
+            receivedCounter.increment();
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (Exception e) {
+                log.error("Ошибка при сбросе кэшей по ключу {}: {}", key, e.getMessage());
+            }
+        }
+    }
+
+    private static CacheInvalidationEvent parse(String key) {
+        if (key.length() < 3 || key.charAt(1) != ':') {
+            return null;
+        }
+        Scope scope = switch (key.charAt(0)) {
+            case 'p' -> Scope.PRODUCT;
+            case 'b' -> Scope.BRAND;
+            case 'c' -> Scope.CATEGORY;
+            case 'd' -> Scope.PRODUCT_CARD;
+            default -> null;
+        };
+        if (scope == null) {
+            return null;
+        }
+        try {
+            return new CacheInvalidationEvent(scope, Long.parseLong(key.substring(2)));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void closeConnection() {
+        Connection current = connection;
+        connection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Ошибка при закрытии соединения шины инвалидации: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class PendingKeys implements TransactionSynchronization {
+        private final CacheInvalidationBus owner;
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        private PendingKeys(CacheInvalidationBus owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            owner.sendKeys(new ArrayList<>(keys));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.product.cache;
+
+import com.example.product.repository.BrandRepository;
+import com.example.product.repository.CategoryRepository;
+import com.example.product.repository.ProductReadModelRepository;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.BrandService;
+import com.example.product.service.CategoryService;
+import com.example.product.service.ProductService;
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Прогрев кэшей каталога при старте. Выполняется в ApplicationStartedEvent, то есть до
+ * перехода readiness в ACCEPTING_TRAFFIC; статус в Eureka (initial-status=STARTING)
+ * переводится в UP только после ApplicationReadyEvent.
+ */
+@Component
+@Slf4j
+public class CatalogPrewarmer {
+
+    private static final String PRIMING_KEY = "__prewarm__";
+
+    private final CategoryService categoryService;
+    private final BrandService brandService;
+    private final ProductService productService;
+    private final ProductDetailCache productDetailCache;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final ProductReadModelRepository readModelRepository;
+    private final ObjectProvider<ApplicationInfoManager> applicationInfoManager;
+    private final TransactionTemplate readOnlyTemplate;
+
+    private final boolean enabled;
+    private final int parallelism;
+    private final int topProducts;
+    private final Duration timeout;
+
+    public CatalogPrewarmer(CategoryService categoryService,
+                            BrandService brandService,
+                            ProductService productService,
+                            ProductDetailCache productDetailCache,
+                            ProductRepository productRepository,
+                            CategoryRepository categoryRepository,
+                            BrandRepository brandRepository,
+                            ProductReadModelRepository readModelRepository,
+                            ObjectProvider<ApplicationInfoManager> applicationInfoManager,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${catalog.prewarm.enabled:true}") boolean enabled,
+                            @Value("${catalog.prewarm.parallelism:4}") int parallelism,
+                            @Value("${catalog.prewarm.top-products:200}") int topProducts,
+                            @Value("${catalog.prewarm.timeout:60s}") Duration timeout) {
+        this.categoryService = categoryService;
+        this.brandService = brandService;
+        this.productService = productService;
+        this.productDetailCache = productDetailCache;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+        this.readModelRepository = readModelRepository;
+        this.applicationInfoManager = applicationInfoManager;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.parallelism = parallelism;
+        this.topProducts = topProducts;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Прогрев блокирует запуск: пока он идет, readiness остается REFUSING_TRAFFIC
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void prewarm() {
+        if (!enabled) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-prewarm-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<CompletableFuture<Void>> steps = new ArrayList<>();
+            steps.add(step("дерево категорий", categoryService::getCategoryTree, executor));
+            steps.add(step("активные бренды", () -> brandService.getBrandsByActive(true), executor));
+            steps.add(step("популярные категории", categoryService::getPopularCategories, executor));
+            steps.add(step("рекомендуемые продукты", productService::getFeaturedProducts, executor));
+            steps.add(step("карточки популярных продуктов", this::prewarmProductDetails, executor));
+            steps.add(step("планы запросов", this::primeQueryPlans, executor));
+
+            CompletableFuture.allOf(steps.toArray(CompletableFuture[]::new))
+                    .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            log.info("Прогрев каталога завершен за {} мс", System.currentTimeMillis() - started);
+        } catch (TimeoutException e) {
+            // Холодный кэш лучше, чем экземпляр, который не стартует
+            log.warn("Прогрев каталога не уложился в {} - экземпляр стартует с частично прогретым кэшем", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Ошибка прогрева каталога: {}", e.getMessage());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Регистрация в Eureka как UP - после того как readiness перешел в ACCEPTING_TRAFFIC
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void markUp() {
+        applicationInfoManager.ifAvailable(manager -> {
+            manager.setInstanceStatus(InstanceInfo.InstanceStatus.UP);
+            log.info("Статус экземпляра в Eureka: UP");
+        });
+    }
+
+    private CompletableFuture<Void> step(String name, Runnable action, ExecutorService executor) {
+        return CompletableFuture.runAsync(() -> {
+            long stepStarted = System.currentTimeMillis();
+            try {
+                action.run();
+                log.info("Прогрев: {} - {} мс", name, System.currentTimeMillis() - stepStarted);
+            } catch (Exception e) {
+                // Один неудачный шаг не мешает остальным
+                log.warn("Прогрев: {} - ошибка через {} мс: {}", name,
+                        System.currentTimeMillis() - stepStarted, e.getMessage());
+            }
+        }, executor);
+    }
+
+    private void prewarmProductDetails() {
+        List<Long> ids = readOnlyTemplate.execute(status ->
+                productRepository.findMostViewedIds(PageRequest.of(0, topProducts)));
+        if (ids == null) {
+            return;
+        }
+        for (Long id : ids) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            productDetailCache.getById(id, () -> productService.getProductById(id));
+        }
+        log.debug("Прогрето карточек продуктов: {}", ids.size());
+    }
+
+    /**
+     * Первый вызов каждого запроса строит и кэширует его план в Hibernate (HQL -> SQL),
+     * чтобы этим не занимался первый пользовательский запрос
+     */
+    private void primeQueryPlans() {
+        readOnlyTemplate.executeWithoutResult(status -> {
+            productRepository.findBySlug(PRIMING_KEY);
+            productRepository.findDetailById(-1L);
+            productRepository.findDetailBySlug(PRIMING_KEY);
+            productRepository.fetchImages(-1L);
+            readModelRepository.findBySlug(PRIMING_KEY);
+            categoryRepository.findBySlug(PRIMING_KEY);
+            brandRepository.findBySlug(PRIMING_KEY);
+        });
+    }
+}
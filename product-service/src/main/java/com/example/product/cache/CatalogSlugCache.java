@@ -0,0 +1,100 @@
+package com.example.product.cache;
+
+import com.example.product.dto.BrandDto.BrandDTO;
+import com.example.product.dto.Category.CategoryDetailsDto;
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Страницы бренда и категории по slug: одновременные промахи по одному slug выполняют
+ * одну загрузку, популярные записи обновляются в фоне до истечения TTL.
+ * Slug может смениться при любом изменении, поэтому изменение сбрасывает весь кэш сущности.
+ */
+@Component
+public class CatalogSlugCache {
+
+    private static final Set<ProductChangedEvent.ChangeType> COUNT_CHANGES = EnumSet.of(
+            ProductChangedEvent.ChangeType.CREATED, ProductChangedEvent.ChangeType.UPDATED,
+            ProductChangedEvent.ChangeType.DELETED, ProductChangedEvent.ChangeType.STOCK);
+
+    private final ExecutorService refreshExecutor;
+    private final RefreshAheadCache<String, BrandDTO> brands;
+    private final RefreshAheadCache<String, CategoryDetailsDto> categories;
+
+    public CatalogSlugCache(MeterRegistry meterRegistry,
+                            @Value("${catalog.slug-cache.ttl:5m}") Duration ttl,
+                            @Value("${catalog.slug-cache.max-size:10000}") long maxSize,
+                            @Value("${catalog.slug-cache.refresh-ahead:0.8}") double refreshAhead,
+                            @Value("${catalog.slug-cache.refresh-threads:2}") int refreshThreads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "slug-cache-refresh-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.brands = new RefreshAheadCache<>("brandBySlug", maxSize, ttl, refreshAhead, refreshExecutor, meterRegistry);
+        this.categories = new RefreshAheadCache<>("categoryBySlug", maxSize, ttl, refreshAhead, refreshExecutor, meterRegistry);
+    }
+
+    public Optional<BrandDTO> getBrand(String slug, Supplier<Optional<BrandDTO>> loader) {
+        return brands.get(slug, loader);
+    }
+
+    public Optional<CategoryDetailsDto> getCategory(String slug, Supplier<Optional<CategoryDetailsDto>> loader) {
+        return categories.get(slug, loader);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        brands.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categories.invalidateAll();
+    }
+
+    /**
+     * В карточке категории есть количество активных продуктов: его меняет любое изменение,
+     * способное переключить статус продукта или его категории (цена, изображения и атрибуты - нет)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (COUNT_CHANGES.contains(event.getChangeType())) {
+            categories.invalidateAll();
+        }
+    }
+
+    @EventListener
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        if (event.affects(CacheInvalidationEvent.Scope.BRAND)) {
+            brands.invalidateAll();
+        }
+        // Удаленное изменение продукта приходит без типа - считаем, что количество могло измениться
+        if (event.affects(CacheInvalidationEvent.Scope.CATEGORY) || event.affects(CacheInvalidationEvent.Scope.PRODUCT)) {
+            categories.invalidateAll();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
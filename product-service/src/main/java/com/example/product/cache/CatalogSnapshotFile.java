@@ -0,0 +1,125 @@
+package com.example.product.cache;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Бинарный файл снимка каталога.
+ * Формат: [magic][version][createdAt][количество секций], далее для каждой секции
+ * [длина имени][имя UTF-8][длина исходных данных][длина сжатых данных][данные LZ4].
+ */
+final class CatalogSnapshotFile {
+
+    private static final int MAGIC = 0x43415453; // "CATS"
+    private static final int FORMAT_VERSION = 1;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private CatalogSnapshotFile() {
+    }
+
+    /**
+     * Записать секции во временный файл и атомарно заменить им прежний снимок
+     */
+    static void write(Path path, long createdAt, Map<String, byte[]> sections) throws IOException {
+        LZ4Compressor compressor = LZ4.fastCompressor();
+        Map<String, byte[]> compressed = new LinkedHashMap<>();
+        int size = 4 + 4 + 8 + 4;
+        for (Map.Entry<String, byte[]> section : sections.entrySet()) {
+            byte[] data = compressor.compress(section.getValue());
+            compressed.put(section.getKey(), data);
+            size += 2 + section.getKey().getBytes(StandardCharsets.UTF_8).length + 4 + 4 + data.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putLong(createdAt);
+        buffer.putInt(sections.size());
+        for (Map.Entry<String, byte[]> section : sections.entrySet()) {
+            byte[] name = section.getKey().getBytes(StandardCharsets.UTF_8);
+            byte[] data = compressed.get(section.getKey());
+            buffer.putShort((short) name.length);
+            buffer.put(name);
+            buffer.putInt(section.getValue().length);
+            buffer.putInt(data.length);
+            buffer.put(data);
+        }
+        buffer.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Отобразить файл в память и прочитать оглавление. Данные секций остаются в отображении
+     * и распаковываются при первом обращении
+     */
+    static Snapshot read(Path path) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Отображение остается действительным и после закрытия канала
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.getInt() != MAGIC) {
+            throw new IOException("Файл не является снимком каталога: " + path);
+        }
+        int version = mapped.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Неподдерживаемая версия снимка каталога: " + version);
+        }
+        long createdAt = mapped.getLong();
+        int count = mapped.getInt();
+
+        Map<String, Section> sections = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[mapped.getShort()];
+            mapped.get(name);
+            int rawLength = mapped.getInt();
+            int storedLength = mapped.getInt();
+
+            sections.put(new String(name, StandardCharsets.UTF_8),
+                    new Section(mapped.slice(mapped.position(), storedLength), rawLength));
+            mapped.position(mapped.position() + storedLength);
+        }
+        return new Snapshot(createdAt, sections);
+    }
+
+    record Snapshot(long createdAt, Map<String, Section> sections) {
+    }
+
+    /**
+     * Сжатая секция в отображенном файле. Файл снимка заменяется переименованием,
+     * поэтому отображение прежнего файла остается действительным
+     */
+    record Section(ByteBuffer data, int rawLength) {
+
+        byte[] decompress() {
+            byte[] raw = new byte[rawLength];
+            // Абсолютные смещения: позиция общего буфера не меняется, чтение безопасно из разных потоков
+            LZ4.fastDecompressor().decompress(data, 0, ByteBuffer.wrap(raw), 0, rawLength);
+            return raw;
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.example.product.cache;
+
+import com.example.product.dto.BrandDto.BrandListDTO;
+import com.example.product.dto.Category.CategoryTreeDto;
+import com.example.product.dto.Product.ProductListDTO;
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.repository.BrandRepository;
+import com.example.product.repository.CategoryRepository;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.BrandService;
+import com.example.product.service.CategoryService;
+import com.example.product.service.ProductService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Снимок публичного каталога на локальном диске для быстрого старта.
+ * При запуске файл отображается в память и сразу обслуживает чтение дерева категорий,
+ * активных брендов, избранных продуктов и первых страниц витрины (фильтр без условий,
+ * сортировка по популярности). Секция распаковывается и разбирается при первом обращении,
+ * до этого она занимает только страницы отображенного файла. Затем фоновая сверка с БД
+ * по updatedAt обновляет только изменившиеся секции. Снимок периодически перезаписывается.
+ */
+@Component
+@Slf4j
+public class CatalogSnapshotService {
+
+    private static final String CATEGORY_TREE = "categoryTree";
+    private static final String ACTIVE_BRANDS = "activeBrands";
+    private static final String FEATURED_PRODUCTS = "featuredProducts";
+    private static final String PRODUCT_SLUGS = "productSlugs";
+    private static final String PRODUCT_VERSIONS = "productVersions";
+    private static final String VERSIONS = "versions";
+    private static final String LIST_PAGE = "listPage:";
+
+    // Сортировка витрины по умолчанию (ProductController.getFilteredProducts, sort=popularity)
+    private static final Sort POPULARITY = Sort.by(Sort.Direction.DESC, "viewCount");
+
+    private final CategoryService categoryService;
+    private final BrandService brandService;
+    private final ProductService productService;
+    private final CategoryRepository categoryRepository;
+    private final BrandRepository brandRepository;
+    private final ProductRepository productRepository;
+    private final ProductDetailCache productDetailCache;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTemplate;
+    private final Path path;
+    private final boolean enabled;
+    private final int listPages;
+    private final int listPageSize;
+
+    private volatile CatalogView view;
+
+    // Счетчики изменений: секция снимка актуальна, только пока счетчик не изменился
+    private final AtomicLong categoryChanges = new AtomicLong();
+    private final AtomicLong brandChanges = new AtomicLong();
+    private final AtomicLong productChanges = new AtomicLong();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    public CatalogSnapshotService(CategoryService categoryService,
+                                  BrandService brandService,
+                                  ProductService productService,
+                                  CategoryRepository categoryRepository,
+                                  BrandRepository brandRepository,
+                                  ProductRepository productRepository,
+                                  ProductDetailCache productDetailCache,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${catalog.snapshot.path:${java.io.tmpdir}/product-catalog.snapshot}") String path,
+                                  @Value("${catalog.snapshot.enabled:true}") boolean enabled,
+                                  @Value("${catalog.snapshot.list-pages:5}") int listPages,
+                                  @Value("${catalog.snapshot.list-page-size:12}") int listPageSize) {
+        this.categoryService = categoryService;
+        this.brandService = brandService;
+        this.productService = productService;
+        this.categoryRepository = categoryRepository;
+        this.brandRepository = brandRepository;
+        this.productRepository = productRepository;
+        this.productDetailCache = productDetailCache;
+        this.objectMapper = objectMapper;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.path = Paths.get(path);
+        this.enabled = enabled;
+        this.listPages = listPages;
+        this.listPageSize = listPageSize;
+    }
+
+    public Optional<List<CategoryTreeDto>> getCategoryTree() {
+        CatalogView current = view;
+        if (current == null || current.categoryChanges != categoryChanges.get()) {
+            return Optional.empty();
+        }
+        return read(CATEGORY_TREE, current.categoryTree);
+    }
+
+    public Optional<List<BrandListDTO>> getActiveBrands() {
+        CatalogView current = view;
+        if (current == null || current.brandChanges != brandChanges.get()) {
+            return Optional.empty();
+        }
+        return read(ACTIVE_BRANDS, current.activeBrands);
+    }
+
+    public Optional<List<ProductListDTO>> getFeaturedProducts() {
+        CatalogView current = view;
+        if (current == null || current.productChanges != productChanges.get()) {
+            return Optional.empty();
+        }
+        return read(FEATURED_PRODUCTS, current.featuredProducts);
+    }
+
+    /**
+     * Страница витрины без фильтров, отсортированная по популярности
+     */
+    public Optional<Page<ProductListDTO>> getListPage(int page, int size) {
+        CatalogView current = view;
+        if (current == null || current.productChanges != productChanges.get() || size != listPageSize) {
+            return Optional.empty();
+        }
+        Section<ListPage> section = current.listPages.get(page);
+        if (section == null) {
+            return Optional.empty();
+        }
+        return read(LIST_PAGE + page, section).map(listPage -> new PageImpl<>(
+                listPage.content(), PageRequest.of(page, size, POPULARITY), listPage.totalElements()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categoryChanges.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        brandChanges.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productChanges.incrementAndGet();
+    }
+
+    @EventListener
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        if (event.affects(CacheInvalidationEvent.Scope.CATEGORY)) {
+            categoryChanges.incrementAndGet();
+        }
+        if (event.affects(CacheInvalidationEvent.Scope.BRAND)) {
+            brandChanges.incrementAndGet();
+        }
+        if (event.affects(CacheInvalidationEvent.Scope.PRODUCT)) {
+            productChanges.incrementAndGet();
+        }
+    }
+
+    /**
+     * Загрузка снимка с диска до готовности приложения
+     */
+    @PostConstruct
+    public void load() {
+        if (!enabled || !Files.exists(path)) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        try {
+            CatalogSnapshotFile.Snapshot snapshot = CatalogSnapshotFile.read(path);
+            Map<String, CatalogSnapshotFile.Section> sections = snapshot.sections();
+
+            CatalogView loaded = new CatalogView();
+            loaded.categoryTree = mapped(sections, CATEGORY_TREE, new TypeReference<>() {});
+            loaded.activeBrands = mapped(sections, ACTIVE_BRANDS, new TypeReference<>() {});
+            loaded.featuredProducts = mapped(sections, FEATURED_PRODUCTS, new TypeReference<>() {});
+            loaded.productVersions = mapped(sections, PRODUCT_VERSIONS, new TypeReference<>() {});
+            loaded.listPages = new HashMap<>();
+            for (String name : sections.keySet()) {
+                if (name.startsWith(LIST_PAGE)) {
+                    loaded.listPages.put(Integer.parseInt(name.substring(LIST_PAGE.length())),
+                            mapped(sections, name, new TypeReference<>() {}));
+                }
+            }
+            // Оглавление версий маленькое, а slug-и сразу нужны индексу кэша карточек
+            loaded.versions = decode(sections, VERSIONS, new TypeReference<>() {});
+            view = loaded;
+
+            productDetailCache.seedSlugs(decode(sections, PRODUCT_SLUGS, new TypeReference<>() {}));
+
+            log.info("Снимок каталога загружен из {} (создан {}), {} мс", path,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.createdAt()), ZoneId.systemDefault()),
+                    System.currentTimeMillis() - started);
+        } catch (Exception e) {
+            // Поврежденный или устаревший по формату снимок просто игнорируется
+            log.warn("Не удалось загрузить снимок каталога {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Сверка с БД сразу после старта, в фоне - снимок уже обслуживает чтение
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::refresh, "catalog-snapshot-reconcile");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Сверить снимок с БД и записать обновленный файл
+     */
+    @Scheduled(fixedDelayString = "${catalog.snapshot.interval:300000}",
+            initialDelayString = "${catalog.snapshot.interval:300000}")
+    public void refresh() {
+        if (!enabled || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            boolean changed = reconcile();
+            if (changed || !Files.exists(path)) {
+                write();
+            }
+            log.info("Сверка снимка каталога завершена за {} мс, изменения: {}",
+                    System.currentTimeMillis() - started, changed);
+        } catch (Exception e) {
+            log.error("Ошибка при обновлении снимка каталога: {}", e.getMessage());
+        } finally {
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Перестроить только секции, версии которых в БД изменились
+     * @return true, если снимок изменился
+     */
+    private boolean reconcile() {
+        CatalogView previous = view;
+        CatalogView next = new CatalogView();
+        next.categoryChanges = categoryChanges.get();
+        next.brandChanges = brandChanges.get();
+        next.productChanges = productChanges.get();
+
+        String categoriesVersion = version(categoryRepository.findVersion());
+        String brandsVersion = version(brandRepository.findVersion());
+        Map<Long, Long> productVersions = new HashMap<>();
+        Map<String, Long> productSlugs = new HashMap<>();
+        readOnlyTemplate.executeWithoutResult(status -> {
+            for (Object[] row : productRepository.findSlugVersions()) {
+                Long id = ((Number) row[0]).longValue();
+                productVersions.put(id, row[2] != null ? toMillis(row[2]) : 0L);
+                if (row[1] != null) {
+                    productSlugs.put((String) row[1], id);
+                }
+            }
+        });
+
+        boolean categoriesFresh = previous != null
+                && Objects.equals(categoriesVersion, previous.versions.get(CATEGORY_TREE))
+                && previous.categoryChanges == next.categoryChanges;
+        boolean brandsFresh = previous != null
+                && Objects.equals(brandsVersion, previous.versions.get(ACTIVE_BRANDS))
+                && previous.brandChanges == next.brandChanges;
+        Map<Long, Long> previousVersions = previous != null ? previous.productVersions.get() : null;
+        boolean productsFresh = previous != null
+                && productVersions.equals(previousVersions)
+                && previous.productChanges == next.productChanges
+                // Снимок прежнего формата без страниц витрины
+                && previous.listPages.containsKey(0);
+
+        next.categoryTree = categoriesFresh ? previous.categoryTree
+                : Section.of(readOnlyTemplate.execute(status -> categoryService.getCategoryTree()));
+        next.activeBrands = brandsFresh ? previous.activeBrands
+                : Section.of(readOnlyTemplate.execute(status -> brandService.getBrandsByActive(true)));
+        next.featuredProducts = productsFresh ? previous.featuredProducts
+                : Section.of(readOnlyTemplate.execute(status -> productService.getFeaturedProducts()));
+        next.listPages = productsFresh ? previous.listPages : loadListPages();
+        next.productSlugs = productSlugs;
+        next.productVersions = Section.of(productVersions);
+        next.versions = new HashMap<>();
+        next.versions.put(CATEGORY_TREE, categoriesVersion);
+        next.versions.put(ACTIVE_BRANDS, brandsVersion);
+
+        view = next;
+
+        if (previousVersions != null && !productsFresh) {
+            long changedProducts = productVersions.entrySet().stream()
+                    .filter(entry -> !entry.getValue().equals(previousVersions.get(entry.getKey())))
+                    .count();
+            log.info("Сверка снимка каталога: изменено или добавлено продуктов {}, удалено {}", changedProducts,
+                    previousVersions.keySet().stream().filter(id -> !productVersions.containsKey(id)).count());
+        }
+        return !(categoriesFresh && brandsFresh && productsFresh);
+    }
+
+    /**
+     * Первые страницы витрины в том виде, в каком их отдает запрос к БД
+     */
+    private Map<Integer, Section<ListPage>> loadListPages() {
+        Map<Integer, Section<ListPage>> pages = new HashMap<>();
+        readOnlyTemplate.executeWithoutResult(status -> {
+            for (int page = 0; page < listPages; page++) {
+                Page<ProductListDTO> result = productService.getFilteredProducts(
+                        null, null, null, null, PageRequest.of(page, listPageSize, POPULARITY));
+                pages.put(page, Section.of(new ListPage(result.getContent(), result.getTotalElements())));
+                if (!result.hasNext()) {
+                    break;
+                }
+            }
+        });
+        return pages;
+    }
+
+    private void write() throws IOException {
+        CatalogView current = view;
+        Map<String, byte[]> sections = new LinkedHashMap<>();
+        sections.put(CATEGORY_TREE, objectMapper.writeValueAsBytes(current.categoryTree.get()));
+        sections.put(ACTIVE_BRANDS, objectMapper.writeValueAsBytes(current.activeBrands.get()));
+        sections.put(FEATURED_PRODUCTS, objectMapper.writeValueAsBytes(current.featuredProducts.get()));
+        for (Map.Entry<Integer, Section<ListPage>> page : current.listPages.entrySet()) {
+            sections.put(LIST_PAGE + page.getKey(), objectMapper.writeValueAsBytes(page.getValue().get()));
+        }
+        sections.put(PRODUCT_SLUGS, objectMapper.writeValueAsBytes(current.productSlugs));
+        sections.put(PRODUCT_VERSIONS, objectMapper.writeValueAsBytes(current.productVersions.get()));
+        sections.put(VERSIONS, objectMapper.writeValueAsBytes(current.versions));
+
+        CatalogSnapshotFile.write(path, System.currentTimeMillis(), sections);
+        log.debug("Снимок каталога записан в {}", path);
+    }
+
+    /**
+     * Значение секции, отложенное до первого чтения: распаковка из отображенного файла и разбор JSON
+     */
+    private <T> Section<T> mapped(Map<String, CatalogSnapshotFile.Section> sections, String name,
+                                  TypeReference<T> type) throws IOException {
+        CatalogSnapshotFile.Section section = sections.get(name);
+        if (section == null) {
+            throw new IOException("В снимке нет секции " + name);
+        }
+        return Section.lazy(() -> {
+            try {
+                return objectMapper.readValue(section.decompress(), type);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private <T> T decode(Map<String, CatalogSnapshotFile.Section> sections, String name,
+                         TypeReference<T> type) throws IOException {
+        return mapped(sections, name, type).get();
+    }
+
+    /**
+     * Прочитать секцию; испорченная секция не ломает запрос - он уходит в БД
+     */
+    private <T> Optional<T> read(String name, Section<T> section) {
+        try {
+            return Optional.of(section.get());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось прочитать секцию {} снимка каталога: {}", name, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Версия таблицы: количество строк и последний updatedAt
+     */
+    private static String version(List<Object[]> result) {
+        if (result.isEmpty()) {
+            return "0";
+        }
+        Object[] row = result.get(0);
+        return row[0] + ":" + (row[1] != null ? toMillis(row[1]) : 0L);
+    }
+
+    private static long toMillis(Object value) {
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.getTime();
+        }
+        throw new IllegalArgumentException("Неожиданный тип даты: " + value.getClass());
+    }
+
+    /**
+     * Неизменяемое после публикации представление каталога
+     */
+    private static class CatalogView {
+        private Section<List<CategoryTreeDto>> categoryTree;
+        private Section<List<BrandListDTO>> activeBrands;
+        private Section<List<ProductListDTO>> featuredProducts;
+        private Map<Integer, Section<ListPage>> listPages;
+        // Только у снимка, построенного из БД: загруженные slug-и сразу уходят в кэш карточек
+        private Map<String, Long> productSlugs;
+        private Section<Map<Long, Long>> productVersions;
+        private Map<String, String> versions;
+
+        // Значения счетчиков изменений на момент построения (у загруженного с диска - 0)
+        private long categoryChanges;
+        private long brandChanges;
+        private long productChanges;
+    }
+
+    /**
+     * Страница витрины: строки и общее количество для метаданных Page
+     */
+    record ListPage(List<ProductListDTO> content, long totalElements) {
+    }
+
+    private static final class Section<T> {
+        private Supplier<T> loader;
+        private volatile T value;
+
+        static <T> Section<T> of(T value) {
+            Section<T> section = new Section<>();
+            section.value = value;
+            return section;
+        }
+
+        static <T> Section<T> lazy(Supplier<T> loader) {
+            Section<T> section = new Section<>();
+            section.loader = loader;
+            return section;
+        }
+
+        T get() {
+            T current = value;
+            if (current == null) {
+                synchronized (this) {
+                    if (value == null) {
+                        value = loader.get();
+                        loader = null;
+                    }
+                    current = value;
+                }
+            }
+            return current;
+        }
+    }
+}
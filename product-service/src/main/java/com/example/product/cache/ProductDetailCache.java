@@ -0,0 +1,511 @@
+package com.example.product.cache;
+
+import com.example.product.config.ReplicaRoutingDataSource;
+import com.example.product.dto.Category.CategoryListDto;
+import com.example.product.dto.Category.CategoryShortDto;
+import com.example.product.dto.Product.ProductDTO;
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductProjectedEvent;
+import com.example.product.util.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Кэш детальных карточек продуктов в виде готового JSON вне кучи (direct ByteBuffer).
+ * Ограничен суммарным размером в байтах, вытеснение - W-TinyLFU (Caffeine).
+ * Формат записи: [1 байт - кодек][4 байта - длина исходного JSON][данные].
+ * Обратные индексы (ID -> slug, категория/бренд -> продукты) позволяют инвалидировать
+ * карточки без обхода всего кэша.
+ * Рядом хранятся бинарные представления карточки (Smile, Protobuf), закодированные один раз
+ * из текущей записи: они действительны, пока в кэше лежит именно та карточка, из которой получены.
+ */
+@Component
+@Slf4j
+public class ProductDetailCache {
+
+    private static final byte CODEC_RAW = 0;
+    private static final byte CODEC_LZ4 = 1;
+    private static final int HEADER_SIZE = 5;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Long, CachedCard> entries;
+    private final Cache<Long, EncodedCard> encodedEntries;
+    private final Cache<String, Long> slugIndex;
+    private final Map<Long, String> slugById = new ConcurrentHashMap<>();
+    // Бренд и категории (вместе с предками), которые попали в закэшированную карточку
+    private final Map<Long, CardDependencies> dependencies = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> productsByCategory = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> productsByBrand = new ConcurrentHashMap<>();
+    // Момент последней инвалидации продукта: загрузка, начатая раньше, в кэш не попадает
+    private final Cache<Long, Long> invalidatedAt;
+    private final AtomicLong offHeapBytes = new AtomicLong();
+    // Одновременные промахи по одному продукту строят карточку один раз
+    private final SingleFlight<String, Optional<byte[]>> loads = new SingleFlight<>("productDetail");
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refreshExecutor;
+    private final Duration refreshAfter;
+
+    private final boolean compressionEnabled;
+    private final int compressionThreshold;
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    public ProductDetailCache(ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${product.detail-cache.max-size:64MB}") DataSize maxSize,
+                              @Value("${product.detail-cache.encoded-max-size:32MB}") DataSize encodedMaxSize,
+                              @Value("${product.detail-cache.ttl:10m}") Duration ttl,
+                              @Value("${product.detail-cache.compression.enabled:true}") boolean compressionEnabled,
+                              @Value("${product.detail-cache.compression.threshold:1024}") int compressionThreshold,
+                              @Value("${product.detail-cache.refresh-ahead:0.8}") double refreshAhead,
+                              @Value("${product.detail-cache.refresh-threads:2}") int refreshThreads) {
+        this.objectMapper = objectMapper;
+        this.refreshAfter = Duration.ofMillis((long) (ttl.toMillis() * refreshAhead));
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(refreshThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-detail-refresh-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compressionEnabled = compressionEnabled;
+        this.compressionThreshold = compressionThreshold;
+
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+
+        this.encodedEntries = Caffeine.newBuilder()
+                .maximumWeight(encodedMaxSize.toBytes())
+                .weigher((Long id, EncodedCard encoded) -> encoded.size())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, CachedCard card) -> card.buffer().capacity())
+                // TTL - страховка на случай пропущенного события об изменении бренда или категории
+                .expireAfterWrite(ttl)
+                .removalListener((Long id, CachedCard card, RemovalCause cause) -> {
+                    if (card != null) {
+                        offHeapBytes.addAndGet(-card.buffer().capacity());
+                        unlink(id, card.dependencies());
+                        encodedEntries.asMap().computeIfPresent(id,
+                                (key, encoded) -> encoded.source() == card ? null : encoded);
+                    }
+                })
+                .recordStats()
+                .build();
+        this.slugIndex = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(ttl)
+                .evictionListener((String slug, Long id, RemovalCause cause) -> {
+                    if (id != null) {
+                        slugById.remove(id, slug);
+                    }
+                })
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "productDetail");
+        CaffeineCacheMetrics.monitor(meterRegistry, encodedEntries, "productDetailEncoded");
+        RefreshAheadCache.registerSingleFlightMetrics(loads, meterRegistry);
+        meterRegistry.gauge("product.detail-cache.offheap.bytes", offHeapBytes);
+    }
+
+    /**
+     * JSON карточки продукта по ID; при промахе карточка строится загрузчиком и кэшируется
+     */
+    public Optional<byte[]> getById(Long id, Supplier<Optional<ProductDTO>> loader) {
+        CachedCard cached = entries.getIfPresent(id);
+        if (cached != null) {
+            refreshIfAging(id, "id:" + id, loader);
+            return Optional.of(decode(cached.buffer()));
+        }
+        return load("id:" + id, loader);
+    }
+
+    /**
+     * JSON карточки продукта по slug
+     */
+    public Optional<byte[]> getBySlug(String slug, Supplier<Optional<ProductDTO>> loader) {
+        Long id = slugIndex.getIfPresent(slug);
+        if (id != null) {
+            CachedCard cached = entries.getIfPresent(id);
+            if (cached != null) {
+                refreshIfAging(id, "slug:" + slug, loader);
+                return Optional.of(decode(cached.buffer()));
+            }
+        }
+        return load("slug:" + slug, loader);
+    }
+
+    /**
+     * Карточка по ID в бинарном формате format; кодируется encoder'ом один раз на запись кэша
+     */
+    public Optional<byte[]> getEncodedById(Long id, String format, Function<ProductDTO, byte[]> encoder,
+                                           Supplier<Optional<ProductDTO>> loader) {
+        byte[] encoded = cachedEncoding(id, format);
+        if (encoded != null) {
+            refreshIfAging(id, "id:" + id, loader);
+            return Optional.of(encoded);
+        }
+        return getById(id, loader).map(json -> encode(id, json, format, encoder));
+    }
+
+    /**
+     * Карточка по slug в бинарном формате format
+     */
+    public Optional<byte[]> getEncodedBySlug(String slug, String format, Function<ProductDTO, byte[]> encoder,
+                                             Supplier<Optional<ProductDTO>> loader) {
+        Long id = slugIndex.getIfPresent(slug);
+        byte[] encoded = id != null ? cachedEncoding(id, format) : null;
+        if (encoded != null) {
+            refreshIfAging(id, "slug:" + slug, loader);
+            return Optional.of(encoded);
+        }
+        return getBySlug(slug, loader).map(json -> encode(slugIndex.getIfPresent(slug), json, format, encoder));
+    }
+
+    /**
+     * Заполнить индекс slug -> ID заранее (из снимка каталога при старте)
+     */
+    public void seedSlugs(Map<String, Long> slugs) {
+        slugs.forEach(this::indexSlug);
+    }
+
+    public void invalidate(Long id) {
+        ReplicaRoutingDataSource.markCacheInvalidated();
+        invalidatedAt.put(id, System.nanoTime());
+        entries.invalidate(id);
+        encodedEntries.invalidate(id);
+        // Slug мог измениться - старую ссылку на продукт удаляем
+        String slug = slugById.remove(id);
+        if (slug != null) {
+            slugIndex.asMap().remove(slug, id);
+        }
+    }
+
+    public void invalidateAll() {
+        ReplicaRoutingDataSource.markCacheInvalidated();
+        entries.invalidateAll();
+        encodedEntries.invalidateAll();
+        slugIndex.invalidateAll();
+        slugById.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.getProductId());
+    }
+
+    /**
+     * Карточка по slug загружается из read-модели; пока проекция не закоммичена, загрузка
+     * могла взять прежнюю строку - после проекции карточку сбрасываем еще раз
+     */
+    @EventListener
+    public void onProductProjected(ProductProjectedEvent event) {
+        event.getProductIds().forEach(this::invalidate);
+    }
+
+    /**
+     * Имя, slug или положение категории входят в карточки продуктов всего поддерева:
+     * предки хранятся в categoryPaths, поэтому индекс по ним покрывает и подкатегории
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        if (event.getProductIds() != null) {
+            event.getProductIds().forEach(this::invalidate);
+        }
+        invalidateDependents(productsByCategory, event.getCategoryId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        invalidateDependents(productsByBrand, event.getBrandId());
+    }
+
+    @EventListener
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        if (event.getScope() == CacheInvalidationEvent.Scope.ALL) {
+            invalidateAll();
+        } else if (event.getScope() == CacheInvalidationEvent.Scope.PRODUCT
+                || event.getScope() == CacheInvalidationEvent.Scope.PRODUCT_CARD) {
+            invalidate(event.getId());
+        } else if (event.getScope() == CacheInvalidationEvent.Scope.CATEGORY) {
+            invalidateDependents(productsByCategory, event.getId());
+        } else if (event.getScope() == CacheInvalidationEvent.Scope.BRAND) {
+            invalidateDependents(productsByBrand, event.getId());
+        }
+    }
+
+    public long getOffHeapBytes() {
+        return offHeapBytes.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private Optional<byte[]> load(String key, Supplier<Optional<ProductDTO>> loader) {
+        return loads.execute(key, () -> {
+            long loadStarted = System.nanoTime();
+            return ReplicaRoutingDataSource.cacheFill(loader).map(dto -> store(dto, loadStarted));
+        });
+    }
+
+    /**
+     * Карточка, прожившая refresh-ahead долю TTL, отдается из кэша и перестраивается в фоне,
+     * чтобы популярный продукт не истек под нагрузкой
+     */
+    private void refreshIfAging(Long id, String key, Supplier<Optional<ProductDTO>> loader) {
+        boolean aging = entries.policy().expireAfterWrite()
+                .flatMap(policy -> policy.ageOf(id))
+                .map(age -> age.compareTo(refreshAfter) >= 0)
+                .orElse(false);
+        if (!aging || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, loader);
+                } catch (Exception e) {
+                    log.debug("Фоновое обновление карточки продукта {} не удалось: {}", id, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (Exception e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private byte[] store(ProductDTO dto, long loadStarted) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(dto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать продукт " + dto.getId(), e);
+        }
+
+        // Продукт изменился, пока карточка строилась - отдаем, но не кэшируем
+        Long invalidated = invalidatedAt.getIfPresent(dto.getId());
+        if (invalidated != null && invalidated - loadStarted >= 0) {
+            return json;
+        }
+
+        ByteBuffer buffer = encode(json);
+        CardDependencies cardDependencies = dependenciesOf(dto);
+        link(dto.getId(), cardDependencies);
+        offHeapBytes.addAndGet(buffer.capacity());
+        entries.put(dto.getId(), new CachedCard(buffer, cardDependencies));
+        if (dto.getSlug() != null) {
+            indexSlug(dto.getSlug(), dto.getId());
+        }
+        return json;
+    }
+
+    private byte[] cachedEncoding(Long id, String format) {
+        EncodedCard encoded = encodedEntries.getIfPresent(id);
+        if (encoded == null || encoded.source() != entries.getIfPresent(id)) {
+            return null;
+        }
+        return encoded.formats().get(format);
+    }
+
+    /**
+     * Кодирует JSON карточки в format и запоминает результат при той записи кэша, из которой
+     * он получен; если карточку уже заменили или удалили, результат просто отдается
+     */
+    private byte[] encode(Long id, byte[] json, String format, Function<ProductDTO, byte[]> encoder) {
+        CachedCard source = id != null ? entries.getIfPresent(id) : null;
+        byte[] encoded;
+        try {
+            encoded = encoder.apply(objectMapper.readValue(json, ProductDTO.class));
+        } catch (IOException e) {
+            throw new IllegalStateException("Поврежденная карточка продукта " + id + " в кэше", e);
+        }
+        if (source != null) {
+            encodedEntries.asMap().compute(id, (key, current) -> current != null && current.source() == source
+                    ? current.with(format, encoded)
+                    : new EncodedCard(source, Map.of(format, encoded)));
+            // Карточку удалили, пока она кодировалась - удаляем и представление
+            if (entries.getIfPresent(id) != source) {
+                encodedEntries.asMap().computeIfPresent(id,
+                        (key, current) -> current.source() == source ? null : current);
+            }
+        }
+        return encoded;
+    }
+
+    private void indexSlug(String slug, Long id) {
+        String previous = slugById.put(id, slug);
+        if (previous != null && !previous.equals(slug)) {
+            slugIndex.asMap().remove(previous, id);
+        }
+        slugIndex.put(slug, id);
+    }
+
+    private void invalidateDependents(Map<Long, Set<Long>> index, Long key) {
+        Set<Long> ids = key != null ? index.get(key) : null;
+        if (ids != null) {
+            List.copyOf(ids).forEach(this::invalidate);
+        }
+    }
+
+    private static CardDependencies dependenciesOf(ProductDTO dto) {
+        Set<Long> categoryIds = new HashSet<>();
+        if (dto.getCategories() != null) {
+            for (CategoryListDto category : dto.getCategories()) {
+                categoryIds.add(category.getId());
+            }
+        }
+        if (dto.getCategoryPaths() != null) {
+            for (List<CategoryShortDto> path : dto.getCategoryPaths()) {
+                for (CategoryShortDto category : path) {
+                    categoryIds.add(category.getId());
+                }
+            }
+        }
+        categoryIds.remove(null);
+        Long brandId = dto.getBrand() != null ? dto.getBrand().getId() : null;
+        return new CardDependencies(brandId, Set.copyOf(categoryIds));
+    }
+
+    // Зависимости продукта меняются атомарно по ключу ID; удаление карточки убирает ее ссылки,
+    // только если они не заменены более новой загрузкой
+    private void link(Long id, CardDependencies cardDependencies) {
+        dependencies.compute(id, (key, previous) -> {
+            if (previous != null) {
+                removeLinks(id, previous);
+            }
+            cardDependencies.categoryIds().forEach(categoryId -> addLink(productsByCategory, categoryId, id));
+            if (cardDependencies.brandId() != null) {
+                addLink(productsByBrand, cardDependencies.brandId(), id);
+            }
+            return cardDependencies;
+        });
+    }
+
+    private void unlink(Long id, CardDependencies cardDependencies) {
+        dependencies.computeIfPresent(id, (key, current) -> {
+            if (current != cardDependencies) {
+                return current;
+            }
+            removeLinks(id, current);
+            return null;
+        });
+    }
+
+    private void removeLinks(Long id, CardDependencies cardDependencies) {
+        cardDependencies.categoryIds().forEach(categoryId -> removeLink(productsByCategory, categoryId, id));
+        if (cardDependencies.brandId() != null) {
+            removeLink(productsByBrand, cardDependencies.brandId(), id);
+        }
+    }
+
+    private static void addLink(Map<Long, Set<Long>> index, Long key, Long id) {
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+    }
+
+    private static void removeLink(Map<Long, Set<Long>> index, Long key, Long id) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private ByteBuffer encode(byte[] json) {
+        byte codec = CODEC_RAW;
+        byte[] payload = json;
+
+        if (compressionEnabled && json.length >= compressionThreshold) {
+            byte[] compressed = compressor.compress(json);
+            if (compressed.length < json.length) {
+                codec = CODEC_LZ4;
+                payload = compressed;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_SIZE + payload.length);
+        buffer.put(codec);
+        buffer.putInt(json.length);
+        buffer.put(payload);
+        buffer.flip();
+        return buffer;
+    }
+
+    private byte[] decode(ByteBuffer buffer) {
+        // Абсолютные операции и duplicate - буфер читается из многих потоков одновременно
+        byte codec = buffer.get(0);
+        int length = buffer.getInt(1);
+        byte[] json = new byte[length];
+
+        if (codec == CODEC_LZ4) {
+            decompressor.decompress(buffer, HEADER_SIZE, ByteBuffer.wrap(json), 0, length);
+        } else {
+            ByteBuffer view = buffer.duplicate();
+            view.position(HEADER_SIZE);
+            view.get(json);
+        }
+        return json;
+    }
+
+    private record CardDependencies(Long brandId, Set<Long> categoryIds) {
+    }
+
+    private record CachedCard(ByteBuffer buffer, CardDependencies dependencies) {
+    }
+
+    private record EncodedCard(CachedCard source, Map<String, byte[]> formats) {
+
+        EncodedCard with(String format, byte[] encoded) {
+            Map<String, byte[]> updated = new HashMap<>(formats);
+            updated.put(format, encoded);
+            return new EncodedCard(source, Map.copyOf(updated));
+        }
+
+        int size() {
+            return formats.values().stream().mapToInt(encoded -> encoded.length).sum();
+        }
+    }
+}
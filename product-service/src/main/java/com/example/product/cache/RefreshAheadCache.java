@@ -0,0 +1,123 @@
+package com.example.product.cache;
+
+import com.example.product.config.ReplicaRoutingDataSource;
+import com.example.product.util.SingleFlight;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш с объединением одновременных промахов (single-flight) и фоновым обновлением:
+ * запись старше refresh-ahead доли TTL отдается как есть и перезагружается в фоне,
+ * поэтому горячие ключи не истекают под нагрузкой. Пустой результат не кэшируется.
+ */
+@Slf4j
+public class RefreshAheadCache<K, V> {
+
+    private final Cache<K, V> cache;
+    private final SingleFlight<K, Optional<V>> loads;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    // Загрузка, начатая до инвалидации, не должна вернуть в кэш устаревшее значение
+    private final AtomicLong generation = new AtomicLong();
+    private final Executor refreshExecutor;
+    private final Duration refreshAfter;
+
+    public RefreshAheadCache(String name, long maxSize, Duration ttl, double refreshAheadRatio,
+                             Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.loads = new SingleFlight<>(name);
+        this.refreshExecutor = refreshExecutor;
+        this.refreshAfter = Duration.ofMillis((long) (ttl.toMillis() * refreshAheadRatio));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+        registerSingleFlightMetrics(loads, meterRegistry);
+    }
+
+    public Optional<V> get(K key, Supplier<Optional<V>> loader) {
+        V cached = cache.getIfPresent(key);
+        if (cached != null) {
+            refreshIfAging(key, loader);
+            return Optional.of(cached);
+        }
+        return load(key, loader);
+    }
+
+    public void invalidate(K key) {
+        ReplicaRoutingDataSource.markCacheInvalidated();
+        generation.incrementAndGet();
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        ReplicaRoutingDataSource.markCacheInvalidated();
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Метрики объединения загрузок: сколько загрузок выполнено и сколько вызовов дождались чужой
+     */
+    static void registerSingleFlightMetrics(SingleFlight<?, ?> singleFlight, MeterRegistry meterRegistry) {
+        FunctionCounter.builder("cache.singleflight.loads", singleFlight, SingleFlight::getLoadCount)
+                .tag("cache", singleFlight.getName())
+                .description("Загрузки, выполненные при промахе кэша")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.singleflight.shared", singleFlight, SingleFlight::getSharedCount)
+                .tag("cache", singleFlight.getName())
+                .description("Промахи, получившие результат уже идущей загрузки")
+                .register(meterRegistry);
+    }
+
+    private Optional<V> load(K key, Supplier<Optional<V>> loader) {
+        return loads.execute(key, () -> {
+            long loadGeneration = generation.get();
+            Optional<V> value = ReplicaRoutingDataSource.cacheFill(loader);
+            if (value.isPresent() && generation.get() == loadGeneration) {
+                cache.put(key, value.get());
+            }
+            return value;
+        });
+    }
+
+    private void refreshIfAging(K key, Supplier<Optional<V>> loader) {
+        boolean aging = cache.policy().expireAfterWrite()
+                .flatMap(policy -> policy.ageOf(key))
+                .map(age -> age.compareTo(refreshAfter) >= 0)
+                .orElse(false);
+        if (!aging || !refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Optional<V> value = load(key, loader);
+                    if (value.isEmpty()) {
+                        cache.invalidate(key);
+                    }
+                } catch (Exception e) {
+                    // Запись остается до истечения TTL
+                    log.debug("Фоновое обновление ключа {} не удалось: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (Exception e) {
+            refreshing.remove(key);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.product.config;
+
+import com.example.product.util.AdaptiveConcurrencyLimiter;
+import com.example.product.util.AdaptiveConcurrencyLimiter.Outcome;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Допуск запросов по классам эндпоинтов: у чтения, поиска, записи и загрузки файлов свои
+ * адаптивные пределы одновременных запросов, поэтому насыщение тяжелых эндпоинтов
+ * (полный список, поиск, фильтры, загрузка изображений) не выбирает пул соединений БД
+ * у дешевых чтений. Сверх предела запрос ждет в очереди до max-wait; при полной очереди
+ * сразу 429, по истечении ожидания - 503, оба с Retry-After.
+ * Пределы по умолчанию выводятся из размера пула соединений (spring.datasource.hikari.maximum-pool-size):
+ * у каждого класса своя доля пула, поиск и запись вместе не занимают его целиком.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    static final String POOL_SIZE_PROPERTY = "spring.datasource.hikari.maximum-pool-size";
+    // Значение Hikari по умолчанию
+    static final int DEFAULT_POOL_SIZE = 10;
+
+    /**
+     * poolShare - предел класса в долях пула соединений: чтения в основном обслуживаются кэшами
+     * и берут соединение только на промахе, поиск и запись держат его весь запрос
+     */
+    public enum EndpointClass {
+        READ(10.0, Duration.ofMillis(100), Duration.ofMillis(200)),
+        SEARCH(0.4, Duration.ofMillis(500), Duration.ofMillis(800)),
+        WRITE(0.4, Duration.ofSeconds(1), Duration.ofSeconds(1)),
+        UPLOAD(0.5, Duration.ofSeconds(2), Duration.ofSeconds(5));
+
+        private final double poolShare;
+        private final Duration maxWait;
+        private final Duration latencyTarget;
+
+        EndpointClass(double poolShare, Duration maxWait, Duration latencyTarget) {
+            this.poolShare = poolShare;
+            this.maxWait = maxWait;
+            this.latencyTarget = latencyTarget;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Long> maxWaitNanos = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> queueFullCounters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> timeoutCounters = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Timer> queueTimers = new EnumMap<>(EndpointClass.class);
+
+    public AdmissionControlFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry, Environment environment) {
+        this.objectMapper = objectMapper;
+        this.enabled = environment.getProperty("catalog.admission.enabled", Boolean.class, true);
+        this.retryAfterSeconds = environment.getProperty("catalog.admission.retry-after", Duration.class,
+                Duration.ofSeconds(1)).toSeconds();
+        int poolSize = environment.getProperty(POOL_SIZE_PROPERTY, Integer.class, DEFAULT_POOL_SIZE);
+
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "catalog.admission." + endpointClass.name().toLowerCase(Locale.ROOT) + ".";
+            Duration latencyTarget = environment.getProperty(prefix + "latency-target", Duration.class,
+                    endpointClass.latencyTarget);
+            // Явно заданные пределы класса важнее выведенных из пула
+            double poolShare = environment.getProperty(prefix + "pool-share", Double.class, endpointClass.poolShare);
+            int maxLimit = environment.getProperty(prefix + "max-limit", Integer.class,
+                    Math.max(1, (int) Math.round(poolSize * poolShare)));
+            int initialLimit = environment.getProperty(prefix + "initial-limit", Integer.class,
+                    Math.max(1, maxLimit / 2));
+            int minLimit = environment.getProperty(prefix + "min-limit", Integer.class, Math.max(1, maxLimit / 10));
+            int maxQueue = environment.getProperty(prefix + "max-queue", Integer.class, maxLimit);
+            log.info("Допуск запросов {}: предел {} ({}..{}), очередь {}, пул соединений {}",
+                    endpointClass, initialLimit, minLimit, maxLimit, maxQueue, poolSize);
+
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                    endpointClass.name(), initialLimit, minLimit, maxLimit, maxQueue,
+                    latencyTarget.toNanos(), TimeUnit.NANOSECONDS,
+                    environment.getProperty("catalog.admission.backoff-ratio", Double.class, 0.9));
+            limiters.put(endpointClass, limiter);
+            maxWaitNanos.put(endpointClass, environment.getProperty(prefix + "max-wait", Duration.class,
+                    endpointClass.maxWait).toNanos());
+
+            String tag = endpointClass.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("http.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("class", tag)
+                    .description("Текущий предел одновременных запросов класса")
+                    .register(meterRegistry);
+            Gauge.builder("http.admission.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            Gauge.builder("http.admission.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            queueFullCounters.put(endpointClass, Counter.builder("http.admission.rejected")
+                    .tag("class", tag)
+                    .tag("reason", "queue_full")
+                    .description("Отклоненные запросы")
+                    .register(meterRegistry));
+            timeoutCounters.put(endpointClass, Counter.builder("http.admission.rejected")
+                    .tag("class", tag)
+                    .tag("reason", "timeout")
+                    .description("Отклоненные запросы")
+                    .register(meterRegistry));
+            queueTimers.put(endpointClass, Timer.builder("http.admission.queue")
+                    .tag("class", tag)
+                    .description("Время ожидания допуска")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // SSE-подписки держат соединение минутами и ограничены собственным пределом
+        return !path.startsWith("/api/") || path.equals("/api/products/stream");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        EndpointClass endpointClass = classify(request);
+        AdaptiveConcurrencyLimiter limiter = limiters.get(endpointClass);
+
+        long waitStarted = System.nanoTime();
+        Outcome outcome;
+        try {
+            outcome = limiter.acquire(maxWaitNanos.get(endpointClass));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = Outcome.TIMEOUT;
+        }
+
+        if (outcome != Outcome.ACQUIRED) {
+            reject(response, endpointClass, outcome);
+            return;
+        }
+        queueTimers.get(endpointClass).record(System.nanoTime() - waitStarted, TimeUnit.NANOSECONDS);
+
+        long started = System.nanoTime();
+        boolean overloaded = false;
+        try {
+            filterChain.doFilter(request, response);
+            overloaded = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value()
+                    || response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value();
+        } catch (IOException | ServletException | RuntimeException e) {
+            overloaded = true;
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - started, overloaded);
+        }
+    }
+
+    /**
+     * Класс эндпоинта по методу и пути запроса
+     */
+    static EndpointClass classify(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith(MediaType.MULTIPART_FORM_DATA_VALUE)) {
+            return EndpointClass.UPLOAD;
+        }
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        String method = request.getMethod();
+        boolean readMethod = "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+
+        if (!readMethod) {
+            // Пакетный поиск - чтение, но тяжелое
+            return path.equals("/api/products/bulk") ? EndpointClass.SEARCH : EndpointClass.WRITE;
+        }
+        if (path.contains("/search") || path.contains("/filter")
+                || path.equals("/api/products") || path.equals("/api/products/")) {
+            return EndpointClass.SEARCH;
+        }
+        return EndpointClass.READ;
+    }
+
+    private void reject(HttpServletResponse response, EndpointClass endpointClass, Outcome outcome) throws IOException {
+        HttpStatus status;
+        String message;
+        if (outcome == Outcome.QUEUE_FULL) {
+            queueFullCounters.get(endpointClass).increment();
+            status = HttpStatus.TOO_MANY_REQUESTS;
+            message = "Слишком много одновременных запросов, повторите позже";
+        } else {
+            timeoutCounters.get(endpointClass).increment();
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            message = "Сервис перегружен, повторите позже";
+        }
+        log.debug("Запрос класса {} отклонен: {}", endpointClass, outcome);
+
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(retryAfterSeconds, 1)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(
+                status.value(), status.getReasonPhrase(), message, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.product.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Бинарные форматы ответов для внутренних потребителей: application/x-jackson-smile
+ * и application/x-protobuf. Выбираются по заголовку Accept; конвертеры добавляются
+ * после JSON, поэтому клиенты без явного Accept по-прежнему получают JSON.
+ */
+@Configuration
+public class BinaryFormatConfig implements WebMvcConfigurer {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final String APPLICATION_PROTOBUF_VALUE = JacksonProtobufHttpMessageConverter.APPLICATION_PROTOBUF_VALUE;
+
+    private final BinaryFormats binaryFormats;
+
+    public BinaryFormatConfig(BinaryFormats binaryFormats) {
+        this.binaryFormats = binaryFormats;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(binaryFormats.smileConverter());
+        converters.add(binaryFormats.protobufConverter());
+    }
+}
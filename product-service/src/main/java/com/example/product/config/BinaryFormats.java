@@ -0,0 +1,95 @@
+package com.example.product.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Smile и Protobuf: одни и те же мапперы используются конвертерами MVC и для заранее
+ * закодированных карточек в кэше, поэтому байты совпадают с ответом конвертера
+ */
+@Component
+public class BinaryFormats {
+
+    public static final MediaType APPLICATION_SMILE = MediaType.valueOf(BinaryFormatConfig.APPLICATION_SMILE_VALUE);
+    public static final MediaType APPLICATION_PROTOBUF = JacksonProtobufHttpMessageConverter.APPLICATION_PROTOBUF;
+
+    private static final String PROTOBUF_SCHEMA = "com/example/product/dto/catalog.proto";
+
+    private final ObjectMapper smileMapper;
+    private final JacksonProtobufHttpMessageConverter protobufConverter;
+
+    // Прототип из автоконфигурации Jackson: те же модули и настройки дат, что и у JSON
+    public BinaryFormats(ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilder) {
+        this.smileMapper = mapperBuilder.getObject()
+                .factory(new SmileFactory())
+                .build();
+
+        ObjectMapper protobufMapper = mapperBuilder.getObject()
+                .factory(new ProtobufFactory())
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                // Поля DTO, не описанные в схеме, пропускаются
+                .featuresToEnable(JsonGenerator.Feature.IGNORE_UNKNOWN)
+                .build();
+        try {
+            this.protobufConverter = new JacksonProtobufHttpMessageConverter(protobufMapper,
+                    new ClassPathResource(PROTOBUF_SCHEMA).getURL());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось загрузить protobuf-схему " + PROTOBUF_SCHEMA, e);
+        }
+    }
+
+    public MappingJackson2SmileHttpMessageConverter smileConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper);
+    }
+
+    public JacksonProtobufHttpMessageConverter protobufConverter() {
+        return protobufConverter;
+    }
+
+    /**
+     * Бинарный формат, который клиент запросил в Accept (первый подходящий по порядку)
+     */
+    public Optional<MediaType> select(List<MediaType> accepted) {
+        for (MediaType mediaType : accepted) {
+            if (mediaType.isWildcardType()) {
+                continue;
+            }
+            if (mediaType.isCompatibleWith(APPLICATION_PROTOBUF)) {
+                return Optional.of(APPLICATION_PROTOBUF);
+            }
+            if (mediaType.isCompatibleWith(APPLICATION_SMILE)) {
+                return Optional.of(APPLICATION_SMILE);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public byte[] encode(Object value, MediaType format) {
+        try {
+            if (APPLICATION_PROTOBUF.equalsTypeAndSubtype(format)) {
+                return protobufConverter.writeBytes(value);
+            }
+            if (APPLICATION_SMILE.equalsTypeAndSubtype(format)) {
+                return smileMapper.writeValueAsBytes(value);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось закодировать " + value.getClass().getSimpleName()
+                    + " в " + format, e);
+        }
+        throw new IllegalArgumentException("Неподдерживаемый формат: " + format);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.product.config;
+
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.CacheInvalidationEvent.Scope;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Кэши горячих публичных выборок каталога. Сбрасываются после коммита изменений
+ * соответствующих сущностей, TTL ограничивает устаревание счетчиков и статистики.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String CATEGORY_TREE = "categoryTree";
+    public static final String ACTIVE_BRANDS = "activeBrands";
+    public static final String POPULAR_CATEGORIES = "popularCategories";
+    public static final String FEATURED_PRODUCTS = "featuredProducts";
+
+    private final CacheManager cacheManager;
+
+    public CacheConfig(@Value("${catalog.cache.ttl:10m}") Duration ttl) {
+        CaffeineCacheManager manager = new CaffeineCacheManager(
+                CATEGORY_TREE, ACTIVE_BRANDS, POPULAR_CATEGORIES, FEATURED_PRODUCTS);
+        manager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(100)
+                .expireAfterWrite(ttl)
+                .recordStats());
+        this.cacheManager = manager;
+    }
+
+    @Bean
+    public CacheManager cacheManager() {
+        return cacheManager;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        clear(List.of(CATEGORY_TREE, POPULAR_CATEGORIES));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        clear(List.of(ACTIVE_BRANDS, FEATURED_PRODUCTS));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        clear(List.of(FEATURED_PRODUCTS));
+    }
+
+    /**
+     * Изменение, сделанное другим экземпляром
+     */
+    @EventListener
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        List<String> names = new ArrayList<>();
+        if (event.affects(Scope.CATEGORY)) {
+            names.addAll(List.of(CATEGORY_TREE, POPULAR_CATEGORIES));
+        }
+        if (event.affects(Scope.BRAND)) {
+            names.addAll(List.of(ACTIVE_BRANDS, FEATURED_PRODUCTS));
+        }
+        if (event.affects(Scope.PRODUCT)) {
+            names.add(FEATURED_PRODUCTS);
+        }
+        clear(names);
+    }
+
+    private void clear(List<String> cacheNames) {
+        for (String name : cacheNames) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.product.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.WebContentInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Cache-Control для публичных выборок каталога. Клиенты (в том числе product-client)
+ * используют max-age как срок жизни записи в своем локальном кэше.
+ */
+@Configuration
+public class HttpCacheConfig implements WebMvcConfigurer {
+
+    private final Duration maxAge;
+
+    public HttpCacheConfig(@Value("${catalog.http.cache-max-age:30s}") Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        WebContentInterceptor interceptor = new WebContentInterceptor();
+        interceptor.addCacheMapping(CacheControl.maxAge(maxAge),
+                "/api/products/{id:\\d+}",
+                "/api/products/slug/*",
+                "/api/products/public/brands",
+                "/api/categories/public/tree");
+        registry.addInterceptor(interceptor);
+    }
+}
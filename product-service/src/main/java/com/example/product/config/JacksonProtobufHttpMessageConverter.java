@@ -0,0 +1,146 @@
+package com.example.product.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufField;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufMessage;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сериализация DTO в application/x-protobuf через Jackson по схемам из dto/catalog.proto.
+ * Сообщение выбирается по простому имени класса DTO; коллекция DTO записывается как
+ * сообщение {@code <Имя>List} с полем {@code items}. Классы без схемы этим конвертером не обрабатываются.
+ * Поля, которых нет в схеме, отбрасываются до записи: генератор умеет пропускать только неизвестные
+ * скаляры, а вложенные списки и карты (categoryPaths, sizes) без схемы ломают сериализацию.
+ */
+public class JacksonProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.valueOf(APPLICATION_PROTOBUF_VALUE);
+
+    private static final String LIST_SUFFIX = "List";
+    private static final String LIST_FIELD = "items";
+
+    private final ObjectMapper protobufMapper;
+    private final Map<String, ProtobufSchema> schemas = new HashMap<>();
+
+    public JacksonProtobufHttpMessageConverter(ObjectMapper protobufMapper, URL schemaFile) throws IOException {
+        super(APPLICATION_PROTOBUF);
+        this.protobufMapper = protobufMapper;
+
+        NativeProtobufSchema nativeSchema = ProtobufSchemaLoader.std.loadNative(schemaFile);
+        for (String messageName : nativeSchema.getMessageNames()) {
+            schemas.put(messageName, nativeSchema.forType(messageName));
+        }
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return schemas.containsKey(clazz.getSimpleName());
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return schemaFor(type) != null && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return schemaFor(type != null ? type : clazz) != null && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        ProtobufSchema schema = schemaFor(type);
+        if (schema == null || isCollection(type)) {
+            throw new HttpMessageNotReadableException("Нет protobuf-схемы для " + type, inputMessage);
+        }
+        JavaType javaType = protobufMapper.constructType(type);
+        return protobufMapper.readerFor(javaType).with(schema).readValue(inputMessage.getBody());
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        ProtobufSchema schema = schemaFor(type != null ? type : value.getClass());
+        if (schema == null) {
+            throw new HttpMessageNotWritableException("Нет protobuf-схемы для " + value.getClass().getName());
+        }
+        protobufMapper.writer(schema).writeValue(outputMessage.getBody(), tree(value, schema));
+    }
+
+    /**
+     * Закодировать DTO (не коллекцию) так же, как при записи ответа
+     */
+    public byte[] writeBytes(Object value) throws IOException {
+        ProtobufSchema schema = schemaFor(value.getClass());
+        if (schema == null) {
+            throw new HttpMessageNotWritableException("Нет protobuf-схемы для " + value.getClass().getName());
+        }
+        return protobufMapper.writer(schema).writeValueAsBytes(tree(value, schema));
+    }
+
+    private JsonNode tree(Object value, ProtobufSchema schema) {
+        Object root = value instanceof Collection<?> items ? Map.of(LIST_FIELD, items) : value;
+        JsonNode tree = protobufMapper.valueToTree(root);
+        retainDeclared(tree, schema.getRootType());
+        return tree;
+    }
+
+    private static void retainDeclared(JsonNode node, ProtobufMessage message) {
+        if (node instanceof ObjectNode object) {
+            object.properties().removeIf(property -> {
+                ProtobufField field = message.field(property.getKey());
+                if (field == null) {
+                    return true;
+                }
+                if (field.getMessageType() != null) {
+                    retainDeclared(property.getValue(), field.getMessageType());
+                }
+                return false;
+            });
+        } else if (node != null && node.isArray()) {
+            node.forEach(element -> retainDeclared(element, message));
+        }
+    }
+
+    private ProtobufSchema schemaFor(Type type) {
+        if (type == null) {
+            return null;
+        }
+        ResolvableType resolved = ResolvableType.forType(type);
+        if (isCollection(type)) {
+            Class<?> element = resolved.asCollection().getGeneric(0).resolve();
+            return element != null ? schemas.get(element.getSimpleName() + LIST_SUFFIX) : null;
+        }
+        Class<?> clazz = resolved.resolve();
+        return clazz != null ? schemas.get(clazz.getSimpleName()) : null;
+    }
+
+    private static boolean isCollection(Type type) {
+        Class<?> clazz = ResolvableType.forType(type).resolve();
+        return clazz != null && Collection.class.isAssignableFrom(clazz);
+    }
+}
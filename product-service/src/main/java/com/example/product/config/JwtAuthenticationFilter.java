@@ -38,28 +38,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String jwt = authHeader.substring(7);
 
-        try {
-            // Проверка и извлечение данных из токена
-            if (jwtService.isTokenValid(jwt)) {
-                String username = jwtService.extractUsername(jwt);
-                List<String> roles = jwtService.extractRoles(jwt);
-
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
-
-                // Создание объекта аутентификации
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                        username, null, authorities
-                );
-
-                // Установка аутентификации в контекст
-                SecurityContextHolder.getContext().setAuthentication(authToken);
-            }
-        } catch (Exception e) {
-            // В случае ошибки валидации токена не устанавливаем аутентификацию
-            logger.error("JWT token validation error", e);
-        }
+        // Токен проверяется один раз; повторные токены берутся из кэша без HMAC
+        jwtService.authenticate(jwt).ifPresent(principal -> {
+            List<SimpleGrantedAuthority> authorities = principal.getRoles().stream()
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toList());
+
+            // Создание объекта аутентификации
+            UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                    principal.getUsername(), null, authorities
+            );
+
+            // Установка аутентификации в контекст
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+        });
 
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,43 @@
+package com.example.product.config;
+
+import com.example.product.outbox.FileOutboxSink;
+import com.example.product.outbox.InMemoryOutboxSink;
+import com.example.product.outbox.OutboxSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.nio.file.Path;
+
+/**
+ * Приемник событий outbox выбирается свойством catalog.outbox.sink (file; memory - только
+ * в профиле test). Для брокера сообщений достаточно объявить собственный бин OutboxSink -
+ * встроенные приемники в этом случае не создаются. Приемника по умолчанию нет:
+ * без него включенный outbox не дает приложению запуститься (см. OutboxRelay).
+ */
+@Configuration
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(OutboxSink.class)
+    @ConditionalOnProperty(name = "catalog.outbox.sink", havingValue = "file")
+    public OutboxSink fileOutboxSink(ObjectMapper objectMapper,
+                                     @Value("${catalog.outbox.file.path:${java.io.tmpdir}/product-outbox.jsonl}") String path) {
+        return new FileOutboxSink(objectMapper, Path.of(path));
+    }
+
+    /**
+     * Кольцевой буфер в памяти никто не читает вне тестов - события в нем теряются
+     */
+    @Bean
+    @Profile("test")
+    @ConditionalOnMissingBean(OutboxSink.class)
+    @ConditionalOnProperty(name = "catalog.outbox.sink", havingValue = "memory")
+    public OutboxSink inMemoryOutboxSink(@Value("${catalog.outbox.memory.capacity:10000}") int capacity) {
+        return new InMemoryOutboxSink(capacity);
+    }
+}
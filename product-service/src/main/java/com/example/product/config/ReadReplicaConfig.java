@@ -0,0 +1,108 @@
+package com.example.product.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Чтение с реплик (catalog.datasource.replicas.enabled=true). Транзакции readOnly идут на реплики,
+ * запись и все остальное - на primary из spring.datasource.*. Без этого свойства приложение
+ * работает с одним пулом, как раньше. Для локальной проверки репликой может быть вторая БД
+ * или та же БД с другой схемой (currentSchema в URL).
+ */
+@Configuration
+@ConditionalOnProperty(name = "catalog.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 DataSourceProperties properties,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${catalog.datasource.replicas.urls}") List<String> urls,
+                                 @Value("${catalog.datasource.replicas.username:}") String username,
+                                 @Value("${catalog.datasource.replicas.password:}") String password,
+                                 @Value("${catalog.datasource.replicas.pool-size:10}") int poolSize,
+                                 @Value("${catalog.datasource.replicas.max-lag:5s}") Duration maxLag,
+                                 @Value("${catalog.datasource.replicas.check-interval:5000}") long checkIntervalMillis) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(username.isEmpty() ? properties.determineUsername() : username);
+            replica.setPassword(password.isEmpty() ? properties.determinePassword() : password);
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replicas.put(replica.getPoolName(), replica);
+        }
+
+        // Отставание измеряется раз в check-interval: между проверками реплика может отстать сильнее maxLag
+        Duration cacheFillWindow = maxLag.plusMillis(checkIntervalMillis);
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag, cacheFillWindow,
+                meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        routingDataSource.checkReplicas();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${catalog.datasource.read-your-writes.window:5s}") Duration window) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(window));
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 20);
+        return registration;
+    }
+
+    @Bean
+    public HealthIndicator readReplicasHealthIndicator() {
+        // Недоступная реплика не делает сервис нездоровым - чтение уходит на primary
+        return () -> {
+            Health.Builder builder = Health.up();
+            for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+                builder.withDetail(replica.getName(), Map.of(
+                        "healthy", replica.isHealthy(),
+                        "lagMillis", replica.getLagMillis()));
+            }
+            return builder.build();
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.datasource.replicas.check-interval:5000}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas();
+        }
+    }
+}
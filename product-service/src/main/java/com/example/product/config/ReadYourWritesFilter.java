@@ -0,0 +1,85 @@
+package com.example.product.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Чтение своих записей при репликах: запрос на изменение и все запросы клиента в течение
+ * окна после него читают с primary. Окно передается cookie (браузеры) и заголовком
+ * X-Primary-Until (сервисы могут вернуть его в следующих запросах).
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE_NAME = "primary_until";
+    static final String HEADER_NAME = "X-Primary-Until";
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        boolean write = !isReadMethod(request.getMethod());
+
+        if (write) {
+            // Ставится до выполнения - после записи тела ответа заголовки уже не изменить
+            long until = now + window.toMillis();
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(window.toSeconds(), 1));
+            response.addCookie(cookie);
+            response.setHeader(HEADER_NAME, String.valueOf(until));
+        }
+
+        ReplicaRoutingDataSource.forcePrimary(write || primaryUntil(request, now) > now);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRoutingDataSource.forcePrimary(false);
+        }
+    }
+
+    private static boolean isReadMethod(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    /**
+     * Граница окна из запроса. Значение приходит от клиента без подписи, поэтому срок дальше
+     * now + window не принимается: иначе клиент мог бы навсегда закрепить свои чтения за primary.
+     */
+    long primaryUntil(HttpServletRequest request, long now) {
+        String value = request.getHeader(HEADER_NAME);
+        if (value == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE_NAME.equals(cookie.getName())) {
+                    value = cookie.getValue();
+                    break;
+                }
+            }
+        }
+        if (value == null) {
+            return 0;
+        }
+        long until;
+        try {
+            until = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        return until - now > window.toMillis() ? 0 : until;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.product.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Маршрутизация соединений: транзакции readOnly уходят на реплики по кругу, остальное - на primary.
+ * Реплика, не ответившая на проверку или отстающая больше maxLag, исключается до следующей
+ * успешной проверки; если подходящих реплик нет, чтение идет на primary.
+ * Работает только за LazyConnectionDataSourceProxy - иначе соединение берется до того,
+ * как признак readOnly транзакции становится известен.
+ * Загрузки кэшей в течение окна после инвалидации идут на primary: реплика, отстающая
+ * в пределах maxLag, вернула бы в кэш состояние до изменения, и оно жило бы до следующего сброса.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    // Отставание реплики в секундах; на primary (не в режиме восстановления) - 0. Реплика, применившая
+    // все полученное, не отстает: при простое primary время последней транзакции стареет, а данные актуальны
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final ThreadLocal<Boolean> FORCE_PRIMARY = new ThreadLocal<>();
+
+    // Окно после инвалидации кэша, в течение которого загрузки кэшей читают с primary; 0 - реплик нет
+    private static volatile long cacheFillWindowNanos;
+    private static volatile long cacheFillPrimaryUntil = System.nanoTime();
+
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicaDataSources,
+                                    Duration maxLag, Duration cacheFillWindow, MeterRegistry meterRegistry) {
+        this.maxLag = maxLag;
+        cacheFillWindowNanos = cacheFillWindow.toNanos();
+        this.replicas = new ArrayList<>();
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicaDataSources.forEach((name, dataSource) -> {
+            targets.put(name, dataSource);
+            Replica replica = new Replica(name, dataSource);
+            replicas.add(replica);
+            Gauge.builder("db.replica.lag.seconds", replica, r -> r.lagMillis / 1000.0)
+                    .tag("replica", name)
+                    .description("Отставание реплики по последней проверке")
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        this.primaryReads = Counter.builder("db.routing.reads").tag("target", "primary")
+                .description("Транзакции readOnly по месту выполнения").register(meterRegistry);
+        this.replicaReads = Counter.builder("db.routing.reads").tag("target", "replica")
+                .description("Транзакции readOnly по месту выполнения").register(meterRegistry);
+        this.fallbackReads = Counter.builder("db.routing.reads").tag("target", "fallback")
+                .description("Транзакции readOnly по месту выполнения").register(meterRegistry);
+    }
+
+    /**
+     * Направлять все транзакции текущего потока на primary (чтение своих записей)
+     */
+    public static void forcePrimary(boolean force) {
+        if (force) {
+            FORCE_PRIMARY.set(Boolean.TRUE);
+        } else {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    /**
+     * Кэш сброшен: ближайшие загрузки кэшей должны прочитать изменение, а не его отсутствие на реплике
+     */
+    public static void markCacheInvalidated() {
+        long window = cacheFillWindowNanos;
+        if (window > 0) {
+            cacheFillPrimaryUntil = System.nanoTime() + window;
+        }
+    }
+
+    /**
+     * Выполнить загрузку кэша: в окне после инвалидации - на primary, иначе по обычным правилам
+     */
+    public static <T> T cacheFill(Supplier<T> loader) {
+        if (cacheFillWindowNanos == 0 || System.nanoTime() - cacheFillPrimaryUntil >= 0
+                || Boolean.TRUE.equals(FORCE_PRIMARY.get())) {
+            return loader.get();
+        }
+        FORCE_PRIMARY.set(Boolean.TRUE);
+        try {
+            return loader.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        if (Boolean.TRUE.equals(FORCE_PRIMARY.get())) {
+            primaryReads.increment();
+            return PRIMARY;
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                replicaReads.increment();
+                return replica.name;
+            }
+        }
+        fallbackReads.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * Проверить доступность и отставание реплик
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(replica.dataSource);
+                jdbcTemplate.setQueryTimeout(2);
+                Double lagSeconds = jdbcTemplate.queryForObject(LAG_SQL, Double.class);
+                replica.lagMillis = lagSeconds != null ? (long) (lagSeconds * 1000) : 0;
+                replica.healthy = replica.lagMillis <= maxLag.toMillis();
+            } catch (Exception e) {
+                replica.healthy = false;
+                log.debug("Проверка реплики {} не удалась: {}", replica.name, e.getMessage());
+            }
+            if (wasHealthy != replica.healthy) {
+                log.warn("Реплика {} {} (отставание {} мс)", replica.name,
+                        replica.healthy ? "снова принимает чтение" : "исключена из чтения", replica.lagMillis);
+            }
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return List.copyOf(replicas);
+    }
+
+    @Getter
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        // До первой проверки реплика не используется
+        private volatile boolean healthy;
+        private volatile long lagMillis;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
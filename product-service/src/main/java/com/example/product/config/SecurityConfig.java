@@ -2,6 +2,7 @@ package com.example.product.config;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -28,7 +29,14 @@ public class SecurityConfig {
                         // Публичные эндпоинты (доступны без аутентификации)
                         .requestMatchers("/api/products/public/**").permitAll()
                         .requestMatchers("/api/categories/**").permitAll()
-                        .requestMatchers("/actuator/**").permitAll()
+                        .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()
+                        // Метрики (вызовы хранилища, выключатель, кэши) раскрывают внутреннее состояние
+                        .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
+                        // Резервы и горячие полосы меняют остатки - правила до общего /api/**
+                        .requestMatchers("/api/products/reservations/**").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers("/api/products/admin/stock/hot/**").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/products/stock/sync").hasAuthority("ROLE_ADMIN")
+                        .requestMatchers("/api/products/admin/read-model/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/**").permitAll()
                         .requestMatchers("/api/products/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
@@ -1,5 +1,7 @@
 
 package com.example.product.controller;
+import com.example.product.cache.CatalogSlugCache;
+import com.example.product.cache.CatalogSnapshotService;
 import com.example.product.dto.BrandDto.BrandCreateRequest;
 import com.example.product.dto.BrandDto.BrandDTO;
 import com.example.product.dto.BrandDto.BrandListDTO;
@@ -27,6 +29,8 @@ import java.util.List;
 public class BrandController {
 
     private final BrandService brandService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogSlugCache catalogSlugCache;
 
     // Публичные эндпоинты для брендов
 
@@ -35,7 +39,10 @@ public class BrandController {
             @RequestParam(required = false) Boolean active) {
 
         // Для публичного API всегда возвращаем только активные бренды
-        List<BrandListDTO> brands = brandService.getBrandsByActive(active != null ? active : true);
+        boolean activeOnly = active != null ? active : true;
+        List<BrandListDTO> brands = activeOnly
+                ? catalogSnapshotService.getActiveBrands().orElseGet(() -> brandService.getBrandsByActive(true))
+                : brandService.getBrandsByActive(false);
         return ResponseEntity.ok(brands);
     }
 
@@ -75,7 +82,7 @@ public class BrandController {
 
     @GetMapping("/public/brands/slug/{slug}")
     public ResponseEntity<BrandDTO> getPublicBrandBySlug(@PathVariable String slug) {
-        return brandService.getBrandBySlug(slug)
+        return catalogSlugCache.getBrand(slug, () -> brandService.getBrandBySlug(slug))
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
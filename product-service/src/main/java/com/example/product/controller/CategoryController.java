@@ -1,5 +1,7 @@
 package com.example.product.controller;
 
+import com.example.product.cache.CatalogSlugCache;
+import com.example.product.cache.CatalogSnapshotService;
 import com.example.product.dto.BrandDto.BrandListDTO;
 import com.example.product.dto.Category.*;
 import com.example.product.service.BrandService;
@@ -23,6 +25,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -33,6 +36,8 @@ public class CategoryController {
 
     private final CategoryService categoryService;
     private final BrandService brandService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final CatalogSlugCache catalogSlugCache;
 
     @Operation(
             summary = "Создание новой категории",
@@ -232,7 +237,8 @@ public class CategoryController {
     @GetMapping("/slug/{slug}")
     public ResponseEntity<CategoryDetailsDto> getCategoryBySlug(@PathVariable String slug) {
         log.info("Запрос на получение категории по slug: {}", slug);
-        CategoryDetailsDto category = categoryService.getCategoryBySlug(slug);
+        CategoryDetailsDto category = catalogSlugCache.getCategory(slug,
+                () -> Optional.ofNullable(categoryService.getCategoryBySlug(slug))).orElse(null);
         if (category != null) {
             categoryService.incrementViewCount(category.getId()); // Увеличиваем счетчик просмотров
             return ResponseEntity.ok(category);
@@ -269,7 +275,8 @@ public class CategoryController {
     @GetMapping("/public/tree")
     public ResponseEntity<List<CategoryTreeDto>> getCategoryTree() {
         log.info("Запрос на получение древовидной структуры категорий");
-        List<CategoryTreeDto> categoryTree = categoryService.getCategoryTree();
+        List<CategoryTreeDto> categoryTree = catalogSnapshotService.getCategoryTree()
+                .orElseGet(categoryService::getCategoryTree);
         return ResponseEntity.ok(categoryTree);
     }
 
@@ -1,11 +1,23 @@
 package com.example.product.controller;
 
+import com.example.product.cache.CatalogSnapshotService;
+import com.example.product.cache.ProductDetailCache;
+import com.example.product.config.BinaryFormatConfig;
+import com.example.product.config.BinaryFormats;
+import com.example.product.dto.Product.PriceRangeDTO;
+import com.example.product.dto.Product.ProductBulkRequest;
+import com.example.product.dto.Product.ProductBulkResponse;
+import com.example.product.dto.Product.ProductChangesResponse;
 import com.example.product.dto.Product.ProductCreateRequest;
 import com.example.product.dto.Product.ProductDTO;
 import com.example.product.dto.Product.ProductListDTO;
 import com.example.product.dto.Product.ProductSearchResponse;
 import com.example.product.dto.Product.ProductUpdateRequest;
 import com.example.product.enums.ProductStatus;
+import com.example.product.service.CategoryPriceStatsService;
+import com.example.product.service.ProductBulkService;
+import com.example.product.service.ProductChangeFeedService;
+import com.example.product.service.ProductReadModelService;
 import com.example.product.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +25,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -21,6 +35,7 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/products")
@@ -28,6 +43,13 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
+    private final CategoryPriceStatsService priceStatsService;
+    private final ProductDetailCache productDetailCache;
+    private final ProductReadModelService readModelService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductBulkService productBulkService;
+    private final ProductChangeFeedService changeFeedService;
+    private final BinaryFormats binaryFormats;
 
     /**
      * Получить все продукты
@@ -60,25 +82,94 @@ public class ProductController {
     }
 
     /**
-     * Получить продукт по ID
+     * Получить продукт по ID (готовый JSON из кэша карточек)
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return productService.getProductById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id) {
+        return productDetailCache.getById(id, () -> productService.getProductById(id))
+                .map(this::jsonResponse)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Получить продукт по slug
+     * Получить продукт по ID в бинарном формате (Smile или Protobuf, по заголовку Accept).
+     * Закодированная карточка кэшируется рядом с JSON, повторные запросы не кодируют ее заново.
+     */
+    @GetMapping(value = "/{id}", produces = {BinaryFormatConfig.APPLICATION_SMILE_VALUE,
+            BinaryFormatConfig.APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<byte[]> getProductByIdBinary(@PathVariable Long id,
+                                                       @RequestHeader(HttpHeaders.ACCEPT) String accept) {
+        MediaType format = binaryFormat(accept);
+        return productDetailCache.getEncodedById(id, format.toString(), dto -> binaryFormats.encode(dto, format),
+                        () -> productService.getProductById(id))
+                .map(encoded -> binaryResponse(format, encoded))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Пакетный поиск продуктов по ID, slug и SKU для других сервисов
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<ProductBulkResponse> getProductsBulk(@RequestBody ProductBulkRequest request) {
+        return ResponseEntity.ok(productBulkService.findProducts(request));
+    }
+
+    /**
+     * Лента изменений для зеркал каталога: продукты и удаления после курсора since.
+     * Первый запрос - since=0, далее since = nextCursor из предыдущего ответа.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesResponse> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(changeFeedService.getChanges(since, limit));
+    }
+
+    /**
+     * Получить продукт по slug (готовый JSON из кэша карточек)
      */
     @GetMapping("/slug/{slug}")
-    public ResponseEntity<ProductDTO> getProductBySlug(@PathVariable String slug) {
-        return productService.getProductBySlug(slug)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getProductBySlug(@PathVariable String slug) {
+        return productDetailCache.getBySlug(slug, () -> readModelService.findBySlug(slug)
+                        .or(() -> productService.getProductBySlug(slug)))
+                .map(this::jsonResponse)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Получить продукт по slug в бинарном формате (Smile или Protobuf, по заголовку Accept)
+     */
+    @GetMapping(value = "/slug/{slug}", produces = {BinaryFormatConfig.APPLICATION_SMILE_VALUE,
+            BinaryFormatConfig.APPLICATION_PROTOBUF_VALUE})
+    public ResponseEntity<byte[]> getProductBySlugBinary(@PathVariable String slug,
+                                                         @RequestHeader(HttpHeaders.ACCEPT) String accept) {
+        MediaType format = binaryFormat(accept);
+        return productDetailCache.getEncodedBySlug(slug, format.toString(), dto -> binaryFormats.encode(dto, format),
+                        () -> readModelService.findBySlug(slug).or(() -> productService.getProductBySlug(slug)))
+                .map(encoded -> binaryResponse(format, encoded))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Сюда попадают только запросы с Smile или Protobuf в Accept (produces); при обоих берем первый
+     */
+    private MediaType binaryFormat(String accept) {
+        return binaryFormats.select(MediaType.parseMediaTypes(accept))
+                .orElse(BinaryFormats.APPLICATION_SMILE);
+    }
+
+    private ResponseEntity<byte[]> binaryResponse(MediaType format, byte[] encoded) {
+        return ResponseEntity.ok()
+                .contentType(format)
+                .body(encoded);
+    }
+
+    private ResponseEntity<byte[]> jsonResponse(byte[] json) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
     /**
      * Удалить продукт
      */
@@ -103,7 +194,9 @@ public class ProductController {
                 Sort.Direction.DESC : Sort.Direction.ASC;
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(dir, sort));
-        Page<ProductListDTO> products = productService.getProductsPaginated(pageable);
+        Page<ProductListDTO> products = readModelService.isReady()
+                ? readModelService.findPage(pageable)
+                : productService.getProductsPaginated(pageable);
 
         return ResponseEntity.ok(products);
     }
@@ -141,7 +234,8 @@ public class ProductController {
      */
     @GetMapping("/featured")
     public ResponseEntity<List<ProductListDTO>> getFeaturedProducts() {
-        List<ProductListDTO> products = productService.getFeaturedProducts();
+        List<ProductListDTO> products = catalogSnapshotService.getFeaturedProducts()
+                .orElseGet(productService::getFeaturedProducts);
         return ResponseEntity.ok(products);
     }
 
@@ -240,6 +334,14 @@ public class ProductController {
         return ResponseEntity.ok(count);
     }
 
+    /**
+     * Границы ценового слайдера фильтра и гистограмма цен (по категории или всему каталогу)
+     */
+    @GetMapping("/filter/price-range")
+    public ResponseEntity<PriceRangeDTO> getFilterPriceRange(@RequestParam(required = false) Long categoryId) {
+        return ResponseEntity.ok(priceStatsService.getPriceRange(categoryId));
+    }
+
     /**
      * Получить отфильтрованные продукты по категории с применением разных фильтров
      */
@@ -253,6 +355,15 @@ public class ProductController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size) {
 
+        // Витрина без фильтров - из снимка каталога, пока продукты не менялись
+        if (categoryId == null && brandIds == null && minPrice == null && maxPrice == null
+                && "popularity".equals(sort)) {
+            Optional<Page<ProductListDTO>> snapshotPage = catalogSnapshotService.getListPage(page, size);
+            if (snapshotPage.isPresent()) {
+                return ResponseEntity.ok(snapshotPage.get());
+            }
+        }
+
         Pageable pageable;
         switch (sort) {
             case "price-asc":
@@ -271,10 +382,20 @@ public class ProductController {
                 pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "viewCount"));
         }
 
-        Page<ProductListDTO> products = productService.getFilteredProducts(
-                categoryId, brandIds, minPrice, maxPrice, pageable);
+        Page<ProductListDTO> products = readModelService.isReady()
+                ? readModelService.findFiltered(categoryId, brandIds, minPrice, maxPrice, pageable)
+                : productService.getFilteredProducts(categoryId, brandIds, minPrice, maxPrice, pageable);
 
         return ResponseEntity.ok(products);
     }
 
+    /**
+     * Запустить полное перестроение read-модели каталога
+     */
+    @PostMapping("/admin/read-model/rebuild")
+    public ResponseEntity<Void> rebuildReadModel() {
+        readModelService.rebuildAsync();
+        return ResponseEntity.accepted().build();
+    }
+
 }
\ No newline at end of file
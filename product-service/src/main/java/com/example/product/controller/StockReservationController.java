@@ -0,0 +1,66 @@
+package com.example.product.controller;
+
+import com.example.product.dto.Stock.StockReservationDTO;
+import com.example.product.dto.Stock.StockReservationRequest;
+import com.example.product.service.StockReservationService;
+import com.example.product.service.serviceImpl.HotStockLedger;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+public class StockReservationController {
+
+    private final StockReservationService reservationService;
+    private final HotStockLedger hotStockLedger;
+
+    /**
+     * Зарезервировать остаток по всем позициям заказа (409, если какой-то позиции не хватает)
+     */
+    @PostMapping("/reservations")
+    public ResponseEntity<StockReservationDTO> reserve(@Valid @RequestBody StockReservationRequest request) {
+        return ResponseEntity.ok(reservationService.reserve(request));
+    }
+
+    @GetMapping("/reservations/{orderId}")
+    public ResponseEntity<StockReservationDTO> getReservation(@PathVariable String orderId) {
+        return reservationService.getReservation(orderId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/reservations/{orderId}/confirm")
+    public ResponseEntity<StockReservationDTO> confirm(@PathVariable String orderId) {
+        return ResponseEntity.ok(reservationService.confirm(orderId));
+    }
+
+    @PostMapping("/reservations/{orderId}/release")
+    public ResponseEntity<StockReservationDTO> release(@PathVariable String orderId) {
+        return ResponseEntity.ok(reservationService.release(orderId));
+    }
+
+    /**
+     * Горячие продукты этого экземпляра и остаток в их полосах
+     */
+    @GetMapping("/admin/stock/hot")
+    public ResponseEntity<Map<Long, Integer>> getHotProducts() {
+        return ResponseEntity.ok(hotStockLedger.getAllocations());
+    }
+
+    @PostMapping("/admin/stock/hot/{productId}")
+    public ResponseEntity<Void> enableHotProduct(@PathVariable Long productId) {
+        hotStockLedger.enable(productId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/admin/stock/hot/{productId}")
+    public ResponseEntity<Void> disableHotProduct(@PathVariable Long productId) {
+        hotStockLedger.disable(productId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.product.controller;
+
+import com.example.product.dto.Stock.StockSyncRequest;
+import com.example.product.dto.Stock.StockSyncResultDTO;
+import com.example.product.service.StockSyncService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/products/stock")
+@RequiredArgsConstructor
+public class StockSyncController {
+
+    private final StockSyncService stockSyncService;
+
+    /**
+     * Пачка остатков со склада (ID или SKU, количество, время на складе);
+     * записи старше уже примененных пропускаются
+     */
+    @PostMapping("/sync")
+    public ResponseEntity<StockSyncResultDTO> sync(@Valid @RequestBody StockSyncRequest request) {
+        return ResponseEntity.ok(stockSyncService.sync(request));
+    }
+}
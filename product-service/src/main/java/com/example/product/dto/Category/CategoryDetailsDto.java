@@ -19,6 +19,8 @@ public class CategoryDetailsDto {
     private String name;
     private String description;
     private Integer productCount;
+    private Integer activeProductCount;
+    private Integer totalActiveProductCount;
     private String imageUrl;
     private String imageId;
 
@@ -14,7 +14,8 @@ public class CategoryListDto {
     private String name;
     private String description;
     private String imageUrl;
-    private Integer productCount;
+    private Integer productCount;          // Активные продукты с учетом подкатегорий
+    private Integer directProductCount;    // Активные продукты непосредственно в категории
     private String slug;
     private boolean isPopular;
     private Integer sortOrder;
@@ -14,5 +14,6 @@ public class CategoryTreeDto {
     private Long id;
     private String name;
     private String slug;
+    private Integer productCount;
     private List<CategoryTreeDto> children;
 }
@@ -0,0 +1,24 @@
+package com.example.product.dto.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Границы ценового слайдера фильтра и распределение цен по интервалам
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceRangeDTO {
+    private Long categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer productCount;
+    private List<Integer> histogram; // Количество продуктов в равных интервалах от minPrice до maxPrice
+}
@@ -0,0 +1,22 @@
+package com.example.product.dto.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Пакетный запрос продуктов для других сервисов (корзина, заказы).
+ * Можно указать любую комбинацию идентификаторов.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkRequest {
+    private List<Long> ids;
+    private List<String> slugs;
+    private List<String> skus;
+}
@@ -0,0 +1,23 @@
+package com.example.product.dto.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Найденные продукты в порядке запроса (сначала ids, затем slugs, затем skus)
+ * и идентификаторы, по которым продукты не найдены
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductBulkResponse {
+    private List<ProductSummaryDTO> products;
+    private List<Long> missingIds;
+    private List<String> missingSlugs;
+    private List<String> missingSkus;
+}
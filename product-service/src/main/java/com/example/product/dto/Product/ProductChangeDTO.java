@@ -0,0 +1,20 @@
+package com.example.product.dto.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Изменение продукта в ленте: актуальные данные продукта или признак удаления (product = null)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeDTO {
+    private Long productId;
+    private long sequence;
+    private boolean deleted;
+    private ProductSummaryDTO product;
+}
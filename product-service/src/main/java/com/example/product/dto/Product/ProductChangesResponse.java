@@ -0,0 +1,22 @@
+package com.example.product.dto.Product;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница ленты изменений: nextCursor передается в since следующего запроса,
+ * hasMore = true - следующую страницу можно запрашивать сразу
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangesResponse {
+    private List<ProductChangeDTO> changes;
+    private long nextCursor;
+    private boolean hasMore;
+}
@@ -2,6 +2,7 @@ package com.example.product.dto.Product;
 
 import com.example.product.dto.BrandDto.BrandDTO;
 import com.example.product.dto.Category.CategoryListDto;
+import com.example.product.dto.Category.CategoryShortDto;
 import com.example.product.dto.ProductAttribute.ProductAttributeDTO;
 import com.example.product.dto.ProductImage.ProductImageDTO;
 import com.example.product.enums.ProductStatus;
@@ -46,4 +47,7 @@ public class ProductDTO {
     private String metaKeywords;
     private String mainImageUrl;
     private int viewCount ;
+
+    // Цепочки категорий от корня до каждой категории продукта (заполняется в read-модели каталога)
+    private List<List<CategoryShortDto>> categoryPaths;
 }
\ No newline at end of file
@@ -21,6 +21,8 @@ public class ProductListDTO {
     private ProductStatus status;
     private boolean featured;
     private String mainImageUrl;
+    private String thumbnailUrl;
+    private String thumbnailWebpUrl;
     private Long brandId;
     private String brandName;
     private int viewCount;
@@ -0,0 +1,24 @@
+package com.example.product.dto.Product;
+
+import com.example.product.enums.ProductStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Актуальные цена, остаток и статус продукта для подписчиков потока изменений
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStreamEventDTO {
+    private Long productId;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private ProductStatus status;
+    private boolean deleted;
+}
@@ -0,0 +1,27 @@
+package com.example.product.dto.Product;
+
+import com.example.product.enums.ProductStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Компактное представление продукта для пакетных запросов
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSummaryDTO {
+    private Long id;
+    private String sku;
+    private String slug;
+    private String name;
+    private BigDecimal price;
+    private Integer stockQuantity;
+    private ProductStatus status;
+    private String mainImageUrl;
+}
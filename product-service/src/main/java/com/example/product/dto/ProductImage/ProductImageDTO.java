@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 
 @Data
@@ -21,4 +22,7 @@ public class ProductImageDTO {
     private String alt;
     private Integer sortOrder;
     private LocalDateTime uploadedAt;
+
+    // URL-ы уменьшенных копий: "thumbnail", "thumbnail_webp", "small", ...
+    private Map<String, String> sizes;
 }
\ No newline at end of file
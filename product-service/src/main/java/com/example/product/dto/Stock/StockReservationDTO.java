@@ -0,0 +1,21 @@
+package com.example.product.dto.Stock;
+
+import com.example.product.enums.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationDTO {
+    private String orderId;
+    private ReservationStatus status;
+    private LocalDateTime expiresAt;
+    private List<StockReservationLineDTO> lines;
+}
@@ -0,0 +1,21 @@
+package com.example.product.dto.Stock;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationLineDTO {
+    @NotNull
+    private Long productId;
+
+    @NotNull
+    @Positive
+    private Integer quantity;
+}
@@ -0,0 +1,30 @@
+package com.example.product.dto.Stock;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Резерв всех позиций заказа: либо резервируются все, либо ни одна
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationRequest {
+    @NotBlank
+    private String orderId;
+
+    // Время жизни резерва; без значения - из настроек
+    private Integer ttlSeconds;
+
+    @NotEmpty
+    @Valid
+    private List<StockReservationLineDTO> lines;
+}
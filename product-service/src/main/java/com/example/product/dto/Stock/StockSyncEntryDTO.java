@@ -0,0 +1,30 @@
+package com.example.product.dto.Stock;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Складской остаток продукта; продукт задается ID или SKU
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSyncEntryDTO {
+    private Long productId;
+    private String sku;
+
+    @NotNull
+    @PositiveOrZero
+    private Integer quantity;
+
+    // Время остатка в системе склада: более старые записи не перезаписывают более новые
+    @NotNull
+    private LocalDateTime sourceTimestamp;
+}
@@ -0,0 +1,20 @@
+package com.example.product.dto.Stock;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSyncRequest {
+    @NotEmpty
+    @Valid
+    private List<StockSyncEntryDTO> entries;
+}
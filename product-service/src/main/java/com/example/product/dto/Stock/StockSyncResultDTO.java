@@ -0,0 +1,22 @@
+package com.example.product.dto.Stock;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Итог синхронизации остатков
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockSyncResultDTO {
+    private int received;         // Записей в запросе
+    private int coalesced;        // Записей после объединения повторов одного продукта
+    private int updated;          // Продуктов с примененным остатком
+    private int skipped;          // Неизвестные продукты и записи старше уже примененных
+    private int statusChanged;    // Переходы ACTIVE <-> OUT_OF_STOCK
+    private long durationMs;
+}
@@ -0,0 +1,28 @@
+package com.example.product.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ImageSize {
+    THUMBNAIL("Миниатюра для списков товаров", 150, 150),
+    SMALL("Маленькое изображение для карточек", 300, 300),
+    MEDIUM("Среднее изображение для страницы товара", 600, 600);
+
+    private final String description;
+    private final int width;
+    private final int height;
+
+    ImageSize(String description, int width, int height) {
+        this.description = description;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Ключ размера в DTO (например, "thumbnail" или "thumbnail_webp")
+     */
+    public String key(boolean webp) {
+        String key = name().toLowerCase();
+        return webp ? key + "_webp" : key;
+    }
+}
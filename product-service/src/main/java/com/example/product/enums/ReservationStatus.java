@@ -0,0 +1,18 @@
+package com.example.product.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ReservationStatus {
+
+    RESERVED("Товар зарезервирован"),
+    CONFIRMED("Резерв подтвержден заказом"),
+    RELEASED("Резерв отменен"),
+    EXPIRED("Резерв истек");
+
+    private final String description;
+
+    ReservationStatus(String description) {
+        this.description = description;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Событие изменения бренда (данные бренда денормализованы в карточки продуктов)
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class BrandChangedEvent {
+    private final Long brandId;
+}
@@ -0,0 +1,36 @@
+package com.example.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Сброс локальных кэшей по изменению, сделанному другим экземпляром сервиса.
+ * Публикуется шиной инвалидации вне транзакции; scope = ALL - сбросить все кэши целиком
+ * (после потери соединения с шиной сообщения могли быть пропущены).
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class CacheInvalidationEvent {
+
+    public enum Scope {
+        PRODUCT,
+        BRAND,
+        CATEGORY,
+        // Только карточка продукта: read-модель перестроила его строку
+        PRODUCT_CARD,
+        ALL
+    }
+
+    private final Scope scope;
+    private final Long id;
+
+    public static CacheInvalidationEvent all() {
+        return new CacheInvalidationEvent(Scope.ALL, null);
+    }
+
+    public boolean affects(Scope target) {
+        return scope == Scope.ALL || scope == target;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+
+/**
+ * Событие изменения категории (имя, slug, положение в иерархии).
+ * productIds заполняется при удалении: после удаления продукты категории уже не найти.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class CategoryChangedEvent {
+    private final Long categoryId;
+    private final Collection<Long> productIds;
+
+    public CategoryChangedEvent(Long categoryId) {
+        this(categoryId, null);
+    }
+}
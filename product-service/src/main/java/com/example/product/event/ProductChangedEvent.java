@@ -0,0 +1,28 @@
+package com.example.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Событие изменения продукта или связанных с ним данных (изображений, атрибутов, остатка).
+ * Публикуется внутри транзакции, слушатели обрабатывают его после коммита.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductChangedEvent {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK,
+        PRICE,
+        IMAGES,
+        ATTRIBUTES
+    }
+
+    private final Long productId;
+    private final ChangeType changeType;
+}
@@ -0,0 +1,18 @@
+package com.example.product.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collection;
+
+/**
+ * Строки read-модели продуктов перестроены и закоммичены. Карточки, собранные из прежних строк
+ * (проекция асинхронная и отстает от изменения), нужно сбросить еще раз.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class ProductProjectedEvent {
+    private final Collection<Long> productIds;
+}
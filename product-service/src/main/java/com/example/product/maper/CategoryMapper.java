@@ -3,6 +3,8 @@ package com.example.product.maper;
 
 import com.example.product.dto.Category.*;
 import com.example.product.model.Category;
+import com.example.product.model.CategoryPriceStats;
+import org.hibernate.Hibernate;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -32,6 +34,8 @@ public class CategoryMapper {
                 .lastWeekOrderCount(0)
                 .totalRevenue(java.math.BigDecimal.ZERO)
                 .isPopular(false)
+                .activeProductCount(0)
+                .totalActiveProductCount(0)
                 .build();
     }
 
@@ -67,6 +71,8 @@ public class CategoryMapper {
                 .name(entity.getName())
                 .description(entity.getDescription())
                 .productCount(entity.getProductCount())
+                .activeProductCount(entity.getActiveProductCount())
+                .totalActiveProductCount(entity.getTotalActiveProductCount())
                 .imageUrl(entity.getImageUrl())
                 .imageId(entity.getImageId())
                 .viewCount(entity.getViewCount())
@@ -111,22 +117,33 @@ public class CategoryMapper {
             return null;
         }
 
-        boolean hasSubcategories = entity.getSubcategories() != null && !entity.getSubcategories().isEmpty();
-
         return CategoryListDto.builder()
                 .id(entity.getId())
                 .name(entity.getName())
                 .description(entity.getDescription())
                 .imageUrl(entity.getImageUrl())
-                .productCount(entity.getProductCount())
+                // Для витрины - активные продукты категории вместе с подкатегориями
+                .productCount(entity.getTotalActiveProductCount())
+                .directProductCount(entity.getActiveProductCount())
                 .slug(entity.getSlug())
                 .isPopular(entity.isPopular())
                 .sortOrder(entity.getSortOrder())
                 .active(entity.isActive())
-                .hasSubcategories(hasSubcategories)
+                .hasSubcategories(hasSubcategories(entity))
                 .build();
     }
 
+    /**
+     * Наличие подкатегорий: по уже загруженной коллекции, иначе по вычисляемому полю,
+     * чтобы не загружать подкатегории ради одного флага
+     */
+    private boolean hasSubcategories(Category entity) {
+        if (entity.getSubcategories() != null && Hibernate.isInitialized(entity.getSubcategories())) {
+            return !entity.getSubcategories().isEmpty();
+        }
+        return Boolean.TRUE.equals(entity.getHasSubcategories());
+    }
+
     /**
      * Конвертирует Category в краткое представление CategoryShortDto
      * @param entity сущность Category
@@ -160,6 +177,15 @@ public class CategoryMapper {
     }
 
     public PopularCategoryDto toPopularCategoryDto(Category category) {
+        return toPopularCategoryDto(category, null);
+    }
+
+    /**
+     * Конвертирует Category в PopularCategoryDto с ценовым диапазоном из предрассчитанной статистики
+     * @param category сущность Category
+     * @param priceStats статистика цен категории (может отсутствовать)
+     */
+    public PopularCategoryDto toPopularCategoryDto(Category category, CategoryPriceStats priceStats) {
         if (category == null) {
             return null;
         }
@@ -171,13 +197,13 @@ public class CategoryMapper {
                 .id(category.getId())
                 .name(category.getName())
                 .imageUrl(category.getImageUrl())
-                .productCount(category.getProductCount())
+                .productCount(category.getTotalActiveProductCount())
                 .slug(category.getSlug())
                 .popularityScore(popularityScore)
-//                 Эти поля нужно будет получать из связанных товаров
-//                 .minPrice(getMinPriceForCategory(category.getId()))
-//                 .maxPrice(getMaxPriceForCategory(category.getId()))
-//                 .hasDiscount(hasDiscountedProductsInCategory(category.getId()))
+                .minPrice(priceStats != null ? priceStats.getMinPrice() : null)
+                .maxPrice(priceStats != null ? priceStats.getMaxPrice() : null)
+                // Скидок в модели продукта пока нет
+                .hasDiscount(false)
                 .build();
     }
 
@@ -192,6 +218,7 @@ public class CategoryMapper {
                 .id(category.getId())
                 .name(category.getName())
                 .slug(category.getSlug())
+                .productCount(category.getTotalActiveProductCount())
                 .build();
 
         // Рекурсивно добавляем подкатегории
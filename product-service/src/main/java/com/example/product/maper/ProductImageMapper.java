@@ -5,14 +5,19 @@ import com.example.product.dto.ProductImage.ProductImageListDTO;
 import com.example.product.dto.ProductImage.ProductImageUpdateDTO;
 import com.example.product.model.Product;
 import com.example.product.model.ProductImage;
+import com.example.product.service.ImageDerivativeService;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Component
+@RequiredArgsConstructor
 public class ProductImageMapper {
 
+    private final ImageDerivativeService imageDerivativeService;
+
     /**
      * Конвертирует entity в DTO
      */
@@ -30,6 +35,7 @@ public class ProductImageMapper {
                 .alt(image.getAlt())
                 .sortOrder(image.getSortOrder())
                 .uploadedAt(image.getUploadedAt())
+                .sizes(imageDerivativeService.getDerivativeUrls(image.getImageId()))
                 .build();
     }
     /**
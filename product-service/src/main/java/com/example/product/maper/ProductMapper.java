@@ -4,9 +4,11 @@ import com.example.product.dto.Product.ProductCreateRequest;
 import com.example.product.dto.Product.ProductDTO;
 import com.example.product.dto.Product.ProductListDTO;
 import com.example.product.dto.Product.ProductUpdateRequest;
+import com.example.product.enums.ImageSize;
 import com.example.product.enums.ImageType;
 import com.example.product.model.Product;
 import com.example.product.model.ProductImage;
+import com.example.product.service.ImageDerivativeService;
 import org.springframework.stereotype.Component;
 
 import java.util.HashSet;
@@ -19,13 +21,16 @@ public class ProductMapper {
     private final BrandMapper brandMapper;
     private final ProductImageMapper imageMapper;
     private final ProductAttributeMapper attributeMapper;
+    private final ImageDerivativeService imageDerivativeService;
 
     public ProductMapper(CategoryMapper categoryMapper, BrandMapper brandMapper,
-                         ProductImageMapper imageMapper, ProductAttributeMapper attributeMapper) {
+                         ProductImageMapper imageMapper, ProductAttributeMapper attributeMapper,
+                         ImageDerivativeService imageDerivativeService) {
         this.categoryMapper = categoryMapper;
         this.brandMapper = brandMapper;
         this.imageMapper = imageMapper;
         this.attributeMapper = attributeMapper;
+        this.imageDerivativeService = imageDerivativeService;
     }
 
     public Product toEntity(ProductCreateRequest dto) {
@@ -46,10 +51,13 @@ public class ProductMapper {
                 .metaKeywords(dto.getMetaKeywords())
                 .categories(new HashSet<>())
                 .images(new java.util.ArrayList<>())
-                .attributes(new java.util.ArrayList<>())
+                .attributes(new java.util.LinkedHashSet<>())
                 .build();
     }
 
+    /**
+     * Остаток и статус здесь не переносятся: их пишет ProductService SQL-операторами StockJdbcRepository
+     */
     public void updateProductFromDTO(Product product, ProductUpdateRequest dto) {
         if (dto.getName() != null) {
             product.setName(dto.getName());
@@ -63,9 +71,6 @@ public class ProductMapper {
         if (dto.getPrice() != null) {
             product.setPrice(dto.getPrice());
         }
-        if (dto.getStockQuantity() != null) {
-            product.setStockQuantity(dto.getStockQuantity());
-        }
         if (dto.getWeight() != null) {
             product.setWeight(dto.getWeight());
         }
@@ -78,9 +83,6 @@ public class ProductMapper {
         if (dto.getDepth() != null) {
             product.setDepth(dto.getDepth());
         }
-        if (dto.getStatus() != null) {
-            product.setStatus(dto.getStatus());
-        }
         product.setFeatured(dto.isFeatured());
         if (dto.getMetaTitle() != null) {
             product.setMetaTitle(dto.getMetaTitle());
@@ -94,15 +96,8 @@ public class ProductMapper {
     }
 
     public ProductDTO toDTO(Product product) {
-        String mainImageUrl = null;
-        if (!product.getImages().isEmpty()) {
-            // Поиск главного изображения
-            mainImageUrl = product.getImages().stream()
-                    .filter(image -> image.getImageType() == ImageType.MAIN)
-                    .findFirst()
-                    .map(ProductImage::getImageUrl)
-                    .orElseGet(() -> product.getImages().get(0).getImageUrl());
-        }
+        ProductImage mainImage = findMainImage(product);
+        String mainImageUrl = mainImage != null ? mainImage.getImageUrl() : null;
 
         return ProductDTO.builder()
                 .id(product.getId())
@@ -121,7 +116,7 @@ public class ProductMapper {
                         .collect(Collectors.toList()))
                 .brand(product.getBrand() != null ? brandMapper.toDTO(product.getBrand()) : null)
                 .price(product.getPrice())
-                .stockQuantity(product.getStockQuantity())
+                .stockQuantity(product.getAvailableQuantity())
                 .weight(product.getWeight())
                 .height(product.getHeight())
                 .width(product.getWidth())
@@ -139,15 +134,9 @@ public class ProductMapper {
     }
 
     public ProductListDTO toListDTO(Product product) {
-        String mainImageUrl = null;
-        if (!product.getImages().isEmpty()) {
-            // Поиск главного изображения
-            mainImageUrl = product.getImages().stream()
-                    .filter(image -> image.getImageType() == ImageType.MAIN)
-                    .findFirst()
-                    .map(ProductImage::getImageUrl)
-                    .orElseGet(() -> product.getImages().get(0).getImageUrl());
-        }
+        ProductImage mainImage = findMainImage(product);
+        String mainImageUrl = mainImage != null ? mainImage.getImageUrl() : null;
+        String mainImageId = mainImage != null ? mainImage.getImageId() : null;
 
         return ProductListDTO.builder()
                 .id(product.getId())
@@ -157,9 +146,24 @@ public class ProductMapper {
                 .status(product.getStatus())
                 .featured(product.isFeatured())
                 .mainImageUrl(mainImageUrl)
+                .thumbnailUrl(imageDerivativeService.getDerivativeUrl(mainImageId, ImageSize.THUMBNAIL, false))
+                .thumbnailWebpUrl(imageDerivativeService.getDerivativeUrl(mainImageId, ImageSize.THUMBNAIL, true))
                 .brandId(product.getBrand() != null ? product.getBrand().getId() : null)
                 .brandName(product.getBrand() != null ? product.getBrand().getName() : null)
                 .viewCount(product.getViewCount())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Главное изображение продукта, а если его нет - первое из галереи
+     */
+    private ProductImage findMainImage(Product product) {
+        if (product.getImages().isEmpty()) {
+            return null;
+        }
+        return product.getImages().stream()
+                .filter(image -> image.getImageType() == ImageType.MAIN)
+                .findFirst()
+                .orElseGet(() -> product.getImages().get(0));
+    }
+}
@@ -3,6 +3,7 @@ package com.example.product.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import org.hibernate.annotations.Formula;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -31,6 +32,14 @@ public class Category {
 
     private Integer productCount;
 
+    // Количество активных продуктов непосредственно в категории
+    @Builder.Default
+    private Integer activeProductCount = 0;
+
+    // Количество активных продуктов в категории и всех её подкатегориях (каждый продукт учитывается один раз)
+    @Builder.Default
+    private Integer totalActiveProductCount = 0;
+
     private String imageUrl;
     private String imageId;
 
@@ -73,6 +82,10 @@ public class Category {
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL)
     private List<Category> subcategories = new ArrayList<>();
 
+    // Есть ли подкатегории - вычисляется при загрузке, без инициализации коллекции subcategories
+    @Formula("(SELECT EXISTS (SELECT 1 FROM categories sc WHERE sc.parent_id = id))")
+    private Boolean hasSubcategories;
+
     // Порядок сортировки категории
     private Integer sortOrder;
 
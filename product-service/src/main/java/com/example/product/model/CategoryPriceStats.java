@@ -0,0 +1,53 @@
+package com.example.product.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Предрассчитанная статистика цен активных продуктов категории (вместе с подкатегориями).
+ * Строка с categoryId = ALL_PRODUCTS хранит статистику по всему каталогу.
+ */
+@Entity
+@Table(name = "category_price_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryPriceStats {
+
+    public static final long ALL_PRODUCTS = 0L;
+
+    @Id
+    private Long categoryId;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal minPrice;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal maxPrice;
+
+    private Integer productCount;
+
+    // Количество продуктов в равных по ширине интервалах [minPrice, maxPrice], через запятую
+    @Column(length = 1000)
+    private String histogram;
+
+    private LocalDateTime updatedAt;
+
+    public List<Integer> getHistogramBuckets() {
+        List<Integer> buckets = new ArrayList<>();
+        if (histogram == null || histogram.isEmpty()) {
+            return buckets;
+        }
+        for (String value : histogram.split(",")) {
+            buckets.add(Integer.parseInt(value));
+        }
+        return buckets;
+    }
+}
@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 
@@ -14,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -53,8 +55,10 @@ public class Product {
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<ProductImage> images = new ArrayList<>();
 
+    // Множество, а не список: загружается одним запросом с категориями без повторов строк
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
-    private List<ProductAttribute> attributes = new ArrayList<>();
+    @OrderBy("id")
+    private Set<ProductAttribute> attributes = new LinkedHashSet<>();
 
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -64,8 +68,15 @@ public class Product {
     @Column(precision = 10, scale = 2)
     private BigDecimal price;
 
+    // Остаток и статус пишутся только SQL-операторами StockJdbcRepository под блокировкой строки,
+    // сохранение сущности их не перезаписывает
+    @Column(updatable = false)
     private Integer stockQuantity;
 
+    // Остаток строки продукта вместе с количеством в полосах горячего продукта (stock_ledger)
+    @Formula("(stock_quantity + COALESCE((SELECT SUM(l.quantity) FROM stock_ledger l WHERE l.product_id = id), 0))")
+    private Integer availableQuantity;
+
     private Double weight;   ///масса
 
     // Размеры в миллиметрах или другой удобной единице измерения
@@ -74,6 +85,7 @@ public class Product {
     private Double depth;   ///глубина
 
     @Enumerated(EnumType.STRING)
+    @Column(updatable = false)
     private ProductStatus status = ProductStatus.ACTIVE;
 
     private boolean featured = false;
@@ -85,10 +97,19 @@ public class Product {
     @LastModifiedDate
     private LocalDateTime updatedAt;
 
+    // Время остатка по данным склада (sourceTimestamp последней примененной синхронизации)
+    @Column(updatable = false)
+    private LocalDateTime stockSyncedAt;
+
     // Дополнительные поля для SEO
     private String metaTitle;
     private String metaDescription;
     private String metaKeywords;
 
-
+    /**
+     * Остаток для витрины; до загрузки из базы (новый продукт) - остаток строки продукта
+     */
+    public Integer getAvailableQuantity() {
+        return availableQuantity != null ? availableQuantity : stockQuantity;
+    }
 }
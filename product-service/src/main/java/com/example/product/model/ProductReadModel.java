@@ -0,0 +1,71 @@
+package com.example.product.model;
+
+import com.example.product.enums.ProductStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Денормализованная строка публичного каталога: одна строка на продукт.
+ * Поля для списков и фильтров - отдельными колонками, полная карточка - в JSONB.
+ * Заполняется асинхронно из событий изменения продуктов, брендов и категорий.
+ */
+@Entity
+@Table(name = "product_read_model", indexes = {
+        @Index(name = "idx_product_read_model_status_price", columnList = "status, price")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductReadModel {
+
+    // Совпадает с ID продукта
+    @Id
+    private Long id;
+
+    private String name;
+
+    @Column(unique = true)
+    private String slug;
+    private String sku;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal price;
+
+    private Integer stockQuantity;
+
+    @Enumerated(EnumType.STRING)
+    private ProductStatus status;
+
+    private boolean featured;
+    private int viewCount;
+
+    private Long brandId;
+    private String brandName;
+
+    private String mainImageUrl;
+    private String thumbnailUrl;
+    private String thumbnailWebpUrl;
+
+    // Категории продукта (для фильтра используется GIN-индекс)
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(columnDefinition = "bigint[]")
+    private Long[] categoryIds;
+
+    // Полная карточка ProductDTO: изображения, атрибуты, бренд, цепочки категорий
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb")
+    private String details;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    // Когда строка была построена последний раз
+    private LocalDateTime projectedAt;
+}
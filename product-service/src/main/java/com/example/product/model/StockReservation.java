@@ -0,0 +1,50 @@
+package com.example.product.model;
+
+import com.example.product.enums.ReservationStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Резерв остатка одной позиции заказа. Остаток продукта уменьшается в момент резервирования;
+ * отмененный или истекший резерв возвращает количество обратно.
+ * Действующая (RESERVED/CONFIRMED) позиция заказа по продукту одна - частичный уникальный индекс
+ * uk_stock_reservations_order_product_active в миграции V4.
+ */
+@Entity
+@Table(name = "stock_reservations", indexes = {
+        @Index(name = "idx_stock_reservations_order", columnList = "orderId"),
+        @Index(name = "idx_stock_reservations_status_expires", columnList = "status, expiresAt"),
+        @Index(name = "idx_stock_reservations_product_status", columnList = "productId, status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String orderId;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ReservationStatus status;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
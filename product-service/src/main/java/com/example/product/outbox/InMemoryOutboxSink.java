@@ -0,0 +1,34 @@
+package com.example.product.outbox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Приемник в памяти для тестов и локальной разработки: хранит последние capacity событий
+ */
+public class InMemoryOutboxSink implements OutboxSink {
+
+    private final ConcurrentLinkedDeque<OutboxMessage> messages = new ConcurrentLinkedDeque<>();
+    private final int capacity;
+
+    public InMemoryOutboxSink(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void publish(List<OutboxMessage> batch) {
+        messages.addAll(batch);
+        while (messages.size() > capacity) {
+            messages.pollFirst();
+        }
+    }
+
+    public List<OutboxMessage> getMessages() {
+        return new ArrayList<>(messages);
+    }
+
+    public void clear() {
+        messages.clear();
+    }
+}
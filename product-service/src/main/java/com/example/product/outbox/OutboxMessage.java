@@ -0,0 +1,22 @@
+package com.example.product.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * Компактное событие изменения каталога: что изменилось и когда.
+ * Получатель при необходимости загружает актуальное состояние по aggregateId.
+ */
+public record OutboxMessage(Long id, String aggregateType, Long aggregateId, String eventType,
+                            LocalDateTime occurredAt) {
+
+    public static final String PRODUCT = "PRODUCT";
+    public static final String BRAND = "BRAND";
+    public static final String CATEGORY = "CATEGORY";
+
+    /**
+     * Ключ для объединения одинаковых событий одной транзакции
+     */
+    String dedupKey() {
+        return aggregateType + ':' + aggregateId + ':' + eventType;
+    }
+}
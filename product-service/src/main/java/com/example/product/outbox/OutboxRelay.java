@@ -0,0 +1,155 @@
+package com.example.product.outbox;
+
+import com.example.product.repository.OutboxJdbcRepository;
+import com.example.product.repository.OutboxJdbcRepository.PendingStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Публикует события outbox в приемник пачками. Пачка читается с FOR UPDATE SKIP LOCKED
+ * и отмечается опубликованной в той же транзакции, поэтому экземпляры не публикуют одно
+ * и то же событие одновременно. Порядок сохраняется в пределах одного экземпляра;
+ * при нескольких экземплярах соседние пачки могут быть доставлены в другом порядке.
+ * Включенный outbox (catalog.outbox.enabled) без настроенного приемника - ошибка запуска:
+ * иначе события отмечались бы опубликованными, никуда не попав.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxJdbcRepository outboxRepository;
+    private final OutboxSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration retention;
+    private final int pruneBatchSize;
+
+    private final Counter publishedCounter;
+    private final Counter failureCounter;
+    private final Counter prunedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxRelay(OutboxJdbcRepository outboxRepository,
+                       ObjectProvider<OutboxSink> sinkProvider,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${catalog.outbox.enabled:false}") boolean enabled,
+                       @Value("${catalog.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${catalog.outbox.relay.max-batches:20}") int maxBatches,
+                       @Value("${catalog.outbox.retention:24h}") Duration retention,
+                       @Value("${catalog.outbox.prune-batch-size:5000}") int pruneBatchSize) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sinkProvider.getIfAvailable();
+        if (enabled && sink == null) {
+            throw new IllegalStateException("catalog.outbox.enabled=true, но приемник событий не настроен: " +
+                    "задайте catalog.outbox.sink=file или объявите бин OutboxSink");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.retention = retention;
+        this.pruneBatchSize = pruneBatchSize;
+
+        this.publishedCounter = Counter.builder("catalog.outbox.published")
+                .description("События outbox, переданные в приемник")
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("catalog.outbox.failures")
+                .description("Неудачные попытки публикации пачки outbox")
+                .register(meterRegistry);
+        this.prunedCounter = Counter.builder("catalog.outbox.pruned")
+                .description("Удаленные опубликованные события outbox")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("catalog.outbox.batch")
+                .description("Время публикации одной пачки outbox")
+                .register(meterRegistry);
+        meterRegistry.gauge("catalog.outbox.pending", pending);
+        meterRegistry.gauge("catalog.outbox.lag.seconds", lagMillis, value -> value.get() / 1000.0);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.outbox.relay.delay:1000}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < maxBatches; i++) {
+            int published;
+            try {
+                Integer result = batchTimer.record(() -> transactionTemplate.execute(status -> publishBatch()));
+                published = result != null ? result : 0;
+            } catch (Exception e) {
+                // Пачка откатилась и осталась неопубликованной - повтор при следующем запуске
+                failureCounter.increment();
+                log.warn("Не удалось опубликовать события outbox: {}", e.getMessage());
+                break;
+            }
+            if (published < batchSize) {
+                break;
+            }
+        }
+        updateLag();
+    }
+
+    /**
+     * Удалить опубликованные события старше срока хранения
+     */
+    @Scheduled(fixedDelayString = "${catalog.outbox.prune-delay:60000}")
+    public void prune() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime threshold = LocalDateTime.now().minus(retention);
+        int total = 0;
+        int deleted;
+        do {
+            Integer result = transactionTemplate.execute(status ->
+                    outboxRepository.deletePublishedBefore(threshold, pruneBatchSize));
+            deleted = result != null ? result : 0;
+            total += deleted;
+        } while (deleted == pruneBatchSize);
+
+        if (total > 0) {
+            prunedCounter.increment(total);
+            log.debug("Удалено опубликованных событий outbox: {}", total);
+        }
+    }
+
+    private int publishBatch() {
+        List<OutboxMessage> batch = outboxRepository.lockBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        sink.publish(batch);
+        outboxRepository.markPublished(batch.stream().map(OutboxMessage::id).toList(), LocalDateTime.now());
+        publishedCounter.increment(batch.size());
+        return batch.size();
+    }
+
+    private void updateLag() {
+        try {
+            PendingStats stats = outboxRepository.getPendingStats();
+            pending.set(stats.count());
+            lagMillis.set(stats.oldestCreatedAt() == null ? 0
+                    : Math.max(Duration.between(stats.oldestCreatedAt(), LocalDateTime.now()).toMillis(), 0));
+        } catch (Exception e) {
+            log.debug("Не удалось получить отставание outbox: {}", e.getMessage());
+        }
+    }
+}
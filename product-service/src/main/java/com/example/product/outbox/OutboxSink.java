@@ -0,0 +1,14 @@
+package com.example.product.outbox;
+
+import java.util.List;
+
+/**
+ * Приемник событий outbox (брокер сообщений, файл, память).
+ * Доставка "как минимум один раз": если пачка опубликована, но отметка о публикации
+ * не сохранилась, пачка будет отправлена повторно - получатели должны это допускать.
+ * Исключение из publish откатывает пачку, она будет отправлена при следующем запуске relay.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> messages);
+}
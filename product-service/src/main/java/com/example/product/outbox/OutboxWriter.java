@@ -0,0 +1,95 @@
+package com.example.product.outbox;
+
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.repository.OutboxJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Записывает события изменения каталога в outbox в той же транзакции, что и изменение:
+ * событие попадает в таблицу тогда и только тогда, когда закоммичено само изменение.
+ * События копятся в транзакции (повторы одного типа по одному объекту объединяются)
+ * и вставляются одной пачкой перед коммитом. Пока outbox выключен, события не записываются.
+ */
+@Component
+public class OutboxWriter {
+
+    private final OutboxJdbcRepository outboxRepository;
+    private final boolean enabled;
+
+    public OutboxWriter(OutboxJdbcRepository outboxRepository,
+                        @Value("${catalog.outbox.enabled:false}") boolean enabled) {
+        this.outboxRepository = outboxRepository;
+        this.enabled = enabled;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        add(OutboxMessage.PRODUCT, event.getProductId(),
+                "product." + event.getChangeType().name().toLowerCase(Locale.ROOT));
+    }
+
+    @EventListener
+    public void onBrandChanged(BrandChangedEvent event) {
+        add(OutboxMessage.BRAND, event.getBrandId(), "brand.changed");
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        add(OutboxMessage.CATEGORY, event.getCategoryId(), "category.changed");
+    }
+
+    private void add(String aggregateType, Long aggregateId, String eventType) {
+        if (!enabled || aggregateId == null) {
+            return;
+        }
+        OutboxMessage message = new OutboxMessage(null, aggregateType, aggregateId, eventType, LocalDateTime.now());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            outboxRepository.insert(List.of(message));
+            return;
+        }
+
+        // Синхронизации приостанавливаются вместе с транзакцией (REQUIRES_NEW), поэтому
+        // буфер ищем среди синхронизаций текущей транзакции, а не в ресурсах потока
+        PendingMessages pending = null;
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingMessages candidate && candidate.owner == this) {
+                pending = candidate;
+                break;
+            }
+        }
+        if (pending == null) {
+            pending = new PendingMessages(this);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.messages.putIfAbsent(message.dedupKey(), message);
+    }
+
+    private static final class PendingMessages implements TransactionSynchronization {
+        private final OutboxWriter owner;
+        private final Map<String, OutboxMessage> messages = new LinkedHashMap<>();
+
+        private PendingMessages(OutboxWriter owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            owner.outboxRepository.insert(new ArrayList<>(messages.values()));
+        }
+    }
+}
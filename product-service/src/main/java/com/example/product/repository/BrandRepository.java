@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.example.product.model.Brand;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -38,5 +39,32 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
     @Query("SELECT b, COUNT(p) FROM Brand b JOIN b.products p JOIN p.categories c WHERE c.id = :categoryId GROUP BY b ORDER BY COUNT(p) DESC")
     List<Object[]> findBrandsWithProductCountByCategoryId(@Param("categoryId") Long categoryId);
 
+    /**
+     * Атомарно изменить счетчик продуктов бренда на delta (без чтения строки)
+     */
+    @Modifying
+    @Query("UPDATE Brand b SET b.productCount = " +
+            "CASE WHEN COALESCE(b.productCount, 0) + :delta < 0 THEN 0 ELSE COALESCE(b.productCount, 0) + :delta END " +
+            "WHERE b.id = :id")
+    int addToProductCount(@Param("id") Long id, @Param("delta") int delta);
 
-}
\ No newline at end of file
+    /**
+     * Версия таблицы брендов: количество строк и последнее изменение
+     */
+    @Query("SELECT COUNT(b), MAX(b.updatedAt) FROM Brand b")
+    List<Object[]> findVersion();
+
+    @Query("SELECT MIN(b.id), MAX(b.id) FROM Brand b")
+    List<Object[]> findIdRange();
+
+    /**
+     * Пересчитать счетчики продуктов для брендов из диапазона ID.
+     * Обновляются только разошедшиеся строки, их количество и возвращается.
+     */
+    @Modifying
+    @Query(value = "UPDATE brands b SET product_count = x.cnt " +
+            "FROM (SELECT b2.id, (SELECT COUNT(*) FROM products p WHERE p.brand_id = b2.id) AS cnt " +
+            "      FROM brands b2 WHERE b2.id BETWEEN :fromId AND :toId) x " +
+            "WHERE b.id = x.id AND b.product_count IS DISTINCT FROM x.cnt", nativeQuery = true)
+    int reconcileProductCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
@@ -0,0 +1,62 @@
+package com.example.product.repository;
+
+import com.example.product.model.CategoryPriceStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CategoryPriceStatsRepository extends JpaRepository<CategoryPriceStats, Long> {
+
+    /**
+     * Общая часть расчета: по CTE prices(root_id, product_id, price) считаются
+     * min, max, количество и гистограмма из :buckets интервалов для каждого root_id.
+     */
+    String STATS_FROM_PRICES = "bounds AS (" +
+            "    SELECT root_id, MIN(price) AS min_price, MAX(price) AS max_price, COUNT(*) AS cnt " +
+            "    FROM prices GROUP BY root_id" +
+            "), bucketed AS (" +
+            "    SELECT pr.root_id, " +
+            "           CASE WHEN b.max_price = b.min_price THEN 1 " +
+            "                ELSE LEAST(width_bucket(pr.price, b.min_price, b.max_price, :buckets), :buckets) END AS bucket, " +
+            "           COUNT(*) AS cnt " +
+            "    FROM prices pr JOIN bounds b ON b.root_id = pr.root_id " +
+            "    GROUP BY 1, 2" +
+            ") " +
+            "SELECT b.root_id, b.min_price, b.max_price, b.cnt, " +
+            "       (SELECT string_agg(CAST(COALESCE(bk.cnt, 0) AS text), ',' ORDER BY g.n) " +
+            "        FROM generate_series(1, :buckets) AS g(n) " +
+            "        LEFT JOIN bucketed bk ON bk.root_id = b.root_id AND bk.bucket = g.n) AS histogram " +
+            "FROM bounds b";
+
+    /**
+     * Статистика цен активных продуктов для указанных категорий с учетом всех подкатегорий.
+     * Продукт, привязанный к нескольким категориям одного поддерева, учитывается один раз.
+     * @return строки [categoryId, minPrice, maxPrice, count, histogram]; категорий без продуктов в результате нет
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+            "    SELECT c.id AS root_id, c.id AS category_id FROM categories c WHERE c.id IN (:categoryIds) " +
+            "    UNION ALL " +
+            "    SELECT s.root_id, c.id FROM subtree s JOIN categories c ON c.parent_id = s.category_id" +
+            "), prices AS (" +
+            "    SELECT DISTINCT s.root_id, p.id AS product_id, p.price " +
+            "    FROM subtree s " +
+            "    JOIN product_categories pc ON pc.category_id = s.category_id " +
+            "    JOIN products p ON p.id = pc.product_id " +
+            "    WHERE p.status = 'ACTIVE' AND p.price IS NOT NULL" +
+            "), " + STATS_FROM_PRICES, nativeQuery = true)
+    List<Object[]> computeStats(@Param("categoryIds") Collection<Long> categoryIds, @Param("buckets") int buckets);
+
+    /**
+     * Статистика цен по всем активным продуктам каталога (root_id = 0)
+     */
+    @Query(value = "WITH prices AS (" +
+            "    SELECT 0 AS root_id, p.id AS product_id, p.price FROM products p " +
+            "    WHERE p.status = 'ACTIVE' AND p.price IS NOT NULL" +
+            "), " + STATS_FROM_PRICES, nativeQuery = true)
+    List<Object[]> computeGlobalStats(@Param("buckets") int buckets);
+}
@@ -5,6 +5,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -111,4 +112,76 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     // Найти категории, родитель которых входит в указанный список
     List<Category> findByParentIdIn(List<Long> parentIds);
-}
\ No newline at end of file
+
+    /**
+     * Атомарно изменить счетчик продуктов категории на delta (без чтения строки)
+     */
+    @Modifying
+    @Query("UPDATE Category c SET c.productCount = " +
+            "CASE WHEN COALESCE(c.productCount, 0) + :delta < 0 THEN 0 ELSE COALESCE(c.productCount, 0) + :delta END " +
+            "WHERE c.id = :id")
+    int addToProductCount(@Param("id") Long id, @Param("delta") int delta);
+
+    @Query("SELECT c.id FROM Category c")
+    List<Long> findAllIds();
+
+    /**
+     * Версия таблицы категорий: количество строк и последнее изменение
+     */
+    @Query("SELECT COUNT(c), MAX(c.updatedAt) FROM Category c")
+    List<Object[]> findVersion();
+
+    @Query("SELECT MIN(c.id), MAX(c.id) FROM Category c")
+    List<Object[]> findIdRange();
+
+    /**
+     * Пересчитать счетчики продуктов для категорий из диапазона ID по таблице product_categories.
+     * Обновляются только разошедшиеся строки, их количество и возвращается.
+     */
+    @Modifying
+    @Query(value = "UPDATE categories c SET product_count = x.cnt " +
+            "FROM (SELECT c2.id, (SELECT COUNT(*) FROM product_categories pc WHERE pc.category_id = c2.id) AS cnt " +
+            "      FROM categories c2 WHERE c2.id BETWEEN :fromId AND :toId) x " +
+            "WHERE c.id = x.id AND c.product_count IS DISTINCT FROM x.cnt", nativeQuery = true)
+    int reconcileProductCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Атомарно изменить счетчики активных продуктов категории (прямой и с учетом подкатегорий)
+     */
+    @Modifying
+    @Query("UPDATE Category c SET " +
+            "c.activeProductCount = CASE WHEN COALESCE(c.activeProductCount, 0) + :directDelta < 0 THEN 0 " +
+            "ELSE COALESCE(c.activeProductCount, 0) + :directDelta END, " +
+            "c.totalActiveProductCount = CASE WHEN COALESCE(c.totalActiveProductCount, 0) + :totalDelta < 0 THEN 0 " +
+            "ELSE COALESCE(c.totalActiveProductCount, 0) + :totalDelta END " +
+            "WHERE c.id = :id")
+    int addToActiveProductCounts(@Param("id") Long id,
+                                 @Param("directDelta") int directDelta,
+                                 @Param("totalDelta") int totalDelta);
+
+    /**
+     * Пересчитать счетчики активных продуктов для всего дерева категорий одним запросом.
+     * Для каждой категории рекурсивно собирается поддерево, продукт в нескольких категориях
+     * одного поддерева учитывается один раз. Обновляются только разошедшиеся строки.
+     */
+    @Modifying
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+            "    SELECT c.id AS root_id, c.id AS category_id FROM categories c " +
+            "    UNION ALL " +
+            "    SELECT s.root_id, c.id FROM subtree s JOIN categories c ON c.parent_id = s.category_id" +
+            "), counts AS (" +
+            "    SELECT s.root_id, " +
+            "           COUNT(DISTINCT p.id) FILTER (WHERE s.root_id = s.category_id) AS direct_cnt, " +
+            "           COUNT(DISTINCT p.id) AS total_cnt " +
+            "    FROM subtree s " +
+            "    JOIN product_categories pc ON pc.category_id = s.category_id " +
+            "    JOIN products p ON p.id = pc.product_id AND p.status = 'ACTIVE' " +
+            "    GROUP BY s.root_id" +
+            ") " +
+            "UPDATE categories c SET active_product_count = x.direct_cnt, total_active_product_count = x.total_cnt " +
+            "FROM (SELECT c2.id, COALESCE(cn.direct_cnt, 0) AS direct_cnt, COALESCE(cn.total_cnt, 0) AS total_cnt " +
+            "      FROM categories c2 LEFT JOIN counts cn ON cn.root_id = c2.id) x " +
+            "WHERE c.id = x.id AND (c.active_product_count IS DISTINCT FROM x.direct_cnt " +
+            "   OR c.total_active_product_count IS DISTINCT FROM x.total_cnt)", nativeQuery = true)
+    int reconcileActiveProductCounts();
+}
@@ -0,0 +1,97 @@
+package com.example.product.repository;
+
+import com.example.product.outbox.OutboxMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Запись и выборка событий outbox. Пачка для публикации блокируется с SKIP LOCKED,
+ * поэтому несколько экземпляров relay разбирают очередь параллельно, не дожидаясь друг друга.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, created_at) VALUES (?, ?, ?, ?)";
+
+    private static final String LOCK_BATCH_SQL =
+            "SELECT id, aggregate_type, aggregate_id, event_type, created_at FROM outbox_events " +
+            "WHERE published_at IS NULL ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String MARK_PUBLISHED_SQL =
+            "UPDATE outbox_events SET published_at = ? WHERE id = ANY(?)";
+
+    private static final String DELETE_PUBLISHED_SQL =
+            "DELETE FROM outbox_events WHERE id IN (" +
+            "    SELECT id FROM outbox_events WHERE published_at < ? ORDER BY id LIMIT ?" +
+            ")";
+
+    private static final String PENDING_STATS_SQL =
+            "SELECT COUNT(*), MIN(created_at) FROM outbox_events WHERE published_at IS NULL";
+
+    private static final RowMapper<OutboxMessage> MESSAGE_MAPPER = (rs, rowNum) -> new OutboxMessage(
+            rs.getLong(1), rs.getString(2), rs.getLong(3), rs.getString(4),
+            rs.getTimestamp(5).toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(List<OutboxMessage> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, messages.size(), (statement, message) -> {
+            statement.setString(1, message.aggregateType());
+            statement.setLong(2, message.aggregateId());
+            statement.setString(3, message.eventType());
+            statement.setTimestamp(4, Timestamp.valueOf(message.occurredAt()));
+        });
+    }
+
+    /**
+     * Заблокировать до limit неопубликованных событий в порядке записи
+     */
+    public List<OutboxMessage> lockBatch(int limit) {
+        return jdbcTemplate.query(LOCK_BATCH_SQL, MESSAGE_MAPPER, limit);
+    }
+
+    public void markPublished(List<Long> ids, LocalDateTime publishedAt) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(MARK_PUBLISHED_SQL);
+            statement.setTimestamp(1, Timestamp.valueOf(publishedAt));
+            statement.setArray(2, connection.createArrayOf("bigint", ids.toArray(Long[]::new)));
+            return statement;
+        });
+    }
+
+    /**
+     * Удалить до limit событий, опубликованных раньше указанного времени
+     * @return количество удаленных строк
+     */
+    public int deletePublishedBefore(LocalDateTime threshold, int limit) {
+        return jdbcTemplate.update(DELETE_PUBLISHED_SQL, Timestamp.valueOf(threshold), limit);
+    }
+
+    /**
+     * Количество неопубликованных событий и время самого старого из них
+     */
+    public PendingStats getPendingStats() {
+        return jdbcTemplate.queryForObject(PENDING_STATS_SQL, (rs, rowNum) -> {
+            Timestamp oldest = rs.getTimestamp(2);
+            return new PendingStats(rs.getLong(1), oldest != null ? oldest.toLocalDateTime() : null);
+        });
+    }
+
+    public record PendingStats(long count, LocalDateTime oldestCreatedAt) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.product.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Лента изменений продуктов. Транзакция изменения только отмечает строку продукта своим txid
+ * и сбрасывает номер - без общей блокировки, конкурируют лишь изменения одного продукта.
+ * Номера из последовательности присваиваются позже и только строкам завершенных транзакций
+ * (txid меньше xmin текущего снимка): транзакция, закоммиченная после выдачи номеров, получит
+ * номер больше всех выданных, и читатель с курсором since не пропустит ее изменения.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductChangeJdbcRepository {
+
+    private static final long SEQUENCER_LOCK_KEY = 0x50524F44L; // "PROD"
+
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(?)";
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO product_changes (product_id, change_seq, txid, deleted, changed_at) " +
+            "SELECT t.id, NULL, pg_current_xact_id(), ?, ? FROM unnest(?::bigint[]) AS t(id) " +
+            "ON CONFLICT (product_id) DO UPDATE SET " +
+            "    change_seq = NULL, txid = EXCLUDED.txid, deleted = EXCLUDED.deleted, changed_at = EXCLUDED.changed_at";
+
+    private static final String BACKFILL_SQL =
+            "INSERT INTO product_changes (product_id, change_seq, txid, deleted, changed_at) " +
+            "SELECT p.id, NULL, pg_current_xact_id(), false, ? FROM products p " +
+            "WHERE NOT EXISTS (SELECT 1 FROM product_changes c WHERE c.product_id = p.id) " +
+            "ON CONFLICT (product_id) DO NOTHING";
+
+    // Повторная проверка условий в UPDATE: строку, измененную после выборки, нумерует следующий проход
+    private static final String ASSIGN_SQL =
+            "UPDATE product_changes c SET change_seq = nextval('product_change_seq') " +
+            "FROM (" +
+            "    SELECT product_id FROM product_changes " +
+            "    WHERE change_seq IS NULL AND txid < pg_snapshot_xmin(pg_current_snapshot()) " +
+            "    ORDER BY txid, product_id LIMIT ?" +
+            ") pending " +
+            "WHERE c.product_id = pending.product_id AND c.change_seq IS NULL " +
+            "AND c.txid < pg_snapshot_xmin(pg_current_snapshot())";
+
+    private static final String SINCE_SQL =
+            "SELECT product_id, change_seq, deleted FROM product_changes " +
+            "WHERE change_seq > ? ORDER BY change_seq LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Отметить изменившиеся и удаленные продукты в текущей транзакции
+     */
+    public void record(Collection<Long> changedIds, Collection<Long> deletedIds) {
+        LocalDateTime now = LocalDateTime.now();
+        upsert(changedIds, false, now);
+        upsert(deletedIds, true, now);
+    }
+
+    /**
+     * Добавить в ленту продукты, у которых еще нет строки (существовавшие до появления ленты)
+     * @return количество добавленных продуктов
+     */
+    public int backfill() {
+        return jdbcTemplate.update(BACKFILL_SQL, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    /**
+     * Присвоить номера строкам завершенных транзакций. Номера выдает один экземпляр за раз:
+     * блокировка держится до коммита, поэтому пачки номеров коммитятся в порядке выдачи.
+     * @return количество пронумерованных строк или -1, если номера сейчас выдает другой экземпляр
+     */
+    public int assignSequence(int batchSize) {
+        Boolean locked = jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, SEQUENCER_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return -1;
+        }
+        return jdbcTemplate.update(ASSIGN_SQL, batchSize);
+    }
+
+    public List<ChangeEntry> findSince(long cursor, int limit) {
+        return jdbcTemplate.query(SINCE_SQL, (rs, rowNum) -> new ChangeEntry(
+                rs.getLong(1), rs.getLong(2), rs.getBoolean(3)), cursor, limit);
+    }
+
+    private void upsert(Collection<Long> productIds, boolean deleted, LocalDateTime now) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = productIds.toArray(Long[]::new);
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(UPSERT_SQL);
+            statement.setBoolean(1, deleted);
+            statement.setTimestamp(2, Timestamp.valueOf(now));
+            statement.setArray(3, connection.createArrayOf("bigint", ids));
+            return statement;
+        });
+    }
+
+    public record ChangeEntry(Long productId, long sequence, boolean deleted) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.product.repository;
+
+import com.example.product.model.ProductReadModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ProductReadModelRepository extends JpaRepository<ProductReadModel, Long>,
+        JpaSpecificationExecutor<ProductReadModel> {
+
+    Optional<ProductReadModel> findBySlug(String slug);
+
+    /**
+     * Удалить строки продуктов, которых больше нет
+     */
+    @Modifying
+    @Query(value = "DELETE FROM product_read_model r " +
+            "WHERE NOT EXISTS (SELECT 1 FROM products p WHERE p.id = r.id)", nativeQuery = true)
+    int deleteOrphans();
+}
@@ -0,0 +1,170 @@
+package com.example.product.repository;
+
+import com.example.product.enums.ProductStatus;
+import com.example.product.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ProductRepository extends JpaRepository<Product, Long> {
+    long countByBrandId(Long brandId);
+
+    /**
+     * Найти продукт по URL-slug
+     */
+    Optional<Product> findBySlug(String slug);
+
+    /**
+     * Загрузить продукт для детальной страницы: бренд, категории и атрибуты одним запросом
+     * (категории и атрибуты - множества, их произведение строк невелико и не дает повторов).
+     * Изображения - список (bag) и повторялись бы в карточке на каждую строку произведения,
+     * поэтому догружаются отдельно (fetchImages).
+     */
+    @Query("SELECT p FROM Product p " +
+            "LEFT JOIN FETCH p.brand " +
+            "LEFT JOIN FETCH p.categories " +
+            "LEFT JOIN FETCH p.attributes " +
+            "WHERE p.id = :id")
+    Optional<Product> findDetailById(@Param("id") Long id);
+
+    @Query("SELECT p FROM Product p " +
+            "LEFT JOIN FETCH p.brand " +
+            "LEFT JOIN FETCH p.categories " +
+            "LEFT JOIN FETCH p.attributes " +
+            "WHERE p.slug = :slug")
+    Optional<Product> findDetailBySlug(@Param("slug") String slug);
+
+    /**
+     * Инициализировать коллекцию изображений продукта, уже загруженного в текущую сессию
+     */
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.images WHERE p.id = :id")
+    Optional<Product> fetchImages(@Param("id") Long id);
+
+    /**
+     * Найти продукты по ID бренда
+     */
+    List<Product> findByBrandId(Long brandId);
+
+    /**
+     * Найти продукты по ID категории
+     */
+    List<Product> findByCategoriesId(Long categoryId);
+
+    /**
+     * Найти продукты по статусу
+     */
+    List<Product> findByStatus(ProductStatus status);
+
+    /**
+     * Найти избранные продукты
+     */
+    List<Product> findByFeaturedTrue();
+
+    /**
+     * Поиск продуктов по названию или описанию
+     */
+    Page<Product> findByNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
+            String name, String description, Pageable pageable);
+
+    /**
+     * Поиск продуктов по диапазону цен
+     */
+    Page<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+
+    /**
+     * Подсчет продуктов по статусу
+     */
+    long countByStatus(ProductStatus status);
+
+
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Занятые slug-и, совпадающие с базой или имеющие вид база-N (для пачки баз одним запросом).
+     * Префикс "база-" задан диапазоном [база-, база.) - '.' следует за '-' в порядке байтов,
+     * поэтому для каждой базы выполняется поиск по idx_products_slug_pattern, а не полный просмотр
+     */
+    @Query(value = "SELECT p.slug FROM products p WHERE p.slug IN (:bases) " +
+            "UNION ALL " +
+            "SELECT p.slug FROM unnest(ARRAY[:bases]) AS b(base) " +
+            "JOIN products p ON p.slug ~>=~ (b.base || '-') AND p.slug ~<~ (b.base || '.') " +
+            "WHERE substring(p.slug from char_length(b.base) + 2) ~ '^[0-9]+$'", nativeQuery = true)
+    List<String> findSlugsByBaseIn(@Param("bases") Collection<String> bases);
+
+    /**
+     * ID, slug и время изменения всех продуктов (для сверки снимка каталога)
+     */
+    @Query("SELECT p.id, p.slug, p.updatedAt FROM Product p")
+    List<Object[]> findSlugVersions();
+
+    @Query("SELECT p.id FROM Product p WHERE p.brand.id = :brandId")
+    List<Long> findIdsByBrandId(@Param("brandId") Long brandId);
+
+    /**
+     * ID продуктов категории и всех её подкатегорий
+     */
+    @Query(value = "WITH RECURSIVE subtree AS (" +
+            "    SELECT c.id FROM categories c WHERE c.id = :categoryId " +
+            "    UNION ALL " +
+            "    SELECT c.id FROM categories c JOIN subtree s ON c.parent_id = s.id" +
+            ") " +
+            "SELECT DISTINCT pc.product_id FROM product_categories pc JOIN subtree s ON pc.category_id = s.id",
+            nativeQuery = true)
+    List<Long> findIdsByCategorySubtree(@Param("categoryId") Long categoryId);
+
+    /**
+     * Следующая порция ID продуктов по возрастанию (постраничный обход без OFFSET)
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * ID самых просматриваемых активных продуктов (прогрев кэша карточек)
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.status = com.example.product.enums.ProductStatus.ACTIVE " +
+            "ORDER BY p.viewCount DESC, p.id")
+    List<Long> findMostViewedIds(Pageable pageable);
+
+    /**
+     * Компактные строки продуктов для пакетных запросов: id, sku, slug, name, price,
+     * остаток вместе с полосами горячего продукта, status, URL главного изображения (или первого из галереи)
+     */
+    String SUMMARY_SELECT = "SELECT p.id, p.sku, p.slug, p.name, p.price, " +
+            "p.stock_quantity + COALESCE((SELECT SUM(l.quantity) FROM stock_ledger l WHERE l.product_id = p.id), 0), " +
+            "p.status, " +
+            "(SELECT i.image_url FROM product_images i WHERE i.product_id = p.id " +
+            " ORDER BY CASE WHEN i.image_type = 'MAIN' THEN 0 ELSE 1 END, i.id LIMIT 1) " +
+            "FROM products p ";
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.id IN (:ids)", nativeQuery = true)
+    List<Object[]> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.slug IN (:slugs)", nativeQuery = true)
+    List<Object[]> findSummariesBySlugs(@Param("slugs") Collection<String> slugs);
+
+    @Query(value = SUMMARY_SELECT + "WHERE p.sku IN (:skus)", nativeQuery = true)
+    List<Object[]> findSummariesBySkus(@Param("skus") Collection<String> skus);
+
+    /**
+     * Продукты вместе с категориями (пересчет счетчиков при смене статуса по остатку)
+     */
+    @Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.categories WHERE p.id IN :ids")
+    List<Product> findWithCategoriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Цена, остаток и статус продуктов для потока изменений (id, price, availableQuantity, status)
+     */
+    @Query("SELECT p.id, p.price, p.availableQuantity, p.status FROM Product p WHERE p.id IN :ids")
+    List<Object[]> findStreamStatesByIdIn(@Param("ids") Collection<Long> ids);
+}
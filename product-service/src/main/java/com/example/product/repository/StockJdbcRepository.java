@@ -0,0 +1,287 @@
+package com.example.product.repository;
+
+import com.example.product.enums.ProductStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Атомарные изменения остатков продуктов одним SQL-оператором на набор позиций.
+ * Массивы передаются через unnest, строки продуктов блокируются в порядке ID,
+ * чтобы встречные заказы с пересекающимися позициями не взаимоблокировались.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockJdbcRepository {
+
+    private static final String REQUEST_LINES =
+            "WITH req AS (" +
+            "    SELECT * FROM unnest(?::bigint[], ?::integer[]) AS r(product_id, qty)" +
+            "), locked AS (" +
+            "    SELECT p.id, p.status AS old_status FROM products p JOIN req ON req.product_id = p.id " +
+            "    ORDER BY p.id FOR UPDATE OF p" +
+            ") ";
+
+    /**
+     * Списать количество по всем позициям, где хватает остатка и продукт активен;
+     * остаток 0 переводит продукт в OUT_OF_STOCK
+     */
+    private static final String RESERVE_SQL = REQUEST_LINES +
+            "UPDATE products p SET " +
+            "    stock_quantity = p.stock_quantity - req.qty, " +
+            "    status = CASE WHEN p.stock_quantity - req.qty = 0 THEN 'OUT_OF_STOCK' ELSE p.status END " +
+            "FROM req JOIN locked l ON l.id = req.product_id " +
+            "WHERE p.id = req.product_id AND p.status = 'ACTIVE' AND p.stock_quantity >= req.qty " +
+            "RETURNING p.id, p.stock_quantity, l.old_status, p.status";
+
+    /**
+     * Вернуть количество; продукт OUT_OF_STOCK с появившимся остатком снова становится ACTIVE
+     */
+    private static final String RETURN_SQL = REQUEST_LINES +
+            "UPDATE products p SET " +
+            "    stock_quantity = COALESCE(p.stock_quantity, 0) + req.qty, " +
+            "    status = CASE WHEN p.status = 'OUT_OF_STOCK' THEN 'ACTIVE' ELSE p.status END " +
+            "FROM req JOIN locked l ON l.id = req.product_id " +
+            "WHERE p.id = req.product_id " +
+            "RETURNING p.id, p.stock_quantity, l.old_status, p.status";
+
+    private static final String LOCK_ORDER_SQL = "SELECT pg_advisory_xact_lock(hashtextextended(?, 0))";
+
+    private static final String FEED_LINES =
+            "WITH raw AS (" +
+            "    SELECT * FROM unnest(?::bigint[], ?::text[], ?::integer[], ?::timestamp[]) " +
+            "        AS f(product_id, sku, qty, source_ts)" +
+            "), matched AS (" +
+            "    SELECT p.id AS product_id, r.qty, r.source_ts FROM raw r JOIN products p ON p.id = r.product_id " +
+            "    UNION ALL " +
+            "    SELECT p.id, r.qty, r.source_ts FROM raw r JOIN products p ON p.sku = r.sku WHERE r.product_id IS NULL" +
+            ") ";
+
+    /**
+     * Блокировка строк продуктов пачки отдельным оператором: следующий оператор получает снимок,
+     * в котором уже нет незавершенных переносов остатка между строкой продукта и полосами
+     */
+    private static final String SYNC_LOCK_SQL = FEED_LINES +
+            "SELECT p.id FROM products p WHERE p.id IN (SELECT product_id FROM matched) ORDER BY p.id FOR UPDATE";
+
+    /**
+     * Остатки со склада: строки сопоставляются с продуктами по ID или SKU, на продукт остается
+     * самая свежая запись; записи старше уже примененной (stock_synced_at) пропускаются.
+     * Доступный остаток - складской минус действующие резервы; из него в stock_quantity попадает то,
+     * что не лежит в полосах горячих продуктов (stock_ledger), а превышение полос над доступным
+     * возвращается в ledger_excess. Статус ACTIVE/OUT_OF_STOCK переключается тем же оператором.
+     * updated_at не меняется.
+     */
+    private static final String SYNC_SQL = FEED_LINES +
+            ", feed AS (" +
+            "    SELECT DISTINCT ON (product_id) product_id, qty, source_ts FROM matched " +
+            "    ORDER BY product_id, source_ts DESC" +
+            "), reserved AS (" +
+            "    SELECT sr.product_id, SUM(sr.quantity) AS qty FROM stock_reservations sr " +
+            "    WHERE sr.status = 'RESERVED' AND sr.product_id IN (SELECT product_id FROM feed) " +
+            "    GROUP BY sr.product_id" +
+            "), allocated AS (" +
+            "    SELECT l.product_id, SUM(l.quantity) AS qty FROM stock_ledger l " +
+            "    WHERE l.product_id IN (SELECT product_id FROM feed) " +
+            "    GROUP BY l.product_id" +
+            "), locked AS (" +
+            "    SELECT p.id, p.status AS old_status FROM products p JOIN feed f ON f.product_id = p.id " +
+            "    ORDER BY p.id FOR UPDATE OF p" +
+            "), available AS (" +
+            "    SELECT f.product_id, f.source_ts, " +
+            "        GREATEST(f.qty - COALESCE(rs.qty, 0), 0) AS qty, COALESCE(al.qty, 0) AS allocated " +
+            "    FROM feed f LEFT JOIN reserved rs ON rs.product_id = f.product_id " +
+            "    LEFT JOIN allocated al ON al.product_id = f.product_id" +
+            ") " +
+            "UPDATE products p SET " +
+            "    stock_quantity = GREATEST(a.qty - a.allocated, 0), " +
+            "    stock_synced_at = a.source_ts, " +
+            "    status = CASE " +
+            "        WHEN a.qty = 0 AND p.status = 'ACTIVE' THEN 'OUT_OF_STOCK' " +
+            "        WHEN a.qty > 0 AND p.status = 'OUT_OF_STOCK' THEN 'ACTIVE' " +
+            "        ELSE p.status END " +
+            "FROM available a JOIN locked l ON l.id = a.product_id " +
+            "WHERE p.id = a.product_id AND (p.stock_synced_at IS NULL OR p.stock_synced_at < a.source_ts) " +
+            "RETURNING p.id, p.stock_quantity, l.old_status, p.status, GREATEST(a.allocated - a.qty, 0)";
+
+    private static final String LOCK_PRODUCT_SQL = "SELECT id FROM products WHERE id = ? FOR UPDATE";
+
+    /**
+     * Остаток, заданный вручную: тот же расчет, что в SYNC_SQL (складской минус действующие резервы,
+     * в stock_quantity - то, что не лежит в полосах), без сравнения с stock_synced_at.
+     * Возвращает также доступный остаток (строка вместе с полосами после списания превышения)
+     */
+    private static final String SET_STOCK_SQL =
+            "WITH locked AS (" +
+            "    SELECT id, status AS old_status FROM products WHERE id = ? FOR UPDATE" +
+            "), available AS (" +
+            "    SELECT GREATEST(? - COALESCE((SELECT SUM(sr.quantity) FROM stock_reservations sr " +
+            "        WHERE sr.product_id = locked.id AND sr.status = 'RESERVED'), 0), 0) AS qty, " +
+            "        COALESCE((SELECT SUM(l.quantity) FROM stock_ledger l WHERE l.product_id = locked.id), 0) " +
+            "            AS allocated " +
+            "    FROM locked" +
+            ") " +
+            "UPDATE products p SET " +
+            "    stock_quantity = GREATEST(a.qty - a.allocated, 0), " +
+            "    updated_at = now(), " +
+            "    status = CASE " +
+            "        WHEN a.qty = 0 AND p.status = 'ACTIVE' THEN 'OUT_OF_STOCK' " +
+            "        WHEN a.qty > 0 AND p.status = 'OUT_OF_STOCK' THEN 'ACTIVE' " +
+            "        ELSE p.status END " +
+            "FROM locked l, available a " +
+            "WHERE p.id = l.id " +
+            "RETURNING p.id, p.stock_quantity, l.old_status, p.status, GREATEST(a.allocated - a.qty, 0), a.qty";
+
+    private static final String SET_STATUS_SQL =
+            "WITH locked AS (" +
+            "    SELECT id, status AS old_status FROM products WHERE id = ? FOR UPDATE" +
+            ") " +
+            "UPDATE products p SET status = ? " +
+            "FROM locked l WHERE p.id = l.id " +
+            "RETURNING p.id, p.stock_quantity, l.old_status, p.status";
+
+    private static final RowMapper<StockChange> STOCK_CHANGE_MAPPER = (rs, rowNum) -> new StockChange(
+            rs.getLong(1), rs.getInt(2),
+            ProductStatus.valueOf(rs.getString(3)), ProductStatus.valueOf(rs.getString(4)));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return измененные продукты; если строк меньше, чем позиций, части позиций не хватило остатка
+     */
+    public List<StockChange> reserve(Map<Long, Integer> quantities) {
+        return execute(RESERVE_SQL, quantities);
+    }
+
+    public List<StockChange> returnStock(Map<Long, Integer> quantities) {
+        return execute(RETURN_SQL, quantities);
+    }
+
+    /**
+     * Сериализовать резервирование одного заказа до конца транзакции (повтор запроса ждет первый)
+     */
+    public void lockOrder(String orderId) {
+        jdbcTemplate.query(LOCK_ORDER_SQL, rs -> {
+        }, orderId);
+    }
+
+    /**
+     * Применить пачку складских остатков: блокировка строк, затем одно изменение.
+     * Вызывается в транзакции
+     * @return продукты, остаток которых изменен
+     */
+    public List<SyncedStock> sync(List<StockSyncEntry> entries) {
+        if (entries.isEmpty()) {
+            return List.of();
+        }
+        Long[] productIds = new Long[entries.size()];
+        String[] skus = new String[entries.size()];
+        Integer[] quantities = new Integer[entries.size()];
+        Timestamp[] sourceTimestamps = new Timestamp[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            StockSyncEntry entry = entries.get(i);
+            productIds[i] = entry.productId();
+            skus[i] = entry.sku();
+            quantities[i] = entry.quantity();
+            sourceTimestamps[i] = Timestamp.valueOf(entry.sourceTimestamp());
+        }
+        PreparedStatementCreator lock = feedStatement(SYNC_LOCK_SQL, productIds, skus, quantities, sourceTimestamps);
+        PreparedStatementCreator sync = feedStatement(SYNC_SQL, productIds, skus, quantities, sourceTimestamps);
+
+        jdbcTemplate.query(lock, rs -> {
+        });
+        return jdbcTemplate.query(sync, (rs, rowNum) ->
+                new SyncedStock(STOCK_CHANGE_MAPPER.mapRow(rs, rowNum), rs.getInt(5)));
+    }
+
+    /**
+     * Задать остаток продукта. Строка блокируется отдельным оператором, как в sync.
+     * Вызывается в транзакции
+     * @return пусто, если продукта нет
+     */
+    public Optional<AssignedStock> setStock(Long productId, int quantity) {
+        if (jdbcTemplate.queryForList(LOCK_PRODUCT_SQL, Long.class, productId).isEmpty()) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query(SET_STOCK_SQL, (rs, rowNum) -> new AssignedStock(
+                        new SyncedStock(STOCK_CHANGE_MAPPER.mapRow(rs, rowNum), rs.getInt(5)), rs.getInt(6)),
+                productId, quantity).stream().findFirst();
+    }
+
+    /**
+     * Сменить статус продукта (ручное изменение администратором)
+     * @return пусто, если продукта нет
+     */
+    public Optional<StockChange> setStatus(Long productId, ProductStatus status) {
+        return jdbcTemplate.query(SET_STATUS_SQL, STOCK_CHANGE_MAPPER, productId, status.name())
+                .stream().findFirst();
+    }
+
+    private static PreparedStatementCreator feedStatement(String sql, Long[] productIds, String[] skus,
+                                                          Integer[] quantities, Timestamp[] sourceTimestamps) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", productIds));
+            statement.setArray(2, connection.createArrayOf("text", skus));
+            statement.setArray(3, connection.createArrayOf("integer", quantities));
+            statement.setArray(4, connection.createArrayOf("timestamp", sourceTimestamps));
+            return statement;
+        };
+    }
+
+    private List<StockChange> execute(String sql, Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        Long[] productIds = quantities.keySet().toArray(Long[]::new);
+        Integer[] values = new Integer[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            values[i] = quantities.get(productIds[i]);
+        }
+
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("bigint", productIds));
+            statement.setArray(2, connection.createArrayOf("integer", values));
+            return statement;
+        }, STOCK_CHANGE_MAPPER);
+    }
+
+    /**
+     * Складской остаток продукта, заданного ID или SKU
+     */
+    public record StockSyncEntry(Long productId, String sku, int quantity, LocalDateTime sourceTimestamp) {
+    }
+
+    /**
+     * Результат синхронизации продукта; ledgerExcess - сколько единиц в полосах горячего продукта
+     * сверх доступного на складе, их нужно списать из полос
+     */
+    public record SyncedStock(StockChange change, int ledgerExcess) {
+    }
+
+    /**
+     * Результат ручного задания остатка; available - остаток строки вместе с полосами
+     */
+    public record AssignedStock(SyncedStock synced, int available) {
+    }
+
+    /**
+     * Остаток продукта после изменения и его статус до и после
+     */
+    public record StockChange(Long productId, int stockQuantity, ProductStatus previousStatus, ProductStatus status) {
+
+        public boolean statusChanged() {
+            return previousStatus != status;
+        }
+    }
+}
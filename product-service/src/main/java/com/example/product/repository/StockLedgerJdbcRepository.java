@@ -0,0 +1,144 @@
+package com.example.product.repository;
+
+import com.example.product.enums.ProductStatus;
+import com.example.product.repository.StockJdbcRepository.StockChange;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Полосы остатка горячих продуктов (stock_ledger). Единица товара находится ровно в одном месте:
+ * в products.stock_quantity, в полосе или в резерве; переносы между ними выполняются в транзакции
+ * вызывающего кода, поэтому откат и падение экземпляра ничего не теряют.
+ * Порядок блокировок внутри продукта - строка продукта, затем полосы; взятие из полосы строку
+ * продукта не блокирует, поэтому параллельные резервы горячего продукта не упираются в одну строку.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockLedgerJdbcRepository {
+
+    private static final String TAKE_SKIP_LOCKED_SQL = takeSql("FOR UPDATE SKIP LOCKED");
+    private static final String TAKE_WAIT_SQL = takeSql("FOR UPDATE");
+
+    private static final String PUT_SQL =
+            "INSERT INTO stock_ledger (product_id, bucket, quantity, updated_at) VALUES (?, ?, ?, now()) " +
+            "ON CONFLICT (product_id, bucket) DO UPDATE SET " +
+            "    quantity = stock_ledger.quantity + EXCLUDED.quantity, updated_at = EXCLUDED.updated_at";
+
+    /**
+     * Перенести до maxQuantity единиц из строки активного продукта в полосу (статус не меняется)
+     */
+    private static final String REFILL_SQL =
+            "WITH cur AS (" +
+            "    SELECT id, LEAST(stock_quantity, ?) AS taken FROM products " +
+            "    WHERE id = ? AND status = 'ACTIVE' AND stock_quantity > 0 FOR UPDATE" +
+            "), moved AS (" +
+            "    UPDATE products p SET stock_quantity = p.stock_quantity - cur.taken " +
+            "    FROM cur WHERE p.id = cur.id RETURNING p.id, cur.taken" +
+            "), added AS (" +
+            "    INSERT INTO stock_ledger (product_id, bucket, quantity, updated_at) " +
+            "    SELECT id, ?, taken, now() FROM moved " +
+            "    ON CONFLICT (product_id, bucket) DO UPDATE SET " +
+            "        quantity = stock_ledger.quantity + EXCLUDED.quantity, updated_at = EXCLUDED.updated_at " +
+            "    RETURNING product_id" +
+            ") " +
+            "SELECT taken FROM moved";
+
+    /**
+     * Вернуть полосы продукта в его строку, списав excess единиц, которых на складе уже нет.
+     * Продукт с остатком снова становится ACTIVE, без остатка - OUT_OF_STOCK.
+     */
+    private static final String DRAIN_SQL =
+            "WITH locked AS (" +
+            "    SELECT id, status AS old_status FROM products WHERE id = ? FOR UPDATE" +
+            "), drained AS (" +
+            "    DELETE FROM stock_ledger l USING locked WHERE l.product_id = locked.id RETURNING l.quantity" +
+            "), total AS (" +
+            "    SELECT GREATEST(COALESCE(SUM(quantity), 0) - ?, 0) AS qty FROM drained" +
+            ") " +
+            "UPDATE products p SET " +
+            "    stock_quantity = COALESCE(p.stock_quantity, 0) + total.qty, " +
+            "    status = CASE " +
+            "        WHEN COALESCE(p.stock_quantity, 0) + total.qty > 0 AND p.status = 'OUT_OF_STOCK' THEN 'ACTIVE' " +
+            "        WHEN COALESCE(p.stock_quantity, 0) + total.qty = 0 AND p.status = 'ACTIVE' THEN 'OUT_OF_STOCK' " +
+            "        ELSE p.status END " +
+            "FROM locked l, total " +
+            "WHERE p.id = l.id " +
+            "RETURNING p.id, p.stock_quantity, l.old_status, p.status";
+
+    /**
+     * Продукты, полосы которых давно не менялись или опустели
+     */
+    private static final String IDLE_SQL =
+            "SELECT product_id FROM stock_ledger GROUP BY product_id " +
+            "HAVING MAX(updated_at) < now() - make_interval(secs => ?) OR SUM(quantity) = 0";
+
+    private static final String TOTALS_SQL =
+            "SELECT product_id, SUM(quantity) FROM stock_ledger GROUP BY product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Списать количество из одной полосы, где его хватает; перебор начинается с полосы start
+     * @param skipLocked пропускать полосы, занятые незавершенными резервами
+     * @return false, если подходящей полосы нет
+     */
+    public boolean take(Long productId, int quantity, int start, int bucketCount, boolean skipLocked) {
+        return !jdbcTemplate.queryForList(skipLocked ? TAKE_SKIP_LOCKED_SQL : TAKE_WAIT_SQL, Integer.class,
+                quantity, productId, quantity, bucketCount - start, bucketCount, productId).isEmpty();
+    }
+
+    public void put(Long productId, int bucket, int quantity) {
+        jdbcTemplate.update(PUT_SQL, productId, bucket, quantity);
+    }
+
+    /**
+     * @return сколько единиц перенесено из строки продукта в полосу
+     */
+    public int refill(Long productId, int bucket, int maxQuantity) {
+        List<Integer> taken = jdbcTemplate.queryForList(REFILL_SQL, Integer.class, maxQuantity, productId, bucket);
+        return taken.isEmpty() ? 0 : taken.get(0);
+    }
+
+    /**
+     * Вернуть полосы продукта в products.stock_quantity
+     * @param excess сколько единиц из полос не возвращать (складской остаток оказался меньше)
+     * @return изменение остатка продукта; пусто, если продукта нет
+     */
+    public List<StockChange> drain(Long productId, int excess) {
+        return jdbcTemplate.query(DRAIN_SQL, (rs, rowNum) -> new StockChange(
+                rs.getLong(1), rs.getInt(2),
+                ProductStatus.valueOf(rs.getString(3)), ProductStatus.valueOf(rs.getString(4))),
+                productId, excess);
+    }
+
+    public List<Long> findIdle(Duration idleTimeout) {
+        return jdbcTemplate.queryForList(IDLE_SQL, Long.class, idleTimeout.toMillis() / 1000.0);
+    }
+
+    /**
+     * Количество в полосах по продуктам
+     */
+    public Map<Long, Integer> findTotals() {
+        Map<Long, Integer> totals = new HashMap<>();
+        jdbcTemplate.query(TOTALS_SQL, rs -> {
+            totals.put(rs.getLong(1), rs.getInt(2));
+        });
+        return totals;
+    }
+
+    private static String takeSql(String lockClause) {
+        return "UPDATE stock_ledger l SET quantity = l.quantity - ?, updated_at = now() " +
+                "FROM (" +
+                "    SELECT bucket FROM stock_ledger WHERE product_id = ? AND quantity >= ? " +
+                "    ORDER BY (bucket + ?) % ? LIMIT 1 " + lockClause +
+                ") pick " +
+                "WHERE l.product_id = ? AND l.bucket = pick.bucket " +
+                "RETURNING l.bucket";
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.product.repository;
+
+import com.example.product.enums.ReservationStatus;
+import com.example.product.model.StockReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByOrderIdOrderById(String orderId);
+
+    /**
+     * Резервы заказа в указанном статусе с блокировкой строк (отмена и истечение не пересекаются)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.orderId = :orderId AND r.status = :status ORDER BY r.id")
+    List<StockReservation> findForUpdate(@Param("orderId") String orderId, @Param("status") ReservationStatus status);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r WHERE r.id IN :ids AND r.status = :status ORDER BY r.id")
+    List<StockReservation> findForUpdate(@Param("ids") Collection<Long> ids, @Param("status") ReservationStatus status);
+
+    @Query("SELECT r.id FROM StockReservation r WHERE r.status = com.example.product.enums.ReservationStatus.RESERVED " +
+            "AND r.expiresAt < :now ORDER BY r.expiresAt")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Подтвердить действующие резервы заказа
+     * @return количество подтвержденных позиций
+     */
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = com.example.product.enums.ReservationStatus.CONFIRMED, " +
+            "r.updatedAt = :now WHERE r.orderId = :orderId " +
+            "AND r.status = com.example.product.enums.ReservationStatus.RESERVED AND r.expiresAt >= :now")
+    int confirm(@Param("orderId") String orderId, @Param("now") LocalDateTime now);
+}
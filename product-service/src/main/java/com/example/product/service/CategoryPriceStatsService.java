@@ -0,0 +1,46 @@
+package com.example.product.service;
+
+import com.example.product.dto.Product.PriceRangeDTO;
+import com.example.product.model.Category;
+import com.example.product.model.CategoryPriceStats;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface CategoryPriceStatsService {
+
+    /**
+     * Отметить, что цены в категориях (и их предках) изменились. Пересчет выполняется
+     * в фоне после коммита текущей транзакции; статистика всего каталога - по своему расписанию.
+     */
+    void markChanged(Collection<Category> categories);
+
+    /**
+     * Статистика цен для набора категорий; категории без активных продуктов отсутствуют в результате
+     */
+    Map<Long, CategoryPriceStats> getStats(Collection<Long> categoryIds);
+
+    /**
+     * Границы цен и гистограмма для фильтра. Без категории - по всему каталогу.
+     */
+    PriceRangeDTO getPriceRange(Long categoryId);
+
+    /**
+     * Пересчитать статистику для категорий, отмеченных как измененные
+     * @return количество пересчитанных категорий
+     */
+    int refreshChanged();
+
+    /**
+     * Пересчитать статистику всего каталога, если с прошлого пересчета были изменения.
+     * Агрегат по всем продуктам дороже категорийного, поэтому выполняется по отдельному, более редкому расписанию.
+     * @return true, если статистика пересчитана
+     */
+    boolean refreshGlobal();
+
+    /**
+     * Полностью пересчитать статистику по всем категориям
+     * @return количество пересчитанных категорий
+     */
+    int rebuildAll();
+}
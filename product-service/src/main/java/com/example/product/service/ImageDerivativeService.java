@@ -0,0 +1,24 @@
+package com.example.product.service;
+
+import com.example.product.enums.ImageSize;
+
+import java.util.Map;
+
+public interface ImageDerivativeService {
+
+    /**
+     * Поставить генерацию производных изображений в очередь.
+     * Не блокирует поток запроса: работа выполняется ограниченным пулом воркеров.
+     */
+    void scheduleGeneration(String imageId);
+
+    /**
+     * Получить URL-ы всех производных изображений (ключи вида "thumbnail", "thumbnail_webp")
+     */
+    Map<String, String> getDerivativeUrls(String imageId);
+
+    /**
+     * Получить URL производного изображения конкретного размера
+     */
+    String getDerivativeUrl(String imageId, ImageSize size, boolean webp);
+}
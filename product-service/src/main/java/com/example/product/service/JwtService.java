@@ -0,0 +1,159 @@
+package com.example.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class JwtService {
+
+    @Value("${jwt.secret}")
+    private String secretKey;
+
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    // Ключ и парсер неизменяемы и потокобезопасны - создаём их один раз
+    private JwtParser jwtParser;
+
+    // Токен -> уже проверенный principal; запись живёт не дольше срока действия токена
+    private Cache<String, JwtPrincipal> principalCache;
+
+    @PostConstruct
+    public void init() {
+        Key key = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build();
+
+        principalCache = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, JwtPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String token, JwtPrincipal principal, long currentTime) {
+                        return principal.remainingNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return principal.remainingNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, JwtPrincipal principal, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Проверить токен один раз и вернуть данные пользователя.
+     * Повторные запросы с тем же токеном обслуживаются из кэша без проверки подписи.
+     */
+    public Optional<JwtPrincipal> authenticate(String token) {
+        JwtPrincipal cached = principalCache.getIfPresent(token);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        try {
+            JwtPrincipal principal = toPrincipal(extractAllClaims(token));
+            if (principal.remainingNanos() > 0) {
+                principalCache.put(token, principal);
+            }
+            log.debug("Token validation successful for {}", principal.getUsername());
+            return Optional.of(principal);
+        } catch (ExpiredJwtException e) {
+            log.debug("JWT token expired: {}", e.getMessage());
+            return Optional.empty();
+        } catch (Exception e) {
+            log.warn("JWT token validation error: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public String extractUsername(String token) {
+        return extractAllClaims(token).getSubject();
+    }
+
+    public List<String> extractRoles(String token) {
+        return extractRoles(extractAllClaims(token));
+    }
+
+    public boolean isTokenValid(String token) {
+        return authenticate(token).isPresent();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> extractRoles(Claims claims) {
+        // Получаем роли
+        Object rolesObj = claims.get("roles");
+
+        if (rolesObj instanceof String) {
+            // Если роли пришли как строка
+            String rolesStr = (String) rolesObj;
+            return Arrays.asList(rolesStr.split(","));
+        } else if (rolesObj instanceof List) {
+            // Если роли пришли как список
+            return (List<String>) rolesObj;
+        }
+
+        log.warn("Unexpected roles format: {}", rolesObj != null ? rolesObj.getClass().getName() : "null");
+        return Collections.emptyList();
+    }
+
+    private Claims extractAllClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
+
+    private JwtPrincipal toPrincipal(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return new JwtPrincipal(
+                claims.getSubject(),
+                List.copyOf(extractRoles(claims)),
+                expiration != null ? expiration.getTime() : 0L
+        );
+    }
+
+    /**
+     * Данные пользователя, извлечённые из проверенного токена
+     */
+    @Getter
+    public static class JwtPrincipal {
+        private final String username;
+        private final List<String> roles;
+        private final long expiresAtMillis;
+
+        public JwtPrincipal(String username, List<String> roles, long expiresAtMillis) {
+            this.username = username;
+            this.roles = roles;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        long remainingNanos() {
+            long remainingMillis = expiresAtMillis - System.currentTimeMillis();
+            return remainingMillis > 0 ? TimeUnit.MILLISECONDS.toNanos(remainingMillis) : 0L;
+        }
+    }
+}
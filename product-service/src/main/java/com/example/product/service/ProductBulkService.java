@@ -0,0 +1,13 @@
+package com.example.product.service;
+
+import com.example.product.dto.Product.ProductBulkRequest;
+import com.example.product.dto.Product.ProductBulkResponse;
+
+public interface ProductBulkService {
+
+    /**
+     * Найти продукты по спискам ID, slug и SKU - по одному запросу IN на каждый непустой список.
+     * Порядок результата совпадает с порядком запроса, дубликаты возвращаются один раз.
+     */
+    ProductBulkResponse findProducts(ProductBulkRequest request);
+}
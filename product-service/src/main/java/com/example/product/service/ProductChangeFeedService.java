@@ -0,0 +1,12 @@
+package com.example.product.service;
+
+import com.example.product.dto.Product.ProductChangesResponse;
+
+public interface ProductChangeFeedService {
+
+    /**
+     * Продукты, измененные или удаленные после курсора, в порядке номеров изменений.
+     * Продукт, изменявшийся несколько раз, возвращается один раз - с последним номером.
+     */
+    ProductChangesResponse getChanges(long since, int limit);
+}
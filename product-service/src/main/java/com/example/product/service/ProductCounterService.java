@@ -0,0 +1,43 @@
+package com.example.product.service;
+
+import com.example.product.model.Category;
+
+import java.util.Collection;
+
+public interface ProductCounterService {
+
+    /**
+     * Учесть изменение счетчика продуктов бренда. Изменения копятся в рамках транзакции
+     * и применяются одним атомарным UPDATE на бренд после коммита.
+     */
+    void recordBrandDelta(Long brandId, int delta);
+
+    /**
+     * Учесть изменение счетчиков продуктов для набора категорий
+     */
+    void recordCategoryDelta(Collection<Long> categoryIds, int delta);
+
+    /**
+     * Учесть изменение счетчиков активных продуктов категорий (прямых и с учетом подкатегорий)
+     * при смене набора категорий или статуса продукта. Предки категорий определяются по иерархии,
+     * продукт учитывается в каждом предке один раз.
+     * @param oldCategories категории продукта до изменения (пусто для нового продукта)
+     * @param wasActive был ли продукт активен до изменения
+     * @param newCategories категории продукта после изменения (пусто для удаленного продукта)
+     * @param isActive активен ли продукт после изменения
+     */
+    void recordActiveProductChange(Collection<Category> oldCategories, boolean wasActive,
+                                   Collection<Category> newCategories, boolean isActive);
+
+    /**
+     * Запросить полный пересчет счетчиков активных продуктов дерева категорий после коммита
+     * (при изменении иерархии категорий)
+     */
+    void requestCategoryTreeRecount();
+
+    /**
+     * Пересчитать все счетчики брендов и категорий по фактическим данным.
+     * @return количество исправленных (разошедшихся) счетчиков
+     */
+    long reconcileCounters();
+}
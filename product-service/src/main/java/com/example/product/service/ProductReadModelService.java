@@ -0,0 +1,45 @@
+package com.example.product.service;
+
+import com.example.product.dto.Product.ProductDTO;
+import com.example.product.dto.Product.ProductListDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Денормализованная read-модель публичного каталога (таблица product_read_model)
+ */
+public interface ProductReadModelService {
+
+    /**
+     * Построена ли read-модель; пока нет - чтение идет по основным таблицам
+     */
+    boolean isReady();
+
+    Optional<ProductDTO> findBySlug(String slug);
+
+    Page<ProductListDTO> findPage(Pageable pageable);
+
+    Page<ProductListDTO> findFiltered(Long categoryId, List<Long> brandIds,
+                                      BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+
+    /**
+     * Поставить продукты в очередь на перестроение строк read-модели
+     */
+    void refresh(Collection<Long> productIds);
+
+    /**
+     * Запустить полное перестроение read-модели в фоне
+     */
+    void rebuildAsync();
+
+    /**
+     * Полностью перестроить read-модель
+     * @return количество построенных строк
+     */
+    long rebuildAll();
+}
@@ -0,0 +1,17 @@
+package com.example.product.service;
+
+import java.util.List;
+
+public interface SlugService {
+
+    /**
+     * Сгенерировать уникальный slug продукта (при совпадении добавляется суффикс -2, -3, ...)
+     */
+    String generateUniqueProductSlug(String name);
+
+    /**
+     * Сгенерировать уникальные slug-и для пачки продуктов одним запросом к БД.
+     * Порядок результата совпадает с порядком имён; дубликаты внутри пачки тоже разводятся.
+     */
+    List<String> generateUniqueProductSlugs(List<String> names);
+}
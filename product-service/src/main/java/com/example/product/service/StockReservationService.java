@@ -0,0 +1,34 @@
+package com.example.product.service;
+
+import com.example.product.dto.Stock.StockReservationDTO;
+import com.example.product.dto.Stock.StockReservationRequest;
+
+import java.util.Optional;
+
+public interface StockReservationService {
+
+    /**
+     * Зарезервировать все позиции заказа. Если хотя бы одной позиции не хватает остатка,
+     * ничего не резервируется (InsufficientStockException). Повторный запрос для заказа
+     * с действующим резервом возвращает существующий резерв.
+     */
+    StockReservationDTO reserve(StockReservationRequest request);
+
+    /**
+     * Подтвердить резерв заказа: остаток остается списанным
+     */
+    StockReservationDTO confirm(String orderId);
+
+    /**
+     * Отменить резерв заказа и вернуть остаток
+     */
+    StockReservationDTO release(String orderId);
+
+    Optional<StockReservationDTO> getReservation(String orderId);
+
+    /**
+     * Вернуть остаток по истекшим резервам
+     * @return количество истекших позиций
+     */
+    int releaseExpired();
+}
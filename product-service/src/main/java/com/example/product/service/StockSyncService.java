@@ -0,0 +1,13 @@
+package com.example.product.service;
+
+import com.example.product.dto.Stock.StockSyncRequest;
+import com.example.product.dto.Stock.StockSyncResultDTO;
+
+public interface StockSyncService {
+
+    /**
+     * Применить пачку складских остатков: по каждому продукту - самая свежая запись,
+     * все продукты - одним UPDATE вместе с переключением статуса OUT_OF_STOCK/ACTIVE
+     */
+    StockSyncResultDTO sync(StockSyncRequest request);
+}
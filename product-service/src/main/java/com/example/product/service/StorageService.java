@@ -0,0 +1,60 @@
+package com.example.product.service;
+
+import com.example.product.enums.ImageSize;
+import lombok.Getter;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+public interface StorageService {
+
+    /**
+     * Содержимое файла читается в вызывающем потоке: реализации могут передать загрузку
+     * в свой пул, а временный файл multipart удаляется по окончании запроса
+     */
+    default StorageResult uploadImage(MultipartFile file) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Файл отсутствует или пуст");
+        }
+        return uploadImage(file.getBytes(), file.getOriginalFilename());
+    }
+
+    StorageResult uploadImage(byte[] content, String originalFilename) throws IOException;
+
+    /**
+     * Ошибка обращения к хранилищу выбрасывается (UncheckedIOException), а не превращается
+     * в false - иначе обёртка не отличит сбой хранилища от отсутствующего изображения
+     */
+    boolean deleteImage(String imageId);
+
+    /**
+     * Пустой результат - изображения нет; ошибка обращения к хранилищу выбрасывается
+     */
+    Map<String, Object> getImageInfo(String imageId);
+
+    /**
+     * Построить URL производного изображения (уменьшенная копия, опционально WebP).
+     * URL вычисляется локально, без обращения к хранилищу.
+     */
+    String getDerivativeUrl(String imageId, ImageSize size, boolean webp);
+
+    /**
+     * Заранее сгенерировать производные изображения в хранилище,
+     * чтобы первый запрос к ним не ждал построения
+     */
+    void generateDerivatives(String imageId, Collection<ImageSize> sizes) throws IOException;
+
+
+    @Getter
+    class StorageResult {
+        private String url;
+        private String imageId;
+
+        public StorageResult(String url, String imageId) {
+            this.url = url;
+            this.imageId = imageId;
+        }
+
+    }
+}
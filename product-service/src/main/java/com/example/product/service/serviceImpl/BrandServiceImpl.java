@@ -1,9 +1,11 @@
 package com.example.product.service.serviceImpl;
 
+import com.example.product.config.CacheConfig;
 import com.example.product.dto.BrandDto.BrandCreateRequest;
 import com.example.product.dto.BrandDto.BrandDTO;
 import com.example.product.dto.BrandDto.BrandListDTO;
 import com.example.product.dto.BrandDto.BrandUpdateRequest;
+import com.example.product.event.BrandChangedEvent;
 import com.example.product.maper.BrandMapper;
 import com.example.product.model.Brand;
 import com.example.product.repository.BrandRepository;
@@ -12,6 +14,8 @@ import com.example.product.service.BrandService;
 import com.example.product.service.StorageService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -35,6 +39,7 @@ public class BrandServiceImpl implements BrandService {
     private final ProductRepository productRepository;
     private final BrandMapper brandMapper;
     private final StorageService storageService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -48,6 +53,7 @@ public class BrandServiceImpl implements BrandService {
 
         brand = brandRepository.save(brand);
         log.info("Создан новый бренд: {}", brand.getName());
+        eventPublisher.publishEvent(new BrandChangedEvent(brand.getId()));
         return brandMapper.toDTO(brand);
     }
 
@@ -70,6 +76,7 @@ public class BrandServiceImpl implements BrandService {
 
         brand = brandRepository.save(brand);
         log.info("Обновлен бренд: {}", brand.getName());
+        eventPublisher.publishEvent(new BrandChangedEvent(brand.getId()));
         return brandMapper.toDTO(brand);
     }
 
@@ -92,6 +99,7 @@ public class BrandServiceImpl implements BrandService {
 
         brandRepository.delete(brand);
         log.info("Удален бренд: {}", brand.getName());
+        eventPublisher.publishEvent(new BrandChangedEvent(id));
     }
 
     @Override
@@ -123,6 +131,7 @@ public class BrandServiceImpl implements BrandService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.ACTIVE_BRANDS, key = "#active")
     public List<BrandListDTO> getBrandsByActive(boolean active) {
         return brandMapper.toListDTO(brandRepository.findByActiveOrderBySortOrderAscNameAsc(active));
     }
@@ -156,6 +165,7 @@ public class BrandServiceImpl implements BrandService {
         uploadBannerImageInternal(brand, file);
         brand = brandRepository.save(brand);
         log.info("Загружен баннер для бренда: {}", brand.getName());
+        eventPublisher.publishEvent(new BrandChangedEvent(brand.getId()));
         return brandMapper.toDTO(brand);
     }
 
@@ -174,6 +184,7 @@ public class BrandServiceImpl implements BrandService {
         brand.setBannerImageId(null);
         brandRepository.save(brand);
         log.info("Удален баннер для бренда: {}", brand.getName());
+        eventPublisher.publishEvent(new BrandChangedEvent(brand.getId()));
     }
 
     @Override
@@ -191,23 +202,16 @@ public class BrandServiceImpl implements BrandService {
     @Override
     @Transactional
     public void incrementProductCount(Long brandId) {
-        Brand brand = brandRepository.findById(brandId)
-                .orElseThrow(() -> new RuntimeException("Бренд с ID " + brandId + " не найден"));
-
-        int newCount = brand.getProductCount() != null ? brand.getProductCount() + 1 : 1;
-        brand.setProductCount(newCount);
-        brandRepository.save(brand);
+        if (brandRepository.addToProductCount(brandId, 1) == 0) {
+            throw new RuntimeException("Бренд с ID " + brandId + " не найден");
+        }
     }
 
     @Override
     @Transactional
     public void decrementProductCount(Long brandId) {
-        Brand brand = brandRepository.findById(brandId)
-                .orElseThrow(() -> new RuntimeException("Бренд с ID " + brandId + " не найден"));
-
-        if (brand.getProductCount() != null && brand.getProductCount() > 0) {
-            brand.setProductCount(brand.getProductCount() - 1);
-            brandRepository.save(brand);
+        if (brandRepository.addToProductCount(brandId, -1) == 0) {
+            throw new RuntimeException("Бренд с ID " + brandId + " не найден");
         }
     }
 
@@ -0,0 +1,226 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Product.PriceRangeDTO;
+import com.example.product.model.Category;
+import com.example.product.model.CategoryPriceStats;
+import com.example.product.repository.CategoryPriceStatsRepository;
+import com.example.product.repository.CategoryRepository;
+import com.example.product.service.CategoryPriceStatsService;
+import com.example.product.util.CategoryTreeUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class CategoryPriceStatsServiceImpl implements CategoryPriceStatsService {
+
+    private final CategoryPriceStatsRepository priceStatsRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int buckets;
+    private final int batchSize;
+
+    // Категории, статистика которых устарела; пересчитываются пачками в фоне
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    // Статистика всего каталога устарела; агрегат по всем продуктам пересчитывается реже категорий
+    private final AtomicBoolean globalChanged = new AtomicBoolean();
+
+    public CategoryPriceStatsServiceImpl(CategoryPriceStatsRepository priceStatsRepository,
+                                         CategoryRepository categoryRepository,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${catalog.price-stats.buckets:10}") int buckets,
+                                         @Value("${catalog.price-stats.batch-size:200}") int batchSize) {
+        this.priceStatsRepository = priceStatsRepository;
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.buckets = buckets;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void markChanged(Collection<Category> categories) {
+        Set<Long> ids = CategoryTreeUtil.withAncestors(categories);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(ids);
+            return;
+        }
+        // До коммита пересчет увидел бы старые данные
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(ids);
+            }
+        });
+    }
+
+    @Override
+    public Map<Long, CategoryPriceStats> getStats(Collection<Long> categoryIds) {
+        if (categoryIds == null || categoryIds.isEmpty()) {
+            return Map.of();
+        }
+        return priceStatsRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(CategoryPriceStats::getCategoryId, Function.identity()));
+    }
+
+    @Override
+    public PriceRangeDTO getPriceRange(Long categoryId) {
+        Long statsId = categoryId != null ? categoryId : CategoryPriceStats.ALL_PRODUCTS;
+
+        return priceStatsRepository.findById(statsId)
+                .map(stats -> PriceRangeDTO.builder()
+                        .categoryId(categoryId)
+                        .minPrice(stats.getMinPrice())
+                        .maxPrice(stats.getMaxPrice())
+                        .productCount(stats.getProductCount())
+                        .histogram(stats.getHistogramBuckets())
+                        .build())
+                .orElseGet(() -> PriceRangeDTO.builder()
+                        .categoryId(categoryId)
+                        .productCount(0)
+                        .histogram(List.of())
+                        .build());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${catalog.price-stats.refresh-delay:5000}")
+    public int refreshChanged() {
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(changed);
+        changed.removeAll(ids);
+
+        try {
+            recompute(ids);
+            log.debug("Пересчитана статистика цен для {} категорий", ids.size());
+            return ids.size();
+        } catch (Exception e) {
+            // Повторим при следующем запуске
+            changed.addAll(ids);
+            log.error("Ошибка при пересчете статистики цен категорий: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${catalog.price-stats.global-refresh-delay:60000}")
+    public boolean refreshGlobal() {
+        if (!globalChanged.getAndSet(false)) {
+            return false;
+        }
+
+        try {
+            recompute(List.of(CategoryPriceStats.ALL_PRODUCTS));
+            log.debug("Пересчитана статистика цен всего каталога");
+            return true;
+        } catch (Exception e) {
+            globalChanged.set(true);
+            log.error("Ошибка при пересчете статистики цен каталога: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${catalog.price-stats.rebuild.cron:0 45 3 * * *}")
+    public int rebuildAll() {
+        globalChanged.set(false);
+        List<Long> ids = new ArrayList<>(categoryRepository.findAllIds());
+        ids.add(CategoryPriceStats.ALL_PRODUCTS);
+
+        recompute(ids);
+        log.info("Статистика цен пересчитана для {} категорий", ids.size() - 1);
+        return ids.size();
+    }
+
+    /**
+     * Первичное заполнение таблицы статистики после развертывания
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeIfEmpty() {
+        try {
+            if (priceStatsRepository.count() == 0) {
+                rebuildAll();
+            }
+        } catch (Exception e) {
+            log.error("Не удалось заполнить статистику цен категорий: {}", e.getMessage());
+        }
+    }
+
+    private void enqueue(Set<Long> ids) {
+        changed.addAll(ids);
+        globalChanged.set(true);
+    }
+
+    /**
+     * Пересчет статистики пачками, каждая пачка - один агрегирующий запрос и одна транзакция
+     */
+    private void recompute(List<Long> ids) {
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            transactionTemplate.executeWithoutResult(status -> recomputeBatch(batch));
+        }
+    }
+
+    private void recomputeBatch(List<Long> ids) {
+        List<Long> categoryIds = new ArrayList<>(ids);
+        boolean includeGlobal = categoryIds.remove(CategoryPriceStats.ALL_PRODUCTS);
+
+        List<Object[]> rows = new ArrayList<>();
+        if (!categoryIds.isEmpty()) {
+            rows.addAll(priceStatsRepository.computeStats(categoryIds, buckets));
+        }
+        if (includeGlobal) {
+            rows.addAll(priceStatsRepository.computeGlobalStats(buckets));
+        }
+
+        Map<Long, CategoryPriceStats> existing = new HashMap<>(getStats(ids));
+        Set<Long> withProducts = new HashSet<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<CategoryPriceStats> toSave = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long categoryId = ((Number) row[0]).longValue();
+            withProducts.add(categoryId);
+
+            CategoryPriceStats stats = existing.computeIfAbsent(categoryId,
+                    id -> CategoryPriceStats.builder().categoryId(id).build());
+            stats.setMinPrice((BigDecimal) row[1]);
+            stats.setMaxPrice((BigDecimal) row[2]);
+            stats.setProductCount(((Number) row[3]).intValue());
+            stats.setHistogram((String) row[4]);
+            stats.setUpdatedAt(now);
+            toSave.add(stats);
+        }
+        priceStatsRepository.saveAll(toSave);
+
+        // В категориях не осталось активных продуктов с ценой
+        List<CategoryPriceStats> toDelete = existing.values().stream()
+                .filter(stats -> !withProducts.contains(stats.getCategoryId()))
+                .collect(Collectors.toList());
+        priceStatsRepository.deleteAll(toDelete);
+    }
+}
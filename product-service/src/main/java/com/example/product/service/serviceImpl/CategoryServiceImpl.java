@@ -1,14 +1,22 @@
 package com.example.product.service.serviceImpl;
 
+import com.example.product.config.CacheConfig;
 import com.example.product.dto.Category.*;
+import com.example.product.event.CategoryChangedEvent;
 import com.example.product.maper.CategoryMapper;
 import com.example.product.model.Category;
+import com.example.product.model.CategoryPriceStats;
 import com.example.product.repository.CategoryRepository;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.CategoryPriceStatsService;
 import com.example.product.service.CategoryService;
+import com.example.product.service.ProductCounterService;
 import com.example.product.service.StorageService;
 import com.example.product.util.SlugUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,6 +28,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
@@ -30,8 +39,12 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
     private final CategoryMapper categoryMapper;
     private final StorageService storageService;
+    private final ProductCounterService productCounterService;
+    private final CategoryPriceStatsService priceStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     @Override
@@ -73,6 +86,7 @@ public class CategoryServiceImpl implements CategoryService {
         // Сохраняем категорию
         Category savedCategory = categoryRepository.save(category);
         log.info("Категория успешно создана с ID: {}", savedCategory.getId());
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
 
         return categoryMapper.toDetailsDto(savedCategory);
     }
@@ -85,6 +99,8 @@ public class CategoryServiceImpl implements CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Категория не найдена: " + id));
 
+        Long oldParentId = category.getParent() != null ? category.getParent().getId() : null;
+
         // Обновляем базовые поля
         categoryMapper.updateEntityFromDto(category, categoryDto);
 
@@ -118,6 +134,11 @@ public class CategoryServiceImpl implements CategoryService {
             category.setParent(null);
         }
 
+        // При переносе категории в другую ветку счетчики продуктов предков пересчитываются после коммита
+        if (!Objects.equals(oldParentId, categoryDto.getParentId())) {
+            productCounterService.requestCategoryTreeRecount();
+        }
+
         // Обрабатываем изображение, если оно есть
         if (image != null && !image.isEmpty()) {
             try {
@@ -144,6 +165,7 @@ public class CategoryServiceImpl implements CategoryService {
         // Сохраняем обновленную категорию
         Category updatedCategory = categoryRepository.save(category);
         log.info("Категория успешно обновлена с ID: {}", updatedCategory.getId());
+        eventPublisher.publishEvent(new CategoryChangedEvent(updatedCategory.getId()));
 
         return categoryMapper.toDetailsDto(updatedCategory);
     }
@@ -204,9 +226,13 @@ public class CategoryServiceImpl implements CategoryService {
             }
         }
 
+        // Продукты категории нужны слушателям, а после удаления связи с ними уже не найти
+        List<Long> productIds = productRepository.findIdsByCategorySubtree(id);
+
         // Удаляем категорию
         categoryRepository.delete(category);
         log.info("Категория успешно удалена: {}", id);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id, productIds));
     }
 
     @Override
@@ -286,6 +312,8 @@ public class CategoryServiceImpl implements CategoryService {
 
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.POPULAR_CATEGORIES)
     public List<PopularCategoryDto> getPopularCategories() {
         List<Category> popularCategories = categoryRepository.findByIsPopularTrueAndActiveTrue();
 
@@ -295,9 +323,15 @@ public class CategoryServiceImpl implements CategoryService {
             popularCategories = categoryRepository.findTopCategoriesByPopularityMetrics(10);
         }
 
+        // Ценовые диапазоны одним запросом к предрассчитанной статистике
+        Map<Long, CategoryPriceStats> priceStats = priceStatsService.getStats(popularCategories.stream()
+                .filter(Objects::nonNull)
+                .map(Category::getId)
+                .collect(Collectors.toList()));
+
         return popularCategories.stream()
                 .filter(Objects::nonNull)
-                .map(categoryMapper::toPopularCategoryDto)
+                .map(category -> categoryMapper.toPopularCategoryDto(category, priceStats.get(category.getId())))
                 .collect(Collectors.toList());
 
     }
@@ -364,6 +398,8 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CATEGORY_TREE)
     public List<CategoryTreeDto> getCategoryTree() {
         // Получаем все корневые категории (категории верхнего уровня без родителя)
         List<Category> rootCategories = categoryRepository.findByParentIsNull();
@@ -0,0 +1,210 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.repository.StockJdbcRepository;
+import com.example.product.repository.StockJdbcRepository.StockChange;
+import com.example.product.repository.StockLedgerJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Резервирование остатка "горячих" продуктов (распродажи) без конкуренции за строку продукта.
+ * Остаток порциями переносится из products.stock_quantity в полосы stock_ledger, резервы списывают
+ * из полосы, не занятой другими транзакциями. Все переносы выполняются в транзакции резерва
+ * на том же соединении: откат возвращает количество на место, а после падения экземпляра
+ * остаток остается в полосах и доступен остальным.
+ * Полосы простаивающих и опустевших продуктов возвращаются в строку продукта плановой задачей,
+ * полосы продуктов, которые этот экземпляр не считает горячими, - при запуске.
+ */
+@Component
+@Slf4j
+public class HotStockLedger {
+
+    public enum Result { RESERVED, INSUFFICIENT, NOT_HOT }
+
+    private final StockLedgerJdbcRepository ledgerRepository;
+    private final StockJdbcRepository stockJdbcRepository;
+    private final StockStatusTransitions statusTransitions;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int stripeCount;
+    private final Duration idleTimeout;
+
+    private final Set<Long> hotProducts = ConcurrentHashMap.newKeySet();
+    private final Counter refillCounter;
+
+    public HotStockLedger(StockLedgerJdbcRepository ledgerRepository,
+                          StockJdbcRepository stockJdbcRepository,
+                          StockStatusTransitions statusTransitions,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${catalog.stock.hot.chunk-size:50}") int chunkSize,
+                          @Value("${catalog.stock.hot.stripes:8}") int stripeCount,
+                          @Value("${catalog.stock.hot.idle-timeout:30s}") Duration idleTimeout,
+                          @Value("${catalog.stock.hot.products:}") List<Long> hotProducts) {
+        this.ledgerRepository = ledgerRepository;
+        this.stockJdbcRepository = stockJdbcRepository;
+        this.statusTransitions = statusTransitions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.stripeCount = stripeCount;
+        this.idleTimeout = idleTimeout;
+
+        this.refillCounter = Counter.builder("catalog.stock.ledger.refills")
+                .description("Порции остатка, перенесенные в полосы горячих продуктов")
+                .register(meterRegistry);
+        meterRegistry.gauge("catalog.stock.ledger.products", this.hotProducts, Set::size);
+
+        this.hotProducts.addAll(hotProducts);
+    }
+
+    public boolean isHot(Long productId) {
+        return hotProducts.contains(productId);
+    }
+
+    public void enable(Long productId) {
+        hotProducts.add(productId);
+        log.info("Резервирование продукта {} переведено на полосы остатка", productId);
+    }
+
+    /**
+     * Отключить продукт: остаток из полос возвращается в строку продукта
+     */
+    public void disable(Long productId) {
+        if (!hotProducts.remove(productId)) {
+            return;
+        }
+        drain(productId);
+        log.info("Резервирование продукта {} возвращено на строку продукта", productId);
+    }
+
+    /**
+     * Горячие продукты этого экземпляра и количество в их полосах
+     */
+    public Map<Long, Integer> getAllocations() {
+        Map<Long, Integer> totals = ledgerRepository.findTotals();
+        Map<Long, Integer> result = new HashMap<>();
+        hotProducts.forEach(productId -> result.put(productId, totals.getOrDefault(productId, 0)));
+        return result;
+    }
+
+    /**
+     * Списать количество в транзакции резерва. INSUFFICIENT не откатывает уже выполненные переносы -
+     * это делает откат транзакции
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Result tryReserve(Long productId, int quantity) {
+        if (!isHot(productId)) {
+            return Result.NOT_HOT;
+        }
+        int start = ThreadLocalRandom.current().nextInt(stripeCount);
+        if (ledgerRepository.take(productId, quantity, start, stripeCount, true)) {
+            return Result.RESERVED;
+        }
+
+        // Свободные полосы пусты или заняты: переносим порцию в полосу start и ждем подходящую полосу
+        if (ledgerRepository.refill(productId, start, Math.max(chunkSize, quantity)) > 0) {
+            refillCounter.increment();
+        }
+        if (ledgerRepository.take(productId, quantity, start, stripeCount, false)) {
+            return Result.RESERVED;
+        }
+
+        // Остаток раздроблен по полосам: собираем его в строку продукта и резервируем оттуда
+        statusTransitions.apply(ledgerRepository.drain(productId, 0));
+        List<StockChange> changes = stockJdbcRepository.reserve(Map.of(productId, quantity));
+        if (changes.isEmpty()) {
+            return Result.INSUFFICIENT;
+        }
+        statusTransitions.apply(changes);
+        return Result.RESERVED;
+    }
+
+    /**
+     * Вернуть количество в полосу в транзакции отмены резерва
+     * @return false, если продукт уже не горячий - количество нужно вернуть в строку продукта
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean release(Long productId, int quantity) {
+        if (!isHot(productId)) {
+            return false;
+        }
+        ledgerRepository.put(productId, ThreadLocalRandom.current().nextInt(stripeCount), quantity);
+        return true;
+    }
+
+    /**
+     * Вернуть количество в полосу, а если продукт уже не горячий - в строку продукта
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void releaseOrReturn(Long productId, int quantity) {
+        if (!release(productId, quantity)) {
+            statusTransitions.apply(stockJdbcRepository.returnStock(Map.of(productId, quantity)));
+        }
+    }
+
+    /**
+     * Списать из полос единицы, которых по данным склада уже нет, остальное вернуть в строку продукта
+     */
+    public void trim(Long productId, int excess) {
+        transactionTemplate.executeWithoutResult(status ->
+                statusTransitions.apply(ledgerRepository.drain(productId, excess)));
+        log.info("Полосы продукта {} сокращены по складскому остатку на {} ед.", productId, excess);
+    }
+
+    /**
+     * Вернуть в строку продукта полосы, по которым давно не было резервов, и убрать опустевшие
+     * (продукт без остатка переходит в OUT_OF_STOCK)
+     */
+    @Scheduled(fixedDelayString = "${catalog.stock.hot.flush-delay:10000}")
+    public void flushIdle() {
+        for (Long productId : ledgerRepository.findIdle(idleTimeout)) {
+            try {
+                drain(productId);
+            } catch (Exception e) {
+                log.warn("Не удалось вернуть полосы продукта {}: {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Полосы, оставшиеся от прежнего запуска или от продуктов, которые больше не горячие,
+     * возвращаются в строку продукта
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        int drained = 0;
+        for (Long productId : ledgerRepository.findTotals().keySet()) {
+            if (!isHot(productId)) {
+                drain(productId);
+                drained++;
+            }
+        }
+        if (drained > 0) {
+            log.info("Возвращены полосы остатка продуктов, не отмеченных горячими: {}", drained);
+        }
+    }
+
+    // Каждый продукт - отдельная транзакция: строки продуктов не блокируются пачкой поверх чужих полос
+    private void drain(Long productId) {
+        transactionTemplate.executeWithoutResult(status ->
+                statusTransitions.apply(ledgerRepository.drain(productId, 0)));
+    }
+}
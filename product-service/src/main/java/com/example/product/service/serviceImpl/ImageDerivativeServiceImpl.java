@@ -0,0 +1,92 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.enums.ImageSize;
+import com.example.product.service.ImageDerivativeService;
+import com.example.product.service.StorageService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+@Slf4j
+public class ImageDerivativeServiceImpl implements ImageDerivativeService {
+
+    private final StorageService storageService;
+    private final ThreadPoolExecutor executor;
+
+    public ImageDerivativeServiceImpl(StorageService storageService,
+                                      @Value("${image.derivatives.pool-size:2}") int poolSize,
+                                      @Value("${image.derivatives.queue-capacity:500}") int queueCapacity) {
+        this.storageService = storageService;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void scheduleGeneration(String imageId) {
+        if (imageId == null || imageId.isEmpty()) {
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    storageService.generateDerivatives(imageId, EnumSet.allOf(ImageSize.class));
+                    log.debug("Производные изображения поставлены на генерацию: {}", imageId);
+                } catch (Exception e) {
+                    // Не критично: хранилище построит копию при первом обращении к URL
+                    log.warn("Не удалось сгенерировать производные изображения {}: {}", imageId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Очередь генерации производных изображений переполнена, пропускаем: {}", imageId);
+        }
+    }
+
+    @Override
+    public Map<String, String> getDerivativeUrls(String imageId) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        if (imageId == null || imageId.isEmpty()) {
+            return urls;
+        }
+
+        for (ImageSize size : ImageSize.values()) {
+            urls.put(size.key(false), storageService.getDerivativeUrl(imageId, size, false));
+            urls.put(size.key(true), storageService.getDerivativeUrl(imageId, size, true));
+        }
+        return urls;
+    }
+
+    @Override
+    public String getDerivativeUrl(String imageId, ImageSize size, boolean webp) {
+        if (imageId == null || imageId.isEmpty()) {
+            return null;
+        }
+        return storageService.getDerivativeUrl(imageId, size, webp);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -5,6 +5,7 @@ import com.example.product.dto.ProductAttribute.ProductAttributeCreateDTO;
 import com.example.product.dto.ProductAttribute.ProductAttributeDTO;
 import com.example.product.dto.ProductAttribute.ProductAttributeListDTO;
 import com.example.product.dto.ProductAttribute.ProductAttributeUpdateDTO;
+import com.example.product.event.ProductChangedEvent;
 import com.example.product.maper.ProductAttributeMapper;
 import com.example.product.model.Product;
 import com.example.product.model.ProductAttribute;
@@ -13,6 +14,7 @@ import com.example.product.repository.ProductAttributeRepository;
 import com.example.product.repository.ProductRepository;
 import com.example.product.service.ProductAttributeService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +31,7 @@ public class ProductAttributeServiceImpl implements ProductAttributeService {
     private final ProductAttributeRepository productAttributeRepository;
     private final ProductRepository productRepository;
     private final ProductAttributeMapper productAttributeMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ProductAttributeListDTO getProductAttributes(Long productId) {
@@ -58,6 +61,7 @@ public class ProductAttributeServiceImpl implements ProductAttributeService {
         attribute = productAttributeRepository.save(attribute);
 
         log.info("Создан новый атрибут с ID: {} для продукта: {}", attribute.getId(), product.getId());
+        publishAttributesChanged(product.getId());
 
         return productAttributeMapper.toDTO(attribute);
     }
@@ -73,6 +77,7 @@ public class ProductAttributeServiceImpl implements ProductAttributeService {
         attribute = productAttributeRepository.save(attribute);
 
         log.info("Обновлен атрибут с ID: {} для продукта: {}", attribute.getId(), attribute.getProduct().getId());
+        publishAttributesChanged(attribute.getProduct().getId());
 
         return productAttributeMapper.toDTO(attribute);
     }
@@ -87,6 +92,7 @@ public class ProductAttributeServiceImpl implements ProductAttributeService {
         productAttributeRepository.delete(attribute);
 
         log.info("Удален атрибут с ID: {} для продукта: {}", attribute.getId(), attribute.getProduct().getId());
+        publishAttributesChanged(attribute.getProduct().getId());
     }
 
     @Override
@@ -108,6 +114,7 @@ public class ProductAttributeServiceImpl implements ProductAttributeService {
         attributes = productAttributeRepository.saveAll(attributes);
 
         log.info("Создано {} атрибутов для продукта: {}", attributes.size(), productId);
+        publishAttributesChanged(productId);
 
         return productAttributeMapper.toDTOList(attributes);
     }
@@ -123,6 +130,7 @@ public class ProductAttributeServiceImpl implements ProductAttributeService {
         int count = productAttributeRepository.deleteByProductId(productId);
 
         log.info("Удалено {} атрибутов для продукта: {}", count, productId);
+        publishAttributesChanged(productId);
     }
 
     @Override
@@ -143,6 +151,10 @@ public class ProductAttributeServiceImpl implements ProductAttributeService {
         return productAttributeMapper.toDTOList(attributes);
     }
 
+    private void publishAttributesChanged(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.ATTRIBUTES));
+    }
+
     /**
      * Вспомогательный метод для поиска атрибута по ID
      */
@@ -0,0 +1,147 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Product.ProductBulkRequest;
+import com.example.product.dto.Product.ProductBulkResponse;
+import com.example.product.dto.Product.ProductSummaryDTO;
+import com.example.product.enums.ProductStatus;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.ProductBulkService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+@Service
+@Slf4j
+public class ProductBulkServiceImpl implements ProductBulkService {
+
+    private final ProductRepository productRepository;
+    private final MeterRegistry meterRegistry;
+    private final int maxItems;
+
+    public ProductBulkServiceImpl(ProductRepository productRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${product.bulk.max-items:5000}") int maxItems) {
+        this.productRepository = productRepository;
+        this.meterRegistry = meterRegistry;
+        this.maxItems = maxItems;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductBulkResponse findProducts(ProductBulkRequest request) {
+        Set<Long> ids = distinct(request.getIds());
+        Set<String> slugs = distinct(request.getSlugs());
+        Set<String> skus = distinct(request.getSkus());
+
+        int total = ids.size() + slugs.size() + skus.size();
+        if (total > maxItems) {
+            throw new IllegalArgumentException("Слишком много идентификаторов в запросе: " + total +
+                    " (максимум " + maxItems + ")");
+        }
+
+        long started = System.nanoTime();
+
+        Map<Long, ProductSummaryDTO> byId = ids.isEmpty() ? Map.of()
+                : index(productRepository.findSummariesByIds(ids), ProductSummaryDTO::getId);
+        Map<String, ProductSummaryDTO> bySlug = slugs.isEmpty() ? Map.of()
+                : index(productRepository.findSummariesBySlugs(slugs), ProductSummaryDTO::getSlug);
+        Map<String, ProductSummaryDTO> bySku = skus.isEmpty() ? Map.of()
+                : index(productRepository.findSummariesBySkus(skus), ProductSummaryDTO::getSku);
+
+        // Порядок запроса; продукт, запрошенный несколькими способами, возвращается один раз
+        Map<Long, ProductSummaryDTO> products = new LinkedHashMap<>();
+        List<Long> missingIds = collect(ids, byId, products);
+        List<String> missingSlugs = collect(slugs, bySlug, products);
+        List<String> missingSkus = collect(skus, bySku, products);
+
+        Timer.builder("product.bulk.lookup")
+                .description("Время пакетного поиска продуктов")
+                .tag("size", sizeBucket(total))
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        log.debug("Пакетный поиск продуктов: запрошено {}, найдено {}", total, products.size());
+
+        return ProductBulkResponse.builder()
+                .products(new ArrayList<>(products.values()))
+                .missingIds(missingIds)
+                .missingSlugs(missingSlugs)
+                .missingSkus(missingSkus)
+                .build();
+    }
+
+    private static <T> Set<T> distinct(Collection<T> values) {
+        Set<T> result = new LinkedHashSet<>();
+        if (values != null) {
+            values.stream().filter(Objects::nonNull).forEach(result::add);
+        }
+        return result;
+    }
+
+    private static <K> Map<K, ProductSummaryDTO> index(List<Object[]> rows, Function<ProductSummaryDTO, K> key) {
+        Map<K, ProductSummaryDTO> result = new HashMap<>();
+        for (Object[] row : rows) {
+            ProductSummaryDTO summary = toSummary(row);
+            result.put(key.apply(summary), summary);
+        }
+        return result;
+    }
+
+    private static <K> List<K> collect(Set<K> requested, Map<K, ProductSummaryDTO> found,
+                                       Map<Long, ProductSummaryDTO> products) {
+        List<K> missing = new ArrayList<>();
+        for (K key : requested) {
+            ProductSummaryDTO summary = found.get(key);
+            if (summary == null) {
+                missing.add(key);
+            } else {
+                products.putIfAbsent(summary.getId(), summary);
+            }
+        }
+        return missing;
+    }
+
+    static ProductSummaryDTO toSummary(Object[] row) {
+        return ProductSummaryDTO.builder()
+                .id(((Number) row[0]).longValue())
+                .sku((String) row[1])
+                .slug((String) row[2])
+                .name((String) row[3])
+                .price((BigDecimal) row[4])
+                .stockQuantity(row[5] != null ? ((Number) row[5]).intValue() : null)
+                .status(row[6] != null ? ProductStatus.valueOf((String) row[6]) : null)
+                .mainImageUrl((String) row[7])
+                .build();
+    }
+
+    /**
+     * Размер запроса для тега метрики: задержки 1, 100 и 1000 идентификаторов сравниваются по отдельности
+     */
+    private static String sizeBucket(int size) {
+        if (size <= 1) {
+            return "1";
+        }
+        if (size <= 100) {
+            return "100";
+        }
+        if (size <= 1000) {
+            return "1000";
+        }
+        return "max";
+    }
+}
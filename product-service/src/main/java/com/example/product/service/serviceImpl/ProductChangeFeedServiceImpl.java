@@ -0,0 +1,83 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Product.ProductChangeDTO;
+import com.example.product.dto.Product.ProductChangesResponse;
+import com.example.product.dto.Product.ProductSummaryDTO;
+import com.example.product.repository.ProductChangeJdbcRepository;
+import com.example.product.repository.ProductChangeJdbcRepository.ChangeEntry;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.ProductChangeFeedService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class ProductChangeFeedServiceImpl implements ProductChangeFeedService {
+
+    private final ProductChangeJdbcRepository changeRepository;
+    private final ProductRepository productRepository;
+    private final int maxLimit;
+
+    public ProductChangeFeedServiceImpl(ProductChangeJdbcRepository changeRepository,
+                                        ProductRepository productRepository,
+                                        @Value("${catalog.changes.max-limit:1000}") int maxLimit) {
+        this.changeRepository = changeRepository;
+        this.productRepository = productRepository;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductChangesResponse getChanges(long since, int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("Курсор не может быть отрицательным: " + since);
+        }
+        if (limit <= 0 || limit > maxLimit) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + maxLimit);
+        }
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<ChangeEntry> entries = changeRepository.findSince(since, limit + 1);
+        boolean hasMore = entries.size() > limit;
+        if (hasMore) {
+            entries = entries.subList(0, limit);
+        }
+
+        List<Long> liveIds = entries.stream()
+                .filter(entry -> !entry.deleted())
+                .map(ChangeEntry::productId)
+                .toList();
+        Map<Long, ProductSummaryDTO> products = new HashMap<>();
+        if (!liveIds.isEmpty()) {
+            for (Object[] row : productRepository.findSummariesByIds(liveIds)) {
+                ProductSummaryDTO summary = ProductBulkServiceImpl.toSummary(row);
+                products.put(summary.getId(), summary);
+            }
+        }
+
+        List<ProductChangeDTO> changes = new ArrayList<>(entries.size());
+        for (ChangeEntry entry : entries) {
+            ProductSummaryDTO product = products.get(entry.productId());
+            // Продукт удален между чтением ленты и загрузкой - его удаление придет с большим номером
+            boolean deleted = entry.deleted() || product == null;
+            changes.add(ProductChangeDTO.builder()
+                    .productId(entry.productId())
+                    .sequence(entry.sequence())
+                    .deleted(deleted)
+                    .product(deleted ? null : product)
+                    .build());
+        }
+
+        long nextCursor = entries.isEmpty() ? since : entries.get(entries.size() - 1).sequence();
+        return ProductChangesResponse.builder()
+                .changes(changes)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductChangedEvent.ChangeType;
+import com.example.product.repository.ProductChangeJdbcRepository;
+import com.example.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Ведет ленту изменений продуктов в той же транзакции, что и изменение.
+ * Изменения бренда и категории меняют денормализованные данные их продуктов,
+ * поэтому продукты бренда и поддерева категории тоже попадают в ленту.
+ * Номера изменениям присваиваются отдельно, после завершения транзакций (assignSequence).
+ */
+@Component
+@Slf4j
+public class ProductChangeRecorder {
+
+    private final ProductChangeJdbcRepository changeRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int sequenceBatchSize;
+
+    public ProductChangeRecorder(ProductChangeJdbcRepository changeRepository,
+                                 ProductRepository productRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${catalog.changes.sequence-batch-size:5000}") int sequenceBatchSize) {
+        this.changeRepository = changeRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sequenceBatchSize = sequenceBatchSize;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        PendingChanges pending = pending();
+        if (event.getChangeType() == ChangeType.DELETED) {
+            pending.changedIds.remove(event.getProductId());
+            pending.deletedIds.add(event.getProductId());
+        } else if (!pending.deletedIds.contains(event.getProductId())) {
+            pending.changedIds.add(event.getProductId());
+        }
+        flushIfNoTransaction(pending);
+    }
+
+    @EventListener
+    public void onBrandChanged(BrandChangedEvent event) {
+        PendingChanges pending = pending();
+        pending.brandIds.add(event.getBrandId());
+        flushIfNoTransaction(pending);
+    }
+
+    @EventListener
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        PendingChanges pending = pending();
+        if (event.getProductIds() != null) {
+            // Удаленная категория: ее продукты найдены до удаления
+            pending.changedIds.addAll(event.getProductIds());
+        } else {
+            pending.categoryIds.add(event.getCategoryId());
+        }
+        flushIfNoTransaction(pending);
+    }
+
+    /**
+     * Продукты, созданные до появления ленты, получают номера при старте
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        try {
+            Integer added = transactionTemplate.execute(status -> changeRepository.backfill());
+            if (added != null && added > 0) {
+                log.info("В ленту изменений добавлено продуктов: {}", added);
+            }
+        } catch (Exception e) {
+            log.warn("Не удалось заполнить ленту изменений продуктов: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Пронумеровать изменения завершенных транзакций
+     * @return количество пронумерованных изменений
+     */
+    @Scheduled(fixedDelayString = "${catalog.changes.sequence-interval:1000}")
+    public int assignSequence() {
+        int assigned = 0;
+        try {
+            Integer batch;
+            do {
+                batch = transactionTemplate.execute(status -> changeRepository.assignSequence(sequenceBatchSize));
+                if (batch == null || batch < 0) {
+                    break;
+                }
+                assigned += batch;
+            } while (batch == sequenceBatchSize);
+        } catch (Exception e) {
+            log.warn("Не удалось пронумеровать изменения продуктов: {}", e.getMessage());
+        }
+        return assigned;
+    }
+
+    private PendingChanges pending() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Как и в OutboxWriter: буфер привязан к синхронизациям текущей транзакции
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                if (synchronization instanceof PendingChanges candidate && candidate.owner == this) {
+                    return candidate;
+                }
+            }
+            PendingChanges pending = new PendingChanges(this, true);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+            return pending;
+        }
+        return new PendingChanges(this, false);
+    }
+
+    private void flushIfNoTransaction(PendingChanges pending) {
+        if (!pending.transactional) {
+            transactionTemplate.executeWithoutResult(status -> pending.writeChanges());
+        }
+    }
+
+    private static final class PendingChanges implements TransactionSynchronization {
+        private final ProductChangeRecorder owner;
+        private final boolean transactional;
+        private final Set<Long> changedIds = new TreeSet<>();
+        private final Set<Long> deletedIds = new TreeSet<>();
+        private final Set<Long> brandIds = new LinkedHashSet<>();
+        private final Set<Long> categoryIds = new LinkedHashSet<>();
+
+        private PendingChanges(ProductChangeRecorder owner, boolean transactional) {
+            this.owner = owner;
+            this.transactional = transactional;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            writeChanges();
+        }
+
+        private void writeChanges() {
+            for (Long brandId : brandIds) {
+                changedIds.addAll(owner.productRepository.findIdsByBrandId(brandId));
+            }
+            for (Long categoryId : categoryIds) {
+                changedIds.addAll(owner.productRepository.findIdsByCategorySubtree(categoryId));
+            }
+            changedIds.removeAll(deletedIds);
+            owner.changeRepository.record(changedIds, deletedIds);
+        }
+    }
+}
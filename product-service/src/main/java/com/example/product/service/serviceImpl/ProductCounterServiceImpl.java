@@ -0,0 +1,307 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.model.Category;
+import com.example.product.repository.BrandRepository;
+import com.example.product.repository.CategoryRepository;
+import com.example.product.service.ProductCounterService;
+import com.example.product.util.CategoryTreeUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+@Service
+@Slf4j
+public class ProductCounterServiceImpl implements ProductCounterService {
+
+    private final BrandRepository brandRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate requiresNewTemplate;
+    private final ExecutorService reconcileExecutor;
+    private final int chunkSize;
+
+    private final Timer reconcileTimer;
+    private final Counter brandDriftCounter;
+    private final Counter categoryDriftCounter;
+    private final AtomicLong lastDrift = new AtomicLong();
+
+    public ProductCounterServiceImpl(BrandRepository brandRepository,
+                                     CategoryRepository categoryRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${catalog.counters.reconcile.parallelism:4}") int parallelism,
+                                     @Value("${catalog.counters.reconcile.chunk-size:1000}") int chunkSize) {
+        this.brandRepository = brandRepository;
+        this.categoryRepository = categoryRepository;
+        this.chunkSize = chunkSize;
+
+        this.requiresNewTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNewTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.reconcileExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "counter-reconcile-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.reconcileTimer = Timer.builder("catalog.counters.reconcile")
+                .description("Время полного пересчета счетчиков продуктов")
+                .register(meterRegistry);
+        this.brandDriftCounter = Counter.builder("catalog.counters.drift")
+                .tag("entity", "brand")
+                .description("Исправленные при пересчете счетчики")
+                .register(meterRegistry);
+        this.categoryDriftCounter = Counter.builder("catalog.counters.drift")
+                .tag("entity", "category")
+                .description("Исправленные при пересчете счетчики")
+                .register(meterRegistry);
+        meterRegistry.gauge("catalog.counters.drift.last", lastDrift);
+    }
+
+    @Override
+    public void recordBrandDelta(Long brandId, int delta) {
+        if (brandId == null || delta == 0) {
+            return;
+        }
+        CounterDeltas deltas = currentDeltas();
+        deltas.brands.merge(brandId, delta, Integer::sum);
+        applyIfNoTransaction(deltas);
+    }
+
+    @Override
+    public void recordCategoryDelta(Collection<Long> categoryIds, int delta) {
+        if (categoryIds == null || categoryIds.isEmpty() || delta == 0) {
+            return;
+        }
+        CounterDeltas deltas = currentDeltas();
+        for (Long categoryId : categoryIds) {
+            deltas.categories.merge(categoryId, delta, Integer::sum);
+        }
+        applyIfNoTransaction(deltas);
+    }
+
+    @Override
+    public void recordActiveProductChange(Collection<Category> oldCategories, boolean wasActive,
+                                          Collection<Category> newCategories, boolean isActive) {
+        Set<Long> oldDirect = wasActive ? ids(oldCategories) : Set.of();
+        Set<Long> newDirect = isActive ? ids(newCategories) : Set.of();
+        Set<Long> oldTotal = wasActive ? CategoryTreeUtil.withAncestors(oldCategories) : Set.of();
+        Set<Long> newTotal = isActive ? CategoryTreeUtil.withAncestors(newCategories) : Set.of();
+
+        if (oldDirect.equals(newDirect) && oldTotal.equals(newTotal)) {
+            return;
+        }
+
+        CounterDeltas deltas = currentDeltas();
+        mergeDifference(deltas.activeDirect, oldDirect, newDirect);
+        mergeDifference(deltas.activeTotal, oldTotal, newTotal);
+        applyIfNoTransaction(deltas);
+    }
+
+    @Override
+    public void requestCategoryTreeRecount() {
+        CounterDeltas deltas = currentDeltas();
+        deltas.treeRecount = true;
+        applyIfNoTransaction(deltas);
+    }
+
+    private static Set<Long> ids(Collection<Category> categories) {
+        Set<Long> ids = new HashSet<>();
+        if (categories != null) {
+            for (Category category : categories) {
+                ids.add(category.getId());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Удаленные из набора ID получают -1, добавленные +1
+     */
+    private static void mergeDifference(Map<Long, Integer> target, Set<Long> before, Set<Long> after) {
+        for (Long id : before) {
+            if (!after.contains(id)) {
+                target.merge(id, -1, Integer::sum);
+            }
+        }
+        for (Long id : after) {
+            if (!before.contains(id)) {
+                target.merge(id, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Изменения текущей транзакции; при первом обращении регистрируется применение после коммита
+     */
+    private CounterDeltas currentDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new CounterDeltas();
+        }
+
+        CounterDeltas deltas = (CounterDeltas) TransactionSynchronizationManager.getResource(this);
+        if (deltas == null) {
+            CounterDeltas created = new CounterDeltas();
+            TransactionSynchronizationManager.bindResource(this, created);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(created);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ProductCounterServiceImpl.this);
+                }
+            });
+            deltas = created;
+        }
+        return deltas;
+    }
+
+    private void applyIfNoTransaction(CounterDeltas deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(deltas);
+        }
+    }
+
+    private void apply(CounterDeltas deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Отдельная короткая транзакция: горячая строка бренда блокируется только на время UPDATE
+            requiresNewTemplate.executeWithoutResult(status -> {
+                deltas.brands.forEach((brandId, delta) -> {
+                    if (delta != 0) {
+                        brandRepository.addToProductCount(brandId, delta);
+                    }
+                });
+                deltas.categories.forEach((categoryId, delta) -> {
+                    if (delta != 0) {
+                        categoryRepository.addToProductCount(categoryId, delta);
+                    }
+                });
+
+                if (deltas.treeRecount) {
+                    // Иерархия изменилась - инкрементальные изменения по старым предкам не имеют смысла
+                    int fixed = categoryRepository.reconcileActiveProductCounts();
+                    log.debug("Пересчитаны счетчики активных продуктов дерева категорий: {}", fixed);
+                    return;
+                }
+
+                Set<Long> activeIds = new HashSet<>(deltas.activeDirect.keySet());
+                activeIds.addAll(deltas.activeTotal.keySet());
+                for (Long categoryId : activeIds) {
+                    int directDelta = deltas.activeDirect.getOrDefault(categoryId, 0);
+                    int totalDelta = deltas.activeTotal.getOrDefault(categoryId, 0);
+                    if (directDelta != 0 || totalDelta != 0) {
+                        categoryRepository.addToActiveProductCounts(categoryId, directDelta, totalDelta);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // Расхождение будет исправлено при следующем пересчете
+            log.error("Не удалось применить изменения счетчиков продуктов: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    @Scheduled(cron = "${catalog.counters.reconcile.cron:0 30 3 * * *}")
+    public long reconcileCounters() {
+        return reconcileTimer.record((Supplier<Long>) () -> {
+            long brandDrift = reconcile("brands", brandRepository.findIdRange(), brandRepository::reconcileProductCounts);
+            long categoryDrift = reconcile("categories", categoryRepository.findIdRange(), categoryRepository::reconcileProductCounts);
+            Integer activeDrift = requiresNewTemplate.execute(status -> categoryRepository.reconcileActiveProductCounts());
+            categoryDrift += activeDrift != null ? activeDrift : 0;
+
+            brandDriftCounter.increment(brandDrift);
+            categoryDriftCounter.increment(categoryDrift);
+            lastDrift.set(brandDrift + categoryDrift);
+
+            log.info("Пересчет счетчиков продуктов завершен: исправлено брендов {}, категорий {}",
+                    brandDrift, categoryDrift);
+            return brandDrift + categoryDrift;
+        });
+    }
+
+    /**
+     * Пересчет таблицы параллельно, диапазонами ID, каждый диапазон в своей транзакции
+     */
+    private long reconcile(String table, List<Object[]> idRange, BiFunction<Long, Long, Integer> reconcileChunk) {
+        if (idRange.isEmpty() || idRange.get(0)[0] == null) {
+            return 0;
+        }
+        long minId = ((Number) idRange.get(0)[0]).longValue();
+        long maxId = ((Number) idRange.get(0)[1]).longValue();
+
+        List<Future<Integer>> chunks = new ArrayList<>();
+        for (long from = minId; from <= maxId; from += chunkSize) {
+            long fromId = from;
+            long toId = Math.min(from + chunkSize - 1, maxId);
+            chunks.add(reconcileExecutor.submit(() ->
+                    requiresNewTemplate.execute(status -> reconcileChunk.apply(fromId, toId))));
+        }
+
+        long drift = 0;
+        for (Future<Integer> chunk : chunks) {
+            try {
+                Integer fixed = chunk.get();
+                drift += fixed != null ? fixed : 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Пересчет счетчиков прерван", e);
+            } catch (Exception e) {
+                log.error("Ошибка при пересчете счетчиков в таблице {}: {}", table, e.getMessage());
+            }
+        }
+        return drift;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcileExecutor.shutdownNow();
+    }
+
+    /**
+     * Накопленные изменения счетчиков одной транзакции
+     */
+    private static class CounterDeltas {
+        private final Map<Long, Integer> brands = new HashMap<>();
+        private final Map<Long, Integer> categories = new HashMap<>();
+        private final Map<Long, Integer> activeDirect = new HashMap<>();
+        private final Map<Long, Integer> activeTotal = new HashMap<>();
+        private boolean treeRecount;
+
+        boolean isEmpty() {
+            return brands.isEmpty() && categories.isEmpty()
+                    && activeDirect.isEmpty() && activeTotal.isEmpty() && !treeRecount;
+        }
+    }
+}
@@ -7,16 +7,19 @@ import com.example.product.dto.ProductImage.ProductImageListDTO;
 import com.example.product.dto.ProductImage.ProductImageUpdateDTO;
 import com.example.product.enums.ImageType;
 
+import com.example.product.event.ProductChangedEvent;
 import com.example.product.maper.ProductImageMapper;
 import com.example.product.model.Product;
 import com.example.product.model.ProductImage;
 
 import com.example.product.repository.ProductImageRepository;
 import com.example.product.repository.ProductRepository;
+import com.example.product.service.ImageDerivativeService;
 import com.example.product.service.ProductImageService;
 import com.example.product.service.StorageService;
 import com.example.product.service.StorageService.StorageResult;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -35,6 +38,8 @@ public class ProductImageServiceImpl implements ProductImageService {
     private final ProductRepository productRepository;
     private final ProductImageMapper productImageMapper;
     private final StorageService storageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public ProductImageListDTO getProductImages(Long productId) {
@@ -81,6 +86,10 @@ public class ProductImageServiceImpl implements ProductImageService {
 
         image = productImageRepository.save(image);
         log.info("Создано новое изображение с ID: {} для продукта: {}", image.getId(), product.getId());
+        publishImagesChanged(product.getId());
+
+        // Миниатюры и WebP-копии генерируются в фоне, запрос их не ждёт
+        imageDerivativeService.scheduleGeneration(result.getImageId());
 
         return productImageMapper.toDTO(image);
     }
@@ -103,6 +112,8 @@ public class ProductImageServiceImpl implements ProductImageService {
             // Обновляем URL и ID
             image.setImageUrl(result.getUrl());
             image.setImageId(result.getImageId());
+
+            imageDerivativeService.scheduleGeneration(result.getImageId());
         }
 
         // Обновляем остальные поля
@@ -110,6 +121,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         image = productImageRepository.save(image);
 
         log.info("Обновлено изображение с ID: {} для продукта: {}", image.getId(), image.getProduct().getId());
+        publishImagesChanged(image.getProduct().getId());
 
         return productImageMapper.toDTO(image);
     }
@@ -128,6 +140,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         // Удаление записи из БД
         productImageRepository.delete(image);
         log.info("Удалено изображение с ID: {} для продукта: {}", image.getId(), image.getProduct().getId());
+        publishImagesChanged(image.getProduct().getId());
 
         return storageDeleteSuccess;
     }
@@ -164,6 +177,7 @@ public class ProductImageServiceImpl implements ProductImageService {
         }
 
         log.info("Обновлен порядок сортировки изображений для продукта: {}", productId);
+        publishImagesChanged(productId);
     }
 
     @Override
@@ -180,10 +194,15 @@ public class ProductImageServiceImpl implements ProductImageService {
         image = productImageRepository.save(image);
 
         log.info("Установлено главное изображение с ID: {} для продукта: {}", imageId, productId);
+        publishImagesChanged(productId);
 
         return productImageMapper.toDTO(image);
     }
 
+    private void publishImagesChanged(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.ChangeType.IMAGES));
+    }
+
     /**
      * Вспомогательный метод для поиска изображения по ID
      */
@@ -0,0 +1,353 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Category.CategoryShortDto;
+import com.example.product.dto.Product.ProductDTO;
+import com.example.product.dto.Product.ProductListDTO;
+import com.example.product.enums.ProductStatus;
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductProjectedEvent;
+import com.example.product.maper.CategoryMapper;
+import com.example.product.maper.ProductMapper;
+import com.example.product.model.Category;
+import com.example.product.model.Product;
+import com.example.product.model.ProductReadModel;
+import com.example.product.repository.ProductReadModelRepository;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.ProductReadModelService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Service
+@Slf4j
+public class ProductReadModelServiceImpl implements ProductReadModelService {
+
+    private final ProductReadModelRepository readModelRepository;
+    private final ProductRepository productRepository;
+    private final ProductMapper productMapper;
+    private final CategoryMapper categoryMapper;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    // Один поток: изменения одного продукта применяются строго по очереди
+    private final ExecutorService projectorExecutor;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final AtomicBoolean ready = new AtomicBoolean();
+
+    public ProductReadModelServiceImpl(ProductReadModelRepository readModelRepository,
+                                       ProductRepository productRepository,
+                                       ProductMapper productMapper,
+                                       CategoryMapper categoryMapper,
+                                       ObjectMapper objectMapper,
+                                       PlatformTransactionManager transactionManager,
+                                       ApplicationEventPublisher eventPublisher,
+                                       @Value("${catalog.read-model.batch-size:200}") int batchSize) {
+        this.readModelRepository = readModelRepository;
+        this.productRepository = productRepository;
+        this.productMapper = productMapper;
+        this.categoryMapper = categoryMapper;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.projectorExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "read-model-projector");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready.get();
+    }
+
+    @Override
+    public Optional<ProductDTO> findBySlug(String slug) {
+        return readModelRepository.findBySlug(slug)
+                .map(row -> {
+                    try {
+                        return objectMapper.readValue(row.getDetails(), ProductDTO.class);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException("Поврежденная строка read-модели продукта " + row.getId(), e);
+                    }
+                });
+    }
+
+    @Override
+    public Page<ProductListDTO> findPage(Pageable pageable) {
+        return readModelRepository.findAll(pageable).map(this::toListDTO);
+    }
+
+    @Override
+    public Page<ProductListDTO> findFiltered(Long categoryId, List<Long> brandIds,
+                                             BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        // Все условия - по колонкам одной таблицы, без соединений
+        Specification<ProductReadModel> spec = Specification.where((root, query, cb) ->
+                cb.equal(root.get("status"), ProductStatus.ACTIVE));
+
+        if (categoryId != null) {
+            spec = spec.and((root, query, cb) -> cb.isTrue(
+                    cb.function("array_contains", Boolean.class, root.get("categoryIds"), cb.literal(categoryId))));
+        }
+        if (brandIds != null && !brandIds.isEmpty()) {
+            spec = spec.and((root, query, cb) -> root.get("brandId").in(brandIds));
+        }
+        if (minPrice != null) {
+            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), minPrice));
+        }
+        if (maxPrice != null) {
+            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), maxPrice));
+        }
+
+        return readModelRepository.findAll(spec, pageable).map(this::toListDTO);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        refresh(List.of(event.getProductId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBrandChanged(BrandChangedEvent event) {
+        // Поиск продуктов бренда - уже в потоке проекции, вне завершившейся транзакции
+        submit(() -> refresh(transactionTemplate.execute(status ->
+                productRepository.findIdsByBrandId(event.getBrandId()))));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Имя категории входит в цепочки категорий всех продуктов поддерева
+        if (event.getProductIds() != null) {
+            refresh(event.getProductIds());
+            return;
+        }
+        submit(() -> refresh(transactionTemplate.execute(status ->
+                productRepository.findIdsByCategorySubtree(event.getCategoryId()))));
+    }
+
+    @Override
+    public void refresh(Collection<Long> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        pending.addAll(productIds);
+        if (drainScheduled.compareAndSet(false, true)) {
+            submit(this::drain);
+        }
+    }
+
+    @Override
+    public void rebuildAsync() {
+        submit(this::rebuildAll);
+    }
+
+    @Override
+    @Scheduled(cron = "${catalog.read-model.rebuild.cron:-}")
+    public long rebuildAll() {
+        long started = System.currentTimeMillis();
+        long projected = 0;
+        Long afterId = 0L;
+
+        while (true) {
+            Long fromId = afterId;
+            List<Long> ids = transactionTemplate.execute(status ->
+                    productRepository.findIdsAfter(fromId, PageRequest.of(0, batchSize)));
+            if (ids == null || ids.isEmpty()) {
+                break;
+            }
+            project(ids);
+            projected += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+
+        Integer orphans = transactionTemplate.execute(status -> readModelRepository.deleteOrphans());
+        ready.set(true);
+
+        log.info("Read-модель каталога перестроена: {} продуктов, удалено устаревших строк {}, {} мс",
+                projected, orphans, System.currentTimeMillis() - started);
+        return projected;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (readModelRepository.count() > 0) {
+                ready.set(true);
+            } else {
+                rebuildAsync();
+            }
+        } catch (Exception e) {
+            log.error("Не удалось инициализировать read-модель каталога: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        projectorExecutor.shutdownNow();
+    }
+
+    private void submit(Runnable task) {
+        try {
+            projectorExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Ошибка обновления read-модели каталога: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Обновление read-модели отклонено: приложение останавливается");
+        }
+    }
+
+    /**
+     * Разбор очереди изменившихся продуктов пачками; повторные изменения одного продукта схлопываются
+     */
+    private void drain() {
+        drainScheduled.set(false);
+        while (!pending.isEmpty()) {
+            List<Long> batch = new ArrayList<>(batchSize);
+            for (Long id : pending) {
+                batch.add(id);
+                if (batch.size() >= batchSize) {
+                    break;
+                }
+            }
+            pending.removeAll(batch);
+
+            try {
+                project(batch);
+            } catch (Exception e) {
+                // Строки исправит следующее изменение продукта или перестроение
+                log.error("Не удалось обновить read-модель для {} продуктов: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void project(List<Long> productIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<ProductReadModel> rows = new ArrayList<>();
+            List<Long> deleted = new ArrayList<>();
+
+            for (Long productId : productIds) {
+                Optional<Product> product = productRepository.findDetailById(productId);
+                if (product.isEmpty()) {
+                    deleted.add(productId);
+                    continue;
+                }
+                productRepository.fetchImages(productId);
+                rows.add(toReadModel(product.get(), now));
+            }
+
+            readModelRepository.saveAll(rows);
+            if (!deleted.isEmpty()) {
+                readModelRepository.deleteAllByIdInBatch(deleted);
+            }
+        });
+        // Карточки по slug строятся из read-модели: собранные до коммита проекции устарели
+        eventPublisher.publishEvent(new ProductProjectedEvent(productIds));
+    }
+
+    private ProductReadModel toReadModel(Product product, LocalDateTime projectedAt) {
+        ProductDTO details = productMapper.toDTO(product);
+        details.setCategoryPaths(product.getCategories().stream()
+                .map(this::categoryPath)
+                .toList());
+        ProductListDTO listItem = productMapper.toListDTO(product);
+
+        String detailsJson;
+        try {
+            detailsJson = objectMapper.writeValueAsString(details);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать продукт " + product.getId(), e);
+        }
+
+        return ProductReadModel.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .slug(product.getSlug())
+                .sku(product.getSku())
+                .price(product.getPrice())
+                .stockQuantity(product.getAvailableQuantity())
+                .status(product.getStatus())
+                .featured(product.isFeatured())
+                .viewCount(listItem.getViewCount())
+                .brandId(listItem.getBrandId())
+                .brandName(listItem.getBrandName())
+                .mainImageUrl(listItem.getMainImageUrl())
+                .thumbnailUrl(listItem.getThumbnailUrl())
+                .thumbnailWebpUrl(listItem.getThumbnailWebpUrl())
+                .categoryIds(product.getCategories().stream()
+                        .map(Category::getId)
+                        .toArray(Long[]::new))
+                .details(detailsJson)
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .projectedAt(projectedAt)
+                .build();
+    }
+
+    /**
+     * Цепочка категорий от корня до указанной категории
+     */
+    private List<CategoryShortDto> categoryPath(Category category) {
+        List<CategoryShortDto> path = new ArrayList<>();
+        Category current = category;
+        while (current != null && path.size() < 32) {
+            path.add(0, categoryMapper.toShortDto(current));
+            current = current.getParent();
+        }
+        return path;
+    }
+
+    private ProductListDTO toListDTO(ProductReadModel row) {
+        return ProductListDTO.builder()
+                .id(row.getId())
+                .name(row.getName())
+                .slug(row.getSlug())
+                .price(row.getPrice())
+                .status(row.getStatus())
+                .featured(row.isFeatured())
+                .mainImageUrl(row.getMainImageUrl())
+                .thumbnailUrl(row.getThumbnailUrl())
+                .thumbnailWebpUrl(row.getThumbnailWebpUrl())
+                .brandId(row.getBrandId())
+                .brandName(row.getBrandName())
+                .viewCount(row.getViewCount())
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.product.service.serviceImpl;
 
+import com.example.product.config.CacheConfig;
 import com.example.product.dto.BrandDto.BrandDTO;
 import com.example.product.dto.Product.ProductCreateRequest;
 import com.example.product.dto.Product.ProductDTO;
@@ -8,6 +9,8 @@ import com.example.product.dto.Product.ProductSearchResponse;
 import com.example.product.dto.Product.ProductUpdateRequest;
 import com.example.product.enums.ImageType;
 import com.example.product.enums.ProductStatus;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductChangedEvent.ChangeType;
 import com.example.product.maper.ProductMapper;
 import com.example.product.model.Brand;
 import com.example.product.model.Category;
@@ -16,15 +19,21 @@ import com.example.product.model.ProductImage;
 import com.example.product.repository.BrandRepository;
 import com.example.product.repository.CategoryRepository;
 import com.example.product.repository.ProductRepository;
-import com.example.product.service.BrandService;
+import com.example.product.repository.StockJdbcRepository;
+import com.example.product.repository.StockJdbcRepository.AssignedStock;
+import com.example.product.repository.StockJdbcRepository.StockChange;
+import com.example.product.service.CategoryPriceStatsService;
+import com.example.product.service.ProductCounterService;
 import com.example.product.service.ProductImageService;
 import com.example.product.service.ProductService;
+import com.example.product.service.SlugService;
 
-import com.example.product.util.SlugUtil;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -35,7 +44,9 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -48,8 +59,13 @@ public class ProductServiceImpl implements ProductService {
     private final CategoryRepository categoryRepository;
     private final BrandRepository brandRepository;
     private final ProductMapper productMapper;
-    private final SlugUtil slugGenerator;
-    private final BrandService brandService;
+    private final SlugService slugService;
+    private final ProductCounterService productCounterService;
+    private final CategoryPriceStatsService priceStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockJdbcRepository stockJdbcRepository;
+    private final StockStatusTransitions statusTransitions;
+    private final HotStockLedger hotStockLedger;
 
 
     @Override
@@ -57,8 +73,8 @@ public class ProductServiceImpl implements ProductService {
     public ProductDTO createProduct(ProductCreateRequest request) throws IOException {
         Product product = productMapper.toEntity(request);
 
-        // Генерация slug
-        product.setSlug(slugGenerator.generateSlug(request.getName()));
+        // Генерация уникального slug (при совпадении имён добавляется суффикс -2, -3, ...)
+        product.setSlug(slugService.generateUniqueProductSlug(request.getName()));
 
         // Установка времени создания и обновления
         LocalDateTime now = LocalDateTime.now();
@@ -84,11 +100,17 @@ public class ProductServiceImpl implements ProductService {
         // Сохранение продукта
         Product savedProduct = productRepository.save(product);
 
-        // Обновление счетчика продуктов в бренде, если бренд установлен
+        // Обновление счетчиков продуктов бренда и категорий (применяются после коммита)
         if (product.getBrand() != null) {
-             brandService.incrementProductCount(product.getBrand().getId());
+            productCounterService.recordBrandDelta(product.getBrand().getId(), 1);
+        }
+        productCounterService.recordCategoryDelta(categoryIds(product.getCategories()), 1);
+        productCounterService.recordActiveProductChange(Set.of(), false, product.getCategories(), isActive(product));
+        if (isActive(product)) {
+            priceStatsService.markChanged(product.getCategories());
         }
 
+        eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId(), ChangeType.CREATED));
         return productMapper.toDTO(savedProduct);
     }
 
@@ -98,8 +120,13 @@ public class ProductServiceImpl implements ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Продукт не найден: " + id));
 
-        // Обновление полей продукта
+        // Состояние до изменения - для счетчиков активных продуктов категорий
+        Set<Category> oldCategories = new HashSet<>(product.getCategories());
+        BigDecimal oldPrice = product.getPrice();
+
+        // Обновление полей продукта; остаток и статус - SQL-операторами под блокировкой строки
         productMapper.updateProductFromDTO(product, request);
+        boolean wasActive = writeStockAndStatus(product, request) == ProductStatus.ACTIVE;
 
         // Обновление времени изменения
         product.setUpdatedAt(LocalDateTime.now());
@@ -110,6 +137,7 @@ public class ProductServiceImpl implements ProductService {
                     .map(categoryId -> categoryRepository.findById(categoryId)
                             .orElseThrow(() -> new EntityNotFoundException("Категория не найдена: " + categoryId)))
                     .collect(Collectors.toSet());
+            recordCategoryChange(product.getCategories(), categories);
             product.setCategories(categories);
         }
 
@@ -122,30 +150,54 @@ public class ProductServiceImpl implements ProductService {
             product.setBrand(brand);
 
             // Обновление счетчиков продуктов у брендов
-            if (oldBrandId != null && !oldBrandId.equals(request.getBrandId())) {
-                // Предполагается, что у вас есть BrandService с методами incrementProductCount и decrementProductCount
-                // brandService.decrementProductCount(oldBrandId);
-                // brandService.incrementProductCount(request.getBrandId());
+            if (!request.getBrandId().equals(oldBrandId)) {
+                productCounterService.recordBrandDelta(oldBrandId, -1);
+                productCounterService.recordBrandDelta(request.getBrandId(), 1);
             }
         }
 
+        productCounterService.recordActiveProductChange(oldCategories, wasActive, product.getCategories(), isActive(product));
+
+        // Статистика цен категорий зависит от цены, статуса и набора категорий
+        boolean pricingChanged = !Objects.equals(oldPrice, product.getPrice())
+                || wasActive != isActive(product)
+                || !oldCategories.equals(product.getCategories());
+        if (pricingChanged && (wasActive || isActive(product))) {
+            Set<Category> affected = new HashSet<>(oldCategories);
+            affected.addAll(product.getCategories());
+            priceStatsService.markChanged(affected);
+        }
+
         // Сохранение продукта
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.UPDATED));
+        if (!Objects.equals(oldPrice, product.getPrice())) {
+            eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.PRICE));
+        }
         return productMapper.toDTO(updatedProduct);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ProductDTO> getProductById(Long id) {
-        return productRepository.findById(id)
-                .map(productMapper::toDTO);
+        return productRepository.findDetailById(id)
+                .map(this::toDetailDTO);
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ProductDTO> getProductBySlug(String slug) {
-        return productRepository.findBySlug(slug)
-                .map(productMapper::toDTO);
+        return productRepository.findDetailBySlug(slug)
+                .map(this::toDetailDTO);
+    }
+
+    /**
+     * Детальное DTO за два запроса: продукт с брендом, категориями и атрибутами уже загружен,
+     * изображения догружаются вторым запросом в ту же сессию
+     */
+    private ProductDTO toDetailDTO(Product product) {
+        productRepository.fetchImages(product.getId());
+        return productMapper.toDTO(product);
     }
 
     @Override
@@ -154,13 +206,18 @@ public class ProductServiceImpl implements ProductService {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Продукт не найден: " + id));
 
-        // Уменьшение счетчика продуктов в бренде, если бренд установлен
+        // Уменьшение счетчиков продуктов бренда и категорий
         if (product.getBrand() != null) {
-            // Предполагается, что у вас есть BrandService с методом decrementProductCount
-            // brandService.decrementProductCount(product.getBrand().getId());
+            productCounterService.recordBrandDelta(product.getBrand().getId(), -1);
+        }
+        productCounterService.recordCategoryDelta(categoryIds(product.getCategories()), -1);
+        productCounterService.recordActiveProductChange(product.getCategories(), isActive(product), Set.of(), false);
+        if (isActive(product)) {
+            priceStatsService.markChanged(product.getCategories());
         }
 
         productRepository.delete(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ChangeType.DELETED));
     }
 
     @Override
@@ -204,6 +261,7 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.FEATURED_PRODUCTS)
     public List<ProductListDTO> getFeaturedProducts() {
         return productRepository.findByFeaturedTrue().stream()
                 .map(productMapper::toListDTO)
@@ -271,6 +329,8 @@ public class ProductServiceImpl implements ProductService {
         productImageService.createProductImage(createDTO);
         */
 
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.IMAGES));
+
         // Перезагружаем продукт, чтобы получить обновленный список изображений
         Product updatedProduct = productRepository.findById(productId).orElseThrow();
         return productMapper.toDTO(updatedProduct);
@@ -287,10 +347,18 @@ public class ProductServiceImpl implements ProductService {
                         .orElseThrow(() -> new EntityNotFoundException("Категория не найдена: " + categoryId)))
                 .collect(Collectors.toSet());
 
+        recordCategoryChange(product.getCategories(), categories);
+        productCounterService.recordActiveProductChange(product.getCategories(), isActive(product), categories, isActive(product));
+        if (isActive(product)) {
+            Set<Category> affected = new HashSet<>(product.getCategories());
+            affected.addAll(categories);
+            priceStatsService.markChanged(affected);
+        }
         product.setCategories(categories);
         product.setUpdatedAt(LocalDateTime.now());
 
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ChangeType.UPDATED));
         return productMapper.toDTO(updatedProduct);
     }
 
@@ -313,13 +381,50 @@ public class ProductServiceImpl implements ProductService {
     @Override
     @Transactional
     public void updateStockQuantity(Long productId, Integer quantity) {
-        Product product = productRepository.findById(productId)
+        AssignedStock assigned = stockJdbcRepository.setStock(productId, quantity)
                 .orElseThrow(() -> new EntityNotFoundException("Продукт не найден: " + productId));
 
-        product.setStockQuantity(quantity);
-        product.setUpdatedAt(LocalDateTime.now());
+        // Счетчики и статистика при смене ACTIVE/OUT_OF_STOCK, событие STOCK
+        statusTransitions.apply(List.of(assigned.synced().change()));
+        trimLedger(productId, assigned);
+    }
 
-        productRepository.save(product);
+    /**
+     * Записать остаток и статус из запроса администратора и перенести записанные значения в сущность
+     * @return статус продукта до изменения
+     */
+    private ProductStatus writeStockAndStatus(Product product, ProductUpdateRequest request) {
+        ProductStatus previousStatus = product.getStatus();
+        boolean written = false;
+
+        if (request.getStockQuantity() != null) {
+            AssignedStock assigned = stockJdbcRepository.setStock(product.getId(), request.getStockQuantity())
+                    .orElseThrow(() -> new EntityNotFoundException("Продукт не найден: " + product.getId()));
+            StockChange change = assigned.synced().change();
+            previousStatus = change.previousStatus();
+            written = true;
+            product.setStockQuantity(change.stockQuantity());
+            product.setAvailableQuantity(assigned.available());
+            product.setStatus(change.status());
+            trimLedger(product.getId(), assigned);
+        }
+
+        if (request.getStatus() != null) {
+            StockChange change = stockJdbcRepository.setStatus(product.getId(), request.getStatus())
+                    .orElseThrow(() -> new EntityNotFoundException("Продукт не найден: " + product.getId()));
+            if (!written) {
+                previousStatus = change.previousStatus();
+            }
+            product.setStatus(change.status());
+        }
+        return previousStatus;
+    }
+
+    private void trimLedger(Long productId, AssignedStock assigned) {
+        if (assigned.synced().ledgerExcess() > 0) {
+            // Новый остаток меньше, чем уже лежит в полосах горячего продукта
+            hotStockLedger.trim(productId, assigned.synced().ledgerExcess());
+        }
     }
 
     @Override
@@ -384,4 +489,30 @@ public class ProductServiceImpl implements ProductService {
         // Преобразуем результаты в DTO
         return productPage.map(productMapper::toListDTO);
     }
-}
\ No newline at end of file
+
+    private static boolean isActive(Product product) {
+        return product.getStatus() == ProductStatus.ACTIVE;
+    }
+
+    private static Set<Long> categoryIds(Set<Category> categories) {
+        return categories.stream()
+                .map(Category::getId)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Учесть в счетчиках категорий замену набора категорий продукта
+     */
+    private void recordCategoryChange(Set<Category> oldCategories, Set<Category> newCategories) {
+        Set<Long> oldIds = categoryIds(oldCategories);
+        Set<Long> newIds = categoryIds(newCategories);
+
+        Set<Long> removed = new HashSet<>(oldIds);
+        removed.removeAll(newIds);
+        Set<Long> added = new HashSet<>(newIds);
+        added.removeAll(oldIds);
+
+        productCounterService.recordCategoryDelta(removed, -1);
+        productCounterService.recordCategoryDelta(added, 1);
+    }
+}
@@ -0,0 +1,358 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Product.ProductStreamEventDTO;
+import com.example.product.enums.ProductStatus;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductChangedEvent.ChangeType;
+import com.example.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Рассылка изменений цены, остатка и статуса продуктов подписчикам SSE.
+ * Соединение держится асинхронным запросом сервлета и не занимает поток, пока ему нечего
+ * отправлять; отправку выполняет небольшой общий пул. Изменения продукта копятся в окне
+ * coalesce-window и рассылаются одним событием с актуальным состоянием; очередь подписчика
+ * ограничена - не больше одного ожидающего события на продукт подписки.
+ * Запись блокирующая, но ограничена таймаутом записи Tomcat (server.tomcat.connection-timeout):
+ * поток пула, застрявший на клиенте, который не читает, освобождается с ошибкой записи.
+ * Подписчик, отправка которому не завершилась за slow-timeout, сразу перестает получать
+ * события и закрывается своим потоком отправки - браузер переподключится сам.
+ */
+@Component
+@Slf4j
+public class ProductStreamHub {
+
+    private static final Set<ChangeType> STREAMED_CHANGES =
+            EnumSet.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.PRICE, ChangeType.STOCK, ChangeType.DELETED);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTemplate;
+    private final int maxSubscribers;
+    private final int maxProductsPerSubscriber;
+    private final Duration timeout;
+    private final long slowTimeoutNanos;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> subscribersByProduct = new ConcurrentHashMap<>();
+    private final Set<Long> dirtyProducts = ConcurrentHashMap.newKeySet();
+    // Последнее разосланное состояние: изменения, не затронувшие цену, остаток и статус, не рассылаются
+    private final Map<Long, ProductStreamEventDTO> lastSent = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+
+    private final Counter eventCounter;
+    private final Counter slowDropCounter;
+    private final Counter errorDropCounter;
+
+    public ProductStreamHub(ProductRepository productRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${catalog.stream.max-subscribers:20000}") int maxSubscribers,
+                            @Value("${catalog.stream.max-products:100}") int maxProductsPerSubscriber,
+                            @Value("${catalog.stream.timeout:30m}") Duration timeout,
+                            @Value("${catalog.stream.slow-timeout:${server.tomcat.connection-timeout:5s}}") Duration slowTimeout,
+                            @Value("${catalog.stream.sender-threads:8}") int senderThreads,
+                            @Value("${server.tomcat.max-connections:8192}") int maxConnections) {
+        if (maxSubscribers >= maxConnections) {
+            throw new IllegalStateException("catalog.stream.max-subscribers (" + maxSubscribers +
+                    ") должен быть меньше server.tomcat.max-connections (" + maxConnections +
+                    "): подписки не должны занимать все соединения");
+        }
+        this.productRepository = productRepository;
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.maxSubscribers = maxSubscribers;
+        this.maxProductsPerSubscriber = maxProductsPerSubscriber;
+        this.timeout = timeout;
+        this.slowTimeoutNanos = slowTimeout.toNanos();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "product-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("catalog.stream.subscribers", subscribers, Set::size)
+                .description("Открытые SSE-подписки на изменения продуктов")
+                .register(meterRegistry);
+        this.eventCounter = Counter.builder("catalog.stream.events")
+                .description("Отправленные подписчикам события изменения продуктов")
+                .register(meterRegistry);
+        this.slowDropCounter = Counter.builder("catalog.stream.dropped")
+                .tag("reason", "slow")
+                .description("Отключенные подписчики")
+                .register(meterRegistry);
+        this.errorDropCounter = Counter.builder("catalog.stream.dropped")
+                .tag("reason", "error")
+                .description("Отключенные подписчики")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Подписаться на изменения продуктов; первым приходит текущее состояние каждого продукта
+     * @return null, если достигнут предел подписок экземпляра
+     */
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        Set<Long> ids = Set.copyOf(productIds);
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Не указаны продукты для подписки");
+        }
+        if (ids.size() > maxProductsPerSubscriber) {
+            throw new IllegalArgumentException("Слишком много продуктов в подписке: " + ids.size() +
+                    " (максимум " + maxProductsPerSubscriber + ")");
+        }
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), ids);
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(error -> remove(subscriber));
+
+        subscribers.add(subscriber);
+        for (Long productId : ids) {
+            subscribersByProduct.computeIfAbsent(productId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+
+        loadStates(ids).values().forEach(subscriber::enqueue);
+        return subscriber.emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (STREAMED_CHANGES.contains(event.getChangeType())
+                && subscribersByProduct.containsKey(event.getProductId())) {
+            dirtyProducts.add(event.getProductId());
+        }
+    }
+
+    /**
+     * Изменение продукта на другом экземпляре; после полного сброса перечитываются все подписки
+     */
+    @EventListener
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        if (event.getScope() == CacheInvalidationEvent.Scope.ALL) {
+            dirtyProducts.addAll(subscribersByProduct.keySet());
+        } else if (event.getScope() == CacheInvalidationEvent.Scope.PRODUCT
+                && subscribersByProduct.containsKey(event.getId())) {
+            dirtyProducts.add(event.getId());
+        }
+    }
+
+    /**
+     * Разослать накопленные за окно изменения: одно чтение БД на все изменившиеся продукты
+     */
+    @Scheduled(fixedDelayString = "${catalog.stream.coalesce-window:250}")
+    public void flush() {
+        if (dirtyProducts.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(dirtyProducts);
+        dirtyProducts.removeAll(ids);
+
+        try {
+            loadStates(ids).forEach((productId, state) -> {
+                Set<Subscriber> targets = subscribersByProduct.get(productId);
+                if (targets == null || state.equals(lastSent.put(productId, state))) {
+                    return;
+                }
+                targets.forEach(subscriber -> subscriber.enqueue(state));
+            });
+        } catch (Exception e) {
+            // Изменения не потеряны - разошлем при следующем запуске
+            dirtyProducts.addAll(ids);
+            log.warn("Не удалось разослать изменения продуктов: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Комментарий-пульс: прокси не закрывают простаивающие соединения, а оборванные обнаруживаются при записи
+     */
+    @Scheduled(fixedDelayString = "${catalog.stream.heartbeat:30000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private Map<Long, ProductStreamEventDTO> loadStates(Collection<Long> productIds) {
+        Map<Long, ProductStreamEventDTO> states = new LinkedHashMap<>();
+        List<Object[]> rows = readOnlyTemplate.execute(status -> productRepository.findStreamStatesByIdIn(productIds));
+        Map<Long, Object[]> byId = new HashMap<>();
+        if (rows != null) {
+            rows.forEach(row -> byId.put(((Number) row[0]).longValue(), row));
+        }
+
+        for (Long productId : productIds) {
+            Object[] row = byId.get(productId);
+            states.put(productId, row == null
+                    ? ProductStreamEventDTO.builder().productId(productId).deleted(true).build()
+                    : ProductStreamEventDTO.builder()
+                            .productId(productId)
+                            .price((BigDecimal) row[1])
+                            .stockQuantity((Integer) row[2])
+                            .status((ProductStatus) row[3])
+                            .build());
+        }
+        return states;
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long productId : subscriber.productIds) {
+            subscribersByProduct.computeIfPresent(productId, (id, set) -> {
+                set.remove(subscriber);
+                if (set.isEmpty()) {
+                    lastSent.remove(id);
+                    return null;
+                }
+                return set;
+            });
+        }
+    }
+
+    /**
+     * Отключить подписчика, отправка которому зависла. Эмиттер закрывает поток отправки:
+     * complete() из другого потока ждал бы, пока не завершится заблокированная запись
+     */
+    private void drop(Subscriber subscriber, Counter reason) {
+        if (subscribers.contains(subscriber)) {
+            reason.increment();
+            remove(subscriber);
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> productIds;
+        // По одному ожидающему событию на продукт: новое состояние заменяет неотправленное
+        private final Map<Long, ProductStreamEventDTO> pending = new LinkedHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean heartbeatPending;
+        private volatile long sendStartedAt;
+
+        private Subscriber(SseEmitter emitter, Set<Long> productIds) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+        }
+
+        private void enqueue(ProductStreamEventDTO event) {
+            synchronized (pending) {
+                pending.put(event.getProductId(), event);
+            }
+            schedule();
+        }
+
+        private void heartbeat() {
+            heartbeatPending = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (sending.compareAndSet(false, true)) {
+                sendStartedAt = System.nanoTime();
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    sending.set(false);
+                }
+            } else if (System.nanoTime() - sendStartedAt > slowTimeoutNanos) {
+                drop(this, slowDropCounter);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    if (!subscribers.contains(this)) {
+                        // Отключен как медленный, пока шла запись
+                        sending.set(false);
+                        emitter.complete();
+                        return;
+                    }
+                    List<ProductStreamEventDTO> batch;
+                    synchronized (pending) {
+                        batch = new ArrayList<>(pending.values());
+                        pending.clear();
+                    }
+                    boolean ping = heartbeatPending;
+                    heartbeatPending = false;
+
+                    if (batch.isEmpty() && !ping) {
+                        sending.set(false);
+                        // Событие могло прийти между проверкой и сбросом флага
+                        synchronized (pending) {
+                            if (pending.isEmpty() || !sending.compareAndSet(false, true)) {
+                                return;
+                            }
+                        }
+                        continue;
+                    }
+
+                    for (ProductStreamEventDTO event : batch) {
+                        sendStartedAt = System.nanoTime();
+                        emitter.send(SseEmitter.event()
+                                .name(event.isDeleted() ? "deleted" : "product")
+                                .id(String.valueOf(event.getProductId()))
+                                .data(event, MediaType.APPLICATION_JSON));
+                        eventCounter.increment();
+                    }
+                    if (ping) {
+                        sendStartedAt = System.nanoTime();
+                        emitter.send(SseEmitter.event().comment("ping"));
+                    }
+                }
+            } catch (Exception e) {
+                // В том числе таймаут записи Tomcat
+                sending.set(false);
+                if (subscribers.contains(this)) {
+                    errorDropCounter.increment();
+                    remove(this);
+                }
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
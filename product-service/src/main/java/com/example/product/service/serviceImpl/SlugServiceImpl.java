@@ -0,0 +1,98 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.SlugService;
+import com.example.product.util.SlugUtil;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+public class SlugServiceImpl implements SlugService {
+
+    private final ProductRepository productRepository;
+
+    @Override
+    @Transactional(readOnly = true)
+    public String generateUniqueProductSlug(String name) {
+        return generateUniqueProductSlugs(List.of(name == null ? "" : name)).get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<String> generateUniqueProductSlugs(List<String> names) {
+        if (names == null || names.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<String> bases = new ArrayList<>(names.size());
+        for (String name : names) {
+            bases.add(SlugUtil.generateSlug(name));
+        }
+
+        // Все уже занятые slug-и вида base и base-N для всей пачки - одним запросом
+        Set<String> distinctBases = new LinkedHashSet<>(bases);
+        Set<String> taken = new HashSet<>(productRepository.findSlugsByBaseIn(distinctBases));
+
+        // Максимальный занятый суффикс для каждой базы
+        Map<String, Integer> maxSuffix = new HashMap<>();
+        for (String slug : taken) {
+            if (distinctBases.contains(slug)) {
+                maxSuffix.merge(slug, 1, Math::max);
+            }
+            int dash = slug.lastIndexOf('-');
+            if (dash > 0 && dash < slug.length() - 1) {
+                String root = slug.substring(0, dash);
+                if (distinctBases.contains(root)) {
+                    Integer suffix = parseSuffix(slug.substring(dash + 1));
+                    if (suffix != null) {
+                        maxSuffix.merge(root, suffix, Math::max);
+                    }
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<>(bases.size());
+        for (String base : bases) {
+            String slug;
+            if (!taken.contains(base)) {
+                slug = base;
+                maxSuffix.merge(base, 1, Math::max);
+            } else {
+                int next = Math.max(maxSuffix.getOrDefault(base, 1), 1) + 1;
+                slug = base + "-" + next;
+                // Суффикс мог совпасть с другой базой из этой же пачки (например, "iphone-2")
+                while (taken.contains(slug)) {
+                    next++;
+                    slug = base + "-" + next;
+                }
+                maxSuffix.put(base, next);
+            }
+            taken.add(slug);
+            result.add(slug);
+        }
+
+        return result;
+    }
+
+    private static Integer parseSuffix(String value) {
+        if (value.isEmpty() || value.length() > 9) {
+            return null;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return null;
+            }
+        }
+        return Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.Exception.InsufficientStockException;
+import com.example.product.Exception.ResourceNotFoundException;
+import com.example.product.dto.Stock.StockReservationDTO;
+import com.example.product.dto.Stock.StockReservationLineDTO;
+import com.example.product.dto.Stock.StockReservationRequest;
+import com.example.product.enums.ReservationStatus;
+import com.example.product.model.StockReservation;
+import com.example.product.repository.StockJdbcRepository;
+import com.example.product.repository.StockJdbcRepository.StockChange;
+import com.example.product.repository.StockReservationRepository;
+import com.example.product.service.StockReservationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private final StockReservationRepository reservationRepository;
+    private final StockJdbcRepository stockJdbcRepository;
+    private final HotStockLedger hotStockLedger;
+    private final StockStatusTransitions statusTransitions;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final int maxLines;
+    private final int expiryBatchSize;
+
+    public StockReservationServiceImpl(StockReservationRepository reservationRepository,
+                                       StockJdbcRepository stockJdbcRepository,
+                                       HotStockLedger hotStockLedger,
+                                       StockStatusTransitions statusTransitions,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${catalog.stock.reservation.ttl:15m}") Duration defaultTtl,
+                                       @Value("${catalog.stock.reservation.max-ttl:2h}") Duration maxTtl,
+                                       @Value("${catalog.stock.reservation.max-lines:500}") int maxLines,
+                                       @Value("${catalog.stock.reservation.expiry-batch-size:200}") int expiryBatchSize) {
+        this.reservationRepository = reservationRepository;
+        this.stockJdbcRepository = stockJdbcRepository;
+        this.hotStockLedger = hotStockLedger;
+        this.statusTransitions = statusTransitions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.maxLines = maxLines;
+        this.expiryBatchSize = expiryBatchSize;
+    }
+
+    @Override
+    @Transactional
+    public StockReservationDTO reserve(StockReservationRequest request) {
+        String orderId = request.getOrderId();
+        stockJdbcRepository.lockOrder(orderId);
+
+        // Повтор запроса (например, после таймаута у клиента) не резервирует второй раз
+        List<StockReservation> existing = reservationRepository.findByOrderIdOrderById(orderId);
+        if (existing.stream().anyMatch(r -> r.getStatus() == ReservationStatus.RESERVED
+                || r.getStatus() == ReservationStatus.CONFIRMED)) {
+            return toDTO(orderId, existing);
+        }
+
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockReservationLineDTO line : request.getLines()) {
+            quantities.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        if (quantities.size() > maxLines) {
+            throw new IllegalArgumentException("Слишком много позиций в резерве: " + quantities.size() +
+                    " (максимум " + maxLines + ")");
+        }
+
+        Map<Long, Integer> fromDatabase = new TreeMap<>();
+        Map<Long, Integer> fromLedger = new TreeMap<>();
+        quantities.forEach((productId, quantity) ->
+                (hotStockLedger.isHot(productId) ? fromLedger : fromDatabase).put(productId, quantity));
+
+        // Все обычные позиции - одним UPDATE; при нехватке откатывается вся транзакция
+        List<StockChange> changes = stockJdbcRepository.reserve(fromDatabase);
+        if (changes.size() < fromDatabase.size()) {
+            Set<Long> reserved = changes.stream().map(StockChange::productId).collect(Collectors.toSet());
+            throw new InsufficientStockException(fromDatabase.keySet().stream()
+                    .filter(productId -> !reserved.contains(productId))
+                    .toList());
+        }
+
+        reserveFromLedger(fromLedger);
+        statusTransitions.apply(changes);
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(ttl(request.getTtlSeconds()));
+        List<StockReservation> reservations = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> reservations.add(StockReservation.builder()
+                .orderId(orderId)
+                .productId(productId)
+                .quantity(quantity)
+                .status(ReservationStatus.RESERVED)
+                .expiresAt(expiresAt)
+                .createdAt(now)
+                .updatedAt(now)
+                .build()));
+        try {
+            reservationRepository.saveAll(reservations);
+        } catch (DataIntegrityViolationException e) {
+            // Уникальный ключ (order_id, product_id) действующих резервов: заказ зарезервирован в обход блокировки
+            throw new IllegalStateException("Резерв заказа " + orderId + " уже создан параллельным запросом");
+        }
+
+        log.debug("Зарезервировано позиций заказа {}: {}", orderId, reservations.size());
+        return toDTO(orderId, reservations);
+    }
+
+    @Override
+    @Transactional
+    public StockReservationDTO confirm(String orderId) {
+        int confirmed = reservationRepository.confirm(orderId, LocalDateTime.now());
+        List<StockReservation> reservations = reservationRepository.findByOrderIdOrderById(orderId);
+
+        if (reservations.isEmpty()) {
+            throw new ResourceNotFoundException("Резерв заказа не найден: " + orderId);
+        }
+        if (confirmed == 0 && reservations.stream().noneMatch(r -> r.getStatus() == ReservationStatus.CONFIRMED)) {
+            throw new IllegalStateException("Резерв заказа " + orderId + " истек или отменен");
+        }
+        return toDTO(orderId, reservations);
+    }
+
+    @Override
+    @Transactional
+    public StockReservationDTO release(String orderId) {
+        List<StockReservation> active = reservationRepository.findForUpdate(orderId, ReservationStatus.RESERVED);
+        releaseReservations(active, ReservationStatus.RELEASED);
+
+        List<StockReservation> reservations = reservationRepository.findByOrderIdOrderById(orderId);
+        if (reservations.isEmpty()) {
+            throw new ResourceNotFoundException("Резерв заказа не найден: " + orderId);
+        }
+        return toDTO(orderId, reservations);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<StockReservationDTO> getReservation(String orderId) {
+        List<StockReservation> reservations = reservationRepository.findByOrderIdOrderById(orderId);
+        return reservations.isEmpty() ? Optional.empty() : Optional.of(toDTO(orderId, reservations));
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${catalog.stock.reservation.expiry-delay:30000}")
+    public int releaseExpired() {
+        int expired = 0;
+        while (true) {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = reservationRepository.findExpiredIds(now, PageRequest.of(0, expiryBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            Integer released = transactionTemplate.execute(status -> {
+                // Повторная проверка под блокировкой: резерв мог быть подтвержден в это время
+                List<StockReservation> rows = reservationRepository.findForUpdate(ids, ReservationStatus.RESERVED).stream()
+                        .filter(r -> r.getExpiresAt().isBefore(now))
+                        .toList();
+                releaseReservations(rows, ReservationStatus.EXPIRED);
+                return rows.size();
+            });
+            expired += released != null ? released : 0;
+
+            if (ids.size() < expiryBatchSize) {
+                break;
+            }
+        }
+
+        if (expired > 0) {
+            log.info("Освобождено истекших резервов: {}", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Позиции горячих продуктов резервируются из полос в порядке ID; при нехватке откатывается
+     * вся транзакция вместе с уже выполненными переносами
+     */
+    private void reserveFromLedger(Map<Long, Integer> fromLedger) {
+        List<Long> insufficient = new ArrayList<>();
+
+        for (Map.Entry<Long, Integer> line : fromLedger.entrySet()) {
+            HotStockLedger.Result result = hotStockLedger.tryReserve(line.getKey(), line.getValue());
+            if (result == HotStockLedger.Result.NOT_HOT) {
+                // Продукт перестал быть горячим между проверкой и резервированием
+                List<StockChange> changes = stockJdbcRepository.reserve(Map.of(line.getKey(), line.getValue()));
+                if (changes.isEmpty()) {
+                    insufficient.add(line.getKey());
+                } else {
+                    statusTransitions.apply(changes);
+                }
+            } else if (result == HotStockLedger.Result.INSUFFICIENT) {
+                insufficient.add(line.getKey());
+            }
+        }
+
+        if (!insufficient.isEmpty()) {
+            throw new InsufficientStockException(insufficient);
+        }
+    }
+
+    /**
+     * Перевести резервы в конечный статус и вернуть остаток в текущей транзакции: обычные продукты -
+     * одним UPDATE, горячие - в полосы
+     */
+    private void releaseReservations(List<StockReservation> reservations, ReservationStatus targetStatus) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Integer> toDatabase = new TreeMap<>();
+        Map<Long, Integer> toLedger = new TreeMap<>();
+
+        for (StockReservation reservation : reservations) {
+            reservation.setStatus(targetStatus);
+            reservation.setUpdatedAt(now);
+            Long productId = reservation.getProductId();
+            (hotStockLedger.isHot(productId) ? toLedger : toDatabase)
+                    .merge(productId, reservation.getQuantity(), Integer::sum);
+        }
+        reservationRepository.saveAll(reservations);
+
+        statusTransitions.apply(stockJdbcRepository.returnStock(toDatabase));
+        toLedger.forEach(hotStockLedger::releaseOrReturn);
+    }
+
+    private Duration ttl(Integer ttlSeconds) {
+        if (ttlSeconds == null || ttlSeconds <= 0) {
+            return defaultTtl;
+        }
+        Duration requested = Duration.ofSeconds(ttlSeconds);
+        return requested.compareTo(maxTtl) > 0 ? maxTtl : requested;
+    }
+
+    private StockReservationDTO toDTO(String orderId, List<StockReservation> reservations) {
+        // Позиции одного резерва меняют статус вместе; после отмены заказ мог быть зарезервирован заново
+        StockReservation latest = reservations.get(reservations.size() - 1);
+        return StockReservationDTO.builder()
+                .orderId(orderId)
+                .status(latest.getStatus())
+                .expiresAt(latest.getExpiresAt())
+                .lines(reservations.stream()
+                        .filter(r -> r.getStatus() == latest.getStatus()
+                                && r.getExpiresAt().equals(latest.getExpiresAt()))
+                        .map(r -> StockReservationLineDTO.builder()
+                                .productId(r.getProductId())
+                                .quantity(r.getQuantity())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
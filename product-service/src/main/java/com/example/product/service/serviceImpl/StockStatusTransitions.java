@@ -0,0 +1,54 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.enums.ProductStatus;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductChangedEvent.ChangeType;
+import com.example.product.model.Product;
+import com.example.product.repository.ProductRepository;
+import com.example.product.repository.StockJdbcRepository.StockChange;
+import com.example.product.service.CategoryPriceStatsService;
+import com.example.product.service.ProductCounterService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Последствия изменения остатков, выполненного SQL-оператором в обход сущности:
+ * счетчики активных продуктов и статистика цен при переходах ACTIVE/OUT_OF_STOCK,
+ * события изменения для кэшей и read-модели
+ */
+@Component
+@RequiredArgsConstructor
+public class StockStatusTransitions {
+
+    private final ProductRepository productRepository;
+    private final ProductCounterService productCounterService;
+    private final CategoryPriceStatsService priceStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void apply(Collection<StockChange> changes) {
+        Map<Long, StockChange> flipped = changes.stream()
+                .filter(change -> change.statusChanged()
+                        && (change.previousStatus() == ProductStatus.ACTIVE || change.status() == ProductStatus.ACTIVE))
+                .collect(Collectors.toMap(StockChange::productId, Function.identity(), (first, second) -> second));
+
+        if (!flipped.isEmpty()) {
+            for (Product product : productRepository.findWithCategoriesByIdIn(flipped.keySet())) {
+                StockChange change = flipped.get(product.getId());
+                productCounterService.recordActiveProductChange(
+                        product.getCategories(), change.previousStatus() == ProductStatus.ACTIVE,
+                        product.getCategories(), change.status() == ProductStatus.ACTIVE);
+                priceStatsService.markChanged(product.getCategories());
+            }
+        }
+
+        for (StockChange change : changes) {
+            eventPublisher.publishEvent(new ProductChangedEvent(change.productId(), ChangeType.STOCK));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Stock.StockSyncEntryDTO;
+import com.example.product.dto.Stock.StockSyncRequest;
+import com.example.product.dto.Stock.StockSyncResultDTO;
+import com.example.product.repository.StockJdbcRepository;
+import com.example.product.repository.StockJdbcRepository.StockSyncEntry;
+import com.example.product.repository.StockJdbcRepository.SyncedStock;
+import com.example.product.service.StockSyncService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@Slf4j
+public class StockSyncServiceImpl implements StockSyncService {
+
+    private final StockJdbcRepository stockJdbcRepository;
+    private final StockStatusTransitions statusTransitions;
+    private final HotStockLedger hotStockLedger;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxEntries;
+    private final int chunkSize;
+
+    private final Counter receivedCounter;
+    private final Counter updatedCounter;
+    private final Counter skippedCounter;
+    private final DistributionSummary batchSize;
+    private final Timer syncTimer;
+
+    public StockSyncServiceImpl(StockJdbcRepository stockJdbcRepository,
+                                StockStatusTransitions statusTransitions,
+                                HotStockLedger hotStockLedger,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${catalog.stock.sync.max-entries:50000}") int maxEntries,
+                                @Value("${catalog.stock.sync.chunk-size:1000}") int chunkSize) {
+        this.stockJdbcRepository = stockJdbcRepository;
+        this.statusTransitions = statusTransitions;
+        this.hotStockLedger = hotStockLedger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxEntries = maxEntries;
+        this.chunkSize = chunkSize;
+
+        this.receivedCounter = Counter.builder("catalog.stock.sync.entries")
+                .tag("result", "received")
+                .description("Записи складской синхронизации остатков")
+                .register(meterRegistry);
+        this.updatedCounter = Counter.builder("catalog.stock.sync.entries")
+                .tag("result", "updated")
+                .description("Записи складской синхронизации остатков")
+                .register(meterRegistry);
+        this.skippedCounter = Counter.builder("catalog.stock.sync.entries")
+                .tag("result", "skipped")
+                .description("Записи складской синхронизации остатков")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("catalog.stock.sync.batch.size")
+                .description("Размер пачки складской синхронизации после объединения повторов")
+                .register(meterRegistry);
+        this.syncTimer = Timer.builder("catalog.stock.sync.duration")
+                .description("Время применения пачки складских остатков")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public StockSyncResultDTO sync(StockSyncRequest request) {
+        List<StockSyncEntryDTO> entries = request.getEntries();
+        if (entries.size() > maxEntries) {
+            throw new IllegalArgumentException("Слишком много записей в пачке: " + entries.size() +
+                    " (максимум " + maxEntries + ")");
+        }
+
+        long started = System.nanoTime();
+        List<StockSyncEntry> latest = coalesce(entries);
+
+        int updated = 0;
+        int statusChanged = 0;
+        for (int from = 0; from < latest.size(); from += chunkSize) {
+            List<StockSyncEntry> chunk = latest.subList(from, Math.min(from + chunkSize, latest.size()));
+
+            // Каждая часть - отдельная короткая транзакция, строки продуктов не держатся заблокированными долго
+            List<SyncedStock> synced = transactionTemplate.execute(status -> {
+                List<SyncedStock> applied = stockJdbcRepository.sync(chunk);
+                statusTransitions.apply(applied.stream().map(SyncedStock::change).toList());
+                return applied;
+            });
+            if (synced == null) {
+                continue;
+            }
+
+            for (SyncedStock stock : synced) {
+                if (stock.change().statusChanged()) {
+                    statusChanged++;
+                }
+                if (stock.ledgerExcess() > 0) {
+                    // Склад отдал меньше, чем уже лежит в полосах горячего продукта
+                    hotStockLedger.trim(stock.change().productId(), stock.ledgerExcess());
+                }
+            }
+            updated += synced.size();
+        }
+
+        long durationNanos = System.nanoTime() - started;
+        int skipped = latest.size() - updated;
+
+        receivedCounter.increment(entries.size());
+        updatedCounter.increment(updated);
+        skippedCounter.increment(skipped);
+        batchSize.record(latest.size());
+        syncTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+
+        log.info("Синхронизация остатков: получено {}, после объединения {}, обновлено {}, пропущено {}, " +
+                        "смена статуса {}, {} мс",
+                entries.size(), latest.size(), updated, skipped, statusChanged, durationNanos / 1_000_000);
+
+        return StockSyncResultDTO.builder()
+                .received(entries.size())
+                .coalesced(latest.size())
+                .updated(updated)
+                .skipped(skipped)
+                .statusChanged(statusChanged)
+                .durationMs(durationNanos / 1_000_000)
+                .build();
+    }
+
+    /**
+     * По каждому ID или SKU оставляем запись с самым поздним sourceTimestamp
+     */
+    private static List<StockSyncEntry> coalesce(List<StockSyncEntryDTO> entries) {
+        Map<String, StockSyncEntryDTO> latest = new LinkedHashMap<>();
+        for (StockSyncEntryDTO entry : entries) {
+            String key;
+            if (entry.getProductId() != null) {
+                key = "id:" + entry.getProductId();
+            } else if (entry.getSku() != null && !entry.getSku().isBlank()) {
+                key = "sku:" + entry.getSku();
+            } else {
+                throw new IllegalArgumentException("Запись остатка без productId и sku");
+            }
+
+            latest.merge(key, entry, (current, candidate) ->
+                    candidate.getSourceTimestamp().isAfter(current.getSourceTimestamp()) ? candidate : current);
+        }
+
+        List<StockSyncEntry> result = new ArrayList<>(latest.size());
+        for (StockSyncEntryDTO entry : latest.values()) {
+            result.add(new StockSyncEntry(entry.getProductId(),
+                    entry.getProductId() != null ? null : entry.getSku(),
+                    entry.getQuantity(), entry.getSourceTimestamp()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.product.util;
+
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Адаптивный предел одновременных запросов (AIMD): пока ответы укладываются в целевую задержку
+ * и предел действительно выбирается, он растет на 1/limit за ответ (примерно +1 за "окно");
+ * медленный или перегруженный ответ уменьшает предел в backoffRatio раз, но не чаще
+ * одного раза за целевую задержку. Запросы сверх предела ждут в ограниченной очереди
+ * не дольше заданного срока.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public enum Outcome { ACQUIRED, QUEUE_FULL, TIMEOUT }
+
+    @Getter
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long lastDecrease;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      long latencyTarget, TimeUnit unit, double backoffRatio) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.latencyTargetNanos = unit.toNanos(latencyTarget);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecrease = System.nanoTime();
+    }
+
+    /**
+     * Занять слот, ожидая в очереди не дольше maxWaitNanos
+     */
+    public Outcome acquire(long maxWaitNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return Outcome.ACQUIRED;
+            }
+            if (queued >= maxQueue || maxWaitNanos <= 0) {
+                return Outcome.QUEUE_FULL;
+            }
+
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return Outcome.TIMEOUT;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return Outcome.ACQUIRED;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Освободить слот и скорректировать предел по задержке ответа
+     * @param overloaded ответ показал перегрузку зависимостей (таймаут, нет соединения с БД)
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit;
+            inFlight--;
+
+            long now = System.nanoTime();
+            if (overloaded || latencyNanos > latencyTargetNanos) {
+                if (now - lastDecrease > latencyTargetNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecrease = now;
+                }
+            } else if (saturated) {
+                // Растем только когда предел выбран полностью, иначе задержка ничего не говорит о нем
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.product.util;
+
+import com.example.product.model.Category;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public final class CategoryTreeUtil {
+
+    private CategoryTreeUtil() {
+    }
+
+    /**
+     * ID категорий вместе со всеми их предками (каждая категория один раз)
+     */
+    public static Set<Long> withAncestors(Collection<Category> categories) {
+        Set<Long> ids = new HashSet<>();
+        if (categories != null) {
+            for (Category category : categories) {
+                // Остановка на уже посещенной категории защищает и от циклов в иерархии
+                Category current = category;
+                while (current != null && ids.add(current.getId())) {
+                    current = current.getParent();
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -1,19 +1,26 @@
 package com.example.product.util;
 
 import com.cloudinary.Cloudinary;
+import com.cloudinary.EagerTransformation;
+import com.cloudinary.Transformation;
+import com.cloudinary.api.exceptions.NotFound;
 import com.cloudinary.utils.ObjectUtils;
 
+import com.example.product.enums.ImageSize;
 import com.example.product.service.StorageService;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -42,15 +49,14 @@ public class CloudinaryStorageService implements StorageService {
     }
 
     @Override
-    public StorageResult uploadImage(MultipartFile file) throws IOException {
-        if (file == null || file.isEmpty()) {
+    public StorageResult uploadImage(byte[] content, String originalFilename) throws IOException {
+        if (content == null || content.length == 0) {
             throw new IllegalArgumentException("Файл отсутствует или пуст");
         }
 
         try {
             // Формируем уникальный идентификатор
             String timestamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-            String originalFilename = file.getOriginalFilename();
             String fileBaseName = "image";
 
             if (originalFilename != null && !originalFilename.isEmpty()) {
@@ -71,7 +77,7 @@ public class CloudinaryStorageService implements StorageService {
             log.info("Начинаем загрузку изображения в Cloudinary: {}", fileBaseName);
 
             // Загружаем изображение
-            Map uploadResult = cloudinary.uploader().upload(file.getBytes(), params);
+            Map uploadResult = cloudinary.uploader().upload(content, params);
 
             String url = (String) uploadResult.get("secure_url");
             String publicId = (String) uploadResult.get("public_id");
@@ -109,10 +115,11 @@ public class CloudinaryStorageService implements StorageService {
             }
 
             return success;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         } catch (Exception e) {
-            log.error("Ошибка при удалении изображения из Cloudinary. Public ID: {}, Ошибка: {}",
-                    imageId, e.getMessage());
-            return false;
+            throw new UncheckedIOException(new IOException(
+                    "Ошибка при удалении изображения из Cloudinary: " + e.getMessage(), e));
         }
     }
 
@@ -125,10 +132,71 @@ public class CloudinaryStorageService implements StorageService {
         try {
             log.info("Получаем информацию об изображении. Public ID: {}", imageId);
             return cloudinary.api().resource(imageId, ObjectUtils.emptyMap());
+        } catch (NotFound e) {
+            log.warn("Изображение не найдено в Cloudinary. Public ID: {}", imageId);
+            return Collections.emptyMap();
         } catch (Exception e) {
-            log.error("Ошибка при получении информации об изображении. Public ID: {}, Ошибка: {}",
+            throw new UncheckedIOException(new IOException(
+                    "Ошибка при получении информации об изображении из Cloudinary: " + e.getMessage(), e));
+        }
+    }
+
+    @Override
+    public String getDerivativeUrl(String imageId, ImageSize size, boolean webp) {
+        if (imageId == null || imageId.isEmpty()) {
+            return null;
+        }
+
+        Transformation transformation = new Transformation()
+                .width(size.getWidth())
+                .height(size.getHeight())
+                .crop("fill")
+                .quality("auto");
+
+        com.cloudinary.Url url = cloudinary.url()
+                .secure(true)
+                .transformation(transformation);
+        if (webp) {
+            url = url.format("webp");
+        }
+        return url.generate(imageId);
+    }
+
+    @Override
+    public void generateDerivatives(String imageId, Collection<ImageSize> sizes) throws IOException {
+        if (imageId == null || imageId.isEmpty() || sizes.isEmpty()) {
+            return;
+        }
+
+        // Те же трансформации, что и в getDerivativeUrl, чтобы Cloudinary отдавал уже готовые копии
+        List<Object> eager = new ArrayList<>();
+        for (ImageSize size : sizes) {
+            eager.add(new EagerTransformation()
+                    .width(size.getWidth())
+                    .height(size.getHeight())
+                    .crop("fill")
+                    .quality("auto"));
+            eager.add(new EagerTransformation()
+                    .width(size.getWidth())
+                    .height(size.getHeight())
+                    .crop("fill")
+                    .quality("auto")
+                    .format("webp"));
+        }
+
+        try {
+            log.debug("Генерация производных изображений. Public ID: {}, размеры: {}", imageId, sizes);
+            cloudinary.uploader().explicit(imageId, ObjectUtils.asMap(
+                    "type", "upload",
+                    "eager", eager,
+                    "eager_async", true
+            ));
+        } catch (IOException e) {
+            log.error("Ошибка при генерации производных изображений. Public ID: {}, Ошибка: {}",
                     imageId, e.getMessage());
-            return Collections.emptyMap();
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Ошибка при генерации производных изображений в Cloudinary: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+}
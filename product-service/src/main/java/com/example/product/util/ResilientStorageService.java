@@ -0,0 +1,249 @@
+package com.example.product.util;
+
+import com.example.product.enums.ImageSize;
+import com.example.product.service.StorageService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Обёртка над внешним хранилищем изображений: таймауты на каждую операцию,
+ * ограничение числа одновременных вызовов (bulkhead), автоматический выключатель
+ * и TTL-кэш для getImageInfo. Медленное хранилище больше не занимает потоки Tomcat.
+ */
+@Service
+@Primary
+@Slf4j
+public class ResilientStorageService implements StorageService {
+
+    private final StorageService delegate;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final ThreadPoolExecutor executor;
+    private final CircuitBreaker circuitBreaker;
+    private final Cache<String, Map<String, Object>> imageInfoCache;
+
+    private final Duration uploadTimeout;
+    private final Duration deleteTimeout;
+    private final Duration infoTimeout;
+    private final Duration bulkheadWait;
+
+    public ResilientStorageService(@Qualifier("cloudinaryStorageService") StorageService delegate,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${storage.timeout.upload:30s}") Duration uploadTimeout,
+                                   @Value("${storage.timeout.delete:5s}") Duration deleteTimeout,
+                                   @Value("${storage.timeout.info:3s}") Duration infoTimeout,
+                                   @Value("${storage.bulkhead.max-concurrent:10}") int maxConcurrent,
+                                   @Value("${storage.bulkhead.max-wait:200ms}") Duration bulkheadWait,
+                                   @Value("${storage.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                                   @Value("${storage.circuit-breaker.open-duration:30s}") Duration openDuration,
+                                   @Value("${storage.image-info-cache.ttl:10m}") Duration imageInfoTtl,
+                                   @Value("${storage.image-info-cache.max-size:5000}") long imageInfoMaxSize) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.uploadTimeout = uploadTimeout;
+        this.deleteTimeout = deleteTimeout;
+        this.infoTimeout = infoTimeout;
+        this.bulkheadWait = bulkheadWait;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.circuitBreaker = new CircuitBreaker("storage", failureThreshold, openDuration.toMillis());
+
+        // Число потоков ограничено семафором, поэтому очередь не нужна
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                0, maxConcurrent,
+                60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "storage-call-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.imageInfoCache = Caffeine.newBuilder()
+                .expireAfterWrite(imageInfoTtl)
+                .maximumSize(imageInfoMaxSize)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, imageInfoCache, "storage.imageInfo");
+        Gauge.builder("storage.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .description("Свободные слоты для вызовов хранилища")
+                .register(meterRegistry);
+        Gauge.builder("storage.circuit.state", circuitBreaker, cb -> cb.getState().ordinal())
+                .description("Состояние выключателя: 0 - закрыт, 1 - открыт, 2 - пробный вызов")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public StorageResult uploadImage(byte[] content, String originalFilename) throws IOException {
+        // В рабочий поток уходят только байты: MultipartFile принадлежит запросу
+        return call("upload", uploadTimeout, () -> delegate.uploadImage(content, originalFilename));
+    }
+
+    @Override
+    public boolean deleteImage(String imageId) {
+        try {
+            Boolean deleted = call("delete", deleteTimeout, () -> delegate.deleteImage(imageId));
+            if (deleted) {
+                imageInfoCache.invalidate(imageId);
+            }
+            return deleted;
+        } catch (IOException e) {
+            log.error("Не удалось удалить изображение из хранилища. Public ID: {}, Ошибка: {}", imageId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getImageInfo(String imageId) {
+        if (imageId == null || imageId.isEmpty()) {
+            throw new IllegalArgumentException("Public ID не может быть пустым");
+        }
+
+        Map<String, Object> cached = imageInfoCache.getIfPresent(imageId);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            Map<String, Object> info = call("info", infoTimeout, () -> delegate.getImageInfo(imageId));
+            // Пустой ответ - изображения нет, его не кэшируем
+            if (info != null && !info.isEmpty()) {
+                imageInfoCache.put(imageId, info);
+                return info;
+            }
+            return Collections.emptyMap();
+        } catch (IOException e) {
+            log.error("Не удалось получить информацию об изображении. Public ID: {}, Ошибка: {}", imageId, e.getMessage());
+            return Collections.emptyMap();
+        }
+    }
+
+    @Override
+    public String getDerivativeUrl(String imageId, ImageSize size, boolean webp) {
+        // URL строится локально, внешних вызовов нет
+        return delegate.getDerivativeUrl(imageId, size, webp);
+    }
+
+    @Override
+    public void generateDerivatives(String imageId, Collection<ImageSize> sizes) throws IOException {
+        call("derivatives", uploadTimeout, () -> {
+            delegate.generateDerivatives(imageId, sizes);
+            return null;
+        });
+    }
+
+    private <T> T call(String operation, Duration timeout, Callable<T> action) throws IOException {
+        if (!circuitBreaker.tryAcquire()) {
+            record(operation, "short_circuited", 0);
+            throw new IOException("Хранилище изображений временно недоступно");
+        }
+
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.onIgnored();
+            throw new IOException("Вызов хранилища прерван", e);
+        }
+        if (!acquired) {
+            // Перегрузка на нашей стороне не является ошибкой хранилища
+            circuitBreaker.onIgnored();
+            record(operation, "rejected", 0);
+            throw new IOException("Превышено число одновременных запросов к хранилищу изображений");
+        }
+
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            // Слот освобождается только когда вызов реально завершился, даже если клиент уже получил таймаут
+            future = executor.submit(() -> {
+                try {
+                    return action.call();
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            circuitBreaker.onIgnored();
+            record(operation, "rejected", System.nanoTime() - start);
+            throw new IOException("Превышено число одновременных запросов к хранилищу изображений", e);
+        }
+
+        try {
+            T result = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            circuitBreaker.onSuccess();
+            record(operation, "success", System.nanoTime() - start);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            circuitBreaker.onFailure();
+            record(operation, "timeout", System.nanoTime() - start);
+            throw new IOException("Превышено время ожидания ответа хранилища (" + operation + ")", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException illegalArgument) {
+                // Ошибка во входных данных, хранилище работает
+                circuitBreaker.onSuccess();
+                record(operation, "success", System.nanoTime() - start);
+                throw illegalArgument;
+            }
+            circuitBreaker.onFailure();
+            record(operation, "failure", System.nanoTime() - start);
+            if (cause instanceof UncheckedIOException unchecked) {
+                throw unchecked.getCause();
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Ошибка вызова хранилища (" + operation + "): " + cause.getMessage(), cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            circuitBreaker.onIgnored();
+            throw new IOException("Вызов хранилища прерван", e);
+        }
+    }
+
+    private void record(String operation, String outcome, long nanos) {
+        Timer.builder("storage.calls")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
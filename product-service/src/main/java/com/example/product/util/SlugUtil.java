@@ -0,0 +1,98 @@
+package com.example.product.util;
+
+
+
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.UUID;
+
+@Component
+public class SlugUtil {
+    private static final int MAX_LENGTH = 100;
+
+    // Таблица транслитерации кириллицы (в нижнем регистре), индекс - код символа минус CYRILLIC_START
+    private static final char CYRILLIC_START = 'Ѐ';
+    private static final char CYRILLIC_END = 'ґ';
+    private static final String[] TRANSLIT = new String[CYRILLIC_END - CYRILLIC_START + 1];
+
+    static {
+        // Русские буквы
+        put('а', "a"); put('б', "b"); put('в', "v");
+        put('г', "g"); put('д', "d"); put('е', "e");
+        put('ё', "yo"); put('ж', "zh"); put('з', "z");
+        put('и', "i"); put('й', "y"); put('к', "k");
+        put('л', "l"); put('м', "m"); put('н', "n");
+        put('о', "o"); put('п', "p"); put('р', "r");
+        put('с', "s"); put('т', "t"); put('у', "u");
+        put('ф', "f"); put('х', "h"); put('ц', "ts");
+        put('ч', "ch"); put('ш', "sh"); put('щ', "sch");
+        put('ъ', ""); put('ы', "y"); put('ь', "");
+        put('э', "e"); put('ю', "yu"); put('я', "ya");
+
+        // Украинские буквы
+        put('і', "i"); put('ї', "yi"); put('є', "ye"); put('ґ', "g");
+    }
+
+    private static void put(char lower, String replacement) {
+        TRANSLIT[lower - CYRILLIC_START] = replacement;
+        TRANSLIT[Character.toUpperCase(lower) - CYRILLIC_START] = replacement;
+    }
+
+    /**
+     * Построить slug за один проход: транслитерация кириллицы, пробелы -> "-",
+     * удаление остальных символов, схлопывание повторяющихся "-", нижний регистр.
+     */
+    public static String generateSlug(String input) {
+        if (input == null || input.trim().isEmpty()) {
+            return "category-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+
+        StringBuilder sb = new StringBuilder(Math.min(input.length() + 8, MAX_LENGTH));
+        for (int i = 0; i < input.length() && sb.length() < MAX_LENGTH; i++) {
+            char c = input.charAt(i);
+
+            if (c < 0x80) {
+                appendAscii(sb, c);
+            } else if (c >= CYRILLIC_START && c <= CYRILLIC_END && TRANSLIT[c - CYRILLIC_START] != null) {
+                String replacement = TRANSLIT[c - CYRILLIC_START];
+                for (int j = 0; j < replacement.length(); j++) {
+                    sb.append(replacement.charAt(j));
+                }
+            } else {
+                // Редкий случай: буквы с диакритикой (é -> e), всё прочее отбрасывается
+                String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+                for (int j = 0; j < decomposed.length(); j++) {
+                    char d = decomposed.charAt(j);
+                    if (d < 0x80 && isWordChar(d)) {
+                        sb.append(Character.toLowerCase(d));
+                    }
+                }
+            }
+        }
+
+        String slug = sb.length() > MAX_LENGTH ? sb.substring(0, MAX_LENGTH) : sb.toString();
+
+        // Проверка на пустой слаг после обработки
+        if (slug.isEmpty()) {
+            slug = "category-" + UUID.randomUUID().toString().substring(0, 8);
+        }
+
+        return slug;
+    }
+
+    private static void appendAscii(StringBuilder sb, char c) {
+        if (c == '-' || c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r') {
+            // Пробельные символы превращаются в "-", несколько "-" подряд схлопываются
+            if (sb.length() == 0 || sb.charAt(sb.length() - 1) != '-') {
+                sb.append('-');
+            }
+        } else if (isWordChar(c)) {
+            sb.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
@@ -0,0 +1,105 @@
+-- Схема каталога до перехода на миграции - в том виде, в котором ее создавал ddl-auto=update.
+-- На существующей БД эта миграция не выполняется (baseline-on-migrate, baseline-version=1),
+-- все, что появилось позже, добавляют следующие миграции.
+
+CREATE TABLE brands (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name            VARCHAR(255) NOT NULL,
+    description     VARCHAR(255),
+    banner_url      VARCHAR(255),
+    banner_image_id VARCHAR(255),
+    slug            VARCHAR(255),
+    meta_keywords   VARCHAR(255),
+    active          BOOLEAN      NOT NULL,
+    premium         BOOLEAN      NOT NULL,
+    country         VARCHAR(255),
+    founded_year    INTEGER,
+    product_count   INTEGER,
+    sort_order      INTEGER,
+    created_at      TIMESTAMP(6),
+    updated_at      TIMESTAMP(6),
+    CONSTRAINT uk_brands_name UNIQUE (name),
+    CONSTRAINT uk_brands_slug UNIQUE (slug)
+);
+
+CREATE TABLE categories (
+    id                         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name                       VARCHAR(255) NOT NULL,
+    description                VARCHAR(255),
+    product_count              INTEGER,
+    image_url                  VARCHAR(255),
+    image_id                   VARCHAR(255),
+    view_count                 INTEGER,
+    cart_add_count             INTEGER,
+    order_count                INTEGER,
+    is_popular                 BOOLEAN      NOT NULL,
+    last_month_order_count     INTEGER,
+    last_week_order_count      INTEGER,
+    meta_keywords              VARCHAR(255),
+    meta_title                 VARCHAR(255),
+    total_revenue              NUMERIC(38, 2),
+    last_order_date            TIMESTAMP(6),
+    slug                       VARCHAR(255),
+    parent_id                  BIGINT,
+    sort_order                 INTEGER,
+    active                     BOOLEAN      NOT NULL,
+    created_at                 TIMESTAMP(6),
+    updated_at                 TIMESTAMP(6),
+    CONSTRAINT uk_categories_slug UNIQUE (slug),
+    CONSTRAINT fk_categories_parent FOREIGN KEY (parent_id) REFERENCES categories (id)
+);
+
+CREATE TABLE products (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name             VARCHAR(255) NOT NULL,
+    description      VARCHAR(2000),
+    view_count       INTEGER,
+    sku              VARCHAR(255),
+    slug             VARCHAR(255),
+    brand_id         BIGINT,
+    price            NUMERIC(10, 2),
+    stock_quantity   INTEGER,
+    weight           DOUBLE PRECISION,
+    height           DOUBLE PRECISION,
+    width            DOUBLE PRECISION,
+    depth            DOUBLE PRECISION,
+    status           VARCHAR(255),
+    featured         BOOLEAN      NOT NULL,
+    created_at       TIMESTAMP(6),
+    updated_at       TIMESTAMP(6),
+    meta_title       VARCHAR(255),
+    meta_description VARCHAR(255),
+    meta_keywords    VARCHAR(255),
+    CONSTRAINT uk_products_sku UNIQUE (sku),
+    CONSTRAINT uk_products_slug UNIQUE (slug),
+    CONSTRAINT fk_products_brand FOREIGN KEY (brand_id) REFERENCES brands (id)
+);
+
+CREATE TABLE product_categories (
+    product_id  BIGINT NOT NULL,
+    category_id BIGINT NOT NULL,
+    PRIMARY KEY (product_id, category_id),
+    CONSTRAINT fk_product_categories_product FOREIGN KEY (product_id) REFERENCES products (id),
+    CONSTRAINT fk_product_categories_category FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+CREATE TABLE product_images (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id  BIGINT       NOT NULL,
+    image_type  VARCHAR(255),
+    image_url   VARCHAR(255) NOT NULL,
+    image_id    VARCHAR(255),
+    alt         VARCHAR(255),
+    sort_order  INTEGER,
+    uploaded_at TIMESTAMP(6),
+    CONSTRAINT fk_product_images_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
+
+CREATE TABLE product_attributes (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    color      VARCHAR(255),
+    size       VARCHAR(255),
+    material   VARCHAR(255),
+    CONSTRAINT fk_product_attributes_product FOREIGN KEY (product_id) REFERENCES products (id)
+);
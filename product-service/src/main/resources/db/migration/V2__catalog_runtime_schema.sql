@@ -0,0 +1,105 @@
+-- Объекты, добавленные после базовой схемы: счетчики категорий, синхронизация остатков,
+-- read-модель, статистика цен, резервы, outbox и лента изменений.
+-- IF NOT EXISTS: базы, обновлявшиеся через ddl-auto=update, уже могут содержать часть объектов.
+
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS active_product_count INTEGER;
+ALTER TABLE categories ADD COLUMN IF NOT EXISTS total_active_product_count INTEGER;
+
+-- Счетчики существующих категорий, чтобы не ждать ночной сверки (подсчет как в CategoryRepository)
+WITH RECURSIVE subtree AS (
+    SELECT id AS root_id, id AS category_id FROM categories
+    UNION ALL
+    SELECT s.root_id, c.id FROM categories c JOIN subtree s ON c.parent_id = s.category_id
+), counts AS (
+    SELECT s.root_id,
+           COUNT(DISTINCT p.id) FILTER (WHERE s.root_id = s.category_id) AS direct_cnt,
+           COUNT(DISTINCT p.id) AS total_cnt
+    FROM subtree s
+    LEFT JOIN product_categories pc ON pc.category_id = s.category_id
+    LEFT JOIN products p ON p.id = pc.product_id AND p.status = 'ACTIVE'
+    GROUP BY s.root_id
+)
+UPDATE categories c
+SET active_product_count = counts.direct_cnt,
+    total_active_product_count = counts.total_cnt
+FROM counts
+WHERE c.id = counts.root_id
+  AND (c.active_product_count IS NULL OR c.total_active_product_count IS NULL);
+
+ALTER TABLE products ADD COLUMN IF NOT EXISTS stock_synced_at TIMESTAMP(6);
+
+CREATE TABLE IF NOT EXISTS product_read_model (
+    id                 BIGINT PRIMARY KEY,
+    name               VARCHAR(255),
+    slug               VARCHAR(255),
+    sku                VARCHAR(255),
+    price              NUMERIC(10, 2),
+    stock_quantity     INTEGER,
+    status             VARCHAR(255),
+    featured           BOOLEAN NOT NULL,
+    view_count         INTEGER NOT NULL,
+    brand_id           BIGINT,
+    brand_name         VARCHAR(255),
+    main_image_url     VARCHAR(255),
+    thumbnail_url      VARCHAR(255),
+    thumbnail_webp_url VARCHAR(255),
+    category_ids       BIGINT[],
+    details            JSONB,
+    created_at         TIMESTAMP(6),
+    updated_at         TIMESTAMP(6),
+    projected_at       TIMESTAMP(6),
+    CONSTRAINT uk_product_read_model_slug UNIQUE (slug)
+);
+
+CREATE INDEX IF NOT EXISTS idx_product_read_model_status_price ON product_read_model (status, price);
+CREATE INDEX IF NOT EXISTS idx_product_read_model_categories ON product_read_model USING GIN (category_ids);
+
+CREATE TABLE IF NOT EXISTS category_price_stats (
+    category_id   BIGINT PRIMARY KEY,
+    min_price     NUMERIC(10, 2),
+    max_price     NUMERIC(10, 2),
+    product_count INTEGER,
+    histogram     VARCHAR(1000),
+    updated_at    TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_id   VARCHAR(100) NOT NULL,
+    product_id BIGINT       NOT NULL,
+    quantity   INTEGER      NOT NULL,
+    status     VARCHAR(20)  NOT NULL,
+    expires_at TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_order ON stock_reservations (order_id);
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_status_expires ON stock_reservations (status, expires_at);
+CREATE INDEX IF NOT EXISTS idx_stock_reservations_product_status ON stock_reservations (product_id, status);
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    aggregate_type VARCHAR(20)  NOT NULL,
+    aggregate_id   BIGINT       NOT NULL,
+    event_type     VARCHAR(50)  NOT NULL,
+    created_at     TIMESTAMP(6) NOT NULL,
+    published_at   TIMESTAMP(6)
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_published ON outbox_events (published_at, id);
+
+CREATE TABLE IF NOT EXISTS product_changes (
+    product_id BIGINT PRIMARY KEY,
+    change_seq BIGINT,
+    txid       XID8         NOT NULL,
+    deleted    BOOLEAN      NOT NULL,
+    changed_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE SEQUENCE IF NOT EXISTS product_change_seq;
+SELECT setval('product_change_seq', COALESCE((SELECT MAX(change_seq) FROM product_changes), 0) + 1, false);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_product_changes_seq ON product_changes (change_seq);
+CREATE INDEX IF NOT EXISTS idx_product_changes_pending ON product_changes (txid, product_id)
+    WHERE change_seq IS NULL;
@@ -0,0 +1,47 @@
+-- Индексы под частые запросы ProductRepository, CategoryRepository, BrandRepository и фильтра каталога.
+-- IF NOT EXISTS: на базах, созданных ddl-auto=update, часть индексов могла быть добавлена вручную.
+
+-- Продукты бренда, пересчет productCount, findIdsByBrandId
+CREATE INDEX IF NOT EXISTS idx_products_brand ON products (brand_id);
+
+-- Фильтр каталога: status = 'ACTIVE' и диапазон цены, сортировка по цене; countByStatus
+CREATE INDEX IF NOT EXISTS idx_products_status_price ON products (status, price);
+
+-- Популярные продукты: findMostViewedIds и сортировка по просмотрам
+CREATE INDEX IF NOT EXISTS idx_products_active_views ON products (view_count DESC, id)
+    WHERE status = 'ACTIVE';
+
+-- findByFeaturedTrue: рекомендуемых продуктов мало, индекс только по ним
+CREATE INDEX IF NOT EXISTS idx_products_featured ON products (id)
+    WHERE featured;
+
+-- Продукты категории и обход поддерева; первичный ключ (product_id, category_id)
+-- покрывает только поиск категорий продукта
+CREATE INDEX IF NOT EXISTS idx_product_categories_category ON product_categories (category_id, product_id);
+
+-- Галерея продукта по порядку и главное изображение в сводках
+CREATE INDEX IF NOT EXISTS idx_product_images_product_sort ON product_images (product_id, sort_order);
+
+-- Атрибуты продукта и поиск по атрибутам без учета регистра (Spring Data сравнивает upper())
+CREATE INDEX IF NOT EXISTS idx_product_attributes_product ON product_attributes (product_id);
+CREATE INDEX IF NOT EXISTS idx_product_attributes_color ON product_attributes (upper(color));
+CREATE INDEX IF NOT EXISTS idx_product_attributes_size ON product_attributes (upper(size));
+CREATE INDEX IF NOT EXISTS idx_product_attributes_material ON product_attributes (upper(material));
+
+-- Подкатегории по порядку, обход дерева, hasSubcategories
+CREATE INDEX IF NOT EXISTS idx_categories_parent_sort ON categories (parent_id, sort_order);
+
+-- Корневые категории
+CREATE INDEX IF NOT EXISTS idx_categories_roots_sort ON categories (sort_order)
+    WHERE parent_id IS NULL;
+
+-- Популярные категории
+CREATE INDEX IF NOT EXISTS idx_categories_popular ON categories (order_count DESC)
+    WHERE is_popular AND active;
+
+-- Списки брендов: активные/премиальные по sortOrder и имени
+CREATE INDEX IF NOT EXISTS idx_brands_active_sort ON brands (active, sort_order, name);
+CREATE INDEX IF NOT EXISTS idx_brands_premium_sort ON brands (premium, sort_order, name);
+
+-- Read-модель: фильтр по брендам
+CREATE INDEX IF NOT EXISTS idx_product_read_model_brand ON product_read_model (brand_id);
@@ -0,0 +1,13 @@
+-- Остаток горячих продуктов, разложенный по полосам. Порция переносится сюда из products.stock_quantity
+-- в транзакции резерва, поэтому переживает перезапуск и виден всем экземплярам.
+CREATE TABLE IF NOT EXISTS stock_ledger (
+    product_id BIGINT   NOT NULL REFERENCES products (id) ON DELETE CASCADE,
+    bucket     SMALLINT NOT NULL,
+    quantity   INTEGER  NOT NULL CHECK (quantity >= 0),
+    updated_at TIMESTAMP(6) NOT NULL DEFAULT now(),
+    PRIMARY KEY (product_id, bucket)
+);
+
+-- Одна действующая позиция на продукт в заказе; отмененные и истекшие строки остаются в истории
+CREATE UNIQUE INDEX IF NOT EXISTS uk_stock_reservations_order_product_active
+    ON stock_reservations (order_id, product_id) WHERE status IN ('RESERVED', 'CONFIRMED');
@@ -0,0 +1,4 @@
+-- Поиск занятых slug-ов вида база-N (SlugServiceImpl): диапазон по префиксу "база-" сравнивается
+-- побайтно операторами ~>=~ / ~<~, которые обслуживает только индекс с text_pattern_ops.
+-- Уникальный индекс uk_products_slug использует правила сортировки базы и под префикс не подходит.
+CREATE INDEX IF NOT EXISTS idx_products_slug_pattern ON products (slug text_pattern_ops);
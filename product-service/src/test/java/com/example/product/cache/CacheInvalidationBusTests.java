@@ -0,0 +1,123 @@
+package com.example.product.cache;
+
+import com.example.product.ProductApplication;
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CacheInvalidationEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Два экземпляра приложения на одной локальной БД: изменение в первом сбрасывает кэши второго.
+ * Нужна доступная PostgreSQL (DB_USERNAME/DB_PASSWORD, как и для запуска приложения).
+ */
+@EnabledIfEnvironmentVariable(named = "DB_USERNAME", matches = ".+")
+class CacheInvalidationBusTests {
+
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    @BeforeEach
+    void startInstances() {
+        first = start();
+        second = start();
+    }
+
+    @AfterEach
+    void stopInstances() {
+        if (first != null) {
+            first.close();
+        }
+        if (second != null) {
+            second.close();
+        }
+    }
+
+    @Test
+    void commitOnOneInstanceInvalidatesOtherInstance() throws InterruptedException {
+        awaitConnected(first);
+        awaitConnected(second);
+
+        BlockingQueue<CacheInvalidationEvent> receivedByFirst = capture(first);
+        BlockingQueue<CacheInvalidationEvent> receivedBySecond = capture(second);
+
+        // Несуществующий бренд: слушатели отработают, продукты не затрагиваются
+        long brandId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        new TransactionTemplate(first.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> first.publishEvent(new BrandChangedEvent(brandId)));
+
+        CacheInvalidationEvent event = receivedBySecond.poll(10, TimeUnit.SECONDS);
+        assertNotNull(event, "Второй экземпляр не получил уведомление");
+        assertEquals(CacheInvalidationEvent.Scope.BRAND, event.getScope());
+        assertEquals(brandId, event.getId());
+
+        // Свои уведомления экземпляр пропускает
+        assertNull(receivedByFirst.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rolledBackChangeIsNotPublished() throws InterruptedException {
+        awaitConnected(first);
+        awaitConnected(second);
+
+        BlockingQueue<CacheInvalidationEvent> receivedBySecond = capture(second);
+
+        long brandId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        new TransactionTemplate(first.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> {
+                    first.publishEvent(new BrandChangedEvent(brandId));
+                    status.setRollbackOnly();
+                });
+
+        assertNull(receivedBySecond.poll(2, TimeUnit.SECONDS));
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(ProductApplication.class)
+                .properties(
+                        "server.port=0",
+                        "eureka.client.enabled=false",
+                        "catalog.prewarm.enabled=false",
+                        "catalog.snapshot.enabled=false",
+                        "catalog.outbox.enabled=false")
+                .run();
+    }
+
+    private static BlockingQueue<CacheInvalidationEvent> capture(ConfigurableApplicationContext context) {
+        BlockingQueue<CacheInvalidationEvent> events = new LinkedBlockingQueue<>();
+        context.addApplicationListener((ApplicationListener<ApplicationEvent>) event -> {
+            if (event instanceof PayloadApplicationEvent<?> payload
+                    && payload.getPayload() instanceof CacheInvalidationEvent invalidation) {
+                events.add(invalidation);
+            }
+        });
+        return events;
+    }
+
+    private static void awaitConnected(ConfigurableApplicationContext context) throws InterruptedException {
+        CacheInvalidationBus bus = context.getBean(CacheInvalidationBus.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!bus.isConnected() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(bus.isConnected(), "Шина инвалидации не подключилась");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.product.cache;
+
+import com.example.product.dto.Category.CategoryDetailsDto;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductChangedEvent.ChangeType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Страница категории по slug сбрасывается изменениями продуктов, которые меняют количество
+ * активных продуктов, - локальными и пришедшими от других экземпляров
+ */
+class CatalogSlugCacheTests {
+
+    private static final String SLUG = "phones";
+
+    private CatalogSlugCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        // refresh-ahead = 1.0: фоновое обновление не вмешивается в подсчет загрузок
+        cache = new CatalogSlugCache(new SimpleMeterRegistry(), Duration.ofMinutes(10), 100, 1.0, 1);
+        cache.getCategory(SLUG, loader());
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void statusAffectingChangesInvalidateCategories() {
+        for (ChangeType type : new ChangeType[]{ChangeType.CREATED, ChangeType.UPDATED, ChangeType.DELETED,
+                ChangeType.STOCK}) {
+            int before = loads.get();
+            cache.onProductChanged(new ProductChangedEvent(1L, type));
+
+            cache.getCategory(SLUG, loader());
+            assertEquals(before + 1, loads.get(), type.name());
+        }
+    }
+
+    @Test
+    void priceImageAndAttributeChangesKeepCategories() {
+        cache.onProductChanged(new ProductChangedEvent(1L, ChangeType.PRICE));
+        cache.onProductChanged(new ProductChangedEvent(1L, ChangeType.IMAGES));
+        cache.onProductChanged(new ProductChangedEvent(1L, ChangeType.ATTRIBUTES));
+
+        cache.getCategory(SLUG, loader());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void remoteProductInvalidationResetsCategories() {
+        cache.onRemoteInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Scope.PRODUCT, 1L));
+
+        cache.getCategory(SLUG, loader());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void remoteCardInvalidationKeepsCategories() {
+        cache.onRemoteInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Scope.PRODUCT_CARD, 1L));
+
+        cache.getCategory(SLUG, loader());
+        assertEquals(1, loads.get());
+    }
+
+    private Supplier<Optional<CategoryDetailsDto>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            CategoryDetailsDto category = new CategoryDetailsDto();
+            category.setSlug(SLUG);
+            return Optional.of(category);
+        };
+    }
+}
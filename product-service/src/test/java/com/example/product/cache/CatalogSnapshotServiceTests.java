@@ -0,0 +1,154 @@
+package com.example.product.cache;
+
+import com.example.product.dto.Product.ProductListDTO;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.repository.BrandRepository;
+import com.example.product.repository.CategoryRepository;
+import com.example.product.repository.ProductRepository;
+import com.example.product.service.BrandService;
+import com.example.product.service.CategoryService;
+import com.example.product.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Снимок, записанный одним экземпляром, обслуживает витрину следующего без обращения к БД
+ */
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotServiceTests {
+
+    private static final int PAGE_SIZE = 2;
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private BrandService brandService;
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private BrandRepository brandRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductDetailCache productDetailCache;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private void stubCatalog() {
+        when(productRepository.findSlugVersions()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, "first", null}, new Object[]{2L, "second", null}, new Object[]{3L, "third", null}));
+        when(productService.getFilteredProducts(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(4);
+            List<ProductListDTO> all = List.of(product(3L), product(1L), product(2L));
+            int from = (int) pageable.getOffset();
+            return new PageImpl<>(all.subList(from, Math.min(from + pageable.getPageSize(), all.size())),
+                    pageable, all.size());
+        });
+        when(productService.getFeaturedProducts()).thenReturn(List.of(product(3L)));
+    }
+
+    @Test
+    void restartedInstanceServesListPagesFromSnapshot() {
+        stubCatalog();
+        service().refresh();
+
+        ProductService coldProductService = Mockito.mock(ProductService.class);
+        CatalogSnapshotService restarted = new CatalogSnapshotService(categoryService, brandService,
+                coldProductService, categoryRepository, brandRepository, productRepository, productDetailCache,
+                new ObjectMapper(), transactionManager, snapshotPath(), true, 5, PAGE_SIZE);
+        restarted.load();
+
+        Page<ProductListDTO> first = restarted.getListPage(0, PAGE_SIZE).orElseThrow();
+        Page<ProductListDTO> second = restarted.getListPage(1, PAGE_SIZE).orElseThrow();
+
+        assertEquals(List.of(3L, 1L), first.getContent().stream().map(ProductListDTO::getId).toList());
+        assertEquals(List.of(2L), second.getContent().stream().map(ProductListDTO::getId).toList());
+        assertEquals(3, first.getTotalElements());
+        assertEquals(List.of(3L), restarted.getFeaturedProducts().orElseThrow().stream()
+                .map(ProductListDTO::getId).toList());
+        verify(coldProductService, never()).getFilteredProducts(any(), any(), any(), any(), any());
+        verify(productDetailCache).seedSlugs(Map.of("first", 1L, "second", 2L, "third", 3L));
+    }
+
+    @Test
+    void pagesOutsideSnapshotGoToDatabase() {
+        stubCatalog();
+        CatalogSnapshotService service = service();
+        service.refresh();
+
+        assertTrue(service.getListPage(2, PAGE_SIZE).isEmpty());
+        assertTrue(service.getListPage(0, PAGE_SIZE + 1).isEmpty());
+    }
+
+    @Test
+    void productChangeBypassesSnapshotUntilRefresh() {
+        stubCatalog();
+        CatalogSnapshotService service = service();
+        service.refresh();
+
+        service.onProductChanged(new ProductChangedEvent(1L, ProductChangedEvent.ChangeType.PRICE));
+
+        assertEquals(Optional.empty(), service.getListPage(0, PAGE_SIZE));
+        service.refresh();
+        assertTrue(service.getListPage(0, PAGE_SIZE).isPresent());
+    }
+
+    @Test
+    void missingSnapshotFileIsIgnored() {
+        CatalogSnapshotService service = service();
+        service.load();
+
+        assertTrue(service.getListPage(0, PAGE_SIZE).isEmpty());
+        verify(productDetailCache, never()).seedSlugs(anyMap());
+    }
+
+    private CatalogSnapshotService service() {
+        return new CatalogSnapshotService(categoryService, brandService, productService, categoryRepository,
+                brandRepository, productRepository, productDetailCache, new ObjectMapper(), transactionManager,
+                snapshotPath(), true, 5, PAGE_SIZE);
+    }
+
+    private String snapshotPath() {
+        return directory.resolve("catalog.snapshot").toString();
+    }
+
+    private static ProductListDTO product(long id) {
+        return ProductListDTO.builder().id(id).name("product-" + id).slug("product-" + id)
+                .price(BigDecimal.TEN).build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.product.cache;
+
+import com.example.product.dto.BrandDto.BrandDTO;
+import com.example.product.dto.Category.CategoryShortDto;
+import com.example.product.dto.Product.ProductDTO;
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.CacheInvalidationEvent;
+import com.example.product.event.CategoryChangedEvent;
+import com.example.product.event.ProductProjectedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Инвалидация карточек по обратным индексам: старый slug, категория поддерева, бренд
+ */
+class ProductDetailCacheTests {
+
+    private static final long PRODUCT = 1L;
+    private static final long PARENT_CATEGORY = 10L;
+    private static final long CATEGORY = 11L;
+    private static final long BRAND = 5L;
+
+    private ProductDetailCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+    private ProductDTO product;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductDetailCache(new ObjectMapper().registerModule(new JavaTimeModule()),
+                new SimpleMeterRegistry(), DataSize.ofMegabytes(1), DataSize.ofMegabytes(1), Duration.ofMinutes(10),
+                true, 1024, 1.0, 1);
+
+        product = new ProductDTO();
+        product.setId(PRODUCT);
+        product.setSlug("old-slug");
+        product.setBrand(BrandDTO.builder().id(BRAND).build());
+        product.setCategoryPaths(List.of(List.of(category(PARENT_CATEGORY), category(CATEGORY))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void cachedCardIsNotReloaded() {
+        cache.getById(PRODUCT, loader());
+        cache.getById(PRODUCT, loader());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void parentCategoryChangeInvalidatesCard() {
+        cache.getById(PRODUCT, loader());
+
+        cache.onCategoryChanged(new CategoryChangedEvent(PARENT_CATEGORY));
+        cache.getById(PRODUCT, loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void unrelatedCategoryChangeKeepsCard() {
+        cache.getById(PRODUCT, loader());
+
+        cache.onCategoryChanged(new CategoryChangedEvent(99L));
+        cache.onRemoteInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Scope.BRAND, 99L));
+        cache.getById(PRODUCT, loader());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void brandChangeInvalidatesCard() {
+        cache.getById(PRODUCT, loader());
+
+        cache.onBrandChanged(new BrandChangedEvent(BRAND));
+        cache.getById(PRODUCT, loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidationDropsOldSlug() {
+        cache.getBySlug("old-slug", loader());
+        product.setSlug("new-slug");
+
+        cache.invalidate(PRODUCT);
+        cache.getById(PRODUCT, loader());
+        cache.getBySlug("new-slug", loader());
+        // Старый slug больше не ведет к закэшированной карточке
+        cache.getBySlug("old-slug", loader());
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void projectionInvalidatesSlugCard() {
+        cache.getBySlug("old-slug", loader());
+
+        cache.onProductProjected(new ProductProjectedEvent(List.of(PRODUCT)));
+        cache.getBySlug("old-slug", loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void remoteProjectionInvalidatesCard() {
+        cache.getById(PRODUCT, loader());
+
+        cache.onRemoteInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Scope.PRODUCT_CARD, PRODUCT));
+        cache.getById(PRODUCT, loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void encodedCardIsEncodedOncePerFormat() {
+        AtomicInteger encodings = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            cache.getEncodedById(PRODUCT, "smile", dto -> encode(encodings, "smile"), loader());
+            cache.getEncodedBySlug("old-slug", "protobuf", dto -> encode(encodings, "protobuf"), loader());
+        }
+
+        assertEquals(2, encodings.get());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void invalidationDropsEncodedCard() {
+        AtomicInteger encodings = new AtomicInteger();
+        cache.getEncodedById(PRODUCT, "smile", dto -> encode(encodings, "smile"), loader());
+        product.setName("renamed");
+
+        cache.onBrandChanged(new BrandChangedEvent(BRAND));
+        Optional<byte[]> encoded = cache.getEncodedById(PRODUCT, "smile",
+                dto -> encode(encodings, dto.getName()), loader());
+
+        assertEquals("renamed", new String(encoded.orElseThrow()));
+        assertEquals(2, encodings.get());
+        assertEquals(2, loads.get());
+    }
+
+    private static byte[] encode(AtomicInteger encodings, String value) {
+        encodings.incrementAndGet();
+        return value.getBytes();
+    }
+
+    private Supplier<Optional<ProductDTO>> loader() {
+        return () -> {
+            loads.incrementAndGet();
+            return Optional.of(product);
+        };
+    }
+
+    private static CategoryShortDto category(long id) {
+        CategoryShortDto category = new CategoryShortDto();
+        category.setId(id);
+        return category;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.product.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пределы классов из размера пула и отказ в допуске одному классу без влияния на другие
+ */
+class AdmissionControlFilterTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void limitsFollowPoolSize() {
+        filter(new MockEnvironment().withProperty(AdmissionControlFilter.POOL_SIZE_PROPERTY, "20"));
+
+        // Начальный предел - половина max-limit = pool-share * размер пула
+        assertEquals(100, limit("read"));
+        assertEquals(4, limit("search"));
+        assertEquals(4, limit("write"));
+        assertEquals(5, limit("upload"));
+    }
+
+    @Test
+    void defaultPoolSizeIsHikariDefault() {
+        filter(new MockEnvironment());
+
+        assertEquals(2, limit("search"));
+    }
+
+    @Test
+    void explicitClassLimitOverridesPoolShare() {
+        filter(new MockEnvironment().withProperty("catalog.admission.search.max-limit", "30"));
+
+        assertEquals(15, limit("search"));
+    }
+
+    @Test
+    void saturatedSearchIsRejectedWhileReadsPass() throws Exception {
+        AdmissionControlFilter filter = filter(new MockEnvironment()
+                .withProperty(AdmissionControlFilter.POOL_SIZE_PROPERTY, "5")
+                .withProperty("catalog.admission.search.max-queue", "0"));
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain blocking = (request, response) -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        // Предел поиска при пуле 5 - один запрос, очереди нет
+        CompletableFuture<Void> slowSearch = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(request("/api/products/search"), new MockHttpServletResponse(), blocking);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request("/api/products/filter"), rejected, (request, response) -> { });
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        filter.doFilter(request("/api/products/1"), read, (request, response) -> { });
+
+        assertEquals(429, rejected.getStatus());
+        assertEquals("1", rejected.getHeader("Retry-After"));
+        assertEquals(200, read.getStatus());
+        assertEquals(1.0, meterRegistry.get("http.admission.rejected")
+                .tag("class", "search").tag("reason", "queue_full").counter().count());
+
+        release.countDown();
+        slowSearch.get(5, TimeUnit.SECONDS);
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(request("/api/products/search"), admitted, (request, response) -> { });
+        assertEquals(200, admitted.getStatus());
+    }
+
+    private AdmissionControlFilter filter(MockEnvironment environment) {
+        return new AdmissionControlFilter(new ObjectMapper().findAndRegisterModules(), meterRegistry, environment);
+    }
+
+    private double limit(String endpointClass) {
+        return meterRegistry.get("http.admission.limit").tag("class", endpointClass).gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRequestURI(path);
+        return request;
+    }
+}
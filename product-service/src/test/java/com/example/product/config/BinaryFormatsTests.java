@@ -0,0 +1,71 @@
+package com.example.product.config;
+
+import com.example.product.dto.Category.CategoryShortDto;
+import com.example.product.dto.Product.ProductDTO;
+import com.example.product.dto.ProductImage.ProductImageDTO;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Protobuf-карточка с полями вне схемы (categoryPaths, даты изображений) и размерами изображений;
+ * выбор формата по Accept
+ */
+class BinaryFormatsTests {
+
+    private final BinaryFormats binaryFormats = new BinaryFormats(mapperBuilders());
+
+    @Test
+    void protobufSkipsFieldsMissingFromSchema() throws IOException {
+        ProductDTO product = new ProductDTO();
+        product.setId(1L);
+        product.setName("Кроссовки");
+        product.setCreatedAt(LocalDateTime.now());
+        product.setCategoryPaths(List.of(List.of(CategoryShortDto.builder().id(10L).name("Обувь").build())));
+        product.setImages(List.of(ProductImageDTO.builder().id(2L).uploadedAt(LocalDateTime.now())
+                .sizes(Map.of("thumbnail_webp", "https://cdn/thumb.webp", "unknown", "https://cdn/x")).build()));
+
+        byte[] encoded = binaryFormats.encode(product, BinaryFormats.APPLICATION_PROTOBUF);
+        ProductDTO decoded = (ProductDTO) binaryFormats.protobufConverter()
+                .read(ProductDTO.class, null, new MockHttpInputMessage(encoded));
+
+        assertEquals("Кроссовки", decoded.getName());
+        assertEquals(Map.of("thumbnail_webp", "https://cdn/thumb.webp"), decoded.getImages().get(0).getSizes());
+        assertNull(decoded.getCategoryPaths());
+    }
+
+    @Test
+    void formatFollowsAcceptOrder() {
+        assertEquals(Optional.of(BinaryFormats.APPLICATION_PROTOBUF), binaryFormats.select(
+                MediaType.parseMediaTypes("application/x-protobuf, application/x-jackson-smile")));
+        assertEquals(Optional.of(BinaryFormats.APPLICATION_SMILE), binaryFormats.select(
+                MediaType.parseMediaTypes("*/*, application/x-jackson-smile")));
+        assertEquals(Optional.empty(), binaryFormats.select(MediaType.parseMediaTypes("application/json")));
+    }
+
+    // Как в автоконфигурации Jackson: новый построитель на каждый запрос, даты строками
+    private static ObjectProvider<Jackson2ObjectMapperBuilder> mapperBuilders() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("jacksonObjectMapperBuilder", BeanDefinitionBuilder
+                .genericBeanDefinition(Jackson2ObjectMapperBuilder.class, () -> Jackson2ObjectMapperBuilder.json()
+                        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS))
+                .setScope(BeanDefinition.SCOPE_PROTOTYPE)
+                .getBeanDefinition());
+        return beanFactory.getBeanProvider(Jackson2ObjectMapperBuilder.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.product.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Маршрутизация на два пула: "реплика" - второй пул к той же БД с собственным application_name,
+ * по нему видно, куда ушла транзакция. Primary не в режиме восстановления, поэтому проверка
+ * отставания считает реплику актуальной.
+ * Нужна доступная PostgreSQL (DB_USERNAME/DB_PASSWORD, как и для запуска приложения).
+ */
+@SpringBootTest(properties = {
+        "catalog.datasource.replicas.enabled=true",
+        "catalog.datasource.replicas.urls=${spring.datasource.url}?ApplicationName=" + ReadReplicaRoutingTests.REPLICA,
+        "spring.datasource.hikari.data-source-properties.ApplicationName=" + ReadReplicaRoutingTests.PRIMARY
+})
+@EnabledIfEnvironmentVariable(named = "DB_USERNAME", matches = ".+")
+class ReadReplicaRoutingTests {
+
+    static final String PRIMARY = "catalog-primary";
+    static final String REPLICA = "catalog-replica";
+
+    private static final String APPLICATION_NAME_SQL = "SELECT current_setting('application_name')";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        assertEquals(REPLICA, target(true));
+        assertEquals(PRIMARY, target(false));
+    }
+
+    @Test
+    void forcedReadsStayOnPrimary() {
+        ReplicaRoutingDataSource.forcePrimary(true);
+        try {
+            assertEquals(PRIMARY, target(true));
+        } finally {
+            ReplicaRoutingDataSource.forcePrimary(false);
+        }
+    }
+
+    @Test
+    void cacheFillAfterInvalidationReadsPrimary() {
+        ReplicaRoutingDataSource.markCacheInvalidated();
+
+        assertEquals(PRIMARY, ReplicaRoutingDataSource.cacheFill(() -> target(true)));
+        // Обычное чтение вне загрузки кэша по-прежнему идет на реплику
+        assertEquals(REPLICA, target(true));
+    }
+
+    private String target(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> jdbcTemplate.queryForObject(APPLICATION_NAME_SQL, String.class));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.product.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Окно чтения с primary: ставится запросом на изменение и принимается от клиента
+ * только в пределах now + window
+ */
+class ReadYourWritesFilterTests {
+
+    private static final long NOW = 1_800_000_000_000L;
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+
+    @Test
+    void writeSetsWindowInHeaderAndCookie() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long before = System.currentTimeMillis();
+
+        filter.doFilter(new MockHttpServletRequest("PUT", "/api/products/1"), response, (req, res) -> { });
+
+        long until = Long.parseLong(response.getHeader(ReadYourWritesFilter.HEADER_NAME));
+        assertEquals(5000, until - before, 1000);
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie);
+        assertEquals(String.valueOf(until), cookie.getValue());
+    }
+
+    @Test
+    void windowWithinLimitIsAccepted() {
+        assertEquals(NOW + 5000, filter.primaryUntil(withHeader(NOW + 5000), NOW));
+        assertEquals(NOW + 1000, filter.primaryUntil(withCookie(NOW + 1000), NOW));
+    }
+
+    @Test
+    void windowBeyondLimitIsIgnored() {
+        assertEquals(0, filter.primaryUntil(withHeader(NOW + 5001), NOW));
+        assertEquals(0, filter.primaryUntil(withCookie(Long.MAX_VALUE), NOW));
+    }
+
+    @Test
+    void malformedOrMissingWindowIsIgnored() {
+        MockHttpServletRequest malformed = new MockHttpServletRequest("GET", "/api/products/1");
+        malformed.addHeader(ReadYourWritesFilter.HEADER_NAME, "tomorrow");
+
+        assertEquals(0, filter.primaryUntil(malformed, NOW));
+        assertEquals(0, filter.primaryUntil(new MockHttpServletRequest("GET", "/api/products/1"), NOW));
+    }
+
+    private static MockHttpServletRequest withHeader(long until) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.addHeader(ReadYourWritesFilter.HEADER_NAME, String.valueOf(until));
+        return request;
+    }
+
+    private static MockHttpServletRequest withCookie(long until) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/products/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, String.valueOf(until)));
+        return request;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.product.outbox;
+
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductChangedEvent.ChangeType;
+import com.example.product.repository.OutboxJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Outbox на реальной БД: строки появляются только с коммитом изменения, экземпляры relay
+ * не забирают заблокированные чужие пачки, опубликованное отмечается и удаляется по сроку хранения.
+ * Нужна доступная PostgreSQL (DB_USERNAME/DB_PASSWORD, как и для запуска приложения).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DB_USERNAME", matches = ".+")
+class OutboxIntegrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OutboxJdbcRepository outboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private OutboxWriter writer;
+    private final InMemoryOutboxSink sink = new InMemoryOutboxSink(10_000);
+    // Отрицательные ID не пересекаются с продуктами, изменения которых пишет само приложение
+    private final long aggregateBase = -ThreadLocalRandom.current().nextLong(1_000_000, Long.MAX_VALUE / 2);
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        writer = new OutboxWriter(outboxRepository, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_id BETWEEN ? AND ?",
+                aggregateBase, aggregateBase + 100);
+    }
+
+    @Test
+    void rowsAppearOnlyWithCommittedChange() {
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.onProductChanged(new ProductChangedEvent(aggregateBase, ChangeType.UPDATED));
+            writer.onProductChanged(new ProductChangedEvent(aggregateBase, ChangeType.UPDATED));
+            // До коммита события только в буфере транзакции
+            assertEquals(0, countRows());
+        });
+        assertEquals(1, countRows());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.onProductChanged(new ProductChangedEvent(aggregateBase + 1, ChangeType.UPDATED));
+            status.setRollbackOnly();
+        });
+        assertEquals(1, countRows());
+    }
+
+    @Test
+    void lockedBatchIsSkippedByAnotherRelay() throws Exception {
+        List<Long> ids = insertEvents(4);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<OutboxMessage>> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                List<OutboxMessage> batch = outboxRepository.lockBatch(Integer.MAX_VALUE);
+                locked.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return batch;
+            }));
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+            // Вторая выборка не ждет блокировок первой и не получает ее строки
+            List<OutboxMessage> second = transactionTemplate.execute(status ->
+                    outboxRepository.lockBatch(Integer.MAX_VALUE));
+            release.countDown();
+
+            Set<Long> firstIds = messageIds(first.get(10, TimeUnit.SECONDS));
+            assertTrue(firstIds.containsAll(ids));
+            assertTrue(messageIds(second).stream().noneMatch(firstIds::contains));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void relayPublishesInBatchesAndMarksRows() {
+        List<Long> ids = insertEvents(5);
+
+        relay(Duration.ofHours(1)).relay();
+
+        List<Long> published = sink.getMessages().stream()
+                .map(OutboxMessage::id)
+                .filter(ids::contains)
+                .toList();
+        assertEquals(ids, published);
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events " +
+                "WHERE aggregate_id BETWEEN ? AND ? AND published_at IS NULL",
+                Integer.class, aggregateBase, aggregateBase + 100));
+    }
+
+    @Test
+    void pruneDeletesOnlyRowsPublishedBeforeRetention() {
+        List<Long> ids = insertEvents(3);
+        jdbcTemplate.update("UPDATE outbox_events SET published_at = now() - interval '2 hours' WHERE id IN (?, ?)",
+                ids.get(0), ids.get(1));
+
+        relay(Duration.ofHours(1)).prune();
+
+        assertEquals(List.of(ids.get(2)), jdbcTemplate.queryForList(
+                "SELECT id FROM outbox_events WHERE aggregate_id BETWEEN ? AND ? ORDER BY id",
+                Long.class, aggregateBase, aggregateBase + 100));
+    }
+
+    // Пачки по 2 события, чтобы relay прошел несколько пачек за запуск; удаление тоже пачками по 1
+    private OutboxRelay relay(Duration retention) {
+        return new OutboxRelay(outboxRepository,
+                new StaticListableBeanFactory(Map.of("sink", sink)).getBeanProvider(OutboxSink.class),
+                transactionManager, new SimpleMeterRegistry(), true, 2, 1000, retention, 1);
+    }
+
+    private List<Long> insertEvents(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(jdbcTemplate.queryForObject("INSERT INTO outbox_events " +
+                    "(aggregate_type, aggregate_id, event_type, created_at) VALUES (?, ?, 'product.updated', now()) " +
+                    "RETURNING id", Long.class, OutboxMessage.PRODUCT, aggregateBase + i));
+        }
+        return ids;
+    }
+
+    private int countRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events WHERE aggregate_id BETWEEN ? AND ?",
+                Integer.class, aggregateBase, aggregateBase + 100);
+    }
+
+    private static Set<Long> messageIds(List<OutboxMessage> messages) {
+        Set<Long> ids = new HashSet<>();
+        messages.forEach(message -> ids.add(message.id()));
+        return ids;
+    }
+}
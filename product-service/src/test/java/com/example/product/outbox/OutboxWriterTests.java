@@ -0,0 +1,96 @@
+package com.example.product.outbox;
+
+import com.example.product.event.BrandChangedEvent;
+import com.example.product.event.ProductChangedEvent;
+import com.example.product.event.ProductChangedEvent.ChangeType;
+import com.example.product.repository.OutboxJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Буфер событий транзакции: вставка одной пачкой перед коммитом, повторы объединяются,
+ * откат ничего не записывает
+ */
+@ExtendWith(MockitoExtension.class)
+class OutboxWriterTests {
+
+    @Mock
+    private OutboxJdbcRepository outboxRepository;
+
+    @Captor
+    private ArgumentCaptor<List<OutboxMessage>> inserted;
+
+    private OutboxWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new OutboxWriter(outboxRepository, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void transactionEventsAreInsertedOnceBeforeCommit() {
+        beginTransaction();
+
+        writer.onProductChanged(new ProductChangedEvent(1L, ChangeType.UPDATED));
+        writer.onProductChanged(new ProductChangedEvent(1L, ChangeType.UPDATED));
+        writer.onProductChanged(new ProductChangedEvent(1L, ChangeType.STOCK));
+        writer.onBrandChanged(new BrandChangedEvent(7L));
+        verifyNoInteractions(outboxRepository);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+
+        verify(outboxRepository).insert(inserted.capture());
+        assertEquals(List.of("product.updated", "product.stock", "brand.changed"),
+                inserted.getValue().stream().map(OutboxMessage::eventType).toList());
+    }
+
+    @Test
+    void rolledBackTransactionWritesNothing() {
+        beginTransaction();
+
+        writer.onProductChanged(new ProductChangedEvent(1L, ChangeType.UPDATED));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(outboxRepository);
+    }
+
+    @Test
+    void eventOutsideTransactionIsInsertedImmediately() {
+        writer.onProductChanged(new ProductChangedEvent(1L, ChangeType.DELETED));
+
+        verify(outboxRepository).insert(inserted.capture());
+        assertEquals("product.deleted", inserted.getValue().get(0).eventType());
+    }
+
+    @Test
+    void disabledWriterIgnoresEvents() {
+        new OutboxWriter(outboxRepository, false).onProductChanged(new ProductChangedEvent(1L, ChangeType.UPDATED));
+
+        verifyNoInteractions(outboxRepository);
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+}
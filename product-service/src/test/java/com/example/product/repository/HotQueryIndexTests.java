@@ -0,0 +1,223 @@
+package com.example.product.repository;
+
+import com.example.product.service.ProductService;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Частые запросы каталога должны использовать индексы из db/migration.
+ * SQL не переписывается вручную: запросы выполняются через репозитории и спецификации,
+ * а текст, который сформировал Hibernate, перехватывается StatementInspector.
+ * Затем в транзакции, которая откатывается, таблицы заполняются данными реалистичного объема,
+ * собирается статистика, и для каждого запроса строится обобщенный план (значения параметров
+ * на него не влияют) при включенном последовательном чтении.
+ * Нужна доступная PostgreSQL (DB_USERNAME/DB_PASSWORD, как и для запуска приложения).
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.product.repository.HotQueryIndexTests$SqlCapture"
+})
+@EnabledIfEnvironmentVariable(named = "DB_USERNAME", matches = ".+")
+class HotQueryIndexTests {
+
+    private static final String SEED_PREFIX = "hot-query-test-";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductImageRepository productImageRepository;
+
+    @Autowired
+    private ProductAttributeRepository productAttributeRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Test
+    void hotQueriesUseIndexes() {
+        Map<String, String> expectedIndexBySql = new LinkedHashMap<>();
+        expectedIndexBySql.put(capture("products", () -> productService.getFilteredProducts(
+                        1L, null, BigDecimal.ONE, BigDecimal.TEN, PageRequest.of(0, 20, Sort.by("price")))),
+                "idx_product_categories_category");
+        expectedIndexBySql.put(capture("products", () -> productService.getFilteredProducts(
+                        null, null, BigDecimal.ONE, BigDecimal.TEN, PageRequest.of(0, 20, Sort.by("price")))),
+                "idx_products_status_price");
+        expectedIndexBySql.put(capture("products", () -> productRepository.findMostViewedIds(PageRequest.of(0, 20))),
+                "idx_products_active_views");
+        expectedIndexBySql.put(capture("products", () -> productRepository.findIdsByBrandId(1L)),
+                "idx_products_brand");
+        expectedIndexBySql.put(capture("products", () -> productRepository.findByFeaturedTrue()),
+                "idx_products_featured");
+        expectedIndexBySql.put(capture("products",
+                        () -> productRepository.findSlugsByBaseIn(List.of(SEED_PREFIX + "1", SEED_PREFIX + "2"))),
+                "idx_products_slug_pattern");
+        expectedIndexBySql.put(capture("product_categories", () -> productRepository.findIdsByCategorySubtree(1L)),
+                "idx_product_categories_category");
+        expectedIndexBySql.put(capture("product_images",
+                        () -> productImageRepository.findByProductIdOrderBySortOrderAsc(1L)),
+                "idx_product_images_product_sort");
+        expectedIndexBySql.put(capture("product_attributes",
+                        () -> productAttributeRepository.findByColorIgnoreCase("red")),
+                "idx_product_attributes_color");
+        expectedIndexBySql.put(capture("product_attributes",
+                        () -> productAttributeRepository.findByMaterialIgnoreCase("cotton")),
+                "idx_product_attributes_material");
+        expectedIndexBySql.put(capture("categories",
+                        () -> categoryRepository.findByParentId(1L, Sort.by("sortOrder"))),
+                "idx_categories_parent_sort");
+
+        List<String> failures = new ArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            seed();
+            jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+
+            expectedIndexBySql.forEach((sql, expectedIndex) -> {
+                String plan = explain(sql);
+                if (!plan.contains(expectedIndex)) {
+                    failures.add("ожидался индекс " + expectedIndex + "\nSQL: " + sql + "\nплан:\n" + plan);
+                }
+            });
+            status.setRollbackOnly();
+        });
+
+        if (!failures.isEmpty()) {
+            fail(String.join("\n\n", failures));
+        }
+    }
+
+    /**
+     * Выполнить запрос и вернуть первый сформированный Hibernate SELECT по таблице
+     */
+    private String capture(String table, Runnable query) {
+        List<String> statements = new ArrayList<>();
+        SqlCapture.STATEMENTS.set(statements);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> query.run());
+        } finally {
+            SqlCapture.STATEMENTS.remove();
+        }
+
+        String marker = " " + table + " ";
+        for (String sql : statements) {
+            String normalized = sql.toLowerCase().replaceAll("\\s+", " ") + " ";
+            if (normalized.trim().startsWith("select") || normalized.trim().startsWith("with")) {
+                if (normalized.contains(marker)) {
+                    return sql;
+                }
+            }
+        }
+        fail("Не перехвачен запрос к таблице " + table + ": " + statements);
+        return null;
+    }
+
+    /**
+     * Обобщенный план запроса: параметры JDBC заменяются на $n, значения - NULL
+     */
+    private String explain(String sql) {
+        StringBuilder prepared = new StringBuilder();
+        int parameters = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                prepared.append('$').append(++parameters);
+            } else {
+                prepared.append(c);
+            }
+        }
+
+        jdbcTemplate.execute("PREPARE hot_query AS " + prepared);
+        try {
+            String arguments = parameters == 0 ? "" : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN EXECUTE hot_query" + arguments, String.class));
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE hot_query");
+        }
+    }
+
+    /**
+     * Каталог среднего магазина: 500 брендов, 2000 категорий, 100 тысяч продуктов
+     */
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO brands (name, slug, active, premium, sort_order) " +
+                "SELECT ? || g, ? || g, g % 10 <> 0, g % 20 = 0, g % 50 FROM generate_series(1, 500) g",
+                SEED_PREFIX, SEED_PREFIX);
+        jdbcTemplate.update("INSERT INTO categories (name, slug, is_popular, active, sort_order, order_count) " +
+                "SELECT ? || g, ? || g, g % 50 = 0, true, g % 30, g FROM generate_series(1, 2000) g",
+                SEED_PREFIX, SEED_PREFIX);
+        jdbcTemplate.update("WITH roots AS (SELECT array_agg(id) AS ids FROM (" +
+                "    SELECT id FROM categories WHERE slug LIKE ? ORDER BY id LIMIT 100) r) " +
+                "UPDATE categories c SET parent_id = roots.ids[1 + c.id % 100] FROM roots " +
+                "WHERE c.slug LIKE ? AND NOT c.id = ANY(roots.ids)",
+                SEED_PREFIX + "%", SEED_PREFIX + "%");
+        jdbcTemplate.update("WITH b AS (SELECT array_agg(id) AS ids FROM brands WHERE slug LIKE ?) " +
+                "INSERT INTO products (name, sku, slug, brand_id, price, stock_quantity, status, featured, view_count) " +
+                "SELECT ? || g, ? || g, ? || g, b.ids[1 + g % 500], (g % 10000) / 10.0, g % 100, " +
+                "    CASE WHEN g % 10 = 0 THEN 'INACTIVE' WHEN g % 25 = 0 THEN 'OUT_OF_STOCK' ELSE 'ACTIVE' END, " +
+                "    g % 200 = 0, g % 5000 FROM generate_series(1, 100000) g CROSS JOIN b",
+                SEED_PREFIX + "%", SEED_PREFIX, SEED_PREFIX, SEED_PREFIX);
+        jdbcTemplate.update("WITH c AS (SELECT array_agg(id) AS ids FROM categories WHERE slug LIKE ?) " +
+                "INSERT INTO product_categories (product_id, category_id) " +
+                "SELECT DISTINCT p.id, c.ids[1 + (p.id * k) % 2000] FROM products p CROSS JOIN c " +
+                "CROSS JOIN generate_series(1, 2) k WHERE p.slug LIKE ? " +
+                "ON CONFLICT DO NOTHING",
+                SEED_PREFIX + "%", SEED_PREFIX + "%");
+        jdbcTemplate.update("INSERT INTO product_images (product_id, image_type, image_url, sort_order) " +
+                "SELECT p.id, CASE WHEN k = 1 THEN 'MAIN' ELSE 'GALLERY' END, 'https://example.com/' || p.id || '-' || k, k " +
+                "FROM products p CROSS JOIN generate_series(1, 3) k WHERE p.slug LIKE ?",
+                SEED_PREFIX + "%");
+        jdbcTemplate.update("INSERT INTO product_attributes (product_id, color, size, material) " +
+                "SELECT p.id, 'color-' || (p.id % 40), 'size-' || (p.id % 8), 'material-' || (p.id % 25) " +
+                "FROM products p WHERE p.slug LIKE ?",
+                SEED_PREFIX + "%");
+
+        for (String table : List.of("brands", "categories", "products", "product_categories",
+                "product_images", "product_attributes")) {
+            jdbcTemplate.execute("ANALYZE " + table);
+        }
+    }
+
+    /**
+     * Запоминает SQL, который Hibernate отправляет в БД из потока теста
+     * (фоновые задачи приложения в это время тоже выполняют запросы)
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = STATEMENTS.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.model.Category;
+import com.example.product.model.CategoryPriceStats;
+import com.example.product.repository.CategoryPriceStatsRepository;
+import com.example.product.repository.CategoryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Фоновый пересчет статистики цен: категории с предками пересчитываются после коммита,
+ * статистика всего каталога - отдельно и не чаще своего расписания, ошибки возвращают категории в очередь
+ */
+@ExtendWith(MockitoExtension.class)
+class CategoryPriceStatsServiceImplTests {
+
+    private static final int BUCKETS = 10;
+
+    @Mock
+    private CategoryPriceStatsRepository priceStatsRepository;
+
+    @Mock
+    private CategoryRepository categoryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<Collection<Long>> computed;
+
+    @Captor
+    private ArgumentCaptor<Iterable<CategoryPriceStats>> saved;
+
+    @Captor
+    private ArgumentCaptor<Iterable<CategoryPriceStats>> deleted;
+
+    private CategoryPriceStatsServiceImpl service;
+    private Category parent;
+    private Category child;
+
+    @BeforeEach
+    void setUp() {
+        service = new CategoryPriceStatsServiceImpl(priceStatsRepository, categoryRepository, transactionManager,
+                BUCKETS, 200);
+        parent = Category.builder().id(1L).build();
+        child = Category.builder().id(2L).parent(parent).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    void changedCategoriesAreRecomputedWithAncestorsButWithoutCatalog() {
+        when(priceStatsRepository.computeStats(anyCollection(), anyInt())).thenReturn(List.of());
+        when(priceStatsRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        service.markChanged(List.of(child));
+
+        assertEquals(2, service.refreshChanged());
+        verify(priceStatsRepository).computeStats(computed.capture(), anyInt());
+        assertEquals(Set.of(1L, 2L), new HashSet<>(computed.getValue()));
+        verify(priceStatsRepository, never()).computeGlobalStats(anyInt());
+
+        // Очередь разобрана
+        assertEquals(0, service.refreshChanged());
+    }
+
+    @Test
+    void catalogIsRecomputedOnceForManyChanges() {
+        when(priceStatsRepository.computeGlobalStats(BUCKETS)).thenReturn(rows(row(0L, "5.00", "90.00", 40)));
+        when(priceStatsRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        service.markChanged(List.of(parent));
+        service.markChanged(List.of(child));
+        service.markChanged(List.of());
+
+        assertTrue(service.refreshGlobal());
+        assertFalse(service.refreshGlobal());
+        verify(priceStatsRepository, times(1)).computeGlobalStats(BUCKETS);
+        verify(priceStatsRepository, never()).computeStats(anyCollection(), anyInt());
+
+        verify(priceStatsRepository).saveAll(saved.capture());
+        CategoryPriceStats catalog = saved.getValue().iterator().next();
+        assertEquals(CategoryPriceStats.ALL_PRODUCTS, catalog.getCategoryId());
+        assertEquals(40, catalog.getProductCount());
+    }
+
+    @Test
+    void catalogIsNotRecomputedWithoutChanges() {
+        assertFalse(service.refreshGlobal());
+
+        verifyNoInteractions(priceStatsRepository);
+    }
+
+    @Test
+    void changesAreQueuedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.markChanged(List.of(parent));
+        assertEquals(0, service.refreshChanged());
+        assertFalse(service.refreshGlobal());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        when(priceStatsRepository.computeStats(anyCollection(), anyInt())).thenReturn(List.of());
+        when(priceStatsRepository.computeGlobalStats(BUCKETS)).thenReturn(List.of());
+        when(priceStatsRepository.findAllById(anyCollection())).thenReturn(List.of());
+        assertEquals(1, service.refreshChanged());
+        assertTrue(service.refreshGlobal());
+    }
+
+    @Test
+    void statsAreUpdatedAndEmptiedCategoriesDeleted() {
+        CategoryPriceStats stale = CategoryPriceStats.builder().categoryId(1L).productCount(3).build();
+        CategoryPriceStats emptied = CategoryPriceStats.builder().categoryId(2L).productCount(1).build();
+        when(priceStatsRepository.computeStats(anyCollection(), anyInt())).thenReturn(rows(row(1L, "10.00", "20.00", 5)));
+        when(priceStatsRepository.findAllById(anyCollection())).thenReturn(List.of(stale, emptied));
+
+        service.markChanged(List.of(child));
+        service.refreshChanged();
+
+        verify(priceStatsRepository).saveAll(saved.capture());
+        assertEquals(List.of(stale), toList(saved.getValue()));
+        assertEquals(5, stale.getProductCount());
+        assertEquals(new BigDecimal("20.00"), stale.getMaxPrice());
+        verify(priceStatsRepository).deleteAll(deleted.capture());
+        assertEquals(List.of(emptied), toList(deleted.getValue()));
+    }
+
+    @Test
+    void failedRefreshKeepsCategoriesQueued() {
+        when(priceStatsRepository.computeStats(anyCollection(), anyInt()))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(List.of());
+        when(priceStatsRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        service.markChanged(List.of(parent));
+
+        assertEquals(0, service.refreshChanged());
+        assertEquals(1, service.refreshChanged());
+    }
+
+    @Test
+    void failedCatalogRefreshIsRetried() {
+        when(priceStatsRepository.computeGlobalStats(BUCKETS))
+                .thenThrow(new IllegalStateException("db down"))
+                .thenReturn(List.of());
+        when(priceStatsRepository.findAllById(anyCollection())).thenReturn(List.of());
+
+        service.markChanged(List.of(parent));
+
+        assertFalse(service.refreshGlobal());
+        assertTrue(service.refreshGlobal());
+    }
+
+    private static Object[] row(long categoryId, String min, String max, int count) {
+        return new Object[]{categoryId, new BigDecimal(min), new BigDecimal(max), count, "1,2,3"};
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static <T> List<T> toList(Iterable<T> values) {
+        List<T> list = new ArrayList<>();
+        values.forEach(list::add);
+        return list;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.Exception.InsufficientStockException;
+import com.example.product.dto.Stock.StockReservationLineDTO;
+import com.example.product.dto.Stock.StockReservationRequest;
+import com.example.product.service.StockReservationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Горячий продукт под параллельными резервами: продается ровно имеющийся остаток,
+ * а после отмены весь остаток снова доступен (в строке продукта и полосах).
+ * Нужна доступная PostgreSQL (DB_USERNAME/DB_PASSWORD, как и для запуска приложения).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DB_USERNAME", matches = ".+")
+class HotStockLedgerIntegrationTests {
+
+    private static final int STOCK = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
+    private final String prefix = "ledger-test-" + UUID.randomUUID() + "-";
+    private Long productId;
+
+    @BeforeEach
+    void createProduct() {
+        productId = jdbcTemplate.queryForObject("INSERT INTO products (name, sku, slug, price, stock_quantity, status) " +
+                "VALUES (?, ?, ?, 10, ?, 'ACTIVE') RETURNING id", Long.class, prefix, prefix, prefix, STOCK);
+        hotStockLedger.enable(productId);
+    }
+
+    @AfterEach
+    void deleteProduct() {
+        hotStockLedger.disable(productId);
+        jdbcTemplate.update("DELETE FROM stock_reservations WHERE order_id LIKE ?", prefix + "%");
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+    }
+
+    @Test
+    void parallelReservationsNeverOversell() throws Exception {
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < STOCK + 100; i++) {
+                String orderId = prefix + i;
+                futures.add(executor.submit(() -> {
+                    try {
+                        reservationService.reserve(request(orderId, 1));
+                        reserved.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(STOCK, reserved.get());
+        assertEquals(100, rejected.get());
+        assertEquals(0, available());
+
+        for (int i = 0; i < STOCK + 100; i++) {
+            if (!reservationService.getReservation(prefix + i).isEmpty()) {
+                reservationService.release(prefix + i);
+            }
+        }
+        assertEquals(STOCK, available());
+    }
+
+    @Test
+    void repeatedRequestReservesOnce() {
+        reservationService.reserve(request(prefix + "retry", 5));
+        reservationService.reserve(request(prefix + "retry", 5));
+
+        assertEquals(STOCK - 5, available());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM stock_reservations WHERE order_id = ?", Integer.class, prefix + "retry"));
+    }
+
+    private int available() {
+        return jdbcTemplate.queryForObject("SELECT p.stock_quantity + COALESCE(" +
+                "(SELECT SUM(quantity) FROM stock_ledger WHERE product_id = p.id), 0) FROM products p WHERE p.id = ?",
+                Integer.class, productId);
+    }
+
+    private StockReservationRequest request(String orderId, int quantity) {
+        return StockReservationRequest.builder()
+                .orderId(orderId)
+                .lines(List.of(StockReservationLineDTO.builder().productId(productId).quantity(quantity).build()))
+                .build();
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.enums.ProductStatus;
+import com.example.product.repository.StockJdbcRepository;
+import com.example.product.repository.StockJdbcRepository.StockChange;
+import com.example.product.repository.StockLedgerJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Порядок обращения к полосам: свободная полоса, пополнение из строки продукта,
+ * сборка раздробленного остатка; возврат в полосы и сверка при запуске
+ */
+@ExtendWith(MockitoExtension.class)
+class HotStockLedgerTests {
+
+    private static final long HOT = 7L;
+    private static final int STRIPES = 4;
+
+    @Mock
+    private StockLedgerJdbcRepository ledgerRepository;
+
+    @Mock
+    private StockJdbcRepository stockJdbcRepository;
+
+    @Mock
+    private StockStatusTransitions statusTransitions;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private HotStockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        ledger = new HotStockLedger(ledgerRepository, stockJdbcRepository, statusTransitions, transactionManager,
+                new SimpleMeterRegistry(), 50, STRIPES, Duration.ofSeconds(30), List.of(HOT));
+    }
+
+    @Test
+    void productOutsideHotSetIsNotReserved() {
+        assertEquals(HotStockLedger.Result.NOT_HOT, ledger.tryReserve(1L, 3));
+        verifyNoInteractions(ledgerRepository, stockJdbcRepository);
+    }
+
+    @Test
+    void reservesFromFreeBucketWithoutTouchingProductRow() {
+        when(ledgerRepository.take(eq(HOT), eq(3), anyInt(), eq(STRIPES), eq(true))).thenReturn(true);
+
+        assertEquals(HotStockLedger.Result.RESERVED, ledger.tryReserve(HOT, 3));
+        verify(ledgerRepository, never()).refill(anyLong(), anyInt(), anyInt());
+        verifyNoInteractions(stockJdbcRepository);
+    }
+
+    @Test
+    void refillsBucketWhenFreeBucketsAreEmpty() {
+        when(ledgerRepository.take(eq(HOT), eq(3), anyInt(), eq(STRIPES), eq(true))).thenReturn(false);
+        when(ledgerRepository.refill(eq(HOT), anyInt(), eq(50))).thenReturn(50);
+        when(ledgerRepository.take(eq(HOT), eq(3), anyInt(), eq(STRIPES), eq(false))).thenReturn(true);
+
+        assertEquals(HotStockLedger.Result.RESERVED, ledger.tryReserve(HOT, 3));
+
+        InOrder order = inOrder(ledgerRepository);
+        order.verify(ledgerRepository).take(eq(HOT), eq(3), anyInt(), eq(STRIPES), eq(true));
+        order.verify(ledgerRepository).refill(eq(HOT), anyInt(), eq(50));
+        order.verify(ledgerRepository).take(eq(HOT), eq(3), anyInt(), eq(STRIPES), eq(false));
+        verify(ledgerRepository, never()).drain(anyLong(), anyInt());
+    }
+
+    @Test
+    void largeLineRefillsAtLeastItsQuantity() {
+        when(ledgerRepository.take(eq(HOT), eq(80), anyInt(), eq(STRIPES), anyBoolean()))
+                .thenReturn(false, true);
+
+        ledger.tryReserve(HOT, 80);
+
+        verify(ledgerRepository).refill(eq(HOT), anyInt(), eq(80));
+    }
+
+    @Test
+    void fragmentedStockIsCollectedIntoProductRow() {
+        when(ledgerRepository.take(eq(HOT), eq(10), anyInt(), eq(STRIPES), anyBoolean())).thenReturn(false);
+        when(ledgerRepository.drain(HOT, 0))
+                .thenReturn(List.of(new StockChange(HOT, 12, ProductStatus.ACTIVE, ProductStatus.ACTIVE)));
+        when(stockJdbcRepository.reserve(Map.of(HOT, 10)))
+                .thenReturn(List.of(new StockChange(HOT, 2, ProductStatus.ACTIVE, ProductStatus.ACTIVE)));
+
+        assertEquals(HotStockLedger.Result.RESERVED, ledger.tryReserve(HOT, 10));
+
+        InOrder order = inOrder(ledgerRepository, stockJdbcRepository);
+        order.verify(ledgerRepository).drain(HOT, 0);
+        order.verify(stockJdbcRepository).reserve(Map.of(HOT, 10));
+    }
+
+    @Test
+    void insufficientWhenNeitherBucketsNorRowHaveStock() {
+        when(ledgerRepository.take(eq(HOT), eq(10), anyInt(), eq(STRIPES), anyBoolean())).thenReturn(false);
+        when(stockJdbcRepository.reserve(Map.of(HOT, 10))).thenReturn(List.of());
+
+        assertEquals(HotStockLedger.Result.INSUFFICIENT, ledger.tryReserve(HOT, 10));
+    }
+
+    @Test
+    void releasePutsQuantityIntoBucket() {
+        assertTrue(ledger.release(HOT, 4));
+        verify(ledgerRepository).put(eq(HOT), anyInt(), eq(4));
+    }
+
+    @Test
+    void releaseOfProductNoLongerHotReturnsToProductRow() {
+        ledger.disable(HOT);
+
+        ledger.releaseOrReturn(HOT, 4);
+
+        assertFalse(ledger.isHot(HOT));
+        verify(ledgerRepository, never()).put(anyLong(), anyInt(), anyInt());
+        verify(stockJdbcRepository).returnStock(Map.of(HOT, 4));
+    }
+
+    @Test
+    void disableDrainsBuckets() {
+        ledger.disable(HOT);
+
+        verify(ledgerRepository).drain(HOT, 0);
+    }
+
+    @Test
+    void reconcileDrainsOnlyProductsThatAreNotHot() {
+        when(ledgerRepository.findTotals()).thenReturn(Map.of(HOT, 20, 9L, 5));
+
+        ledger.reconcile();
+
+        verify(ledgerRepository).drain(9L, 0);
+        verify(ledgerRepository, never()).drain(HOT, 0);
+    }
+
+    @Test
+    void trimDropsExcessFromBuckets() {
+        ledger.trim(HOT, 6);
+
+        verify(ledgerRepository).drain(HOT, 6);
+        verify(stockJdbcRepository, never()).returnStock(anyMap());
+    }
+}
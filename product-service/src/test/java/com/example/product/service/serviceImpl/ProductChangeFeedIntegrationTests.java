@@ -0,0 +1,232 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Product.ProductChangeDTO;
+import com.example.product.dto.Product.ProductChangesResponse;
+import com.example.product.repository.ProductChangeJdbcRepository;
+import com.example.product.service.ProductChangeFeedService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Лента изменений продуктов: номера получают только изменения завершенных транзакций
+ * (txid ниже xmin снимка), поэтому курсор since не пропускает долгие транзакции;
+ * удаление приходит строкой-надгробием; страницы since/limit идут по номерам без пропусков.
+ * Нужна доступная PostgreSQL (DB_USERNAME/DB_PASSWORD, как и для запуска приложения).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DB_USERNAME", matches = ".+")
+class ProductChangeFeedIntegrationTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ProductChangeJdbcRepository changeRepository;
+
+    @Autowired
+    private ProductChangeFeedService changeFeedService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM product_changes WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+    }
+
+    @Test
+    void openTransactionIsNotNumberedUntilCommit() throws Exception {
+        Long early = syntheticId();
+        Long late = syntheticId();
+        record(early);
+
+        CountDownLatch recorded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> open = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                changeRepository.record(List.of(late), List.of());
+                recorded.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(recorded.await(10, TimeUnit.SECONDS));
+
+            // Открытая транзакция держит xmin: номер получает только уже завершенное изменение
+            assignSequence();
+            assertNotNull(sequenceOf(early));
+
+            // Закоммиченная после выдачи номеров транзакция получает номер больше выданных
+            release.countDown();
+            open.get(10, TimeUnit.SECONDS);
+            assignSequence();
+            assertTrue(sequenceOf(late) > sequenceOf(early));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deletedProductIsReturnedAsTombstone() {
+        long cursor = maxSequence();
+        Long live = createProduct();
+        Long removed = syntheticId();
+        transactionTemplate.executeWithoutResult(status ->
+                changeRepository.record(List.of(live), List.of(removed)));
+        assignSequence();
+
+        List<ProductChangeDTO> changes = ownChanges(changeFeedService.getChanges(cursor, 100));
+
+        assertEquals(2, changes.size());
+        ProductChangeDTO liveChange = find(changes, live);
+        assertFalse(liveChange.isDeleted());
+        assertEquals(live, liveChange.getProduct().getId());
+        ProductChangeDTO tombstone = find(changes, removed);
+        assertTrue(tombstone.isDeleted());
+        assertNull(tombstone.getProduct());
+    }
+
+    @Test
+    void pagesFollowSequenceWithoutGapsOrRepeats() {
+        long cursor = maxSequence();
+        Long first = syntheticId();
+        Long second = syntheticId();
+        Long third = syntheticId();
+        record(first);
+        record(second);
+        record(third);
+        assignSequence();
+
+        ProductChangesResponse page = changeFeedService.getChanges(cursor, 2);
+        assertEquals(List.of(first, second), ids(page));
+        assertTrue(page.isHasMore());
+        assertEquals(sequenceOf(second), page.getNextCursor());
+
+        ProductChangesResponse next = changeFeedService.getChanges(page.getNextCursor(), 2);
+        assertEquals(List.of(third), ids(next));
+        assertFalse(next.isHasMore());
+
+        ProductChangesResponse empty = changeFeedService.getChanges(next.getNextCursor(), 2);
+        assertTrue(empty.getChanges().isEmpty());
+        assertEquals(next.getNextCursor(), empty.getNextCursor());
+    }
+
+    @Test
+    void repeatedChangeMovesProductToTheEnd() {
+        long cursor = maxSequence();
+        Long first = syntheticId();
+        Long second = syntheticId();
+        record(first);
+        record(second);
+        assignSequence();
+        record(first);
+        assignSequence();
+
+        assertEquals(List.of(second, first), ids(changeFeedService.getChanges(cursor, 10)));
+    }
+
+    private void record(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> changeRepository.record(List.of(productId), List.of()));
+    }
+
+    /**
+     * Номера выдает один экземпляр за раз, плановая задача может держать блокировку - ждем ее коммита
+     */
+    private void assignSequence() {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Integer assigned = transactionTemplate.execute(status -> changeRepository.assignSequence(10_000));
+            if (assigned != null && assigned >= 0) {
+                return;
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        throw new AssertionError("Номера изменений так и не были выданы");
+    }
+
+    private Long sequenceOf(Long productId) {
+        List<Long> sequence = jdbcTemplate.queryForList(
+                "SELECT change_seq FROM product_changes WHERE product_id = ?", Long.class, productId);
+        return sequence.isEmpty() ? null : sequence.get(0);
+    }
+
+    private long maxSequence() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(change_seq), 0) FROM product_changes", Long.class);
+    }
+
+    private Long createProduct() {
+        String name = "changes-test-" + UUID.randomUUID();
+        Long id = jdbcTemplate.queryForObject("INSERT INTO products (name, sku, slug, price, stock_quantity, status) " +
+                "VALUES (?, ?, ?, 10, 1, 'ACTIVE') RETURNING id", Long.class, name, name, name);
+        productIds.add(id);
+        return id;
+    }
+
+    // Продукта с таким ID нет: в ленте он выглядит удаленным, что для проверки порядка неважно
+    private Long syntheticId() {
+        Long id = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        productIds.add(id);
+        return id;
+    }
+
+    private List<ProductChangeDTO> ownChanges(ProductChangesResponse response) {
+        return response.getChanges().stream()
+                .filter(change -> productIds.contains(change.getProductId()))
+                .toList();
+    }
+
+    private List<Long> ids(ProductChangesResponse response) {
+        return ownChanges(response).stream()
+                .map(ProductChangeDTO::getProductId)
+                .toList();
+    }
+
+    private static ProductChangeDTO find(List<ProductChangeDTO> changes, Long productId) {
+        return changes.stream()
+                .filter(change -> change.getProductId().equals(productId))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Уникальные slug-и для пачки продуктов: повторы внутри пачки, уже занятые base-N
+ * и имя, slug которого сам выглядит как base-N
+ */
+@ExtendWith(MockitoExtension.class)
+class SlugServiceImplTests {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Captor
+    private ArgumentCaptor<Collection<String>> bases;
+
+    private SlugServiceImpl slugService;
+
+    @BeforeEach
+    void setUp() {
+        slugService = new SlugServiceImpl(productRepository);
+    }
+
+    @Test
+    void duplicatesInBatchGetIncreasingSuffixes() {
+        when(productRepository.findSlugsByBaseIn(anyCollection())).thenReturn(List.of());
+
+        List<String> slugs = slugService.generateUniqueProductSlugs(List.of("iPhone", "Galaxy", "iPhone", "iPhone"));
+
+        assertEquals(List.of("iphone", "galaxy", "iphone-2", "iphone-3"), slugs);
+        // Занятые slug-и всех баз - одним запросом
+        verify(productRepository).findSlugsByBaseIn(bases.capture());
+        assertEquals(Set.of("iphone", "galaxy"), new HashSet<>(bases.getValue()));
+    }
+
+    @Test
+    void suffixContinuesAfterHighestTaken() {
+        when(productRepository.findSlugsByBaseIn(anyCollection()))
+                .thenReturn(List.of("iphone", "iphone-2", "iphone-7", "galaxy-3"));
+
+        List<String> slugs = slugService.generateUniqueProductSlugs(List.of("iPhone", "Galaxy", "Galaxy"));
+
+        // Свободная база занимается как есть, даже если base-N уже есть
+        assertEquals(List.of("iphone-8", "galaxy", "galaxy-4"), slugs);
+    }
+
+    @Test
+    void generatedSuffixSkipsLiteralSlugFromBatch() {
+        when(productRepository.findSlugsByBaseIn(anyCollection())).thenReturn(List.of());
+
+        List<String> slugs = slugService.generateUniqueProductSlugs(List.of("iPhone 2", "iPhone", "iPhone"));
+
+        assertEquals(List.of("iphone-2", "iphone", "iphone-3"), slugs);
+    }
+
+    @Test
+    void literalSlugAfterGeneratedSuffixGetsOwnSuffix() {
+        when(productRepository.findSlugsByBaseIn(anyCollection())).thenReturn(List.of());
+
+        List<String> slugs = slugService.generateUniqueProductSlugs(List.of("iPhone", "iPhone", "iPhone 2"));
+
+        assertEquals(List.of("iphone", "iphone-2", "iphone-2-2"), slugs);
+    }
+
+    @Test
+    void generatedSuffixSkipsLiteralSlugTakenInDatabase() {
+        // "iphone-2" занят продуктом с именем "iPhone 2", а базы "iphone" в БД нет
+        when(productRepository.findSlugsByBaseIn(anyCollection())).thenReturn(List.of("iphone-2"));
+
+        List<String> slugs = slugService.generateUniqueProductSlugs(List.of("iPhone", "iPhone", "iPhone 2"));
+
+        assertEquals(List.of("iphone", "iphone-3", "iphone-2-2"), slugs);
+    }
+}
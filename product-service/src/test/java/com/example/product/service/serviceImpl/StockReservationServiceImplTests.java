@@ -0,0 +1,188 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.Exception.InsufficientStockException;
+import com.example.product.Exception.ResourceNotFoundException;
+import com.example.product.dto.Stock.StockReservationDTO;
+import com.example.product.dto.Stock.StockReservationLineDTO;
+import com.example.product.dto.Stock.StockReservationRequest;
+import com.example.product.enums.ProductStatus;
+import com.example.product.enums.ReservationStatus;
+import com.example.product.model.StockReservation;
+import com.example.product.repository.StockJdbcRepository;
+import com.example.product.repository.StockJdbcRepository.StockChange;
+import com.example.product.repository.StockReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Резервирование и отмена: разделение позиций между строкой продукта и полосами,
+ * повтор запроса и конфликт уникального ключа
+ */
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceImplTests {
+
+    private static final long REGULAR = 1L;
+    private static final long HOT = 2L;
+
+    @Mock
+    private StockReservationRepository reservationRepository;
+
+    @Mock
+    private StockJdbcRepository stockJdbcRepository;
+
+    @Mock
+    private HotStockLedger hotStockLedger;
+
+    @Mock
+    private StockStatusTransitions statusTransitions;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private StockReservationServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new StockReservationServiceImpl(reservationRepository, stockJdbcRepository, hotStockLedger,
+                statusTransitions, transactionManager, Duration.ofMinutes(15), Duration.ofHours(2), 500, 200);
+    }
+
+    @Test
+    void repeatedRequestReturnsExistingReservation() {
+        when(reservationRepository.findByOrderIdOrderById("order-1"))
+                .thenReturn(List.of(reservation(REGULAR, 3, ReservationStatus.RESERVED)));
+
+        StockReservationDTO result = service.reserve(request(REGULAR, 3));
+
+        assertEquals(ReservationStatus.RESERVED, result.getStatus());
+        InOrder order = inOrder(stockJdbcRepository, reservationRepository);
+        order.verify(stockJdbcRepository).lockOrder("order-1");
+        order.verify(reservationRepository).findByOrderIdOrderById("order-1");
+        verify(stockJdbcRepository, never()).reserve(anyMap());
+        verify(reservationRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void hotLinesAreReservedFromLedger() {
+        when(reservationRepository.findByOrderIdOrderById("order-1")).thenReturn(List.of());
+        when(hotStockLedger.isHot(HOT)).thenReturn(true);
+        when(stockJdbcRepository.reserve(Map.of(REGULAR, 2)))
+                .thenReturn(List.of(new StockChange(REGULAR, 8, ProductStatus.ACTIVE, ProductStatus.ACTIVE)));
+        when(hotStockLedger.tryReserve(HOT, 5)).thenReturn(HotStockLedger.Result.RESERVED);
+
+        StockReservationDTO result = service.reserve(request(REGULAR, 2, HOT, 5));
+
+        assertEquals(2, result.getLines().size());
+        verify(stockJdbcRepository, never()).reserve(Map.of(HOT, 5));
+        verify(reservationRepository).saveAll(anyList());
+    }
+
+    @Test
+    void insufficientLedgerStockFailsWholeReservation() {
+        when(reservationRepository.findByOrderIdOrderById("order-1")).thenReturn(List.of());
+        when(hotStockLedger.isHot(HOT)).thenReturn(true);
+        when(hotStockLedger.tryReserve(HOT, 5)).thenReturn(HotStockLedger.Result.INSUFFICIENT);
+
+        InsufficientStockException e = assertThrows(InsufficientStockException.class,
+                () -> service.reserve(request(HOT, 5)));
+
+        assertEquals(List.of(HOT), e.getProductIds());
+        verify(reservationRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void productNoLongerHotIsReservedFromDatabase() {
+        when(reservationRepository.findByOrderIdOrderById("order-1")).thenReturn(List.of());
+        when(hotStockLedger.isHot(HOT)).thenReturn(true);
+        when(hotStockLedger.tryReserve(HOT, 5)).thenReturn(HotStockLedger.Result.NOT_HOT);
+        when(stockJdbcRepository.reserve(Map.of(HOT, 5)))
+                .thenReturn(List.of(new StockChange(HOT, 0, ProductStatus.ACTIVE, ProductStatus.OUT_OF_STOCK)));
+
+        service.reserve(request(HOT, 5));
+
+        verify(reservationRepository).saveAll(anyList());
+    }
+
+    @Test
+    void concurrentDuplicateIsReportedAsConflict() {
+        when(reservationRepository.findByOrderIdOrderById("order-1")).thenReturn(List.of());
+        when(stockJdbcRepository.reserve(Map.of(REGULAR, 2)))
+                .thenReturn(List.of(new StockChange(REGULAR, 8, ProductStatus.ACTIVE, ProductStatus.ACTIVE)));
+        when(reservationRepository.saveAll(anyList()))
+                .thenThrow(new DataIntegrityViolationException("uk_stock_reservations_order_product_active"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> service.reserve(request(REGULAR, 2)));
+
+        assertEquals("Резерв заказа order-1 уже создан параллельным запросом", e.getMessage());
+    }
+
+    @Test
+    void releaseReturnsRegularStockAndHotStockToLedger() {
+        StockReservation regular = reservation(REGULAR, 2, ReservationStatus.RESERVED);
+        StockReservation hot = reservation(HOT, 5, ReservationStatus.RESERVED);
+        when(reservationRepository.findForUpdate("order-1", ReservationStatus.RESERVED))
+                .thenReturn(List.of(regular, hot));
+        when(reservationRepository.findByOrderIdOrderById("order-1")).thenReturn(List.of(regular, hot));
+        when(hotStockLedger.isHot(HOT)).thenReturn(true);
+
+        StockReservationDTO result = service.release("order-1");
+
+        assertEquals(ReservationStatus.RELEASED, result.getStatus());
+        verify(stockJdbcRepository).returnStock(Map.of(REGULAR, 2));
+        verify(hotStockLedger).releaseOrReturn(HOT, 5);
+    }
+
+    @Test
+    void releaseOfUnknownOrderFails() {
+        when(reservationRepository.findForUpdate(anyString(), any())).thenReturn(List.of());
+        when(reservationRepository.findByOrderIdOrderById("order-1")).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> service.release("order-1"));
+        verify(stockJdbcRepository, never()).returnStock(anyMap());
+    }
+
+    private static StockReservationRequest request(Object... productQuantities) {
+        List<StockReservationLineDTO> lines = new ArrayList<>();
+        for (int i = 0; i < productQuantities.length; i += 2) {
+            lines.add(StockReservationLineDTO.builder()
+                    .productId((Long) productQuantities[i])
+                    .quantity((Integer) productQuantities[i + 1])
+                    .build());
+        }
+        return StockReservationRequest.builder().orderId("order-1").lines(lines).build();
+    }
+
+    private static StockReservation reservation(long productId, int quantity, ReservationStatus status) {
+        return StockReservation.builder()
+                .orderId("order-1")
+                .productId(productId)
+                .quantity(quantity)
+                .status(status)
+                .expiresAt(LocalDateTime.of(2030, 1, 1, 0, 0))
+                .build();
+    }
+}
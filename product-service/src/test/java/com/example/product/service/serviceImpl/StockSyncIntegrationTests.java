@@ -0,0 +1,246 @@
+package com.example.product.service.serviceImpl;
+
+import com.example.product.dto.Stock.StockSyncEntryDTO;
+import com.example.product.dto.Stock.StockSyncRequest;
+import com.example.product.dto.Stock.StockSyncResultDTO;
+import com.example.product.repository.StockJdbcRepository;
+import com.example.product.service.StockSyncService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Складская синхронизация остатков на реальной БД: объединение повторов по SKU, пропуск
+ * устаревших записей, вычитание резервов и полос горячих продуктов, переключение статуса
+ * и короткие транзакции по частям пачки.
+ * Нужна доступная PostgreSQL (DB_USERNAME/DB_PASSWORD, как и для запуска приложения).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DB_USERNAME", matches = ".+")
+class StockSyncIntegrationTests {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StockSyncService stockSyncService;
+
+    @Autowired
+    private StockJdbcRepository stockJdbcRepository;
+
+    @Autowired
+    private StockStatusTransitions statusTransitions;
+
+    @Autowired
+    private HotStockLedger hotStockLedger;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String prefix = "sync-test-" + UUID.randomUUID() + "-";
+    private final List<Long> productIds = new ArrayList<>();
+
+    @AfterEach
+    void deleteProducts() {
+        for (Long productId : productIds) {
+            jdbcTemplate.update("DELETE FROM stock_reservations WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM product_changes WHERE product_id = ?", productId);
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", productId);
+        }
+    }
+
+    @Test
+    void latestEntryPerSkuWins() {
+        Long productId = createProduct("a", 10, "ACTIVE");
+
+        StockSyncResultDTO result = stockSyncService.sync(request(
+                bySku("a", 7, T0.plusMinutes(2)),
+                bySku("a", 3, T0.plusMinutes(5)),
+                bySku("a", 9, T0.plusMinutes(1))));
+
+        assertEquals(3, result.getReceived());
+        assertEquals(1, result.getCoalesced());
+        assertEquals(1, result.getUpdated());
+        assertEquals(3, stock(productId));
+    }
+
+    @Test
+    void entryOlderThanAppliedIsSkipped() {
+        Long productId = createProduct("a", 10, "ACTIVE");
+        stockSyncService.sync(request(byId(productId, 5, T0.plusMinutes(10))));
+
+        StockSyncResultDTO stale = stockSyncService.sync(request(byId(productId, 50, T0.plusMinutes(9))));
+        StockSyncResultDTO same = stockSyncService.sync(request(byId(productId, 50, T0.plusMinutes(10))));
+
+        assertEquals(1, stale.getSkipped());
+        assertEquals(1, same.getSkipped());
+        assertEquals(5, stock(productId));
+        assertEquals(T0.plusMinutes(10), jdbcTemplate.queryForObject(
+                "SELECT stock_synced_at FROM products WHERE id = ?", LocalDateTime.class, productId));
+    }
+
+    @Test
+    void reservationsAndLedgerAreSubtracted() {
+        Long productId = createProduct("a", 0, "ACTIVE");
+        reserve(productId, 3);
+        allocate(productId, 5);
+
+        stockSyncService.sync(request(byId(productId, 20, T0)));
+
+        // Доступно 20 - 3 = 17, из них 5 уже в полосах
+        assertEquals(12, stock(productId));
+        assertEquals(5, allocated(productId));
+    }
+
+    @Test
+    void ledgerAboveAvailableIsTrimmed() {
+        Long productId = createProduct("a", 0, "ACTIVE");
+        reserve(productId, 3);
+        allocate(productId, 5);
+
+        stockSyncService.sync(request(byId(productId, 6, T0)));
+
+        // Доступно 6 - 3 = 3: две лишние единицы списаны из полос, остальное вернулось в строку
+        assertEquals(3, stock(productId));
+        assertEquals(0, allocated(productId));
+        assertEquals("ACTIVE", status(productId));
+    }
+
+    @Test
+    void statusFollowsAvailableStock() {
+        Long active = createProduct("a", 10, "ACTIVE");
+        Long inactive = createProduct("b", 10, "INACTIVE");
+
+        StockSyncResultDTO empty = stockSyncService.sync(request(byId(active, 0, T0), byId(inactive, 0, T0)));
+        assertEquals(1, empty.getStatusChanged());
+        assertEquals("OUT_OF_STOCK", status(active));
+        assertEquals("INACTIVE", status(inactive));
+
+        StockSyncResultDTO refilled = stockSyncService.sync(request(
+                byId(active, 4, T0.plusMinutes(1)), byId(inactive, 4, T0.plusMinutes(1))));
+        assertEquals(1, refilled.getStatusChanged());
+        assertEquals("ACTIVE", status(active));
+        assertEquals("INACTIVE", status(inactive));
+    }
+
+    @Test
+    void chunksCommitIndependently() throws Exception {
+        Long first = createProduct("a", 1, "ACTIVE");
+        Long second = createProduct("b", 1, "ACTIVE");
+        Long locked = createProduct("c", 1, "ACTIVE");
+        StockSyncServiceImpl chunkedSync = new StockSyncServiceImpl(stockJdbcRepository, statusTransitions,
+                hotStockLedger, transactionManager, new SimpleMeterRegistry(), 1000, 2);
+
+        CountDownLatch rowLocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Строка продукта второй части занята другой транзакцией
+            Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager)
+                    .executeWithoutResult(status -> {
+                        jdbcTemplate.queryForList("SELECT id FROM products WHERE id = ? FOR UPDATE", locked);
+                        rowLocked.countDown();
+                        try {
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }));
+            assertTrue(rowLocked.await(10, TimeUnit.SECONDS));
+
+            Future<StockSyncResultDTO> sync = executor.submit(() -> chunkedSync.sync(request(
+                    byId(first, 7, T0), byId(second, 8, T0), byId(locked, 9, T0))));
+
+            // Первая часть закоммичена, пока вторая ждет блокировку
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (stock(second) != 8 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(7, stock(first));
+            assertEquals(8, stock(second));
+            assertEquals(1, stock(locked));
+
+            release.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+            assertEquals(3, sync.get(10, TimeUnit.SECONDS).getUpdated());
+            assertEquals(9, stock(locked));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private Long createProduct(String sku, int stock, String status) {
+        Long id = jdbcTemplate.queryForObject("INSERT INTO products (name, sku, slug, price, stock_quantity, status) " +
+                "VALUES (?, ?, ?, 10, ?, ?) RETURNING id", Long.class,
+                prefix + sku, prefix + sku, prefix + sku, stock, status);
+        productIds.add(id);
+        return id;
+    }
+
+    private void reserve(Long productId, int quantity) {
+        jdbcTemplate.update("INSERT INTO stock_reservations (order_id, product_id, quantity, status, expires_at) " +
+                "VALUES (?, ?, ?, 'RESERVED', now() + interval '15 minutes')", prefix + productId, productId, quantity);
+    }
+
+    private void allocate(Long productId, int quantity) {
+        jdbcTemplate.update("INSERT INTO stock_ledger (product_id, bucket, quantity) VALUES (?, 0, ?)",
+                productId, quantity);
+    }
+
+    private int stock(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM products WHERE id = ?", Integer.class, productId);
+    }
+
+    private int allocated(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(quantity), 0) FROM stock_ledger WHERE product_id = ?",
+                Integer.class, productId);
+    }
+
+    private String status(Long productId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM products WHERE id = ?", String.class, productId);
+    }
+
+    private StockSyncEntryDTO byId(Long productId, int quantity, LocalDateTime sourceTimestamp) {
+        return StockSyncEntryDTO.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .sourceTimestamp(sourceTimestamp)
+                .build();
+    }
+
+    private StockSyncEntryDTO bySku(String sku, int quantity, LocalDateTime sourceTimestamp) {
+        return StockSyncEntryDTO.builder()
+                .sku(prefix + sku)
+                .quantity(quantity)
+                .sourceTimestamp(sourceTimestamp)
+                .build();
+    }
+
+    private static StockSyncRequest request(StockSyncEntryDTO... entries) {
+        return StockSyncRequest.builder()
+                .entries(List.of(entries))
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.product.util;
+
+import com.example.product.util.AdaptiveConcurrencyLimiter.Outcome;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Очередь и таймаут сверх предела, рост предела только под нагрузкой, снижение на медленных ответах
+ */
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void overLimitWithoutQueueIsRejected() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 4, 0);
+
+        assertEquals(Outcome.ACQUIRED, limiter.acquire(0));
+        assertEquals(Outcome.QUEUE_FULL, limiter.acquire(TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    @Test
+    void queuedRequestTimesOut() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 4, 1);
+        limiter.acquire(0);
+
+        assertEquals(Outcome.TIMEOUT, limiter.acquire(TimeUnit.MILLISECONDS.toNanos(20)));
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void queuedRequestGetsReleasedSlot() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 1, 4, 1);
+        limiter.acquire(0);
+
+        CompletableFuture<Outcome> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire(TimeUnit.SECONDS.toNanos(5));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limiter.getQueued() == 0) {
+            Thread.onSpinWait();
+        }
+        limiter.release(FAST, false);
+
+        assertEquals(Outcome.ACQUIRED, waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void limitGrowsOnlyWhenSaturated() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 4, 0);
+
+        // Предел не выбран: быстрые ответы его не поднимают
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(0);
+            limiter.release(FAST, false);
+        }
+        assertEquals(2, limiter.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            int limit = limiter.getLimit();
+            for (int j = 0; j < limit; j++) {
+                limiter.acquire(0);
+            }
+            for (int j = 0; j < limit; j++) {
+                limiter.release(FAST, false);
+            }
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void slowOrOverloadedResponseShrinksLimitDownToMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 10, 5, 10, 0,
+                1, TimeUnit.NANOSECONDS, 0.5);
+
+        limiter.acquire(0);
+        limiter.release(SLOW, false);
+        assertEquals(5, limiter.getLimit());
+
+        limiter.acquire(0);
+        limiter.release(FAST, true);
+        assertEquals(5, limiter.getLimit());
+    }
+
+    private static AdaptiveConcurrencyLimiter limiter(int initial, int min, int max, int maxQueue) {
+        return new AdaptiveConcurrencyLimiter("test", initial, min, max, maxQueue,
+                100, TimeUnit.MILLISECONDS, 0.5);
+    }
+}
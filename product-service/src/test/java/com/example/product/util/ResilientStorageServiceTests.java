@@ -0,0 +1,193 @@
+package com.example.product.util;
+
+import com.example.product.enums.ImageSize;
+import com.example.product.service.StorageService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Обёртка хранилища поверх поддельного бэкенда: сбои и таймауты открывают выключатель,
+ * отсутствующее изображение и перегрузка на нашей стороне - нет
+ */
+class ResilientStorageServiceTests {
+
+    private static final int FAILURE_THRESHOLD = 2;
+
+    private FakeStorage backend;
+    private ResilientStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        backend = new FakeStorage();
+        service = new ResilientStorageService(backend, new SimpleMeterRegistry(),
+                Duration.ofSeconds(5), Duration.ofSeconds(5), Duration.ofMillis(100),
+                1, Duration.ofMillis(50), FAILURE_THRESHOLD, Duration.ofMinutes(1),
+                Duration.ofMinutes(10), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backend.unblock.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void deleteFailuresOpenBreaker() {
+        backend.failure = new UncheckedIOException(new IOException("connection reset"));
+
+        for (int i = 0; i < FAILURE_THRESHOLD + 1; i++) {
+            assertFalse(service.deleteImage("img"));
+        }
+
+        // Третий вызов не дошел до хранилища
+        assertEquals(FAILURE_THRESHOLD, backend.calls.get());
+    }
+
+    @Test
+    void missingImageDoesNotOpenBreaker() {
+        backend.deleted = false;
+
+        for (int i = 0; i < FAILURE_THRESHOLD + 1; i++) {
+            assertFalse(service.deleteImage("img"));
+        }
+
+        assertEquals(FAILURE_THRESHOLD + 1, backend.calls.get());
+    }
+
+    @Test
+    void infoTimeoutsOpenBreaker() {
+        backend.block = true;
+
+        for (int i = 0; i < FAILURE_THRESHOLD + 1; i++) {
+            assertTrue(service.getImageInfo("img").isEmpty());
+        }
+
+        assertEquals(FAILURE_THRESHOLD, backend.calls.get());
+    }
+
+    @Test
+    void infoIsCached() {
+        assertEquals(Map.of("public_id", "img"), service.getImageInfo("img"));
+        assertEquals(Map.of("public_id", "img"), service.getImageInfo("img"));
+
+        assertEquals(1, backend.calls.get());
+    }
+
+    @Test
+    void bulkheadRejectionDoesNotOpenBreaker() throws Exception {
+        backend.block = true;
+        CompletableFuture<Boolean> slowDelete = CompletableFuture.supplyAsync(() -> service.deleteImage("slow"));
+        assertTrue(backend.entered.await(5, TimeUnit.SECONDS));
+
+        // Единственный слот занят: вызовы отклоняются без обращения к хранилищу
+        for (int i = 0; i < FAILURE_THRESHOLD + 1; i++) {
+            assertTrue(service.getImageInfo("img" + i).isEmpty());
+        }
+        assertEquals(1, backend.calls.get());
+
+        backend.block = false;
+        backend.unblock.countDown();
+        assertTrue(slowDelete.get(5, TimeUnit.SECONDS));
+        assertEquals(Map.of("public_id", "img"), service.getImageInfo("img"));
+    }
+
+    @Test
+    void uploadReadsFileOnCallerThread() throws IOException {
+        byte[] content = {1, 2, 3};
+        Thread caller = Thread.currentThread();
+        AtomicInteger readsOnCaller = new AtomicInteger();
+        MockMultipartFile file = new MockMultipartFile("file", "photo.png", "image/png", content) {
+            @Override
+            public byte[] getBytes() throws IOException {
+                if (Thread.currentThread() == caller) {
+                    readsOnCaller.incrementAndGet();
+                }
+                return super.getBytes();
+            }
+        };
+
+        StorageService.StorageResult result = service.uploadImage(file);
+
+        assertEquals("photo.png", result.getImageId());
+        assertEquals(1, readsOnCaller.get());
+        assertArrayEquals(content, backend.uploaded);
+        assertNotEquals(caller, backend.uploadThread);
+    }
+
+    private static class FakeStorage implements StorageService {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        volatile RuntimeException failure;
+        volatile boolean block;
+        volatile boolean deleted = true;
+        volatile byte[] uploaded;
+        volatile Thread uploadThread;
+
+        @Override
+        public StorageResult uploadImage(byte[] content, String originalFilename) {
+            invoke();
+            uploaded = content;
+            uploadThread = Thread.currentThread();
+            return new StorageResult("https://cdn/" + originalFilename, originalFilename);
+        }
+
+        @Override
+        public boolean deleteImage(String imageId) {
+            invoke();
+            return deleted;
+        }
+
+        @Override
+        public Map<String, Object> getImageInfo(String imageId) {
+            invoke();
+            return Map.of("public_id", "img");
+        }
+
+        @Override
+        public String getDerivativeUrl(String imageId, ImageSize size, boolean webp) {
+            return "https://cdn/" + imageId;
+        }
+
+        @Override
+        public void generateDerivatives(String imageId, Collection<ImageSize> sizes) {
+            invoke();
+        }
+
+        private void invoke() {
+            calls.incrementAndGet();
+            entered.countDown();
+            if (block) {
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}